@@ -79,6 +79,9 @@ public class JobSpecificationActivityClusterGraphGeneratorFactory implements IAc
         acg.setConnectorPolicyAssignmentPolicy(spec.getConnectorPolicyAssignmentPolicy());
         acg.setUseConnectorPolicyForScheduling(spec.isUseConnectorPolicyForScheduling());
         acg.setReportTaskDetails(spec.isReportTaskDetails());
+        acg.setRunFileCompression(spec.isRunFileCompression());
+        acg.setRunFileChecksums(spec.isRunFileChecksums());
+        acg.setRunFileAsyncIOFrames(spec.getRunFileAsyncIOFrames());
         final Set<Constraint> constraints = new HashSet<Constraint>();
         final IConstraintAcceptor acceptor = new IConstraintAcceptor() {
             @Override
@@ -36,4 +36,20 @@ public interface IHyracksJobletContext extends IWorkspaceFileFactory, IDeallocat
     public Class<?> loadClass(String className);
 
     public ClassLoader getClassLoader();
+
+    /**
+     * @return <code>true</code> if run files spilled by this job should be compressed.
+     */
+    public boolean isRunFileCompression();
+
+    /**
+     * @return <code>true</code> if run files spilled by this job should carry checksums that are verified on read.
+     */
+    public boolean isRunFileChecksums();
+
+    /**
+     * @return the number of frames run files of this job write and prefetch per asynchronous request, or 0 if they
+     *         use synchronous I/O
+     */
+    public int getRunFileAsyncIOFrames();
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.api.dataflow.value;
+
+/**
+ * A normalized key computer that can produce keys longer than a single int.
+ * The key is written as a sequence of 32-bit words which are compared
+ * lexicographically as unsigned ints: if the keys of two values differ, their
+ * order must agree with the order of the values themselves.
+ */
+public interface IMultiWordNormalizedKeyComputer extends INormalizedKeyComputer {
+    /**
+     * @return the number of words written by {@link #normalize(byte[], int, int, int[], int)}
+     */
+    public int getNormalizedKeyLength();
+
+    /**
+     * Writes the normalized key of the given value into {@code target}, starting at {@code targetOffset}.
+     */
+    public void normalize(byte[] bytes, int start, int length, int[] target, int targetOffset);
+
+    /**
+     * @return true if two values with equal normalized keys always compare as equal, i.e. if the
+     *         normalized key fully determines the order of the values
+     */
+    public boolean isDecisive();
+}
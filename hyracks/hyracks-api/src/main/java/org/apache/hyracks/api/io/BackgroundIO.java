@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.api.io;
+
+/**
+ * Marks the threads that perform background I/O, such as LSM flushes and merges, so that their reads can be told apart
+ * from the reads that queries wait for.
+ */
+public class BackgroundIO {
+    private static final ThreadLocal<Boolean> BACKGROUND = new ThreadLocal<Boolean>();
+
+    private BackgroundIO() {
+    }
+
+    /**
+     * Marks the current thread as performing background I/O until {@link #end(boolean)} is called.
+     *
+     * @return whether the thread was marked already, which is to be passed to {@link #end(boolean)}
+     */
+    public static boolean begin() {
+        boolean wasBackground = isBackground();
+        BACKGROUND.set(Boolean.TRUE);
+        return wasBackground;
+    }
+
+    public static void end(boolean wasBackground) {
+        if (!wasBackground) {
+            BACKGROUND.remove();
+        }
+    }
+
+    public static boolean isBackground() {
+        return BACKGROUND.get() != null;
+    }
+}
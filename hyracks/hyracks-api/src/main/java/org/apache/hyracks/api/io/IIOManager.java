@@ -43,8 +43,30 @@ public interface IIOManager {
 
     public int syncWrite(IFileHandle fHandle, long offset, ByteBuffer data) throws HyracksDataException;
 
+    /**
+     * Writes the remaining bytes of the buffers, in order, to consecutive positions starting at offset.
+     */
+    public long syncWrite(IFileHandle fHandle, long offset, ByteBuffer[] dataArray) throws HyracksDataException;
+
     public int syncRead(IFileHandle fHandle, long offset, ByteBuffer data) throws HyracksDataException;
 
+    /**
+     * @return the number of reads completed so far, including the ones that were requested asynchronously, but not
+     *         the ones requested by threads that perform {@link BackgroundIO}
+     */
+    public long getReadCount();
+
+    /**
+     * @return the total time, in nanoseconds, spent in the reads counted by {@link #getReadCount()}
+     */
+    public long getReadTimeNanos();
+
+    /**
+     * Maps the current contents of the file read-only. The file is mapped in consecutive segments of segmentSize
+     * bytes, the last of which may be shorter.
+     */
+    public ByteBuffer[] mapReadOnly(IFileHandle fHandle, int segmentSize) throws HyracksDataException;
+
     public IIOFuture asyncWrite(IFileHandle fHandle, long offset, ByteBuffer data);
 
     public IIOFuture asyncRead(IFileHandle fHandle, long offset, ByteBuffer data);
@@ -58,6 +58,12 @@ public class ActivityClusterGraph implements Serializable {
 
     private boolean reportTaskDetails;
 
+    private boolean runFileCompression;
+
+    private boolean runFileChecksums;
+
+    private int runFileAsyncIOFrames;
+
     public ActivityClusterGraph() {
         version = 0;
         activityClusterMap = new HashMap<ActivityClusterId, ActivityCluster>();
@@ -152,6 +158,30 @@ public class ActivityClusterGraph implements Serializable {
         this.reportTaskDetails = reportTaskDetails;
     }
 
+    public boolean isRunFileCompression() {
+        return runFileCompression;
+    }
+
+    public void setRunFileCompression(boolean runFileCompression) {
+        this.runFileCompression = runFileCompression;
+    }
+
+    public boolean isRunFileChecksums() {
+        return runFileChecksums;
+    }
+
+    public void setRunFileChecksums(boolean runFileChecksums) {
+        this.runFileChecksums = runFileChecksums;
+    }
+
+    public int getRunFileAsyncIOFrames() {
+        return runFileAsyncIOFrames;
+    }
+
+    public void setRunFileAsyncIOFrames(int runFileAsyncIOFrames) {
+        this.runFileAsyncIOFrames = runFileAsyncIOFrames;
+    }
+
     public List<IConnectorDescriptor> getActivityInputs(ActivityId activityId) {
         ActivityCluster ac = activityMap.get(activityId);
         return ac.getActivityInputMap().get(activityId);
@@ -81,6 +81,12 @@ public class JobSpecification implements Serializable, IOperatorDescriptorRegist
 
     private boolean reportTaskDetails;
 
+    private boolean runFileCompression;
+
+    private boolean runFileChecksums;
+
+    private int runFileAsyncIOFrames;
+
     private transient int operatorIdCounter;
 
     private transient int connectorIdCounter;
@@ -303,6 +309,37 @@ public class JobSpecification implements Serializable, IOperatorDescriptorRegist
         this.reportTaskDetails = reportTaskDetails;
     }
 
+    public boolean isRunFileCompression() {
+        return runFileCompression;
+    }
+
+    public void setRunFileCompression(boolean runFileCompression) {
+        this.runFileCompression = runFileCompression;
+    }
+
+    public boolean isRunFileChecksums() {
+        return runFileChecksums;
+    }
+
+    public void setRunFileChecksums(boolean runFileChecksums) {
+        this.runFileChecksums = runFileChecksums;
+    }
+
+    public int getRunFileAsyncIOFrames() {
+        return runFileAsyncIOFrames;
+    }
+
+    /**
+     * Makes run file writers batch spilled frames into asynchronous writes of the given number of frames, and run
+     * file readers prefetch that many frames with one asynchronous read. Each open run file then holds two such
+     * blocks, allocated from the frames of its task. Operators charge them to their frames limit, which lowers the
+     * fan-in of merges and the memory of sorts, groupings and joins, and spill synchronously if the blocks would take
+     * more than half of the frames of a writer. 0, the default, spills and reads one frame at a time.
+     */
+    public void setRunFileAsyncIOFrames(int runFileAsyncIOFrames) {
+        this.runFileAsyncIOFrames = runFileAsyncIOFrames;
+    }
+
     private <K, V> void insertIntoIndexedMap(Map<K, List<V>> map, K key, int index, V value) {
         List<V> vList = map.get(key);
         if (vList == null) {
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.api.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the tasks that an operator or an index splits its work into, such as the key ranges of a parallel merge, on a
+ * thread pool that is shared by the whole process. The pool's threads are named daemon threads, and idle ones
+ * terminate after a minute, so no caller creates or shuts down a pool of its own.
+ * A group lets its submitter wait until all of its tasks have finished, also after one of them has failed. Running
+ * tasks are not interrupted when the group is cancelled, since an interrupt closes the file channels that they may be
+ * reading. Long tasks should check {@link #isCancelled()} instead.
+ */
+public class TaskGroup<T> {
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "TaskGroup-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    private final List<Future<T>> futures = new ArrayList<Future<T>>();
+    private volatile boolean cancelled;
+    private int numRunning;
+
+    public Future<T> submit(final Callable<T> task) {
+        Future<T> future = EXECUTOR.submit(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                synchronized (TaskGroup.this) {
+                    if (cancelled) {
+                        return null;
+                    }
+                    numRunning++;
+                }
+                try {
+                    return task.call();
+                } finally {
+                    synchronized (TaskGroup.this) {
+                        numRunning--;
+                        TaskGroup.this.notifyAll();
+                    }
+                }
+            }
+        });
+        futures.add(future);
+        return future;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Keeps the tasks that have not started from running, and waits until the running ones have finished.
+     */
+    public void cancelAndWait() {
+        synchronized (this) {
+            cancelled = true;
+        }
+        for (Future<T> future : futures) {
+            future.cancel(false);
+        }
+        boolean interrupted = false;
+        synchronized (this) {
+            while (numRunning > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
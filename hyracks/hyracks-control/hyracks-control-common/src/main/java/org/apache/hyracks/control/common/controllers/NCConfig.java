@@ -77,6 +77,21 @@ public class NCConfig implements Serializable {
     @Option(name = "-iodevices", usage = "Comma separated list of IO Device mount points (default: One device in default temp folder)", required = false)
     public String ioDevices = System.getProperty("java.io.tmpdir");
 
+    @Option(name = "-io-queue-depth", usage = "Maximum number of concurrent asynchronous I/O requests per IO device (default: 4)")
+    public int ioQueueDepth = 4;
+
+    @Option(name = "-io-queue-capacity", usage = "Maximum number of asynchronous I/O requests waiting per IO device (default: 256)")
+    public int ioQueueCapacity = 256;
+
+    @Option(name = "-lsm-io-max-rate", usage = "Maximum rate of LSM flush and merge writes in bytes per second, 0 for no limit (default: 0)")
+    public long lsmIOMaxRate = 0;
+
+    @Option(name = "-lsm-io-min-rate", usage = "Rate of LSM flush and merge writes in bytes per second below which they are not throttled (default: 1048576)")
+    public long lsmIOMinRate = 1048576;
+
+    @Option(name = "-lsm-io-target-read-latency", usage = "Average latency of query reads in microseconds above which LSM flush and merge writes are throttled, 0 to keep them at the maximum rate (default: 0)")
+    public long lsmIOTargetReadLatency = 0;
+
     @Option(name = "-net-thread-count", usage = "Number of threads to use for Network I/O (default: 1)")
     public int nNetThreads = 1;
 
@@ -135,6 +150,16 @@ public class NCConfig implements Serializable {
         cList.add(String.valueOf(resultPublicPort));
         cList.add("-iodevices");
         cList.add(ioDevices);
+        cList.add("-io-queue-depth");
+        cList.add(String.valueOf(ioQueueDepth));
+        cList.add("-io-queue-capacity");
+        cList.add(String.valueOf(ioQueueCapacity));
+        cList.add("-lsm-io-max-rate");
+        cList.add(String.valueOf(lsmIOMaxRate));
+        cList.add("-lsm-io-min-rate");
+        cList.add(String.valueOf(lsmIOMinRate));
+        cList.add("-lsm-io-target-read-latency");
+        cList.add(String.valueOf(lsmIOTargetReadLatency));
         cList.add("-net-thread-count");
         cList.add(String.valueOf(nNetThreads));
         cList.add("-net-buffer-count");
@@ -177,6 +202,11 @@ public class NCConfig implements Serializable {
         configuration.put("result-public-ip-address", resultPublicIPAddress);
         configuration.put("result-public-port", String.valueOf(resultPublicPort));
         configuration.put("iodevices", ioDevices);
+        configuration.put("io-queue-depth", String.valueOf(ioQueueDepth));
+        configuration.put("io-queue-capacity", String.valueOf(ioQueueCapacity));
+        configuration.put("lsm-io-max-rate", String.valueOf(lsmIOMaxRate));
+        configuration.put("lsm-io-min-rate", String.valueOf(lsmIOMinRate));
+        configuration.put("lsm-io-target-read-latency", String.valueOf(lsmIOTargetReadLatency));
         configuration.put("net-thread-count", String.valueOf(nNetThreads));
         configuration.put("net-buffer-count", String.valueOf(nNetBuffers));
         configuration.put("max-memory", String.valueOf(maxMemory));
@@ -325,6 +325,21 @@ public class Joblet implements IHyracksJobletContext, ICounterContext {
         }
     }
 
+    @Override
+    public boolean isRunFileCompression() {
+        return acg.isRunFileCompression();
+    }
+
+    @Override
+    public boolean isRunFileChecksums() {
+        return acg.isRunFileChecksums();
+    }
+
+    @Override
+    public int getRunFileAsyncIOFrames() {
+        return acg.getRunFileAsyncIOFrames();
+    }
+
     @Override
     public Class<?> loadClass(String className) {
         try {
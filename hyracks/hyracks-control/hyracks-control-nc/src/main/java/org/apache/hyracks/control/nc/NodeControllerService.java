@@ -165,7 +165,8 @@ public class NodeControllerService extends AbstractRemoteService {
         ipc = new IPCSystem(new InetSocketAddress(ncConfig.clusterNetIPAddress, ncConfig.clusterNetPort), ipci,
                 new CCNCFunctions.SerializerDeserializer());
 
-        this.ctx = new RootHyracksContext(this, new IOManager(getDevices(ncConfig.ioDevices)));
+        this.ctx = new RootHyracksContext(this, new IOManager(getDevices(ncConfig.ioDevices), ncConfig.ioQueueDepth,
+                ncConfig.ioQueueCapacity));
         if (id == null) {
             throw new Exception("id not set");
         }
@@ -316,7 +317,7 @@ public class NodeControllerService extends AbstractRemoteService {
     }
 
     private void startApplication() throws Exception {
-        appCtx = new NCApplicationContext(serverCtx, ctx, id, memoryManager, lccm);
+        appCtx = new NCApplicationContext(serverCtx, ctx, id, memoryManager, lccm, ncConfig);
         String className = ncConfig.appNCMainClass;
         if (className != null) {
             Class<?> c = Class.forName(className);
@@ -29,6 +29,7 @@ import org.apache.hyracks.api.lifecycle.ILifeCycleComponentManager;
 import org.apache.hyracks.api.resources.memory.IMemoryManager;
 import org.apache.hyracks.control.common.application.ApplicationContext;
 import org.apache.hyracks.control.common.context.ServerContext;
+import org.apache.hyracks.control.common.controllers.NCConfig;
 import org.apache.hyracks.control.nc.resources.memory.MemoryManager;
 
 public class NCApplicationContext extends ApplicationContext implements INCApplicationContext {
@@ -36,12 +37,20 @@ public class NCApplicationContext extends ApplicationContext implements INCAppli
     private final String nodeId;
     private final IHyracksRootContext rootCtx;
     private final MemoryManager memoryManager;
+    private final NCConfig ncConfig;
     private Object appObject;
     private IStateDumpHandler sdh;
 
     public NCApplicationContext(ServerContext serverCtx, IHyracksRootContext rootCtx, String nodeId,
             MemoryManager memoryManager, ILifeCycleComponentManager lifeCyclecomponentManager) throws IOException {
+        this(serverCtx, rootCtx, nodeId, memoryManager, lifeCyclecomponentManager, new NCConfig());
+    }
+
+    public NCApplicationContext(ServerContext serverCtx, IHyracksRootContext rootCtx, String nodeId,
+            MemoryManager memoryManager, ILifeCycleComponentManager lifeCyclecomponentManager, NCConfig ncConfig)
+            throws IOException {
         super(serverCtx);
+        this.ncConfig = ncConfig;
         this.lccm = lifeCyclecomponentManager;
         this.nodeId = nodeId;
         this.rootCtx = rootCtx;
@@ -65,6 +74,14 @@ public class NCApplicationContext extends ApplicationContext implements INCAppli
         return nodeId;
     }
 
+    /**
+     * @return the configuration that the node controller was started with, which holds the settings of services that
+     *         the application creates, such as the rate limit of its LSM I/O operations
+     */
+    public NCConfig getNCConfig() {
+        return ncConfig;
+    }
+
     public void setDistributedState(Serializable state) {
         distributedState = state;
     }
@@ -0,0 +1,285 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.control.nc.io;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Schedules the asynchronous requests of one I/O device. At most queueCapacity requests wait in the queue. A submitter
+ * that finds the queue full performs waiting requests itself until there is room, so it waits at most for a request
+ * that is already being performed. At most queueDepth requests are performed concurrently by worker tasks, which are
+ * started on demand and exit once no waiting request can be performed.
+ * Reads are served before writes, but a waiting write is served after {@link #MAX_READS_BEFORE_WRITE} reads. Within
+ * each class, the next request is the one that continues an ascending sweep over the file of the previous request,
+ * or the oldest request if there is none. After {@link #MAX_SWEEP_BEFORE_OLDEST} requests of a sweep were served
+ * ahead of an older request, the oldest request is served, so that a long sequential stream on one file does not
+ * starve the others. A request is not started while an earlier request on an overlapping range of the same file is
+ * waiting or being performed, unless both are reads, so that reads see earlier writes and writes are applied in order.
+ */
+class IODeviceQueue {
+    static final int MAX_READS_BEFORE_WRITE = 16;
+    static final int MAX_SWEEP_BEFORE_OLDEST = 16;
+
+    interface IRequest extends Runnable {
+        boolean isRead();
+
+        FileHandle getFileHandle();
+
+        long getOffset();
+
+        int getLength();
+    }
+
+    private final int queueDepth;
+    private final int queueCapacity;
+    private final List<Entry> reads;
+    private final List<Entry> writes;
+    private final List<Entry> active;
+    // The waiting and active requests of each file, in order of submission.
+    private final Map<FileHandle, List<Entry>> fileEntries;
+    private final Worker worker;
+    private Executor executor;
+    private long nextSequence;
+    private int numActiveWorkers;
+    private int readsSinceWrite;
+    private int sweepsSinceOldest;
+    private FileHandle lastFile;
+    private long lastOffset;
+
+    IODeviceQueue(int queueDepth, int queueCapacity) {
+        if (queueDepth < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Queue depth and capacity must be positive: " + queueDepth + ", "
+                    + queueCapacity);
+        }
+        this.queueDepth = queueDepth;
+        this.queueCapacity = queueCapacity;
+        reads = new ArrayList<Entry>();
+        writes = new ArrayList<Entry>();
+        active = new ArrayList<Entry>();
+        fileEntries = new HashMap<FileHandle, List<Entry>>();
+        worker = new Worker();
+    }
+
+    void submit(IRequest request, Executor executor) {
+        boolean interrupted = false;
+        boolean queued = false;
+        boolean startWorker = false;
+        while (!queued) {
+            Entry entry = null;
+            synchronized (this) {
+                this.executor = executor;
+                if (reads.size() + writes.size() < queueCapacity) {
+                    Entry newEntry = new Entry(request, nextSequence++);
+                    addToFile(newEntry);
+                    (request.isRead() ? reads : writes).add(newEntry);
+                    queued = true;
+                    startWorker = reserveWorker();
+                } else {
+                    entry = poll();
+                    if (entry == null) {
+                        // Every waiting request depends on one that is being performed.
+                        try {
+                            wait();
+                        } catch (InterruptedException e) {
+                            interrupted = true;
+                        }
+                    }
+                }
+            }
+            if (entry != null) {
+                perform(entry);
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (startWorker) {
+            executor.execute(worker);
+        }
+    }
+
+    synchronized int getNumQueued() {
+        return reads.size() + writes.size();
+    }
+
+    synchronized int getNumActive() {
+        return active.size();
+    }
+
+    private boolean reserveWorker() {
+        if (numActiveWorkers < queueDepth) {
+            ++numActiveWorkers;
+            return true;
+        }
+        return false;
+    }
+
+    private synchronized Entry next() {
+        Entry entry = poll();
+        if (entry == null) {
+            --numActiveWorkers;
+        }
+        return entry;
+    }
+
+    /**
+     * Removes the next request that may be started from the queue and marks it active.
+     *
+     * @return the request, or null if no waiting request may be started
+     */
+    private Entry poll() {
+        boolean readFirst = writes.isEmpty() || readsSinceWrite < MAX_READS_BEFORE_WRITE;
+        Entry entry = removeNext(readFirst ? reads : writes);
+        if (entry == null) {
+            entry = removeNext(readFirst ? writes : reads);
+        }
+        if (entry == null) {
+            return null;
+        }
+        if (entry.request.isRead()) {
+            ++readsSinceWrite;
+        } else {
+            readsSinceWrite = 0;
+        }
+        active.add(entry);
+        notifyAll();
+        lastFile = entry.request.getFileHandle();
+        lastOffset = entry.request.getOffset();
+        return entry;
+    }
+
+    private Entry removeNext(List<Entry> entries) {
+        // The entries are in order of submission, so the first one that is not blocked is the oldest.
+        int oldest = -1;
+        int sweep = -1;
+        long sweepOffset = Long.MAX_VALUE;
+        for (int i = 0; i < entries.size(); ++i) {
+            Entry entry = entries.get(i);
+            if (entry.blockers > 0) {
+                continue;
+            }
+            if (oldest < 0) {
+                oldest = i;
+            }
+            if (entry.request.getFileHandle() == lastFile && entry.request.getOffset() >= lastOffset
+                    && entry.request.getOffset() < sweepOffset) {
+                sweep = i;
+                sweepOffset = entry.request.getOffset();
+            }
+        }
+        if (oldest < 0) {
+            return null;
+        }
+        if (sweep < 0 || sweep == oldest || sweepsSinceOldest >= MAX_SWEEP_BEFORE_OLDEST) {
+            sweepsSinceOldest = 0;
+            return entries.remove(oldest);
+        }
+        ++sweepsSinceOldest;
+        return entries.remove(sweep);
+    }
+
+    /**
+     * Adds a new request to the requests of its file, blocked by the earlier ones that it conflicts with.
+     */
+    private void addToFile(Entry entry) {
+        List<Entry> entries = fileEntries.get(entry.request.getFileHandle());
+        if (entries == null) {
+            entries = new ArrayList<Entry>();
+            fileEntries.put(entry.request.getFileHandle(), entries);
+        }
+        for (int i = 0; i < entries.size(); ++i) {
+            if (conflicts(entries.get(i), entry)) {
+                ++entry.blockers;
+            }
+        }
+        entries.add(entry);
+    }
+
+    /**
+     * Removes a performed request from the requests of its file, and unblocks the later ones that it conflicts with.
+     */
+    private void removeFromFile(Entry entry) {
+        List<Entry> entries = fileEntries.get(entry.request.getFileHandle());
+        entries.remove(entry);
+        if (entries.isEmpty()) {
+            fileEntries.remove(entry.request.getFileHandle());
+        }
+        for (int i = 0; i < entries.size(); ++i) {
+            Entry other = entries.get(i);
+            if (other.sequence > entry.sequence && conflicts(entry, other)) {
+                --other.blockers;
+            }
+        }
+    }
+
+    /**
+     * @return true if two requests on the same file overlap and are not both reads
+     */
+    private static boolean conflicts(Entry entry, Entry other) {
+        IRequest request = entry.request;
+        IRequest o = other.request;
+        return !(o.isRead() && request.isRead()) && o.getOffset() < request.getOffset() + request.getLength()
+                && request.getOffset() < o.getOffset() + o.getLength();
+    }
+
+    private void perform(Entry entry) {
+        try {
+            entry.request.run();
+        } finally {
+            boolean startWorker;
+            synchronized (this) {
+                active.remove(entry);
+                removeFromFile(entry);
+                notifyAll();
+                // Requests that waited for this one may now be started.
+                startWorker = (!reads.isEmpty() || !writes.isEmpty()) && reserveWorker();
+            }
+            if (startWorker) {
+                executor.execute(worker);
+            }
+        }
+    }
+
+    private static class Entry {
+        private final IRequest request;
+        // Order of submission, which requests on overlapping ranges are performed in.
+        private final long sequence;
+        // Number of earlier requests on overlapping ranges of the same file that are waiting or being performed.
+        private int blockers;
+
+        private Entry(IRequest request, long sequence) {
+            this.request = request;
+            this.sequence = sequence;
+        }
+    }
+
+    private class Worker implements Runnable {
+        @Override
+        public void run() {
+            Entry entry;
+            while ((entry = next()) != null) {
+                perform(entry);
+            }
+        }
+    }
+}
@@ -22,25 +22,39 @@ import java.io.File;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.hyracks.api.exceptions.HyracksDataException;
 import org.apache.hyracks.api.exceptions.HyracksException;
+import org.apache.hyracks.api.io.BackgroundIO;
 import org.apache.hyracks.api.io.FileReference;
 import org.apache.hyracks.api.io.IFileHandle;
 import org.apache.hyracks.api.io.IIOFuture;
+import org.apache.hyracks.api.io.IIOFutureListener;
 import org.apache.hyracks.api.io.IIOManager;
+import org.apache.hyracks.api.io.IListenableIOFuture;
 import org.apache.hyracks.api.io.IODeviceHandle;
 
 public class IOManager implements IIOManager {
     private static final String WORKSPACE_FILE_SUFFIX = ".waf";
+    public static final int DEFAULT_IO_QUEUE_DEPTH = 4;
+    public static final int DEFAULT_IO_QUEUE_CAPACITY = 256;
     private final List<IODeviceHandle> ioDevices;
     private Executor executor;
     private final List<IODeviceHandle> workAreaIODevices;
     private int workAreaDeviceIndex;
+    private final Map<IODeviceHandle, IODeviceQueue> deviceQueues;
+    // Queue of the files that do not live on one of the devices.
+    private final IODeviceQueue defaultQueue;
+    private final AtomicLong readCount = new AtomicLong();
+    private final AtomicLong readTimeNanos = new AtomicLong();
 
     public IOManager(List<IODeviceHandle> devices, Executor executor) throws HyracksException {
         this(devices);
@@ -48,7 +62,22 @@ public class IOManager implements IIOManager {
     }
 
     public IOManager(List<IODeviceHandle> devices) throws HyracksException {
+        this(devices, DEFAULT_IO_QUEUE_DEPTH, DEFAULT_IO_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param ioQueueDepth
+     *            the maximum number of asynchronous requests that are performed concurrently on each device
+     * @param ioQueueCapacity
+     *            the maximum number of asynchronous requests that wait for each device
+     */
+    public IOManager(List<IODeviceHandle> devices, int ioQueueDepth, int ioQueueCapacity) throws HyracksException {
         this.ioDevices = Collections.unmodifiableList(devices);
+        deviceQueues = new HashMap<IODeviceHandle, IODeviceQueue>();
+        for (IODeviceHandle d : ioDevices) {
+            deviceQueues.put(d, new IODeviceQueue(ioQueueDepth, ioQueueCapacity));
+        }
+        defaultQueue = new IODeviceQueue(ioQueueDepth, ioQueueCapacity);
         workAreaIODevices = new ArrayList<IODeviceHandle>();
         for (IODeviceHandle d : ioDevices) {
             if (d.getWorkAreaPath() != null) {
@@ -106,6 +135,36 @@ public class IOManager implements IIOManager {
         }
     }
 
+    @Override
+    public long syncWrite(IFileHandle fHandle, long offset, ByteBuffer[] dataArray) throws HyracksDataException {
+        FileChannel channel = ((FileHandle) fHandle).getFileChannel();
+        try {
+            long remaining = 0;
+            for (ByteBuffer data : dataArray) {
+                remaining += data.remaining();
+            }
+            long n = 0;
+            // Gathering writes use the position of the channel, so concurrent ones must not interleave.
+            synchronized (channel) {
+                channel.position(offset);
+                while (remaining > 0) {
+                    long len = channel.write(dataArray);
+                    if (len < 0) {
+                        throw new HyracksDataException("Error writing to file: "
+                                + ((FileHandle) fHandle).getFileReference().toString());
+                    }
+                    remaining -= len;
+                    n += len;
+                }
+            }
+            return n;
+        } catch (HyracksDataException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new HyracksDataException(e);
+        }
+    }
+
     /**
      * Please do check the return value of this read!
      *
@@ -117,6 +176,11 @@ public class IOManager implements IIOManager {
      */
     @Override
     public int syncRead(IFileHandle fHandle, long offset, ByteBuffer data) throws HyracksDataException {
+        return read(fHandle, offset, data, !BackgroundIO.isBackground());
+    }
+
+    private int read(IFileHandle fHandle, long offset, ByteBuffer data, boolean count) throws HyracksDataException {
+        long startTime = System.nanoTime();
         try {
             int n = 0;
             int remaining = data.remaining();
@@ -134,23 +198,59 @@ public class IOManager implements IIOManager {
             throw e;
         } catch (IOException e) {
             throw new HyracksDataException(e);
+        } finally {
+            if (count) {
+                readCount.incrementAndGet();
+                readTimeNanos.addAndGet(System.nanoTime() - startTime);
+            }
+        }
+    }
+
+    @Override
+    public long getReadCount() {
+        return readCount.get();
+    }
+
+    @Override
+    public long getReadTimeNanos() {
+        return readTimeNanos.get();
+    }
+
+    @Override
+    public ByteBuffer[] mapReadOnly(IFileHandle fHandle, int segmentSize) throws HyracksDataException {
+        FileChannel channel = ((FileHandle) fHandle).getFileChannel();
+        try {
+            long size = channel.size();
+            ByteBuffer[] segments = new ByteBuffer[(int) ((size + segmentSize - 1) / segmentSize)];
+            for (int i = 0; i < segments.length; i++) {
+                long offset = (long) i * segmentSize;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(segmentSize, size - offset));
+            }
+            return segments;
+        } catch (IOException e) {
+            throw new HyracksDataException(e);
         }
     }
 
     @Override
     public IIOFuture asyncWrite(IFileHandle fHandle, long offset, ByteBuffer data) {
         AsyncWriteRequest req = new AsyncWriteRequest((FileHandle) fHandle, offset, data);
-        executor.execute(req);
+        getQueue(req.fHandle).submit(req, executor);
         return req;
     }
 
     @Override
     public IIOFuture asyncRead(IFileHandle fHandle, long offset, ByteBuffer data) {
         AsyncReadRequest req = new AsyncReadRequest((FileHandle) fHandle, offset, data);
-        executor.execute(req);
+        getQueue(req.fHandle).submit(req, executor);
         return req;
     }
 
+    private IODeviceQueue getQueue(FileHandle fHandle) {
+        IODeviceQueue queue = deviceQueues.get(fHandle.getFileReference().getDeviceHandle());
+        return queue == null ? defaultQueue : queue;
+    }
+
     @Override
     public void close(IFileHandle fHandle) throws HyracksDataException {
         try {
@@ -173,18 +273,21 @@ public class IOManager implements IIOManager {
         return dev.createFileReference(waPath + File.separator + waf.getName());
     }
 
-    private abstract class AsyncRequest implements IIOFuture, Runnable {
+    private abstract class AsyncRequest implements IListenableIOFuture, IODeviceQueue.IRequest {
         protected final FileHandle fHandle;
         protected final long offset;
         protected final ByteBuffer data;
+        private final int length;
         private boolean complete;
         private HyracksDataException exception;
         private int result;
+        private IIOFutureListener listener;
 
         private AsyncRequest(FileHandle fHandle, long offset, ByteBuffer data) {
             this.fHandle = fHandle;
             this.offset = offset;
             this.data = data;
+            length = data.remaining();
             complete = false;
             exception = null;
         }
@@ -198,16 +301,36 @@ public class IOManager implements IIOManager {
             } catch (HyracksDataException e) {
                 hde = e;
             }
+            IIOFutureListener l;
             synchronized (this) {
                 exception = hde;
                 result = res;
                 complete = true;
                 notifyAll();
+                l = listener;
+            }
+            if (l != null) {
+                l.ioCompleted(this);
             }
         }
 
         protected abstract int performOperation() throws HyracksDataException;
 
+        @Override
+        public FileHandle getFileHandle() {
+            return fHandle;
+        }
+
+        @Override
+        public long getOffset() {
+            return offset;
+        }
+
+        @Override
+        public int getLength() {
+            return length;
+        }
+
         @Override
         public synchronized int synchronize() throws HyracksDataException, InterruptedException {
             while (!complete) {
@@ -223,16 +346,36 @@ public class IOManager implements IIOManager {
         public synchronized boolean isComplete() {
             return complete;
         }
+
+        @Override
+        public void setListener(IIOFutureListener listener) {
+            synchronized (this) {
+                if (!complete) {
+                    this.listener = listener;
+                    return;
+                }
+            }
+            listener.ioCompleted(this);
+        }
     }
 
     private class AsyncReadRequest extends AsyncRequest {
+        // Whether the read was requested by a foreground thread, as it is performed by another thread.
+        private final boolean foreground;
+
         private AsyncReadRequest(FileHandle fHandle, long offset, ByteBuffer data) {
             super(fHandle, offset, data);
+            foreground = !BackgroundIO.isBackground();
         }
 
         @Override
         protected int performOperation() throws HyracksDataException {
-            return syncRead(fHandle, offset, data);
+            return read(fHandle, offset, data, foreground);
+        }
+
+        @Override
+        public boolean isRead() {
+            return true;
         }
     }
 
@@ -245,6 +388,11 @@ public class IOManager implements IIOManager {
         protected int performOperation() throws HyracksDataException {
             return syncWrite(fHandle, offset, data);
         }
+
+        @Override
+        public boolean isRead() {
+            return false;
+        }
     }
 
     @Override
@@ -0,0 +1,261 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.control.nc.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hyracks.api.io.FileReference;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class IODeviceQueueTest {
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private final FileHandle file = new FileHandle(new FileReference(new File("file1")));
+    private final FileHandle otherFile = new FileHandle(new FileReference(new File("file2")));
+    private final List<String> performed = Collections.synchronizedList(new ArrayList<String>());
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final AtomicInteger maxConcurrent = new AtomicInteger();
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void readsBeforeWritesTest() throws Exception {
+        IODeviceQueue queue = new IODeviceQueue(1, 64);
+        Request gate = new Request("gate", true, otherFile, 0, 1);
+        queue.submit(gate, executor);
+        gate.awaitStarted();
+        int numReads = IODeviceQueue.MAX_READS_BEFORE_WRITE + 2;
+        queue.submit(new Request("w", false, file, 0, 1).open(), executor);
+        for (int i = 0; i < numReads; ++i) {
+            queue.submit(new Request("r", true, file, i + 1, 1).open(), executor);
+        }
+        gate.release();
+        awaitPerformed(numReads + 2);
+        // The gate counts as a read, so the waiting write is served once enough further reads have passed it.
+        List<String> expected = new ArrayList<String>();
+        expected.add("gate");
+        for (int i = 1; i < IODeviceQueue.MAX_READS_BEFORE_WRITE; ++i) {
+            expected.add("r");
+        }
+        expected.add("w");
+        expected.add("r");
+        expected.add("r");
+        expected.add("r");
+        assertEquals(expected, performed);
+    }
+
+    @Test
+    public void sweepFairnessTest() throws Exception {
+        IODeviceQueue queue = new IODeviceQueue(1, 64);
+        Request gate = new Request("gate", true, file, 0, 1);
+        queue.submit(gate, executor);
+        gate.awaitStarted();
+        queue.submit(new Request("other", true, otherFile, 0, 1).open(), executor);
+        int numReads = IODeviceQueue.MAX_SWEEP_BEFORE_OLDEST + 2;
+        for (int i = 0; i < numReads; ++i) {
+            queue.submit(new Request("r", true, file, i + 1, 1).open(), executor);
+        }
+        gate.release();
+        awaitPerformed(numReads + 2);
+        // The sweep over the file of the gate passes the older request on the other file only for so long.
+        List<String> expected = new ArrayList<String>();
+        expected.add("gate");
+        for (int i = 0; i < IODeviceQueue.MAX_SWEEP_BEFORE_OLDEST; ++i) {
+            expected.add("r");
+        }
+        expected.add("other");
+        expected.add("r");
+        expected.add("r");
+        assertEquals(expected, performed);
+    }
+
+    @Test
+    public void queueDepthTest() throws Exception {
+        IODeviceQueue queue = new IODeviceQueue(2, 64);
+        List<Request> requests = new ArrayList<Request>();
+        for (int i = 0; i < 6; ++i) {
+            Request request = new Request("r" + i, true, file, i, 1);
+            requests.add(request);
+            queue.submit(request, executor);
+        }
+        requests.get(0).awaitStarted();
+        requests.get(1).awaitStarted();
+        assertEquals(2, queue.getNumActive());
+        assertEquals(4, queue.getNumQueued());
+        for (Request request : requests) {
+            request.release();
+        }
+        awaitPerformed(requests.size());
+        assertEquals(2, maxConcurrent.get());
+    }
+
+    @Test
+    public void fullQueueTest() throws Exception {
+        IODeviceQueue queue = new IODeviceQueue(1, 2);
+        Request gate = new Request("gate", true, otherFile, 0, 1);
+        queue.submit(gate, executor);
+        gate.awaitStarted();
+        queue.submit(new Request("r1", true, file, 0, 1).open(), executor);
+        queue.submit(new Request("r2", true, file, 1, 1).open(), executor);
+        assertEquals(2, queue.getNumQueued());
+        // The only worker is busy, so the submitter makes room by performing a waiting request itself.
+        queue.submit(new Request("r3", true, file, 2, 1).open(), executor);
+        assertEquals(Collections.singletonList("r1"), performed);
+        assertEquals(2, queue.getNumQueued());
+        gate.release();
+        awaitPerformed(4);
+    }
+
+    @Test
+    public void overlappingRequestsTest() throws Exception {
+        IODeviceQueue queue = new IODeviceQueue(4, 64);
+        Request write = new Request("w", false, file, 0, 100);
+        queue.submit(write, executor);
+        write.awaitStarted();
+        Request overlappingRead = new Request("overlapping", true, file, 50, 100).open();
+        Request otherRead = new Request("other", true, file, 100, 100).open();
+        Request otherFileRead = new Request("otherFile", true, otherFile, 0, 100).open();
+        queue.submit(overlappingRead, executor);
+        queue.submit(otherRead, executor);
+        queue.submit(otherFileRead, executor);
+        otherRead.awaitStarted();
+        otherFileRead.awaitStarted();
+        assertFalse(overlappingRead.hasStarted());
+        write.release();
+        awaitPerformed(4);
+        assertTrue(performed.indexOf("w") < performed.indexOf("overlapping"));
+    }
+
+    @Test
+    public void writeOrderTest() throws Exception {
+        IODeviceQueue queue = new IODeviceQueue(4, 64);
+        Request first = new Request("first", false, file, 10, 10);
+        queue.submit(first, executor);
+        first.awaitStarted();
+        // A write that covers the first one must not be applied before it, even though it starts lower in the file.
+        queue.submit(new Request("second", false, file, 0, 20).open(), executor);
+        first.release();
+        awaitPerformed(2);
+        assertEquals(2, performed.size());
+        assertTrue(performed.indexOf("first") < performed.indexOf("second"));
+    }
+
+    private void awaitPerformed(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS);
+        while (performed.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, performed.size());
+    }
+
+    private class Request implements IODeviceQueue.IRequest {
+        private final String name;
+        private final boolean read;
+        private final FileHandle fHandle;
+        private final long offset;
+        private final int length;
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+
+        private Request(String name, boolean read, FileHandle fHandle, long offset, int length) {
+            this.name = name;
+            this.read = read;
+            this.fHandle = fHandle;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        private Request open() {
+            released.countDown();
+            return this;
+        }
+
+        private void release() {
+            released.countDown();
+        }
+
+        private void awaitStarted() throws InterruptedException {
+            assertTrue(name + " did not start", started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        }
+
+        private boolean hasStarted() {
+            return started.getCount() == 0;
+        }
+
+        @Override
+        public void run() {
+            int c = concurrent.incrementAndGet();
+            int max;
+            while ((max = maxConcurrent.get()) < c && !maxConcurrent.compareAndSet(max, c)) {
+            }
+            started.countDown();
+            try {
+                released.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            concurrent.decrementAndGet();
+            performed.add(name);
+        }
+
+        @Override
+        public boolean isRead() {
+            return read;
+        }
+
+        @Override
+        public FileHandle getFileHandle() {
+            return fHandle;
+        }
+
+        @Override
+        public long getOffset() {
+            return offset;
+        }
+
+        @Override
+        public int getLength() {
+            return length;
+        }
+    }
+}
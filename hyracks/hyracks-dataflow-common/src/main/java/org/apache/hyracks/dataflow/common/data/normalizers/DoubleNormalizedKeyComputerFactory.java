@@ -18,8 +18,10 @@
  */
 package org.apache.hyracks.dataflow.common.data.normalizers;
 
+import org.apache.hyracks.api.dataflow.value.IMultiWordNormalizedKeyComputer;
 import org.apache.hyracks.api.dataflow.value.INormalizedKeyComputer;
 import org.apache.hyracks.api.dataflow.value.INormalizedKeyComputerFactory;
+import org.apache.hyracks.data.std.primitive.DoublePointable;
 import org.apache.hyracks.data.std.primitive.IntegerPointable;
 import org.apache.hyracks.dataflow.common.data.marshalling.IntegerSerializerDeserializer;
 
@@ -29,7 +31,7 @@ public class DoubleNormalizedKeyComputerFactory implements INormalizedKeyCompute
 
     @Override
     public INormalizedKeyComputer createNormalizedKeyComputer() {
-        return new INormalizedKeyComputer() {
+        return new IMultiWordNormalizedKeyComputer() {
 
             @Override
             public int normalize(byte[] bytes, int start, int length) {
@@ -41,6 +43,28 @@ public class DoubleNormalizedKeyComputerFactory implements INormalizedKeyCompute
                 }
             }
 
+            @Override
+            public int getNormalizedKeyLength() {
+                return 2;
+            }
+
+            @Override
+            public void normalize(byte[] bytes, int start, int length, int[] target, int targetOffset) {
+                double value = DoublePointable.getDouble(bytes, start);
+                /**
+                 * -0.0 compares equal to 0.0, and doubleToLongBits collapses all NaNs into one value
+                 */
+                long bits = Double.doubleToLongBits(value == 0.0d ? 0.0d : value);
+                long key = bits >= 0 ? bits ^ Long.MIN_VALUE : ~bits;
+                target[targetOffset] = (int) (key >>> 32);
+                target[targetOffset + 1] = (int) key;
+            }
+
+            @Override
+            public boolean isDecisive() {
+                return true;
+            }
+
         };
     }
 
@@ -18,6 +18,7 @@
  */
 package org.apache.hyracks.dataflow.common.data.normalizers;
 
+import org.apache.hyracks.api.dataflow.value.IMultiWordNormalizedKeyComputer;
 import org.apache.hyracks.api.dataflow.value.INormalizedKeyComputer;
 import org.apache.hyracks.api.dataflow.value.INormalizedKeyComputerFactory;
 import org.apache.hyracks.data.std.primitive.UTF8StringPointable;
@@ -25,9 +26,25 @@ import org.apache.hyracks.data.std.primitive.UTF8StringPointable;
 public class UTF8StringNormalizedKeyComputerFactory implements INormalizedKeyComputerFactory {
     private static final long serialVersionUID = 1L;
 
+    public static final int DEFAULT_NORMALIZED_KEY_LENGTH = 4;
+
+    private final int normalizedKeyLength;
+
+    public UTF8StringNormalizedKeyComputerFactory() {
+        this(DEFAULT_NORMALIZED_KEY_LENGTH);
+    }
+
+    /**
+     * @param normalizedKeyLength
+     *            the number of words of the multi-word normalized key; each word holds two characters
+     */
+    public UTF8StringNormalizedKeyComputerFactory(int normalizedKeyLength) {
+        this.normalizedKeyLength = normalizedKeyLength;
+    }
+
     @Override
     public INormalizedKeyComputer createNormalizedKeyComputer() {
-        return new INormalizedKeyComputer() {
+        return new IMultiWordNormalizedKeyComputer() {
             @Override
             public int normalize(byte[] bytes, int start, int length) {
                 int len = UTF8StringPointable.getUTFLength(bytes, start);
@@ -42,6 +59,33 @@ public class UTF8StringNormalizedKeyComputerFactory implements INormalizedKeyCom
                 }
                 return nk;
             }
+
+            @Override
+            public int getNormalizedKeyLength() {
+                return normalizedKeyLength;
+            }
+
+            @Override
+            public void normalize(byte[] bytes, int start, int length, int[] target, int targetOffset) {
+                int offset = start + 2;
+                int end = offset + UTF8StringPointable.getUTFLength(bytes, start);
+                for (int i = 0; i < normalizedKeyLength; ++i) {
+                    int nk = 0;
+                    for (int j = 0; j < 2; ++j) {
+                        nk <<= 16;
+                        if (offset < end) {
+                            nk += ((int) UTF8StringPointable.charAt(bytes, offset)) & 0xffff;
+                            offset += UTF8StringPointable.charSize(bytes, offset);
+                        }
+                    }
+                    target[targetOffset + i] = nk;
+                }
+            }
+
+            @Override
+            public boolean isDecisive() {
+                return false;
+            }
         };
     }
 }
\ No newline at end of file
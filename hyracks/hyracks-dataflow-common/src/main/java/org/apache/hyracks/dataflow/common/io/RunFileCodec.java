@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.dataflow.common.io;
+
+import java.nio.ByteBuffer;
+
+import org.apache.hyracks.api.comm.IFrame;
+import org.apache.hyracks.api.context.IHyracksJobletContext;
+import org.apache.hyracks.api.context.IHyracksTaskContext;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.api.job.profiling.counters.ICounter;
+import org.apache.hyracks.api.job.profiling.counters.ICounterContext;
+import org.apache.hyracks.dataflow.common.util.CRC32C;
+import org.apache.hyracks.dataflow.common.util.LZBlockCompressor;
+
+/**
+ * Encodes the frames of a run file as self-describing blocks, optionally LZ compressed and CRC32C checksummed.
+ * Each block is a 16 byte header (raw length, stored length, flags, checksum) followed by the stored bytes. The
+ * checksum covers the first three header fields and the stored bytes, and is verified whenever a block carries one.
+ * Offsets into an encoded run file are block offsets, so seeking to a position recorded through
+ * {@link RunFileWriter#getFileSize()} keeps working.
+ * A codec holds scratch buffers and must not be shared between threads; use {@link #duplicate()} instead.
+ */
+public class RunFileCodec {
+    public static final String SPILLED_BYTES_COUNTER = "runfile.spilled-bytes";
+    public static final String STORED_BYTES_COUNTER = "runfile.stored-bytes";
+
+    static final int HEADER_SIZE = 16;
+    private static final int FLAG_COMPRESSED = 0x01;
+    private static final int FLAG_CHECKSUM = 0x02;
+
+    private final boolean compress;
+    private final boolean checksum;
+    private final ICounter spilledBytes;
+    private final ICounter storedBytes;
+    private final CRC32C crc;
+    private final ByteBuffer header;
+    private int[] hashTable;
+    private ByteBuffer block;
+
+    public RunFileCodec(boolean compress, boolean checksum, ICounterContext counterContext) {
+        this(compress, checksum, counterContext.getCounter(SPILLED_BYTES_COUNTER, true),
+                counterContext.getCounter(STORED_BYTES_COUNTER, true));
+    }
+
+    private RunFileCodec(boolean compress, boolean checksum, ICounter spilledBytes, ICounter storedBytes) {
+        this.compress = compress;
+        this.checksum = checksum;
+        this.spilledBytes = spilledBytes;
+        this.storedBytes = storedBytes;
+        this.crc = new CRC32C();
+        this.header = ByteBuffer.allocate(HEADER_SIZE);
+        this.block = ByteBuffer.allocate(0);
+    }
+
+    /**
+     * @return a codec for the run files of the task's job, or <code>null</code> if the job spills raw frames
+     */
+    public static RunFileCodec create(IHyracksTaskContext ctx) {
+        IHyracksJobletContext jobletCtx = ctx.getJobletContext();
+        if (!jobletCtx.isRunFileCompression() && !jobletCtx.isRunFileChecksums()) {
+            return null;
+        }
+        return new RunFileCodec(jobletCtx.isRunFileCompression(), jobletCtx.isRunFileChecksums(),
+                jobletCtx.getCounterContext());
+    }
+
+    /**
+     * @return a codec with the same settings and counters and its own scratch space
+     */
+    public RunFileCodec duplicate() {
+        return new RunFileCodec(compress, checksum, spilledBytes, storedBytes);
+    }
+
+    public boolean isCompress() {
+        return compress;
+    }
+
+    public boolean isChecksum() {
+        return checksum;
+    }
+
+    /**
+     * Encodes the remaining bytes of the frame into a block and consumes them.
+     *
+     * @return the block, valid until the next call on this codec
+     */
+    ByteBuffer encode(ByteBuffer frame) {
+        int rawLength = frame.remaining();
+        byte[] src = frame.array();
+        int srcOff = frame.arrayOffset() + frame.position();
+        byte[] dst = ensureBlockCapacity(HEADER_SIZE + LZBlockCompressor.maxCompressedLength(rawLength));
+        int flags = 0;
+        int storedLength = -1;
+        if (compress) {
+            if (hashTable == null) {
+                hashTable = new int[LZBlockCompressor.HASH_TABLE_SIZE];
+            }
+            int length = LZBlockCompressor.compress(src, srcOff, rawLength, dst, HEADER_SIZE, hashTable);
+            if (length < rawLength) {
+                storedLength = length;
+                flags |= FLAG_COMPRESSED;
+            }
+        }
+        if (storedLength < 0) {
+            System.arraycopy(src, srcOff, dst, HEADER_SIZE, rawLength);
+            storedLength = rawLength;
+        }
+        if (checksum) {
+            flags |= FLAG_CHECKSUM;
+        }
+        block.clear();
+        block.putInt(0, rawLength);
+        block.putInt(4, storedLength);
+        block.putInt(8, flags);
+        block.putInt(12, checksum ? checksum(dst, dst, HEADER_SIZE, storedLength) : 0);
+        block.limit(HEADER_SIZE + storedLength);
+        frame.position(frame.limit());
+        spilledBytes.update(rawLength);
+        storedBytes.update(HEADER_SIZE + storedLength);
+        return block;
+    }
+
+    /**
+     * Reads the block at the given offset into the frame.
+     *
+     * @return the number of bytes the block occupies in the file
+     */
+    int decode(RunFileReader reader, long offset, IFrame frame) throws HyracksDataException {
+        header.clear();
+        if (reader.read(offset, header) < HEADER_SIZE) {
+            throw new HyracksDataException("Premature end of file");
+        }
+        int rawLength = header.getInt(0);
+        int storedLength = header.getInt(4);
+        int flags = header.getInt(8);
+        if (rawLength <= 0 || rawLength % frame.getMinSize() != 0 || storedLength < 0
+                || storedLength > LZBlockCompressor.maxCompressedLength(rawLength)) {
+            throw new HyracksDataException("Corrupted run file block header at offset " + offset);
+        }
+        byte[] stored = ensureBlockCapacity(storedLength);
+        block.clear();
+        block.limit(storedLength);
+        if (storedLength > 0 && reader.read(offset + HEADER_SIZE, block) < storedLength) {
+            throw new HyracksDataException("Premature end of file");
+        }
+        if ((flags & FLAG_CHECKSUM) != 0 && checksum(header.array(), stored, 0, storedLength) != header.getInt(12)) {
+            throw new HyracksDataException("Checksum mismatch in run file block at offset " + offset);
+        }
+        frame.reset();
+        frame.ensureFrameSize(rawLength);
+        ByteBuffer buffer = frame.getBuffer();
+        if ((flags & FLAG_COMPRESSED) != 0) {
+            LZBlockCompressor.decompress(stored, 0, storedLength, buffer.array(), buffer.arrayOffset(), rawLength);
+        } else if (storedLength == rawLength) {
+            System.arraycopy(stored, 0, buffer.array(), buffer.arrayOffset(), rawLength);
+        } else {
+            throw new HyracksDataException("Corrupted run file block header at offset " + offset);
+        }
+        buffer.position(0);
+        buffer.limit(rawLength);
+        return HEADER_SIZE + storedLength;
+    }
+
+    private int checksum(byte[] headerBytes, byte[] stored, int storedOff, int storedLength) {
+        crc.reset();
+        crc.update(headerBytes, 0, HEADER_SIZE - 4);
+        crc.update(stored, storedOff, storedLength);
+        return (int) crc.getValue();
+    }
+
+    private byte[] ensureBlockCapacity(int capacity) {
+        if (block.capacity() < capacity) {
+            block = ByteBuffer.allocate(capacity);
+        }
+        return block.array();
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.dataflow.common.io;
+
+import java.nio.ByteBuffer;
+
+import org.apache.hyracks.api.context.IHyracksFrameMgrContext;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.api.io.IFileHandle;
+import org.apache.hyracks.api.io.IIOFuture;
+import org.apache.hyracks.api.io.IIOManager;
+
+/**
+ * Serves reads of a run file from two blocks: the one being consumed, and the one that follows it in the file, which
+ * is read by the asynchronous path of the {@link IIOManager} in the meantime. A read outside of both blocks, e.g.
+ * after a seek, loads the block starting at its offset and restarts the read-ahead from there. The blocks are
+ * allocated from the task's frame manager, and returned to it on close.
+ */
+class RunFileReadAhead {
+    private final IIOManager ioManager;
+    private final IFileHandle handle;
+    private final IHyracksFrameMgrContext frameManager;
+    private final long size;
+    private final ByteBuffer[] blocks;
+    private final long[] blockOffsets;
+    private final IIOFuture[] futures;
+    private int current;
+
+    RunFileReadAhead(IIOManager ioManager, IFileHandle handle, IHyracksFrameMgrContext frameManager, long size,
+            int blockSize) throws HyracksDataException {
+        this.ioManager = ioManager;
+        this.handle = handle;
+        this.frameManager = frameManager;
+        this.size = size;
+        this.blocks = new ByteBuffer[] { frameManager.allocateFrame(blockSize),
+                frameManager.allocateFrame(blockSize) };
+        this.blockOffsets = new long[] { -1, -1 };
+        this.futures = new IIOFuture[2];
+        this.current = -1;
+    }
+
+    /**
+     * Reads like {@link IIOManager#syncRead(IFileHandle, long, ByteBuffer)}: fills the data up to its limit or the
+     * end of the file.
+     *
+     * @return the number of bytes read, or -1 if the offset is at the end of the file
+     */
+    int read(long offset, ByteBuffer data) throws HyracksDataException {
+        int n = 0;
+        while (data.hasRemaining() && offset < size && load(offset)) {
+            ByteBuffer block = blocks[current];
+            int pos = (int) (offset - blockOffsets[current]);
+            int length = Math.min(data.remaining(), block.limit() - pos);
+            data.put(block.array(), block.arrayOffset() + pos, length);
+            offset += length;
+            n += length;
+        }
+        return n == 0 && data.hasRemaining() ? -1 : n;
+    }
+
+    /**
+     * Waits for the pending read, so that the file can be closed, and returns the blocks.
+     */
+    void close() throws HyracksDataException {
+        try {
+            for (int i = 0; i < futures.length; i++) {
+                await(i);
+            }
+        } finally {
+            frameManager.deallocateFrames(blocks[0].capacity() + blocks[1].capacity());
+        }
+    }
+
+    private boolean load(long offset) throws HyracksDataException {
+        if (current >= 0 && contains(current, offset)) {
+            return true;
+        }
+        int next = current < 0 ? 0 : current ^ 1;
+        await(next);
+        if (!contains(next, offset)) {
+            fetch(next, offset);
+            await(next);
+            if (!contains(next, offset)) {
+                return false;
+            }
+        }
+        current = next;
+        fetch(current ^ 1, blockOffsets[current] + blocks[current].limit());
+        return true;
+    }
+
+    private boolean contains(int i, long offset) {
+        return futures[i] == null && blockOffsets[i] >= 0 && offset >= blockOffsets[i]
+                && offset < blockOffsets[i] + blocks[i].limit();
+    }
+
+    private void fetch(int i, long offset) {
+        if (offset >= size) {
+            blockOffsets[i] = -1;
+            return;
+        }
+        ByteBuffer block = blocks[i];
+        block.clear();
+        block.limit((int) Math.min(block.capacity(), size - offset));
+        blockOffsets[i] = offset;
+        futures[i] = ioManager.asyncRead(handle, offset, block);
+    }
+
+    private void await(int i) throws HyracksDataException {
+        IIOFuture future = futures[i];
+        if (future == null) {
+            return;
+        }
+        futures[i] = null;
+        try {
+            future.synchronize();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HyracksDataException(e);
+        } finally {
+            blocks[i].flip();
+        }
+    }
+}
@@ -18,10 +18,13 @@
  */
 package org.apache.hyracks.dataflow.common.io;
 
+import java.nio.ByteBuffer;
+
 import org.apache.commons.io.FileUtils;
 import org.apache.hyracks.api.comm.FrameHelper;
 import org.apache.hyracks.api.comm.IFrame;
 import org.apache.hyracks.api.comm.IFrameReader;
+import org.apache.hyracks.api.context.IHyracksFrameMgrContext;
 import org.apache.hyracks.api.exceptions.HyracksDataException;
 import org.apache.hyracks.api.io.FileReference;
 import org.apache.hyracks.api.io.IFileHandle;
@@ -32,19 +35,48 @@ public class RunFileReader implements IFrameReader {
     private IFileHandle handle;
     private final IIOManager ioManager;
     private final long size;
+    private final RunFileCodec codec;
+    private final IHyracksFrameMgrContext frameManager;
+    private final int ioBlockSize;
+    private RunFileReadAhead readAhead;
     private long readPtr;
     private boolean deleteAfterClose;
 
     public RunFileReader(FileReference file, IIOManager ioManager, long size, boolean deleteAfterRead) {
+        this(file, ioManager, size, deleteAfterRead, null);
+    }
+
+    /**
+     * @param codec
+     *            decodes the frames of a file written with the same codec settings, or <code>null</code> for raw
+     *            frames
+     */
+    public RunFileReader(FileReference file, IIOManager ioManager, long size, boolean deleteAfterRead,
+            RunFileCodec codec) {
+        this(file, ioManager, size, deleteAfterRead, codec, null, 0);
+    }
+
+    /**
+     * @param ioBlockSize
+     *            the size of the blocks that are prefetched asynchronously into frames of the frame manager, or 0 to
+     *            read frame by frame
+     */
+    RunFileReader(FileReference file, IIOManager ioManager, long size, boolean deleteAfterRead, RunFileCodec codec,
+            IHyracksFrameMgrContext frameManager, int ioBlockSize) {
         this.file = file;
         this.ioManager = ioManager;
         this.size = size;
         this.deleteAfterClose = deleteAfterRead;
+        this.codec = codec;
+        this.frameManager = frameManager;
+        this.ioBlockSize = ioBlockSize;
     }
 
     @Override
     public void open() throws HyracksDataException {
         handle = ioManager.open(file, IIOManager.FileReadWriteMode.READ_ONLY, null);
+        readAhead = ioBlockSize > 0 ? new RunFileReadAhead(ioManager, handle, frameManager, size, ioBlockSize)
+                : null;
         readPtr = 0;
     }
 
@@ -53,8 +85,12 @@ public class RunFileReader implements IFrameReader {
         if (readPtr >= size) {
             return false;
         }
+        if (codec != null) {
+            readPtr += codec.decode(this, readPtr, frame);
+            return true;
+        }
         frame.reset();
-        int readLength = ioManager.syncRead(handle, readPtr, frame.getBuffer());
+        int readLength = read(readPtr, frame.getBuffer());
         if (readLength <= 0) {
             throw new HyracksDataException("Premature end of file");
         }
@@ -62,7 +98,7 @@ public class RunFileReader implements IFrameReader {
         frame.ensureFrameSize(frame.getMinSize() * FrameHelper.deserializeNumOfMinFrame(frame.getBuffer()));
         if (frame.getBuffer().hasRemaining()) {
             if (readPtr < size) {
-                readLength = ioManager.syncRead(handle, readPtr, frame.getBuffer());
+                readLength = read(readPtr, frame.getBuffer());
                 if (readLength < 0) {
                     throw new HyracksDataException("Premature end of file");
                 }
@@ -76,9 +112,26 @@ public class RunFileReader implements IFrameReader {
         return true;
     }
 
+    int read(long offset, ByteBuffer data) throws HyracksDataException {
+        return readAhead == null ? ioManager.syncRead(handle, offset, data) : readAhead.read(offset, data);
+    }
+
+    /**
+     * Moves the read position of an open reader, e.g. to the start of a frame recorded while the run was written.
+     */
+    public void seek(long position) {
+        readPtr = position;
+    }
+
     @Override
     public void close() throws HyracksDataException {
-        ioManager.close(handle);
+        try {
+            if (readAhead != null) {
+                readAhead.close();
+            }
+        } finally {
+            ioManager.close(handle);
+        }
         if (deleteAfterClose) {
             FileUtils.deleteQuietly(file.getFile());
         }
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.dataflow.common.io;
+
+import java.nio.ByteBuffer;
+
+import org.apache.hyracks.api.context.IHyracksFrameMgrContext;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.api.io.IFileHandle;
+import org.apache.hyracks.api.io.IIOFuture;
+import org.apache.hyracks.api.io.IIOManager;
+
+/**
+ * Appends to a run file through two staging blocks: while one block is written by the asynchronous path of the
+ * {@link IIOManager}, the writer fills the other one. Data larger than a block is written synchronously. The blocks
+ * are allocated from the task's frame manager, and returned to it on close.
+ */
+class RunFileWriteBehind {
+    private final IIOManager ioManager;
+    private final IFileHandle handle;
+    private final IHyracksFrameMgrContext frameManager;
+    private final ByteBuffer[] blocks;
+    private final IIOFuture[] futures;
+    private int current;
+    private long blockOffset;
+    private boolean released;
+
+    RunFileWriteBehind(IIOManager ioManager, IFileHandle handle, IHyracksFrameMgrContext frameManager,
+            int blockSize) throws HyracksDataException {
+        this.ioManager = ioManager;
+        this.handle = handle;
+        this.frameManager = frameManager;
+        this.blocks = new ByteBuffer[] { frameManager.allocateFrame(blockSize),
+                frameManager.allocateFrame(blockSize) };
+        this.futures = new IIOFuture[2];
+    }
+
+    /**
+     * Appends the remaining bytes of the data and consumes them.
+     */
+    void write(ByteBuffer data) throws HyracksDataException {
+        ByteBuffer block = blocks[current];
+        if (data.remaining() > block.remaining()) {
+            flush();
+            block = blocks[current];
+            if (data.remaining() > block.capacity()) {
+                blockOffset += ioManager.syncWrite(handle, blockOffset, data);
+                return;
+            }
+        }
+        block.put(data);
+    }
+
+    /**
+     * Writes what has been appended, waits for all pending writes and returns the blocks.
+     */
+    void close() throws HyracksDataException {
+        try {
+            flush();
+            await(current ^ 1);
+        } finally {
+            abandon();
+        }
+    }
+
+    /**
+     * Waits for the pending writes without reporting their failures, so that the file can be closed, and returns
+     * the blocks.
+     */
+    void abandon() {
+        for (int i = 0; i < futures.length; i++) {
+            try {
+                await(i);
+            } catch (HyracksDataException e) {
+                // the writer has failed already
+            }
+        }
+        if (!released) {
+            released = true;
+            frameManager.deallocateFrames(blocks[0].capacity() + blocks[1].capacity());
+        }
+    }
+
+    private void flush() throws HyracksDataException {
+        ByteBuffer block = blocks[current];
+        if (block.position() == 0) {
+            return;
+        }
+        block.flip();
+        futures[current] = ioManager.asyncWrite(handle, blockOffset, block);
+        blockOffset += block.limit();
+        current ^= 1;
+        await(current);
+        blocks[current].clear();
+    }
+
+    private void await(int i) throws HyracksDataException {
+        IIOFuture future = futures[i];
+        if (future == null) {
+            return;
+        }
+        futures[i] = null;
+        try {
+            future.synchronize();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HyracksDataException(e);
+        }
+    }
+}
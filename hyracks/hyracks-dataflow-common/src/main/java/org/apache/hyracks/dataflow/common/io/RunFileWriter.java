@@ -21,6 +21,8 @@ package org.apache.hyracks.dataflow.common.io;
 import java.nio.ByteBuffer;
 
 import org.apache.hyracks.api.comm.IFrameWriter;
+import org.apache.hyracks.api.context.IHyracksFrameMgrContext;
+import org.apache.hyracks.api.context.IHyracksTaskContext;
 import org.apache.hyracks.api.exceptions.HyracksDataException;
 import org.apache.hyracks.api.io.FileReference;
 import org.apache.hyracks.api.io.IFileHandle;
@@ -29,39 +31,103 @@ import org.apache.hyracks.api.io.IIOManager;
 public class RunFileWriter implements IFrameWriter {
     private final FileReference file;
     private final IIOManager ioManager;
+    private final RunFileCodec codec;
+    private final IHyracksFrameMgrContext frameManager;
+    private final int ioBlockSize;
     private boolean failed;
 
     private IFileHandle handle;
+    private RunFileWriteBehind writeBehind;
     private long size;
 
     public RunFileWriter(FileReference file, IIOManager ioManager) {
+        this(file, ioManager, null);
+    }
+
+    /**
+     * @param codec
+     *            encodes the frames written to the file, or <code>null</code> to write raw frames
+     */
+    public RunFileWriter(FileReference file, IIOManager ioManager, RunFileCodec codec) {
+        this(file, ioManager, codec, null, 0);
+    }
+
+    /**
+     * Creates a writer with the run file settings of the task's job. The blocks of its asynchronous I/O, and those
+     * of its readers, are allocated from the task's frames.
+     */
+    public RunFileWriter(FileReference file, IHyracksTaskContext ctx) {
+        this(file, ctx, true);
+    }
+
+    /**
+     * Creates a writer with the run file settings of the task's job, but without asynchronous I/O if asyncIO is
+     * false, for operators that cannot spare the frames of its blocks (see {@link #getAsyncIOFrames}).
+     */
+    public RunFileWriter(FileReference file, IHyracksTaskContext ctx, boolean asyncIO) {
+        this(file, ctx.getIOManager(), RunFileCodec.create(ctx), ctx,
+                asyncIO ? ctx.getJobletContext().getRunFileAsyncIOFrames() * ctx.getInitialFrameSize() : 0);
+    }
+
+    /**
+     * Returns the frames that a writer with asynchronous I/O holds for its blocks while it is open, as does each
+     * reader of its run, if they take at most half of the frames that the operator has for each of its writers.
+     * Operators charge these frames to their frames limit, and create their writers without asynchronous I/O if
+     * this is 0.
+     */
+    public static int getAsyncIOFrames(IHyracksTaskContext ctx, int framesPerWriter) {
+        int ioFrames = 2 * ctx.getJobletContext().getRunFileAsyncIOFrames();
+        return 2 * ioFrames <= framesPerWriter ? ioFrames : 0;
+    }
+
+    private RunFileWriter(FileReference file, IIOManager ioManager, RunFileCodec codec,
+            IHyracksFrameMgrContext frameManager, int ioBlockSize) {
         this.file = file;
         this.ioManager = ioManager;
+        this.codec = codec;
+        this.frameManager = frameManager;
+        this.ioBlockSize = ioBlockSize;
     }
 
     @Override
     public void open() throws HyracksDataException {
         handle = ioManager.open(file, IIOManager.FileReadWriteMode.READ_WRITE,
                 IIOManager.FileSyncMode.METADATA_ASYNC_DATA_ASYNC);
+        writeBehind = ioBlockSize > 0 ? new RunFileWriteBehind(ioManager, handle, frameManager, ioBlockSize) : null;
         size = 0;
         failed = false;
     }
 
     @Override
     public void fail() throws HyracksDataException {
+        if (writeBehind != null) {
+            writeBehind.abandon();
+        }
         ioManager.close(handle);
         failed = true;
     }
 
     @Override
     public void nextFrame(ByteBuffer buffer) throws HyracksDataException {
-        size += ioManager.syncWrite(handle, size, buffer);
+        ByteBuffer data = codec == null ? buffer : codec.encode(buffer);
+        if (writeBehind == null) {
+            size += ioManager.syncWrite(handle, size, data);
+        } else {
+            size += data.remaining();
+            writeBehind.write(data);
+        }
     }
 
     @Override
     public void close() throws HyracksDataException {
         if (!failed) {
-            ioManager.close(handle);
+            try {
+                if (writeBehind != null) {
+                    writeBehind.close();
+                }
+            } finally {
+                ioManager.close(handle);
+            }
         }
     }
 
@@ -73,17 +139,23 @@ public class RunFileWriter implements IFrameWriter {
         return size;
     }
 
+    public RunFileCodec getCodec() {
+        return codec;
+    }
+
     public RunFileReader createReader() throws HyracksDataException {
         if (failed) {
             throw new HyracksDataException("createReader() called on a failed RunFileWriter");
         }
-        return new RunFileReader(file, ioManager, size, false);
+        return new RunFileReader(file, ioManager, size, false, codec == null ? null : codec.duplicate(),
+                frameManager, ioBlockSize);
     }
 
     public RunFileReader createDeleteOnCloseReader() throws HyracksDataException {
         if (failed) {
             throw new HyracksDataException("createReader() called on a failed RunFileWriter");
         }
-        return new RunFileReader(file, ioManager, size, true);
+        return new RunFileReader(file, ioManager, size, true, codec == null ? null : codec.duplicate(),
+                frameManager, ioBlockSize);
     }
 }
\ No newline at end of file
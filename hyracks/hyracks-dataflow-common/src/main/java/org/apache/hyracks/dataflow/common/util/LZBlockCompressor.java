@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.dataflow.common.util;
+
+import java.util.Arrays;
+
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+
+/**
+ * A small LZ77 block compressor using the LZ4 block layout: a sequence of (token, literals, 2-byte offset,
+ * match length) groups with a single hash probe per position. It trades ratio for speed, which is what spilling
+ * operators want: frames are full of zero padding, repeated field values and small integers.
+ */
+public class LZBlockCompressor {
+    public static final int HASH_TABLE_SIZE = 1 << 12;
+
+    private static final int MIN_MATCH = 4;
+    private static final int LAST_LITERALS = 5;
+    private static final int MF_LIMIT = 12;
+    private static final int MAX_OFFSET = 0xffff;
+    private static final int RUN_MASK = 0x0f;
+
+    private LZBlockCompressor() {
+    }
+
+    /**
+     * @return the largest size {@link #compress} can produce for an input of the given length
+     */
+    public static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * Compresses {@code src[srcOff, srcOff + srcLen)} into {@code dst} starting at {@code dstOff}, which must have
+     * room for {@link #maxCompressedLength(int)} bytes.
+     *
+     * @param hashTable
+     *            scratch space of {@link #HASH_TABLE_SIZE} entries
+     * @return the compressed length
+     */
+    public static int compress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int[] hashTable) {
+        int srcEnd = srcOff + srcLen;
+        int anchor = srcOff;
+        int op = dstOff;
+        if (srcLen > MF_LIMIT) {
+            Arrays.fill(hashTable, -1);
+            int matchLimit = srcEnd - LAST_LITERALS;
+            int mfLimit = srcEnd - MF_LIMIT;
+            int ip = srcOff;
+            while (ip < mfLimit) {
+                int seq = readInt(src, ip);
+                int h = hash(seq);
+                int ref = hashTable[h];
+                hashTable[h] = ip;
+                if (ref < 0 || ip - ref > MAX_OFFSET || readInt(src, ref) != seq) {
+                    ip++;
+                    continue;
+                }
+                while (ip > anchor && ref > srcOff && src[ip - 1] == src[ref - 1]) {
+                    ip--;
+                    ref--;
+                }
+                int matchLen = MIN_MATCH;
+                while (ip + matchLen < matchLimit && src[ip + matchLen] == src[ref + matchLen]) {
+                    matchLen++;
+                }
+                op = writeSequence(src, anchor, ip - anchor, dst, op, ip - ref, matchLen);
+                ip += matchLen;
+                anchor = ip;
+            }
+        }
+        int litLen = srcEnd - anchor;
+        int token = op++;
+        op = writeLiterals(src, anchor, litLen, dst, token, op);
+        return op - dstOff;
+    }
+
+    /**
+     * Decompresses {@code src[srcOff, srcOff + srcLen)} into exactly {@code dstLen} bytes of {@code dst}.
+     *
+     * @throws HyracksDataException
+     *             if the input is malformed or does not decompress to {@code dstLen} bytes
+     */
+    public static void decompress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int dstLen)
+            throws HyracksDataException {
+        int ip = srcOff;
+        int srcEnd = srcOff + srcLen;
+        int op = dstOff;
+        int dstEnd = dstOff + dstLen;
+        while (true) {
+            if (ip >= srcEnd) {
+                throw corrupt();
+            }
+            int token = src[ip++] & 0xff;
+            int litLen = token >>> 4;
+            if (litLen == RUN_MASK) {
+                int b;
+                do {
+                    if (ip >= srcEnd) {
+                        throw corrupt();
+                    }
+                    b = src[ip++] & 0xff;
+                    litLen += b;
+                } while (b == 255);
+            }
+            if (litLen > srcEnd - ip || litLen > dstEnd - op) {
+                throw corrupt();
+            }
+            System.arraycopy(src, ip, dst, op, litLen);
+            ip += litLen;
+            op += litLen;
+            if (ip == srcEnd) {
+                break;
+            }
+            if (ip + 2 > srcEnd) {
+                throw corrupt();
+            }
+            int offset = (src[ip] & 0xff) | (src[ip + 1] & 0xff) << 8;
+            ip += 2;
+            int ref = op - offset;
+            if (offset == 0 || ref < dstOff) {
+                throw corrupt();
+            }
+            int matchLen = token & RUN_MASK;
+            if (matchLen == RUN_MASK) {
+                int b;
+                do {
+                    if (ip >= srcEnd) {
+                        throw corrupt();
+                    }
+                    b = src[ip++] & 0xff;
+                    matchLen += b;
+                } while (b == 255);
+            }
+            matchLen += MIN_MATCH;
+            if (matchLen > dstEnd - op) {
+                throw corrupt();
+            }
+            if (offset >= matchLen) {
+                System.arraycopy(dst, ref, dst, op, matchLen);
+                op += matchLen;
+            } else {
+                // overlapping match, e.g. a run of a repeated byte
+                for (int end = op + matchLen; op < end;) {
+                    dst[op++] = dst[ref++];
+                }
+            }
+        }
+        if (op != dstEnd) {
+            throw corrupt();
+        }
+    }
+
+    private static int writeSequence(byte[] src, int litOff, int litLen, byte[] dst, int op, int offset,
+            int matchLen) {
+        int token = op++;
+        op = writeLiterals(src, litOff, litLen, dst, token, op);
+        dst[op++] = (byte) offset;
+        dst[op++] = (byte) (offset >>> 8);
+        int len = matchLen - MIN_MATCH;
+        if (len >= RUN_MASK) {
+            dst[token] |= RUN_MASK;
+            op = writeLength(dst, op, len - RUN_MASK);
+        } else {
+            dst[token] |= len;
+        }
+        return op;
+    }
+
+    private static int writeLiterals(byte[] src, int litOff, int litLen, byte[] dst, int token, int op) {
+        if (litLen >= RUN_MASK) {
+            dst[token] = (byte) (RUN_MASK << 4);
+            op = writeLength(dst, op, litLen - RUN_MASK);
+        } else {
+            dst[token] = (byte) (litLen << 4);
+        }
+        System.arraycopy(src, litOff, dst, op, litLen);
+        return op + litLen;
+    }
+
+    private static int writeLength(byte[] dst, int op, int len) {
+        for (; len >= 255; len -= 255) {
+            dst[op++] = (byte) 255;
+        }
+        dst[op++] = (byte) len;
+        return op;
+    }
+
+    private static int readInt(byte[] b, int off) {
+        return (b[off] & 0xff) | (b[off + 1] & 0xff) << 8 | (b[off + 2] & 0xff) << 16 | (b[off + 3] & 0xff) << 24;
+    }
+
+    private static int hash(int seq) {
+        return (seq * -1640531535) >>> 20;
+    }
+
+    private static HyracksDataException corrupt() {
+        return new HyracksDataException("Malformed compressed block");
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.dataflow.common.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.junit.Test;
+
+public class LZBlockCompressorTest {
+
+    private final Random random = new Random(17);
+    private final int[] hashTable = new int[LZBlockCompressor.HASH_TABLE_SIZE];
+
+    @Test
+    public void testZeroes() throws HyracksDataException {
+        int length = roundTrip(new byte[32768]);
+        assertTrue(length < 200);
+    }
+
+    @Test
+    public void testRandom() throws HyracksDataException {
+        byte[] bytes = new byte[32768];
+        random.nextBytes(bytes);
+        roundTrip(bytes);
+    }
+
+    @Test
+    public void testShortInputs() throws HyracksDataException {
+        for (int length = 0; length < 40; length++) {
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = (byte) (i % 3);
+            }
+            roundTrip(bytes);
+        }
+    }
+
+    @Test
+    public void testMixedRecords() throws HyracksDataException {
+        // frame-like content: records with repeated prefixes, small integers, random payloads and zero padding
+        byte[] bytes = new byte[65536];
+        int pos = 0;
+        while (pos < 50000) {
+            byte[] name = ("customer#" + random.nextInt(1000)).getBytes(StandardCharsets.UTF_8);
+            System.arraycopy(name, 0, bytes, pos, name.length);
+            pos += name.length;
+            bytes[pos++] = (byte) random.nextInt(4);
+            for (int i = random.nextInt(300); i > 0; i--) {
+                bytes[pos++] = (byte) random.nextInt();
+            }
+        }
+        int length = roundTrip(bytes);
+        assertTrue(length < bytes.length);
+    }
+
+    @Test(expected = HyracksDataException.class)
+    public void testTruncatedInput() throws HyracksDataException {
+        byte[] bytes = new byte[4096];
+        Arrays.fill(bytes, 100, 200, (byte) 7);
+        byte[] compressed = new byte[LZBlockCompressor.maxCompressedLength(bytes.length)];
+        int length = LZBlockCompressor.compress(bytes, 0, bytes.length, compressed, 0, hashTable);
+        LZBlockCompressor.decompress(compressed, 0, length - 1, new byte[bytes.length], 0, bytes.length);
+    }
+
+    @Test
+    public void testCRC32C() {
+        CRC32C crc = new CRC32C();
+        byte[] bytes = "123456789".getBytes(StandardCharsets.US_ASCII);
+        crc.update(bytes, 0, bytes.length);
+        assertEquals(0xE3069283L, crc.getValue());
+        crc.reset();
+        for (byte b : bytes) {
+            crc.update(b);
+        }
+        assertEquals(0xE3069283L, crc.getValue());
+    }
+
+    private int roundTrip(byte[] bytes) throws HyracksDataException {
+        byte[] compressed = new byte[3 + LZBlockCompressor.maxCompressedLength(bytes.length)];
+        int length = LZBlockCompressor.compress(bytes, 0, bytes.length, compressed, 3, hashTable);
+        assertTrue(length <= LZBlockCompressor.maxCompressedLength(bytes.length));
+        byte[] decompressed = new byte[bytes.length + 5];
+        LZBlockCompressor.decompress(compressed, 3, length, decompressed, 5, bytes.length);
+        assertArrayEquals(bytes, Arrays.copyOfRange(decompressed, 5, decompressed.length));
+        return length;
+    }
+}
@@ -44,6 +44,7 @@ class ExternalGroupBuildOperatorNodePushable extends AbstractUnaryInputSinkOpera
     private final INormalizedKeyComputerFactory firstNormalizerFactory;
     private final IAggregatorDescriptorFactory aggregatorFactory;
     private final int framesLimit;
+    private final int runIOFrames;
     private final ISpillableTableFactory spillableTableFactory;
     private final RecordDescriptor inRecordDescriptor;
     private final RecordDescriptor outRecordDescriptor;
@@ -58,6 +59,8 @@ class ExternalGroupBuildOperatorNodePushable extends AbstractUnaryInputSinkOpera
         this.ctx = ctx;
         this.stateId = stateId;
         this.framesLimit = framesLimit;
+        // The run writer holds the blocks of its asynchronous I/O out of the frames limit.
+        this.runIOFrames = RunFileWriter.getAsyncIOFrames(ctx, framesLimit);
         this.aggregatorFactory = aggregatorFactory;
         this.keyFields = keyFields;
         this.comparatorFactories = comparatorFactories;
@@ -73,7 +76,8 @@ class ExternalGroupBuildOperatorNodePushable extends AbstractUnaryInputSinkOpera
         state = new ExternalGroupState(ctx.getJobletContext().getJobId(), stateId);
         state.setRuns(new LinkedList<RunFileReader>());
         ISpillableTable table = spillableTableFactory.buildSpillableTable(ctx, keyFields, comparatorFactories,
-                firstNormalizerFactory, aggregatorFactory, inRecordDescriptor, outRecordDescriptor, framesLimit);
+                firstNormalizerFactory, aggregatorFactory, inRecordDescriptor, outRecordDescriptor,
+                framesLimit - runIOFrames);
         table.reset();
         state.setSpillableTable(table);
     }
@@ -125,7 +129,7 @@ class ExternalGroupBuildOperatorNodePushable extends AbstractUnaryInputSinkOpera
         } catch (IOException e) {
             throw new HyracksDataException(e);
         }
-        RunFileWriter writer = new RunFileWriter(runFile, ctx.getIOManager());
+        RunFileWriter writer = new RunFileWriter(runFile, ctx, runIOFrames > 0);
         writer.open();
         ISpillableTable gTable = state.getSpillableTable();
         try {
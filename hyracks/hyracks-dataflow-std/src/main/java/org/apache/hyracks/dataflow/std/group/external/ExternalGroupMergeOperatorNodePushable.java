@@ -162,21 +162,29 @@ class ExternalGroupMergeOperatorNodePushable extends AbstractUnaryOutputSourceOp
         IFrameWriter writer = this.writer;
         boolean finalPass = false;
 
-        while (inFrames.size() + 2 < framesLimit) {
-            inFrames.add(new VSizeFrame(ctx));
-        }
+        /** each open run file holds its asynchronous I/O blocks out of the frames limit */
+        int runIOFrames = 2 * ctx.getJobletContext().getRunFileAsyncIOFrames();
+        int inFramesLimit;
         int runNumber;
-        if (runs.size() + 2 <= framesLimit) {
+        if (runs.size() * (1 + runIOFrames) + 2 <= framesLimit) {
             finalPass = true;
-            runFrameLimit = (framesLimit - 2) / runs.size();
+            inFramesLimit = framesLimit - 2 - runs.size() * runIOFrames;
+            runFrameLimit = inFramesLimit / runs.size();
             runNumber = runs.size();
         } else {
-            runNumber = framesLimit - 2;
+            runNumber = (framesLimit - 2 - runIOFrames) / (1 + runIOFrames);
+            if (runNumber < 2) {
+                throw new HyracksDataException("Not enough frames to merge the runs, please allocate more memory");
+            }
+            inFramesLimit = runNumber;
             newRun = ctx.getJobletContext().createManagedWorkspaceFile(
                     ExternalGroupOperatorDescriptor.class.getSimpleName());
-            writer = new RunFileWriter(newRun, ctx.getIOManager());
+            writer = new RunFileWriter(newRun, ctx);
             writer.open();
         }
+        while (inFrames.size() < inFramesLimit) {
+            inFrames.add(new VSizeFrame(ctx));
+        }
         try {
             currentFrameIndexInRun = new int[runNumber];
             currentRunFrames = new int[runNumber];
@@ -89,7 +89,8 @@ class GraceHashJoinPartitionBuildOperatorNodePushable extends
         if (writer == null) {
             FileReference file = ctx.getJobletContext().createManagedWorkspaceFile(
                     GraceHashJoinOperatorDescriptor.class.getSimpleName());
-            writer = new RunFileWriter(file, ctx.getIOManager());
+            // every partition has a single frame, which cannot spare the blocks of asynchronous I/O
+            writer = new RunFileWriter(file, ctx, false);
             writer.open();
             state.getRunWriters()[i] = writer;
         }
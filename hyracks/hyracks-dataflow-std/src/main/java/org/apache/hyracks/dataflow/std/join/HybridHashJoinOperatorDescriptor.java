@@ -155,6 +155,7 @@ public class HybridHashJoinOperatorDescriptor extends AbstractOperatorDescriptor
         private InMemoryHashJoin joiner;
         private int nPartitions;
         private int memoryForHashtable;
+        private int runIOFrames;
 
         public BuildAndPartitionTaskState() {
         }
@@ -319,6 +320,12 @@ public class HybridHashJoinOperatorDescriptor extends AbstractOperatorDescriptor
                     } else {
                         throw new HyracksDataException("not enough memory");
                     }
+                    if (state.nPartitions > 0) {
+                        // the writer of every partition holds the blocks of its asynchronous I/O out of the table
+                        state.runIOFrames = RunFileWriter.getAsyncIOFrames(ctx, state.memoryForHashtable
+                                / state.nPartitions);
+                        state.memoryForHashtable -= state.nPartitions * state.runIOFrames;
+                    }
 
                     ITuplePartitionComputer hpc0 = new FieldHashPartitionComputerFactory(keys0, hashFunctionFactories)
                             .createPartitioner();
@@ -354,7 +361,7 @@ public class HybridHashJoinOperatorDescriptor extends AbstractOperatorDescriptor
                     if (writer == null) {
                         FileReference file = ctx.getJobletContext().createManagedWorkspaceFile(
                                 BuildAndPartitionActivityNode.class.getSimpleName());
-                        writer = new RunFileWriter(file, ctx.getIOManager());
+                        writer = new RunFileWriter(file, ctx, state.runIOFrames > 0);
                         writer.open();
                         state.fWriters[i] = writer;
                     }
@@ -556,7 +563,7 @@ public class HybridHashJoinOperatorDescriptor extends AbstractOperatorDescriptor
                     if (writer == null) {
                         FileReference file = ctx.createManagedWorkspaceFile(PartitionAndJoinActivityNode.class
                                 .getSimpleName());
-                        writer = new RunFileWriter(file, ctx.getIOManager());
+                        writer = new RunFileWriter(file, ctx, state.runIOFrames > 0);
                         writer.open();
                         probeWriters[i] = writer;
                     }
@@ -48,6 +48,7 @@ public class NestedLoopJoin {
     private final IFrame innerBuffer;
     private final List<ByteBuffer> outBuffers;
     private final int memSize;
+    private final int runIOFrames;
     private final IHyracksTaskContext ctx;
     private RunFileReader runFileReader;
     private int currentMemSize = 0;
@@ -68,10 +69,12 @@ public class NestedLoopJoin {
         this.innerBuffer = new VSizeFrame(ctx);
         this.appender.reset(outBuffer, true);
         this.outBuffers = new ArrayList<ByteBuffer>();
-        this.memSize = memSize;
         if (memSize < 3) {
             throw new HyracksDataException("Not enough memory is available for Nested Loop Join");
         }
+        // The run file of the inner relation holds the blocks of its asynchronous I/O out of the outer frames.
+        this.runIOFrames = RunFileWriter.getAsyncIOFrames(ctx, memSize - 3);
+        this.memSize = memSize - runIOFrames;
         this.predEvaluator = predEval;
         this.isReversed = false;
         this.ctx = ctx;
@@ -91,7 +94,7 @@ public class NestedLoopJoin {
 
         FileReference file = ctx.getJobletContext().createManagedWorkspaceFile(
                 this.getClass().getSimpleName() + this.toString());
-        runFileWriter = new RunFileWriter(file, ctx.getIOManager());
+        runFileWriter = new RunFileWriter(file, ctx, runIOFrames > 0);
         runFileWriter.open();
     }
 
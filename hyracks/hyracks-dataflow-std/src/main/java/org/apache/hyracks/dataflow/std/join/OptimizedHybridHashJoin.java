@@ -89,6 +89,7 @@ public class OptimizedHybridHashJoin {
     private BitSet pStatus; //0=resident, 1=spilled
     private int numOfPartitions;
     private int memForJoin;
+    private final int runIOFrames; //Frames of the asynchronous I/O of each spilled partition's writer
     private InMemoryHashJoin inMemJoiner; //Used for joining resident partitions
 
     private final FrameTupleAccessor accessorBuild;
@@ -115,7 +116,9 @@ public class OptimizedHybridHashJoin {
             RecordDescriptor probeRd, ITuplePartitionComputer probeHpc, ITuplePartitionComputer buildHpc,
             IPredicateEvaluator predEval) {
         this.ctx = ctx;
-        this.memForJoin = memForJoin;
+        //Every spilled partition holds the blocks of its writers' asynchronous I/O, which are taken from the memory
+        this.runIOFrames = RunFileWriter.getAsyncIOFrames(ctx, memForJoin / numOfPartitions);
+        this.memForJoin = memForJoin - numOfPartitions * runIOFrames;
         this.buildRd = buildRd;
         this.probeRd = probeRd;
         this.buildHpc = buildHpc;
@@ -145,7 +148,8 @@ public class OptimizedHybridHashJoin {
             RecordDescriptor probeRd, ITuplePartitionComputer probeHpc, ITuplePartitionComputer buildHpc,
             IPredicateEvaluator predEval, boolean isLeftOuter, INullWriterFactory[] nullWriterFactories1) {
         this.ctx = ctx;
-        this.memForJoin = memForJoin;
+        this.runIOFrames = RunFileWriter.getAsyncIOFrames(ctx, memForJoin / numOfPartitions);
+        this.memForJoin = memForJoin - numOfPartitions * runIOFrames;
         this.buildRd = buildRd;
         this.probeRd = probeRd;
         this.buildHpc = buildHpc;
@@ -332,7 +336,7 @@ public class OptimizedHybridHashJoin {
             FileReference file = ctx.getJobletContext().createManagedWorkspaceFile(rel0Name);
             LOGGER.fine("OptimizedHybridHashJoin is creating a run file (" + file.getFile().getAbsolutePath()
                     + ") for partition:" + pid + " for Thread ID " + Thread.currentThread().getId() + ".");
-            writer = new RunFileWriter(file, ctx.getIOManager());
+            writer = new RunFileWriter(file, ctx, runIOFrames > 0);
             writer.open();
             buildRFWriters[pid] = writer;
         }
@@ -571,7 +575,7 @@ public class OptimizedHybridHashJoin {
         RunFileWriter pWriter = probeRFWriters[pid];
         if (pWriter == null) {
             FileReference file = ctx.getJobletContext().createManagedWorkspaceFile(rel1Name);
-            pWriter = new RunFileWriter(file, ctx.getIOManager());
+            pWriter = new RunFileWriter(file, ctx, runIOFrames > 0);
             pWriter.open();
             probeRFWriters[pid] = pWriter;
         }
@@ -54,7 +54,9 @@ public class MaterializerTaskState extends AbstractStateObject {
     public void open(IHyracksTaskContext ctx) throws HyracksDataException {
         FileReference file = ctx.getJobletContext().createManagedWorkspaceFile(
                 MaterializerTaskState.class.getSimpleName());
-        out = new RunFileWriter(file, ctx.getIOManager());
+        // There is no frames limit to charge the blocks of the asynchronous I/O to, but the run file is the only one
+        // of the task, so the task holds a single pair of them.
+        out = new RunFileWriter(file, ctx);
         out.open();
     }
 
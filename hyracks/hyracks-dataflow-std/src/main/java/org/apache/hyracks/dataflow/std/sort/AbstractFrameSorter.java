@@ -30,7 +30,6 @@ import org.apache.hyracks.api.comm.VSizeFrame;
 import org.apache.hyracks.api.context.IHyracksTaskContext;
 import org.apache.hyracks.api.dataflow.value.IBinaryComparator;
 import org.apache.hyracks.api.dataflow.value.IBinaryComparatorFactory;
-import org.apache.hyracks.api.dataflow.value.INormalizedKeyComputer;
 import org.apache.hyracks.api.dataflow.value.INormalizedKeyComputerFactory;
 import org.apache.hyracks.api.dataflow.value.RecordDescriptor;
 import org.apache.hyracks.api.exceptions.HyracksDataException;
@@ -38,19 +37,34 @@ import org.apache.hyracks.dataflow.common.comm.io.FrameTupleAccessor;
 import org.apache.hyracks.dataflow.common.comm.io.FrameTupleAppender;
 import org.apache.hyracks.dataflow.common.comm.util.FrameUtils;
 import org.apache.hyracks.dataflow.std.sort.buffermanager.IFrameBufferManager;
+import org.apache.hyracks.dataflow.std.sort.util.MultiFieldNormalizedKeyComputer;
 
 public abstract class AbstractFrameSorter implements IFrameSorter {
 
     protected Logger LOGGER = Logger.getLogger(AbstractFrameSorter.class.getName());
-    static final int PTR_SIZE = 4;
     static final int ID_FRAMEID = 0;
     static final int ID_TUPLE_START = 1;
     static final int ID_TUPLE_END = 2;
     static final int ID_NORMAL_KEY = 3;
 
+    /**
+     * The maximum number of normalized key words (32 bytes) stored inline with each tuple pointer
+     */
+    public static final int MAX_NORMALIZED_KEY_LENGTH = MultiFieldNormalizedKeyComputer.MAX_NORMALIZED_KEY_LENGTH;
+
     protected final int[] sortFields;
     protected final IBinaryComparator[] comparators;
-    protected final INormalizedKeyComputer nkc;
+    /**
+     * A tuple is "pointed" to by ptrSize entries in the tPointers array: the frame id, the tuple start and end
+     * offsets, followed by nkLength words of normalized key (see {@link MultiFieldNormalizedKeyComputer}).
+     */
+    private final MultiFieldNormalizedKeyComputer nkc;
+    protected final int nkLength;
+    /**
+     * The number of leading sort fields whose order is fully determined by the normalized key.
+     */
+    protected final int decisiveFields;
+    protected final int ptrSize;
     protected final IFrameBufferManager bufferManager;
     protected final FrameTupleAccessor inputTupleAccessor;
     protected final IFrameTupleAppender outputAppender;
@@ -67,13 +81,37 @@ public abstract class AbstractFrameSorter implements IFrameSorter {
                 Integer.MAX_VALUE);
     }
 
+    /**
+     * Creates a sorter that keeps the legacy single word normalized key of the first sort field per tuple pointer.
+     */
     public AbstractFrameSorter(IHyracksTaskContext ctx, IFrameBufferManager bufferManager, int[] sortFields,
             INormalizedKeyComputerFactory firstKeyNormalizerFactory, IBinaryComparatorFactory[] comparatorFactories,
             RecordDescriptor recordDescriptor, int outputLimit)
             throws HyracksDataException {
+        this(ctx, bufferManager, sortFields, new MultiFieldNormalizedKeyComputer(firstKeyNormalizerFactory),
+                comparatorFactories, recordDescriptor, outputLimit);
+    }
+
+    /**
+     * Creates a sorter that keeps the multi-word normalized key of the leading sort fields per tuple pointer.
+     */
+    public AbstractFrameSorter(IHyracksTaskContext ctx, IFrameBufferManager bufferManager, int[] sortFields,
+            INormalizedKeyComputerFactory[] keyNormalizerFactories, IBinaryComparatorFactory[] comparatorFactories,
+            RecordDescriptor recordDescriptor, int outputLimit) throws HyracksDataException {
+        this(ctx, bufferManager, sortFields,
+                new MultiFieldNormalizedKeyComputer(keyNormalizerFactories, sortFields.length), comparatorFactories,
+                recordDescriptor, outputLimit);
+    }
+
+    private AbstractFrameSorter(IHyracksTaskContext ctx, IFrameBufferManager bufferManager, int[] sortFields,
+            MultiFieldNormalizedKeyComputer nkc, IBinaryComparatorFactory[] comparatorFactories,
+            RecordDescriptor recordDescriptor, int outputLimit) throws HyracksDataException {
         this.bufferManager = bufferManager;
         this.sortFields = sortFields;
-        this.nkc = firstKeyNormalizerFactory == null ? null : firstKeyNormalizerFactory.createNormalizedKeyComputer();
+        this.nkc = nkc;
+        this.nkLength = nkc.getLength();
+        this.decisiveFields = nkc.getDecisiveFieldCount();
+        this.ptrSize = ID_NORMAL_KEY + nkLength;
         this.comparators = new IBinaryComparator[comparatorFactories.length];
         for (int i = 0; i < comparatorFactories.length; ++i) {
             comparators[i] = comparatorFactories[i].createBinaryComparator();
@@ -111,28 +149,22 @@ public abstract class AbstractFrameSorter implements IFrameSorter {
                             bufferManager.getFrameSize(i));
             tupleCount += inputTupleAccessor.getTupleCount();
         }
-        if (tPointers == null || tPointers.length < tupleCount * PTR_SIZE) {
-            tPointers = new int[tupleCount * PTR_SIZE];
+        if (tPointers == null || tPointers.length < tupleCount * ptrSize) {
+            tPointers = new int[tupleCount * ptrSize];
         }
         int ptr = 0;
-        int sfIdx = sortFields[0];
         for (int i = 0; i < bufferManager.getNumFrames(); ++i) {
             inputTupleAccessor
                     .reset(bufferManager.getFrame(i), bufferManager.getFrameStartOffset(i),
                             bufferManager.getFrameSize(i));
             int tCount = inputTupleAccessor.getTupleCount();
-            byte[] array = inputTupleAccessor.getBuffer().array();
             for (int j = 0; j < tCount; ++j) {
                 int tStart = inputTupleAccessor.getTupleStartOffset(j);
                 int tEnd = inputTupleAccessor.getTupleEndOffset(j);
-                tPointers[ptr * PTR_SIZE + ID_FRAMEID] = i;
-                tPointers[ptr * PTR_SIZE + ID_TUPLE_START] = tStart;
-                tPointers[ptr * PTR_SIZE + ID_TUPLE_END] = tEnd;
-                int f0StartRel = inputTupleAccessor.getFieldStartOffset(j, sfIdx);
-                int f0EndRel = inputTupleAccessor.getFieldEndOffset(j, sfIdx);
-                int f0Start = f0StartRel + tStart + inputTupleAccessor.getFieldSlotsLength();
-                tPointers[ptr * PTR_SIZE + ID_NORMAL_KEY] =
-                        nkc == null ? 0 : nkc.normalize(array, f0Start, f0EndRel - f0StartRel);
+                tPointers[ptr * ptrSize + ID_FRAMEID] = i;
+                tPointers[ptr * ptrSize + ID_TUPLE_START] = tStart;
+                tPointers[ptr * ptrSize + ID_TUPLE_END] = tEnd;
+                nkc.normalize(inputTupleAccessor, j, sortFields, tPointers, ptr * ptrSize + ID_NORMAL_KEY);
                 ++ptr;
             }
         }
@@ -141,6 +173,14 @@ public abstract class AbstractFrameSorter implements IFrameSorter {
         }
     }
 
+    /**
+     * Compares the inline normalized keys of two tuple pointers, word by word as unsigned ints.
+     */
+    protected final int compareNormalizedKeys(int[] p1, int ptr1, int[] p2, int ptr2) {
+        return MultiFieldNormalizedKeyComputer.compare(p1, ptr1 * ptrSize + ID_NORMAL_KEY, p2,
+                ptr2 * ptrSize + ID_NORMAL_KEY, nkLength);
+    }
+
     abstract void sortTupleReferences() throws HyracksDataException;
 
     @Override
@@ -160,9 +200,9 @@ public abstract class AbstractFrameSorter implements IFrameSorter {
         int limit = Math.min(tupleCount, outputLimit);
         int io = 0;
         for (int ptr = 0; ptr < limit; ++ptr) {
-            int i = tPointers[ptr * PTR_SIZE + ID_FRAMEID];
-            int tStart = tPointers[ptr * PTR_SIZE + ID_TUPLE_START];
-            int tEnd = tPointers[ptr * PTR_SIZE + ID_TUPLE_END];
+            int i = tPointers[ptr * ptrSize + ID_FRAMEID];
+            int tStart = tPointers[ptr * ptrSize + ID_TUPLE_START];
+            int tEnd = tPointers[ptr * ptrSize + ID_TUPLE_END];
             ByteBuffer buffer = bufferManager.getFrame(i);
             inputTupleAccessor.reset(buffer, bufferManager.getFrameStartOffset(i), bufferManager.getFrameSize(i));
 
@@ -21,5 +21,11 @@ package org.apache.hyracks.dataflow.std.sort;
 
 public enum Algorithm {
     QUICK_SORT,
-    MERGE_SORT
+    MERGE_SORT,
+    /**
+     * Sorts on the multi-word normalized keys alone (see {@link FrameSorterRadixSort}). Every algorithm does so if the
+     * key normalizers of all the sort fields are given and their keys decide the order; otherwise RADIX_SORT falls
+     * back to MERGE_SORT.
+     */
+    RADIX_SORT
 }
@@ -35,6 +35,8 @@ public class ExternalSortOperatorDescriptor extends AbstractSorterOperatorDescri
     private Algorithm alg = Algorithm.MERGE_SORT;
     private EnumFreeSlotPolicy policy = EnumFreeSlotPolicy.LAST_FIT;
     private final int outputLimit;
+    private INormalizedKeyComputerFactory[] keyNormalizerFactories;
+    private int sortParallelism = 1;
 
     public ExternalSortOperatorDescriptor(IOperatorDescriptorRegistry spec, int framesLimit, int[] sortFields,
             INormalizedKeyComputerFactory firstKeyNormalizerFactory, IBinaryComparatorFactory[] comparatorFactories,
@@ -61,8 +63,22 @@ public class ExternalSortOperatorDescriptor extends AbstractSorterOperatorDescri
             @Override
             protected AbstractSortRunGenerator getRunGenerator(IHyracksTaskContext ctx,
                     IRecordDescriptorProvider recordDescProvider) throws HyracksDataException {
-                return new ExternalSortRunGenerator(ctx, sortFields, firstKeyNormalizerFactory,
-                        comparatorFactories, recordDescriptors[0], alg, policy, framesLimit, outputLimit);
+                if (keyNormalizerFactories == null) {
+                    if (sortParallelism > 1) {
+                        return new ParallelExternalSortRunGenerator(ctx, sortFields, firstKeyNormalizerFactory,
+                                comparatorFactories, recordDescriptors[0], alg, policy, framesLimit, outputLimit,
+                                sortParallelism);
+                    }
+                    return new ExternalSortRunGenerator(ctx, sortFields, firstKeyNormalizerFactory,
+                            comparatorFactories, recordDescriptors[0], alg, policy, framesLimit, outputLimit);
+                }
+                if (sortParallelism > 1) {
+                    return new ParallelExternalSortRunGenerator(ctx, sortFields, keyNormalizerFactories,
+                            comparatorFactories, recordDescriptors[0], alg, policy, framesLimit, outputLimit,
+                            sortParallelism);
+                }
+                return new ExternalSortRunGenerator(ctx, sortFields, keyNormalizerFactories, comparatorFactories,
+                        recordDescriptors[0], alg, policy, framesLimit, outputLimit);
             }
         };
     }
@@ -74,8 +90,17 @@ public class ExternalSortOperatorDescriptor extends AbstractSorterOperatorDescri
             protected ExternalSortRunMerger getSortRunMerger(IHyracksTaskContext ctx,
                     IRecordDescriptorProvider recordDescProvider, IFrameWriter writer, ISorter sorter, List<RunAndMaxFrameSizePair> runs, IBinaryComparator[] comparators,
                     INormalizedKeyComputer nmkComputer, int necessaryFrames) {
-                return new ExternalSortRunMerger(ctx, sorter, runs, sortFields, comparators,
-                        nmkComputer, recordDescriptors[0], necessaryFrames, outputLimit, writer);
+                ExternalSortRunMerger merger;
+                if (sortParallelism > 1) {
+                    merger = new ParallelExternalSortRunMerger(ctx, sorter, runs, sortFields, comparatorFactories,
+                            firstKeyNormalizerFactory, recordDescriptors[0], necessaryFrames, outputLimit, writer,
+                            sortParallelism);
+                } else {
+                    merger = new ExternalSortRunMerger(ctx, sorter, runs, sortFields, comparators, nmkComputer,
+                            recordDescriptors[0], necessaryFrames, outputLimit, writer);
+                }
+                merger.setKeyNormalizerFactories(keyNormalizerFactories);
+                return merger;
             }
         };
     }
@@ -99,4 +124,31 @@ public class ExternalSortOperatorDescriptor extends AbstractSorterOperatorDescri
         this.outputLimit = outputLimit;
     }
 
-}
\ No newline at end of file
+    /**
+     * Sets the normalized key computers of the leading sort fields, which are used by the in-memory sort and by the
+     * merge of the runs instead of the single word key of the first key normalizer. The normalized key of a field is
+     * only used if the keys of all the preceding fields are decisive (see
+     * {@link org.apache.hyracks.api.dataflow.value.IMultiWordNormalizedKeyComputer}). If it is not set, the sort
+     * keeps the single word key of the first key normalizer.
+     */
+    public void setKeyNormalizerFactories(INormalizedKeyComputerFactory[] keyNormalizerFactories) {
+        this.keyNormalizerFactories = keyNormalizerFactories;
+    }
+
+    public INormalizedKeyComputerFactory[] getKeyNormalizerFactories() {
+        return keyNormalizerFactories;
+    }
+
+    /**
+     * Sets the number of threads a task uses to sort and write runs and to merge them. The sort still stays within
+     * framesLimit frames, which are divided among the threads. The default of 1 sorts and merges on the task thread.
+     */
+    public void setSortParallelism(int sortParallelism) {
+        this.sortParallelism = sortParallelism;
+    }
+
+    public int getSortParallelism() {
+        return sortParallelism;
+    }
+
+}
@@ -42,6 +42,7 @@ public class ExternalSortRunGenerator extends AbstractSortRunGenerator {
     protected final IHyracksTaskContext ctx;
     protected final IFrameSorter frameSorter;
     protected final int maxSortFrames;
+    protected final int runIOFrames;
 
     public ExternalSortRunGenerator(IHyracksTaskContext ctx, int[] sortFields,
             INormalizedKeyComputerFactory firstKeyNormalizerFactory, IBinaryComparatorFactory[] comparatorFactories,
@@ -62,9 +63,43 @@ public class ExternalSortRunGenerator extends AbstractSortRunGenerator {
             INormalizedKeyComputerFactory firstKeyNormalizerFactory, IBinaryComparatorFactory[] comparatorFactories,
             RecordDescriptor recordDesc, Algorithm alg, EnumFreeSlotPolicy policy, int framesLimit, int outputLimit)
             throws HyracksDataException {
+        this(ctx, sortFields, firstKeyNormalizerFactory, null, comparatorFactories, recordDesc, alg, policy,
+                framesLimit, outputLimit);
+    }
+
+    /**
+     * Creates a run generator whose sorter keeps the multi-word normalized key of the leading sort fields.
+     */
+    public ExternalSortRunGenerator(IHyracksTaskContext ctx, int[] sortFields,
+            INormalizedKeyComputerFactory[] keyNormalizerFactories, IBinaryComparatorFactory[] comparatorFactories,
+            RecordDescriptor recordDesc, Algorithm alg, EnumFreeSlotPolicy policy, int framesLimit, int outputLimit)
+            throws HyracksDataException {
+        this(ctx, sortFields, null, keyNormalizerFactories, comparatorFactories, recordDesc, alg, policy, framesLimit,
+                outputLimit);
+    }
+
+    private ExternalSortRunGenerator(IHyracksTaskContext ctx, int[] sortFields,
+            INormalizedKeyComputerFactory firstKeyNormalizerFactory,
+            INormalizedKeyComputerFactory[] keyNormalizerFactories, IBinaryComparatorFactory[] comparatorFactories,
+            RecordDescriptor recordDesc, Algorithm alg, EnumFreeSlotPolicy policy, int framesLimit, int outputLimit)
+            throws HyracksDataException {
         this.ctx = ctx;
-        maxSortFrames = framesLimit - 1;
+        /** the run writer holds the blocks of its asynchronous I/O out of the frames limit */
+        runIOFrames = RunFileWriter.getAsyncIOFrames(ctx, framesLimit - 1);
+        maxSortFrames = framesLimit - 1 - runIOFrames;
+        frameSorter = createFrameSorter(ctx, sortFields, firstKeyNormalizerFactory, keyNormalizerFactories,
+                comparatorFactories, recordDesc, alg, policy, maxSortFrames, outputLimit);
+    }
 
+    /**
+     * Creates the sorter of a run generator. If keyNormalizerFactories is null, the sorter only keeps the single word
+     * normalized key of the first sort field.
+     */
+    static IFrameSorter createFrameSorter(IHyracksTaskContext ctx, int[] sortFields,
+            INormalizedKeyComputerFactory firstKeyNormalizerFactory,
+            INormalizedKeyComputerFactory[] keyNormalizerFactories, IBinaryComparatorFactory[] comparatorFactories,
+            RecordDescriptor recordDesc, Algorithm alg, EnumFreeSlotPolicy policy, int maxSortFrames, int outputLimit)
+            throws HyracksDataException {
         IFrameFreeSlotPolicy freeSlotPolicy = null;
         switch (policy) {
             case SMALLEST_FIT:
@@ -79,11 +114,24 @@ public class ExternalSortRunGenerator extends AbstractSortRunGenerator {
         }
         IFrameBufferManager bufferManager = new VariableFrameMemoryManager(
                 new VariableFramePool(ctx, maxSortFrames * ctx.getInitialFrameSize()), freeSlotPolicy);
-        if (alg == Algorithm.MERGE_SORT) {
-            frameSorter = new FrameSorterMergeSort(ctx, bufferManager, sortFields, firstKeyNormalizerFactory,
+        /** RADIX_SORT falls back to merge sort, the other stable sort, if the normalized keys cannot decide */
+        if (keyNormalizerFactories == null) {
+            if (alg == Algorithm.QUICK_SORT) {
+                return new FrameSorterQuickSort(ctx, bufferManager, sortFields, firstKeyNormalizerFactory,
+                        comparatorFactories, recordDesc, outputLimit);
+            } else {
+                return new FrameSorterMergeSort(ctx, bufferManager, sortFields, firstKeyNormalizerFactory,
+                        comparatorFactories, recordDesc, outputLimit);
+            }
+        } else if (FrameSorterRadixSort.canSort(keyNormalizerFactories, comparatorFactories.length)) {
+            /** the normalized keys decide the order on their own, and the radix sort is stable like merge sort */
+            return new FrameSorterRadixSort(ctx, bufferManager, sortFields, keyNormalizerFactories,
+                    comparatorFactories, recordDesc, outputLimit);
+        } else if (alg == Algorithm.QUICK_SORT) {
+            return new FrameSorterQuickSort(ctx, bufferManager, sortFields, keyNormalizerFactories,
                     comparatorFactories, recordDesc, outputLimit);
         } else {
-            frameSorter = new FrameSorterQuickSort(ctx, bufferManager, sortFields, firstKeyNormalizerFactory,
+            return new FrameSorterMergeSort(ctx, bufferManager, sortFields, keyNormalizerFactories,
                     comparatorFactories, recordDesc, outputLimit);
         }
     }
@@ -101,7 +149,7 @@ public class ExternalSortRunGenerator extends AbstractSortRunGenerator {
     protected RunFileWriter getRunFileWriter() throws HyracksDataException {
         FileReference file = ctx.getJobletContext().createManagedWorkspaceFile(
                 ExternalSortRunGenerator.class.getSimpleName());
-        return new RunFileWriter(file, ctx.getIOManager());
+        return new RunFileWriter(file, ctx, runIOFrames > 0);
     }
 
     protected IFrameWriter getFlushableFrameWriter(RunFileWriter writer) throws HyracksDataException {
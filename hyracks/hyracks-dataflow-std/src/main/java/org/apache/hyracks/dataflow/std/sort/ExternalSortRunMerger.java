@@ -32,6 +32,7 @@ import org.apache.hyracks.api.comm.VSizeFrame;
 import org.apache.hyracks.api.context.IHyracksTaskContext;
 import org.apache.hyracks.api.dataflow.value.IBinaryComparator;
 import org.apache.hyracks.api.dataflow.value.INormalizedKeyComputer;
+import org.apache.hyracks.api.dataflow.value.INormalizedKeyComputerFactory;
 import org.apache.hyracks.api.dataflow.value.RecordDescriptor;
 import org.apache.hyracks.api.exceptions.HyracksDataException;
 import org.apache.hyracks.api.io.FileReference;
@@ -54,6 +55,7 @@ public class ExternalSortRunMerger {
     private final int MAX_FRAME_SIZE;
     private final ArrayList<IFrameReader> tempRuns;
     private final int topK;
+    private INormalizedKeyComputerFactory[] keyNormalizerFactories;
     private List<GroupVSizeFrame> inFrames;
     private VSizeFrame outputFrame;
     private ISorter sorter;
@@ -107,6 +109,11 @@ public class ExternalSortRunMerger {
                 finalWriter.open();
 
                 int maxMergeWidth = framesLimit - 1;
+                /**
+                 * every run being read holds two blocks of asynchronous I/O, and so does the run being written, so
+                 * they are charged to the merge budget, which lowers the fan-in
+                 */
+                int runIOSize = 2 * ctx.getJobletContext().getRunFileAsyncIOFrames() * ctx.getInitialFrameSize();
 
                 inFrames = new ArrayList<>(maxMergeWidth);
                 outputFrame = new VSizeFrame(ctx);
@@ -117,14 +124,14 @@ public class ExternalSortRunMerger {
 
                 while (true) {
 
-                    int unUsed = selectPartialRuns(maxMergeWidth * ctx.getInitialFrameSize(), runs, partialRuns,
-                            currentGenerationRunAvailable, stop);
+                    int unUsed = selectPartialRuns(maxMergeWidth * ctx.getInitialFrameSize() - runIOSize, runIOSize,
+                            runs, partialRuns, currentGenerationRunAvailable, stop);
                     prepareFrames(unUsed, inFrames, partialRuns);
 
                     if (!currentGenerationRunAvailable.isEmpty() || stop < runs.size()) {
                         IFrameReader reader;
                         int mergedMaxFrameSize;
-                        if (partialRuns.size() == 1) {
+                        if (partialRuns.size() <= 1) {
                             if (!currentGenerationRunAvailable.isEmpty()) {
                                 throw new HyracksDataException(
                                         "The record is too big to put into the merging frame, please"
@@ -177,16 +184,16 @@ public class ExternalSortRunMerger {
         runs.add(new RunAndMaxFrameSizePair(reader, mergedPartialMaxSize));
     }
 
-    private static int selectPartialRuns(int budget, List<RunAndMaxFrameSizePair> runs,
+    private static int selectPartialRuns(int budget, int runIOSize, List<RunAndMaxFrameSizePair> runs,
             List<RunAndMaxFrameSizePair> partialRuns, BitSet runAvailable, int stop) {
         partialRuns.clear();
         int maxFrameSizeOfGenRun = 0;
         int nextRunId = runAvailable.nextSetBit(0);
         while (budget > 0 && nextRunId >= 0 && nextRunId < stop) {
             int runFrameSize = runs.get(nextRunId).maxFrameSize;
-            if (budget - runFrameSize >= 0) {
+            if (budget - runFrameSize - runIOSize >= 0) {
                 partialRuns.add(runs.get(nextRunId));
-                budget -= runFrameSize;
+                budget -= runFrameSize + runIOSize;
                 runAvailable.clear(nextRunId);
                 maxFrameSizeOfGenRun = runFrameSize > maxFrameSizeOfGenRun ? runFrameSize : maxFrameSizeOfGenRun;
             }
@@ -228,7 +235,7 @@ public class ExternalSortRunMerger {
 
     protected RunFileWriter prepareIntermediateMergeRunFile() throws HyracksDataException {
         FileReference newRun = ctx.createManagedWorkspaceFile(ExternalSortRunMerger.class.getSimpleName());
-        return new RunFileWriter(newRun, ctx.getIOManager());
+        return new RunFileWriter(newRun, ctx);
     }
 
     protected IFrameWriter prepareIntermediateMergeResultWriter(RunFileWriter mergeFileWriter)
@@ -244,6 +251,20 @@ public class ExternalSortRunMerger {
         return sortFields;
     }
 
+    /**
+     * Makes the merge compare the multi-word normalized keys of the leading sort fields. It must be set if the runs
+     * were generated by sorters created with the same key normalizers.
+     *
+     * @see RunMergingFrameReader#setKeyNormalizerFactories
+     */
+    public void setKeyNormalizerFactories(INormalizedKeyComputerFactory[] keyNormalizerFactories) {
+        this.keyNormalizerFactories = keyNormalizerFactories;
+    }
+
+    protected INormalizedKeyComputerFactory[] getKeyNormalizerFactories() {
+        return keyNormalizerFactories;
+    }
+
     private int merge(IFrameWriter writer, List<RunAndMaxFrameSizePair> partialRuns) throws HyracksDataException {
         tempRuns.clear();
         for (int i = 0; i < partialRuns.size(); i++) {
@@ -251,6 +272,7 @@ public class ExternalSortRunMerger {
         }
         RunMergingFrameReader merger = new RunMergingFrameReader(ctx, tempRuns, inFrames, getSortFields(), comparators,
                 nmkComputer, recordDesc, topK);
+        merger.setKeyNormalizerFactories(keyNormalizerFactories);
         int maxFrameSize = 0;
         int io = 0;
         merger.open();
@@ -31,6 +31,7 @@ import org.apache.hyracks.dataflow.std.sort.buffermanager.IFrameBufferManager;
 public class FrameSorterQuickSort extends AbstractFrameSorter {
 
     private FrameTupleAccessor fta2;
+    private final int[] pivot;
 
     public FrameSorterQuickSort(IHyracksTaskContext ctx, IFrameBufferManager bufferManager, int[] sortFields,
             INormalizedKeyComputerFactory firstKeyNormalizerFactory, IBinaryComparatorFactory[] comparatorFactories,
@@ -45,6 +46,16 @@ public class FrameSorterQuickSort extends AbstractFrameSorter {
         super(ctx, bufferManager, sortFields, firstKeyNormalizerFactory, comparatorFactories, recordDescriptor,
                 outputLimit);
         fta2 = new FrameTupleAccessor(recordDescriptor);
+        pivot = new int[ptrSize];
+    }
+
+    public FrameSorterQuickSort(IHyracksTaskContext ctx, IFrameBufferManager bufferManager, int[] sortFields,
+            INormalizedKeyComputerFactory[] keyNormalizerFactories, IBinaryComparatorFactory[] comparatorFactories,
+            RecordDescriptor recordDescriptor, int outputLimit) throws HyracksDataException {
+        super(ctx, bufferManager, sortFields, keyNormalizerFactories, comparatorFactories, recordDescriptor,
+                outputLimit);
+        fta2 = new FrameTupleAccessor(recordDescriptor);
+        pivot = new int[ptrSize];
     }
 
     @Override
@@ -54,9 +65,8 @@ public class FrameSorterQuickSort extends AbstractFrameSorter {
 
     void sort(int[] tPointers, int offset, int length) throws HyracksDataException {
         int m = offset + (length >> 1);
-        int mi = tPointers[m * 4];
-        int mj = tPointers[m * 4 + 1];
-        int mv = tPointers[m * 4 + 3];
+        /** the pivot is copied out, as it may be moved by the swaps below */
+        System.arraycopy(tPointers, m * ptrSize, pivot, 0, ptrSize);
 
         int a = offset;
         int b = a;
@@ -64,7 +74,7 @@ public class FrameSorterQuickSort extends AbstractFrameSorter {
         int d = c;
         while (true) {
             while (b <= c) {
-                int cmp = compare(tPointers, b, mi, mj, mv);
+                int cmp = compare(tPointers, b);
                 if (cmp > 0) {
                     break;
                 }
@@ -74,7 +84,7 @@ public class FrameSorterQuickSort extends AbstractFrameSorter {
                 ++b;
             }
             while (c >= b) {
-                int cmp = compare(tPointers, c, mi, mj, mv);
+                int cmp = compare(tPointers, c);
                 if (cmp < 0) {
                     break;
                 }
@@ -104,10 +114,10 @@ public class FrameSorterQuickSort extends AbstractFrameSorter {
     }
 
     private void swap(int x[], int a, int b) {
-        for (int i = 0; i < 4; ++i) {
-            int t = x[a * 4 + i];
-            x[a * 4 + i] = x[b * 4 + i];
-            x[b * 4 + i] = t;
+        for (int i = 0; i < ptrSize; ++i) {
+            int t = x[a * ptrSize + i];
+            x[a * ptrSize + i] = x[b * ptrSize + i];
+            x[b * ptrSize + i] = t;
         }
     }
 
@@ -117,22 +127,22 @@ public class FrameSorterQuickSort extends AbstractFrameSorter {
         }
     }
 
-    private int compare(int[] tPointers, int tp1, int tp2i, int tp2j, int tp2v) throws HyracksDataException {
-        int i1 = tPointers[tp1 * 4];
-        int j1 = tPointers[tp1 * 4 + 1];
-        int v1 = tPointers[tp1 * 4 + 3];
-        if (v1 != tp2v) {
-            return ((((long) v1) & 0xffffffffL) < (((long) tp2v) & 0xffffffffL)) ? -1 : 1;
+    private int compare(int[] tPointers, int tp1) throws HyracksDataException {
+        int nkCmp = compareNormalizedKeys(tPointers, tp1, pivot, 0);
+        if (nkCmp != 0 || decisiveFields == comparators.length) {
+            return nkCmp;
         }
-        int i2 = tp2i;
-        int j2 = tp2j;
+        int i1 = tPointers[tp1 * ptrSize + ID_FRAMEID];
+        int j1 = tPointers[tp1 * ptrSize + ID_TUPLE_START];
+        int i2 = pivot[ID_FRAMEID];
+        int j2 = pivot[ID_TUPLE_START];
         ByteBuffer buf1 = super.bufferManager.getFrame(i1);
         ByteBuffer buf2 = super.bufferManager.getFrame(i2);
         byte[] b1 = buf1.array();
         byte[] b2 = buf2.array();
         inputTupleAccessor.reset(buf1);
         fta2.reset(buf2);
-        for (int f = 0; f < comparators.length; ++f) {
+        for (int f = decisiveFields; f < comparators.length; ++f) {
             int fIdx = sortFields[f];
             int f1Start = fIdx == 0 ? 0 : buf1.getInt(j1 + (fIdx - 1) * 4);
             int f1End = buf1.getInt(j1 + fIdx * 4);
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.dataflow.std.sort;
+
+import org.apache.hyracks.api.context.IHyracksTaskContext;
+import org.apache.hyracks.api.dataflow.value.IBinaryComparatorFactory;
+import org.apache.hyracks.api.dataflow.value.IMultiWordNormalizedKeyComputer;
+import org.apache.hyracks.api.dataflow.value.INormalizedKeyComputer;
+import org.apache.hyracks.api.dataflow.value.INormalizedKeyComputerFactory;
+import org.apache.hyracks.api.dataflow.value.RecordDescriptor;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.dataflow.std.sort.buffermanager.IFrameBufferManager;
+
+/**
+ * Sorts the tuple pointers with a least-significant-digit radix sort over their inline normalized keys, one byte
+ * at a time, without ever looking at the tuples themselves. It can only be used if the normalized key fully
+ * determines the order of the sort fields (see {@link #canSort(INormalizedKeyComputerFactory[], int)}).
+ */
+public class FrameSorterRadixSort extends AbstractFrameSorter {
+
+    private static final int RADIX_BITS = 8;
+    private static final int RADIX = 1 << RADIX_BITS;
+    private static final int DIGITS_PER_WORD = Integer.SIZE / RADIX_BITS;
+
+    private int[] tPointersTemp;
+    private final int[][] counts = new int[DIGITS_PER_WORD][RADIX];
+
+    public FrameSorterRadixSort(IHyracksTaskContext ctx, IFrameBufferManager bufferManager, int[] sortFields,
+            INormalizedKeyComputerFactory[] keyNormalizerFactories, IBinaryComparatorFactory[] comparatorFactories,
+            RecordDescriptor recordDescriptor) throws HyracksDataException {
+        this(ctx, bufferManager, sortFields, keyNormalizerFactories, comparatorFactories, recordDescriptor,
+                Integer.MAX_VALUE);
+    }
+
+    public FrameSorterRadixSort(IHyracksTaskContext ctx, IFrameBufferManager bufferManager, int[] sortFields,
+            INormalizedKeyComputerFactory[] keyNormalizerFactories, IBinaryComparatorFactory[] comparatorFactories,
+            RecordDescriptor recordDescriptor, int outputLimit) throws HyracksDataException {
+        super(ctx, bufferManager, sortFields, keyNormalizerFactories, comparatorFactories, recordDescriptor,
+                outputLimit);
+        if (decisiveFields < comparators.length) {
+            throw new HyracksDataException("The normalized key does not determine the order of all the sort fields");
+        }
+    }
+
+    /**
+     * @return true if the normalized keys of the first numSortFields sort fields are all decisive and fit inline,
+     *         i.e. if the tuples can be ordered by their normalized keys alone
+     */
+    public static boolean canSort(INormalizedKeyComputerFactory[] keyNormalizerFactories, int numSortFields) {
+        if (keyNormalizerFactories == null || keyNormalizerFactories.length < numSortFields) {
+            return false;
+        }
+        int length = 0;
+        for (int f = 0; f < numSortFields; ++f) {
+            if (keyNormalizerFactories[f] == null) {
+                return false;
+            }
+            INormalizedKeyComputer nkc = keyNormalizerFactories[f].createNormalizedKeyComputer();
+            if (!(nkc instanceof IMultiWordNormalizedKeyComputer)
+                    || !((IMultiWordNormalizedKeyComputer) nkc).isDecisive()) {
+                return false;
+            }
+            length += ((IMultiWordNormalizedKeyComputer) nkc).getNormalizedKeyLength();
+        }
+        return length <= MAX_NORMALIZED_KEY_LENGTH;
+    }
+
+    @Override
+    void sortTupleReferences() throws HyracksDataException {
+        if (tPointersTemp == null || tPointersTemp.length < tPointers.length) {
+            tPointersTemp = new int[tPointers.length];
+        }
+        for (int w = nkLength - 1; w >= 0; --w) {
+            /** the digit histograms of a word do not depend on the order of the pointers */
+            count(ID_NORMAL_KEY + w);
+            for (int d = 0; d < DIGITS_PER_WORD; ++d) {
+                distribute(ID_NORMAL_KEY + w, d);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        tPointersTemp = null;
+    }
+
+    private void count(int keyIdx) {
+        for (int d = 0; d < DIGITS_PER_WORD; ++d) {
+            int[] count = counts[d];
+            for (int i = 0; i < RADIX; ++i) {
+                count[i] = 0;
+            }
+        }
+        for (int ptr = 0; ptr < tupleCount; ++ptr) {
+            int v = tPointers[ptr * ptrSize + keyIdx];
+            for (int d = 0; d < DIGITS_PER_WORD; ++d) {
+                counts[d][(v >>> (d * RADIX_BITS)) & (RADIX - 1)]++;
+            }
+        }
+    }
+
+    /**
+     * Stably moves the pointers into the order of the given digit of the given key word.
+     */
+    private void distribute(int keyIdx, int d) {
+        int[] count = counts[d];
+        int shift = d * RADIX_BITS;
+        int pos = 0;
+        for (int i = 0; i < RADIX; ++i) {
+            if (count[i] == tupleCount) {
+                /** all pointers share this digit, the pass would not change anything */
+                return;
+            }
+            int c = count[i];
+            count[i] = pos;
+            pos += c;
+        }
+        for (int ptr = 0; ptr < tupleCount; ++ptr) {
+            int digit = (tPointers[ptr * ptrSize + keyIdx] >>> shift) & (RADIX - 1);
+            System.arraycopy(tPointers, ptr * ptrSize, tPointersTemp, count[digit]++ * ptrSize, ptrSize);
+        }
+        int[] tmp = tPointersTemp;
+        tPointersTemp = tPointers;
+        tPointers = tmp;
+    }
+}
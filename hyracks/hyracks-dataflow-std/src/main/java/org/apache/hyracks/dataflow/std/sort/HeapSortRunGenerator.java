@@ -39,6 +39,7 @@ import org.apache.hyracks.dataflow.std.sort.buffermanager.VariableTupleMemoryMan
 public class HeapSortRunGenerator extends AbstractSortRunGenerator {
     protected final IHyracksTaskContext ctx;
     protected final int frameLimit;
+    protected final int runIOFrames;
     protected final int topK;
     protected final int[] sortFields;
     protected final INormalizedKeyComputerFactory nmkFactory;
@@ -53,6 +54,8 @@ public class HeapSortRunGenerator extends AbstractSortRunGenerator {
         super();
         this.ctx = ctx;
         this.frameLimit = frameLimit;
+        /** the run writer holds the blocks of its asynchronous I/O out of the frames limit */
+        this.runIOFrames = RunFileWriter.getAsyncIOFrames(ctx, frameLimit - 1);
         this.topK = topK;
         this.sortFields = sortFields;
         this.nmkFactory = firstKeyNormalizerFactory;
@@ -63,7 +66,8 @@ public class HeapSortRunGenerator extends AbstractSortRunGenerator {
 
     @Override
     public void open() throws HyracksDataException {
-        IFramePool framePool = new VariableFramePool(ctx, (frameLimit - 1) * ctx.getInitialFrameSize());
+        IFramePool framePool = new VariableFramePool(ctx, (frameLimit - 1 - runIOFrames)
+                * ctx.getInitialFrameSize());
         ITupleBufferManager bufferManager = new VariableTupleMemoryManager(framePool, recordDescriptor);
         tupleSorter = new TupleSorterHeapSort(ctx, bufferManager, topK, sortFields, nmkFactory,
                 comparatorFactories);
@@ -79,7 +83,7 @@ public class HeapSortRunGenerator extends AbstractSortRunGenerator {
     protected RunFileWriter getRunFileWriter() throws HyracksDataException {
         FileReference file = ctx.getJobletContext().createManagedWorkspaceFile(
                 HeapSortRunGenerator.class.getSimpleName());
-        return new RunFileWriter(file, ctx.getIOManager());
+        return new RunFileWriter(file, ctx, runIOFrames > 0);
     }
 
     @Override
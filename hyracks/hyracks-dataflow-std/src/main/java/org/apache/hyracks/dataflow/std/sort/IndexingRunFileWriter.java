@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.dataflow.std.sort;
+
+import java.nio.ByteBuffer;
+
+import org.apache.hyracks.api.comm.IFrameWriter;
+import org.apache.hyracks.api.dataflow.value.RecordDescriptor;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.dataflow.common.comm.io.FrameTupleAccessor;
+import org.apache.hyracks.dataflow.common.io.RunFileWriter;
+
+/**
+ * Writes a sorted run and builds its {@link RunFrameIndex} on the way.
+ */
+public class IndexingRunFileWriter implements IFrameWriter {
+    private final RunFileWriter writer;
+    private final FrameTupleAccessor fta;
+    private final RunFrameIndex index;
+    private int maxFrameSize;
+
+    public IndexingRunFileWriter(RunFileWriter writer, int[] sortFields, RecordDescriptor recordDesc) {
+        this.writer = writer;
+        this.fta = new FrameTupleAccessor(recordDesc);
+        this.index = new RunFrameIndex(writer, sortFields);
+    }
+
+    @Override
+    public void open() throws HyracksDataException {
+        writer.open();
+        maxFrameSize = 0;
+    }
+
+    @Override
+    public void nextFrame(ByteBuffer buffer) throws HyracksDataException {
+        fta.reset(buffer);
+        if (fta.getTupleCount() > 0) {
+            index.addFrame(writer.getFileSize(), fta);
+        }
+        maxFrameSize = Math.max(maxFrameSize, buffer.capacity());
+        writer.nextFrame(buffer);
+    }
+
+    @Override
+    public void fail() throws HyracksDataException {
+        writer.fail();
+    }
+
+    @Override
+    public void close() throws HyracksDataException {
+        writer.close();
+    }
+
+    public int getMaxFrameSize() {
+        return maxFrameSize;
+    }
+
+    public IndexedRunAndMaxFrameSizePair createRun(int maxFrameSize) throws HyracksDataException {
+        return new IndexedRunAndMaxFrameSizePair(writer.createDeleteOnCloseReader(), maxFrameSize, index);
+    }
+}
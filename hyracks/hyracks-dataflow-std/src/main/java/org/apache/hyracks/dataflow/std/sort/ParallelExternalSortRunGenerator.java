@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.dataflow.std.sort;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.apache.hyracks.api.comm.IFrameWriter;
+import org.apache.hyracks.api.context.IHyracksTaskContext;
+import org.apache.hyracks.api.dataflow.value.IBinaryComparatorFactory;
+import org.apache.hyracks.api.dataflow.value.INormalizedKeyComputerFactory;
+import org.apache.hyracks.api.dataflow.value.RecordDescriptor;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.api.io.FileReference;
+import org.apache.hyracks.api.util.TaskGroup;
+import org.apache.hyracks.dataflow.common.io.RunFileWriter;
+import org.apache.hyracks.dataflow.std.sort.buffermanager.EnumFreeSlotPolicy;
+
+/**
+ * A run generator that splits the sort memory among several frame sorters. While the input fills one sorter, the
+ * full ones are sorted and written to their runs on the shared {@link TaskGroup} pool. The sorters get
+ * framesLimit / parallelism frames each, so the memory budget is the same as the one of
+ * {@link ExternalSortRunGenerator}, at the cost of smaller runs. The generated runs are indexed, so that
+ * {@link ParallelExternalSortRunMerger} can split their merge into key ranges.
+ */
+public class ParallelExternalSortRunGenerator extends AbstractSortRunGenerator {
+
+    protected final IHyracksTaskContext ctx;
+    private final int[] sortFields;
+    private final RecordDescriptor recordDesc;
+    private final IFrameSorter[] frameSorters;
+    private final Future<IndexedRunAndMaxFrameSizePair>[] pendingRuns;
+    private final TaskGroup<IndexedRunAndMaxFrameSizePair> flushes;
+    private final int runIOFrames;
+    private int current;
+
+    public ParallelExternalSortRunGenerator(IHyracksTaskContext ctx, int[] sortFields,
+            INormalizedKeyComputerFactory firstKeyNormalizerFactory, IBinaryComparatorFactory[] comparatorFactories,
+            RecordDescriptor recordDesc, Algorithm alg, EnumFreeSlotPolicy policy, int framesLimit, int outputLimit,
+            int parallelism) throws HyracksDataException {
+        this(ctx, sortFields, firstKeyNormalizerFactory, null, comparatorFactories, recordDesc, alg, policy,
+                framesLimit, outputLimit, parallelism);
+    }
+
+    /**
+     * Creates a run generator whose sorters keep the multi-word normalized key of the leading sort fields.
+     */
+    public ParallelExternalSortRunGenerator(IHyracksTaskContext ctx, int[] sortFields,
+            INormalizedKeyComputerFactory[] keyNormalizerFactories, IBinaryComparatorFactory[] comparatorFactories,
+            RecordDescriptor recordDesc, Algorithm alg, EnumFreeSlotPolicy policy, int framesLimit, int outputLimit,
+            int parallelism) throws HyracksDataException {
+        this(ctx, sortFields, null, keyNormalizerFactories, comparatorFactories, recordDesc, alg, policy,
+                framesLimit, outputLimit, parallelism);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ParallelExternalSortRunGenerator(IHyracksTaskContext ctx, int[] sortFields,
+            INormalizedKeyComputerFactory firstKeyNormalizerFactory,
+            INormalizedKeyComputerFactory[] keyNormalizerFactories, IBinaryComparatorFactory[] comparatorFactories,
+            RecordDescriptor recordDesc, Algorithm alg, EnumFreeSlotPolicy policy, int framesLimit, int outputLimit,
+            int parallelism) throws HyracksDataException {
+        this.ctx = ctx;
+        this.sortFields = sortFields;
+        this.recordDesc = recordDesc;
+        /** every sorter needs at least one sort frame and one output frame */
+        int numSorters = Math.max(1, Math.min(parallelism, framesLimit / 2));
+        /** every sorter that is flushed holds the blocks of its run writer's asynchronous I/O out of its frames */
+        runIOFrames = RunFileWriter.getAsyncIOFrames(ctx, framesLimit / numSorters - 1);
+        frameSorters = new IFrameSorter[numSorters];
+        for (int i = 0; i < numSorters; ++i) {
+            frameSorters[i] = ExternalSortRunGenerator.createFrameSorter(ctx, sortFields, firstKeyNormalizerFactory,
+                    keyNormalizerFactories, comparatorFactories, recordDesc, alg, policy,
+                    framesLimit / numSorters - 1 - runIOFrames, outputLimit);
+        }
+        pendingRuns = new Future[numSorters];
+        flushes = new TaskGroup<IndexedRunAndMaxFrameSizePair>();
+    }
+
+    @Override
+    public void open() throws HyracksDataException {
+        super.open();
+        current = 0;
+    }
+
+    @Override
+    public void nextFrame(ByteBuffer buffer) throws HyracksDataException {
+        if (!frameSorters[current].insertFrame(buffer)) {
+            flushFramesToRun();
+            if (!frameSorters[current].insertFrame(buffer)) {
+                throw new HyracksDataException("The given frame is too big to insert into the sorting memory.");
+            }
+        }
+    }
+
+    /**
+     * Hands the current sorter over to a worker thread and moves on to the next one, waiting for its previous run
+     * to be written if necessary.
+     */
+    @Override
+    protected void flushFramesToRun() throws HyracksDataException {
+        pendingRuns[current] = flushes.submit(createFlushTask(frameSorters[current]));
+        current = (current + 1) % frameSorters.length;
+        waitForRun(current);
+    }
+
+    @Override
+    public void close() throws HyracksDataException {
+        boolean completed = false;
+        try {
+            boolean flushed = false;
+            for (int i = 0; i < frameSorters.length; ++i) {
+                flushed |= pendingRuns[i] != null;
+            }
+            if (flushed || runAndMaxSizes.size() > 0) {
+                if (frameSorters[current].hasRemaining()) {
+                    pendingRuns[current] = flushes.submit(createFlushTask(frameSorters[current]));
+                }
+                for (int i = 0; i < frameSorters.length; ++i) {
+                    waitForRun(i);
+                }
+            } else if (frameSorters[current].hasRemaining()) {
+                /** everything fits in memory, the merger will flush the sorted frames directly */
+                frameSorters[current].sort();
+            }
+            completed = true;
+        } finally {
+            if (!completed) {
+                /** the sorters must not be closed while they are still being flushed */
+                flushes.cancelAndWait();
+            }
+            for (int i = 0; i < frameSorters.length; ++i) {
+                if (i != current) {
+                    frameSorters[i].close();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void fail() throws HyracksDataException {
+        flushes.cancelAndWait();
+        for (int i = 0; i < frameSorters.length; ++i) {
+            pendingRuns[i] = null;
+        }
+    }
+
+    @Override
+    public ISorter getSorter() {
+        return frameSorters[current];
+    }
+
+    @Override
+    protected RunFileWriter getRunFileWriter() throws HyracksDataException {
+        FileReference file = ctx.getJobletContext().createManagedWorkspaceFile(
+                ParallelExternalSortRunGenerator.class.getSimpleName());
+        return new RunFileWriter(file, ctx, runIOFrames > 0);
+    }
+
+    @Override
+    protected IFrameWriter getFlushableFrameWriter(RunFileWriter writer) throws HyracksDataException {
+        return writer;
+    }
+
+    private Callable<IndexedRunAndMaxFrameSizePair> createFlushTask(final IFrameSorter sorter)
+            throws HyracksDataException {
+        /** the workspace file is created by the task thread, only the sorting and the writing are offloaded */
+        final IndexingRunFileWriter flushWriter = new IndexingRunFileWriter(getRunFileWriter(), sortFields,
+                recordDesc);
+        return new Callable<IndexedRunAndMaxFrameSizePair>() {
+            @Override
+            public IndexedRunAndMaxFrameSizePair call() throws HyracksDataException {
+                sorter.sort();
+                flushWriter.open();
+                int maxFlushedFrameSize;
+                try {
+                    maxFlushedFrameSize = sorter.flush(flushWriter);
+                } finally {
+                    flushWriter.close();
+                }
+                sorter.reset();
+                return flushWriter.createRun(maxFlushedFrameSize);
+            }
+        };
+    }
+
+    private void waitForRun(int i) throws HyracksDataException {
+        if (pendingRuns[i] == null) {
+            return;
+        }
+        try {
+            runAndMaxSizes.add(pendingRuns[i].get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HyracksDataException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof HyracksDataException) {
+                throw (HyracksDataException) e.getCause();
+            }
+            throw new HyracksDataException(e.getCause());
+        } finally {
+            pendingRuns[i] = null;
+        }
+    }
+}
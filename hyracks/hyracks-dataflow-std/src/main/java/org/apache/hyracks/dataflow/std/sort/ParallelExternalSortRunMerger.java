@@ -0,0 +1,436 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.dataflow.std.sort;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.hyracks.api.comm.IFrame;
+import org.apache.hyracks.api.comm.IFrameReader;
+import org.apache.hyracks.api.comm.IFrameWriter;
+import org.apache.hyracks.api.comm.VSizeFrame;
+import org.apache.hyracks.api.context.IHyracksTaskContext;
+import org.apache.hyracks.api.dataflow.value.IBinaryComparator;
+import org.apache.hyracks.api.dataflow.value.IBinaryComparatorFactory;
+import org.apache.hyracks.api.dataflow.value.INormalizedKeyComputerFactory;
+import org.apache.hyracks.api.dataflow.value.RecordDescriptor;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.api.util.TaskGroup;
+import org.apache.hyracks.dataflow.common.comm.io.FrameTupleAccessor;
+import org.apache.hyracks.dataflow.common.comm.io.FrameTupleAppender;
+import org.apache.hyracks.dataflow.common.comm.util.FrameUtils;
+import org.apache.hyracks.dataflow.common.io.RunFileReader;
+import org.apache.hyracks.dataflow.common.io.RunFileWriter;
+import org.apache.hyracks.dataflow.std.sort.util.GroupVSizeFrame;
+
+/**
+ * Merges the indexed runs of a {@link ParallelExternalSortRunGenerator} on the shared {@link TaskGroup} pool. Runs
+ * that do not fit in the merge budget of a single worker are first merged group by group in parallel. The final
+ * merge is then split into key ranges by splitters chosen from the frame indexes of the runs: each worker merges one
+ * range, starting every run at the frame that contains the beginning of its range. The first range is written to
+ * the output directly, the others are spilled and appended in order. The workers get framesLimit / parallelism
+ * frames each. Otherwise, e.g. for top-k sorts, the runs are merged as by {@link ExternalSortRunMerger}.
+ */
+public class ParallelExternalSortRunMerger extends ExternalSortRunMerger {
+    private static final Logger LOGGER = Logger.getLogger(ParallelExternalSortRunMerger.class.getName());
+
+    /** two input frames, one merge frame and one output frame */
+    private static final int MIN_WORKER_FRAMES = 4;
+
+    private final ISorter sorter;
+    private final List<RunAndMaxFrameSizePair> runs;
+    private final int[] sortFields;
+    private final IBinaryComparatorFactory[] comparatorFactories;
+    private final INormalizedKeyComputerFactory nmkFactory;
+    private final IBinaryComparator[] comparators;
+    private final RecordDescriptor recordDesc;
+    private final int framesLimit;
+    private final int topK;
+    private final int parallelism;
+
+    public ParallelExternalSortRunMerger(IHyracksTaskContext ctx, ISorter sorter, List<RunAndMaxFrameSizePair> runs,
+            int[] sortFields, IBinaryComparatorFactory[] comparatorFactories, INormalizedKeyComputerFactory nmkFactory,
+            RecordDescriptor recordDesc, int framesLimit, int topK, IFrameWriter writer, int parallelism) {
+        this(ctx, sorter, runs, sortFields, comparatorFactories, createComparators(comparatorFactories), nmkFactory,
+                recordDesc, framesLimit, topK, writer, parallelism);
+    }
+
+    private ParallelExternalSortRunMerger(IHyracksTaskContext ctx, ISorter sorter, List<RunAndMaxFrameSizePair> runs,
+            int[] sortFields, IBinaryComparatorFactory[] comparatorFactories, IBinaryComparator[] comparators,
+            INormalizedKeyComputerFactory nmkFactory, RecordDescriptor recordDesc, int framesLimit, int topK,
+            IFrameWriter writer, int parallelism) {
+        super(ctx, sorter, runs, sortFields, comparators,
+                nmkFactory == null ? null : nmkFactory.createNormalizedKeyComputer(), recordDesc, framesLimit, topK,
+                writer);
+        this.sorter = sorter;
+        this.runs = runs;
+        this.sortFields = sortFields;
+        this.comparatorFactories = comparatorFactories;
+        this.nmkFactory = nmkFactory;
+        this.comparators = comparators;
+        this.recordDesc = recordDesc;
+        this.framesLimit = framesLimit;
+        this.topK = topK;
+        this.parallelism = parallelism;
+    }
+
+    private static IBinaryComparator[] createComparators(IBinaryComparatorFactory[] comparatorFactories) {
+        IBinaryComparator[] comparators = new IBinaryComparator[comparatorFactories.length];
+        for (int i = 0; i < comparatorFactories.length; ++i) {
+            comparators[i] = comparatorFactories[i].createBinaryComparator();
+        }
+        return comparators;
+    }
+
+    @Override
+    public void process() throws HyracksDataException {
+        /** every run that is read or written holds its asynchronous I/O blocks out of the frames limit */
+        int runIOFrames = 2 * ctx.getJobletContext().getRunFileAsyncIOFrames();
+        int runIOSize = runIOFrames * ctx.getInitialFrameSize();
+        int numWorkers = Math.min(parallelism, framesLimit / (MIN_WORKER_FRAMES + 3 * runIOFrames));
+        if (numWorkers < 2 || topK != Integer.MAX_VALUE || runs.size() < 2 || !areIndexed(runs)) {
+            super.process();
+            return;
+        }
+        /** recycle sort buffer */
+        if (sorter != null) {
+            sorter.close();
+        }
+        List<IndexedRunAndMaxFrameSizePair> indexedRuns = new ArrayList<>(runs.size());
+        for (RunAndMaxFrameSizePair run : runs) {
+            indexedRuns.add((IndexedRunAndMaxFrameSizePair) run);
+        }
+        int workerBudget = (framesLimit / numWorkers - 2) * ctx.getInitialFrameSize() - runIOSize;
+        IFrameWriter finalWriter = prepareFinalMergeResultWriter(writer);
+        finalWriter.open();
+        try {
+            while (getTotalFrameSize(indexedRuns, runIOSize) > workerBudget) {
+                indexedRuns = mergeGroups(indexedRuns, workerBudget, runIOSize, numWorkers);
+            }
+            mergeRanges(indexedRuns, selectSplitters(indexedRuns, numWorkers), finalWriter);
+        } catch (Exception e) {
+            finalWriter.fail();
+            throw e instanceof HyracksDataException ? (HyracksDataException) e : new HyracksDataException(e);
+        } finally {
+            /** no merge task is left running here, so the runs are no longer read */
+            finalWriter.close();
+            for (IndexedRunAndMaxFrameSizePair run : indexedRuns) {
+                run.index.getFile().delete();
+            }
+        }
+    }
+
+    private static boolean areIndexed(List<RunAndMaxFrameSizePair> runs) {
+        for (RunAndMaxFrameSizePair run : runs) {
+            if (!(run instanceof IndexedRunAndMaxFrameSizePair)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int getTotalFrameSize(List<IndexedRunAndMaxFrameSizePair> runs, int runIOSize) {
+        int size = 0;
+        for (RunAndMaxFrameSizePair run : runs) {
+            size += run.maxFrameSize + runIOSize;
+        }
+        return size;
+    }
+
+    /**
+     * Merges consecutive groups of runs that fit in the budget of a worker into new indexed runs, with at most
+     * numWorkers groups merged at a time.
+     */
+    private List<IndexedRunAndMaxFrameSizePair> mergeGroups(List<IndexedRunAndMaxFrameSizePair> inputRuns,
+            int workerBudget, int runIOSize, int numWorkers) throws HyracksDataException {
+        List<Object> outputs = new ArrayList<>();
+        List<List<IndexedRunAndMaxFrameSizePair>> groups = new ArrayList<>();
+        int i = 0;
+        while (i < inputRuns.size()) {
+            List<IndexedRunAndMaxFrameSizePair> group = new ArrayList<>();
+            int budget = workerBudget;
+            while (i < inputRuns.size() && (group.isEmpty() || inputRuns.get(i).maxFrameSize + runIOSize <= budget)) {
+                budget -= inputRuns.get(i).maxFrameSize + runIOSize;
+                group.add(inputRuns.get(i++));
+            }
+            groups.add(group);
+        }
+        if (groups.size() == inputRuns.size()) {
+            throw new HyracksDataException(
+                    "The record is too big to put into the merging frame, please allocate more sorting memory");
+        }
+        final TaskGroup<IndexedRunAndMaxFrameSizePair> groupMerges = new TaskGroup<IndexedRunAndMaxFrameSizePair>();
+        List<IndexedRunAndMaxFrameSizePair> outputRuns = new ArrayList<>(outputs.size());
+        boolean completed = false;
+        try {
+            int numMerging = 0;
+            int next = 0;
+            for (final List<IndexedRunAndMaxFrameSizePair> group : groups) {
+                if (group.size() == 1) {
+                    outputs.add(group.get(0));
+                    continue;
+                }
+                /** the workers share the merge budget, so no more than numWorkers groups are merged at a time */
+                for (; numMerging >= numWorkers; ++next) {
+                    if (outputs.get(next) instanceof Future) {
+                        outputs.set(next, getResult(outputs.get(next)));
+                        --numMerging;
+                    }
+                }
+                final IndexingRunFileWriter mergeWriter = new IndexingRunFileWriter(
+                        prepareIntermediateMergeRunFile(), sortFields, recordDesc);
+                outputs.add(groupMerges.submit(new Callable<IndexedRunAndMaxFrameSizePair>() {
+                    @Override
+                    public IndexedRunAndMaxFrameSizePair call() throws HyracksDataException {
+                        mergeWriter.open();
+                        try {
+                            mergeRange(group, null, null, mergeWriter, groupMerges);
+                        } finally {
+                            mergeWriter.close();
+                        }
+                        if (groupMerges.isCancelled()) {
+                            return null;
+                        }
+                        for (IndexedRunAndMaxFrameSizePair run : group) {
+                            run.index.getFile().delete();
+                        }
+                        return mergeWriter.createRun(mergeWriter.getMaxFrameSize());
+                    }
+                }));
+                ++numMerging;
+            }
+            for (Object output : outputs) {
+                if (output instanceof Future) {
+                    output = getResult(output);
+                }
+                outputRuns.add((IndexedRunAndMaxFrameSizePair) output);
+            }
+            completed = true;
+        } finally {
+            if (!completed) {
+                /** the input runs must not be deleted while the other groups are still being merged */
+                groupMerges.cancelAndWait();
+            }
+        }
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("Merged " + inputRuns.size() + " runs into " + outputRuns.size() + " runs");
+        }
+        return outputRuns;
+    }
+
+    /**
+     * Picks up to numRanges - 1 distinct splitters at even distances among the sorted first keys of all frames.
+     */
+    private List<RunFrameIndex.Key> selectSplitters(List<IndexedRunAndMaxFrameSizePair> inputRuns, int numRanges)
+            throws HyracksDataException {
+        List<RunFrameIndex.Key> keys = new ArrayList<>();
+        for (IndexedRunAndMaxFrameSizePair run : inputRuns) {
+            for (int i = 0; i < run.index.getFrameCount(); ++i) {
+                keys.add(run.index.getFrameKey(i));
+            }
+        }
+        try {
+            Collections.sort(keys, new Comparator<RunFrameIndex.Key>() {
+                @Override
+                public int compare(RunFrameIndex.Key k1, RunFrameIndex.Key k2) {
+                    try {
+                        return k1.compareTo(k2, comparators);
+                    } catch (HyracksDataException e) {
+                        throw new IllegalArgumentException(e);
+                    }
+                }
+            });
+        } catch (IllegalArgumentException e) {
+            throw new HyracksDataException(e.getCause());
+        }
+        List<RunFrameIndex.Key> splitters = new ArrayList<>(numRanges - 1);
+        for (int i = 1; i < numRanges && !keys.isEmpty(); ++i) {
+            RunFrameIndex.Key splitter = keys.get((int) ((long) i * keys.size() / numRanges));
+            if (splitters.isEmpty() && splitter.compareTo(keys.get(0), comparators) == 0) {
+                /** nothing would be smaller than the first splitter */
+                continue;
+            }
+            if (splitters.isEmpty() || splitter.compareTo(splitters.get(splitters.size() - 1), comparators) > 0) {
+                splitters.add(splitter);
+            }
+        }
+        return splitters;
+    }
+
+    private void mergeRanges(final List<IndexedRunAndMaxFrameSizePair> inputRuns,
+            final List<RunFrameIndex.Key> splitters, IFrameWriter finalWriter) throws HyracksDataException {
+        final TaskGroup<RunFileReader> rangeMerges = new TaskGroup<RunFileReader>();
+        boolean completed = false;
+        try {
+            List<Future<RunFileReader>> rangeRuns = new ArrayList<>(splitters.size());
+            for (int i = 0; i < splitters.size(); ++i) {
+                final RunFrameIndex.Key lo = splitters.get(i);
+                final RunFrameIndex.Key hi = i + 1 < splitters.size() ? splitters.get(i + 1) : null;
+                final RunFileWriter rangeWriter = prepareIntermediateMergeRunFile();
+                rangeRuns.add(rangeMerges.submit(new Callable<RunFileReader>() {
+                    @Override
+                    public RunFileReader call() throws HyracksDataException {
+                        rangeWriter.open();
+                        try {
+                            mergeRange(inputRuns, lo, hi, rangeWriter, rangeMerges);
+                        } finally {
+                            rangeWriter.close();
+                        }
+                        return rangeWriter.createDeleteOnCloseReader();
+                    }
+                }));
+            }
+            /** the first range is merged by the task thread, straight into the output */
+            mergeRange(inputRuns, null, splitters.isEmpty() ? null : splitters.get(0), finalWriter, null);
+            IFrame frame = new VSizeFrame(ctx);
+            for (Future<RunFileReader> rangeRun : rangeRuns) {
+                RunFileReader reader = getResult(rangeRun);
+                reader.open();
+                try {
+                    while (reader.nextFrame(frame)) {
+                        FrameUtils.flushFrame(frame.getBuffer(), finalWriter);
+                    }
+                } finally {
+                    reader.close();
+                }
+            }
+            completed = true;
+        } finally {
+            if (!completed) {
+                /** the input runs must not be deleted while the other ranges are still being merged */
+                rangeMerges.cancelAndWait();
+            }
+        }
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("Merged " + inputRuns.size() + " runs in " + (splitters.size() + 1) + " key ranges");
+        }
+    }
+
+    /**
+     * Merges the tuples of the given runs whose keys are in [lo, hi) into the writer. A null bound is unbounded.
+     * The merge stops early if the given group of tasks, if any, is cancelled.
+     */
+    private void mergeRange(List<IndexedRunAndMaxFrameSizePair> inputRuns, RunFrameIndex.Key lo,
+            RunFrameIndex.Key hi, IFrameWriter rangeWriter, TaskGroup<?> tasks) throws HyracksDataException {
+        IBinaryComparator[] rangeComparators = createComparators(comparatorFactories);
+        List<IFrameReader> readers = new ArrayList<>(inputRuns.size());
+        List<GroupVSizeFrame> inFrames = new ArrayList<>(inputRuns.size());
+        for (IndexedRunAndMaxFrameSizePair run : inputRuns) {
+            RunFrameIndex index = run.index;
+            if (index.getFrameCount() == 0
+                    || (hi != null && index.getFrameKey(0).compareTo(hi, rangeComparators) >= 0)) {
+                continue;
+            }
+            long startOffset = lo == null ? 0 : index.getStartOffset(lo, rangeComparators);
+            readers.add(new SeekingRunFileReader(index.createReader(), startOffset));
+            inFrames.add(new GroupVSizeFrame(ctx, run.maxFrameSize));
+        }
+        if (readers.isEmpty()) {
+            return;
+        }
+        RunMergingFrameReader merger = new RunMergingFrameReader(ctx, readers, inFrames, sortFields,
+                rangeComparators, nmkFactory == null ? null : nmkFactory.createNormalizedKeyComputer(), recordDesc);
+        merger.setKeyNormalizerFactories(getKeyNormalizerFactories());
+        VSizeFrame mergeFrame = new VSizeFrame(ctx);
+        FrameTupleAccessor fta = new FrameTupleAccessor(recordDesc);
+        FrameTupleAppender appender = new FrameTupleAppender(new VSizeFrame(ctx), true);
+        merger.open();
+        try {
+            while (merger.nextFrame(mergeFrame)) {
+                if (tasks != null && tasks.isCancelled()) {
+                    return;
+                }
+                fta.reset(mergeFrame.getBuffer());
+                int tupleCount = fta.getTupleCount();
+                if ((lo == null || lo.compareTuple(fta, 0, sortFields, rangeComparators) >= 0)
+                        && (hi == null || hi.compareTuple(fta, tupleCount - 1, sortFields, rangeComparators) < 0)) {
+                    /** the whole frame is in the range */
+                    appender.flush(rangeWriter, true);
+                    FrameUtils.flushFrame(mergeFrame.getBuffer(), rangeWriter);
+                    continue;
+                }
+                for (int t = 0; t < tupleCount; ++t) {
+                    if (lo != null && lo.compareTuple(fta, t, sortFields, rangeComparators) < 0) {
+                        continue;
+                    }
+                    if (hi != null && hi.compareTuple(fta, t, sortFields, rangeComparators) >= 0) {
+                        appender.flush(rangeWriter, true);
+                        return;
+                    }
+                    FrameUtils.appendToWriter(rangeWriter, appender, fta, t);
+                }
+            }
+            appender.flush(rangeWriter, true);
+        } finally {
+            merger.close();
+        }
+    }
+
+    private static <T> T getResult(Object future) throws HyracksDataException {
+        try {
+            @SuppressWarnings("unchecked")
+            T result = ((Future<T>) future).get();
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HyracksDataException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof HyracksDataException) {
+                throw (HyracksDataException) e.getCause();
+            }
+            throw new HyracksDataException(e.getCause());
+        }
+    }
+
+    /**
+     * Opens a run at the given offset.
+     */
+    private static class SeekingRunFileReader implements IFrameReader {
+        private final RunFileReader reader;
+        private final long startOffset;
+
+        SeekingRunFileReader(RunFileReader reader, long startOffset) {
+            this.reader = reader;
+            this.startOffset = startOffset;
+        }
+
+        @Override
+        public void open() throws HyracksDataException {
+            reader.open();
+            reader.seek(startOffset);
+        }
+
+        @Override
+        public boolean nextFrame(IFrame frame) throws HyracksDataException {
+            return reader.nextFrame(frame);
+        }
+
+        @Override
+        public void close() throws HyracksDataException {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.dataflow.std.sort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hyracks.api.comm.IFrameTupleAccessor;
+import org.apache.hyracks.api.dataflow.value.IBinaryComparator;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.api.io.FileReference;
+import org.apache.hyracks.dataflow.common.io.RunFileReader;
+import org.apache.hyracks.dataflow.common.io.RunFileWriter;
+
+/**
+ * Records the file offset and the sort key of the first tuple of every frame of a sorted run, so that a reader
+ * interested in a key range can start near it instead of at the beginning of the run.
+ */
+public class RunFrameIndex {
+    private final RunFileWriter writer;
+    private final int[] sortFields;
+    private long[] frameOffsets;
+    private final List<Key> frameKeys;
+
+    public RunFrameIndex(RunFileWriter writer, int[] sortFields) {
+        this.writer = writer;
+        this.sortFields = sortFields;
+        this.frameOffsets = new long[16];
+        this.frameKeys = new ArrayList<>();
+    }
+
+    void addFrame(long offset, IFrameTupleAccessor fta) {
+        int frame = frameKeys.size();
+        if (frame == frameOffsets.length) {
+            frameOffsets = Arrays.copyOf(frameOffsets, frameOffsets.length * 2);
+        }
+        frameOffsets[frame] = offset;
+        frameKeys.add(new Key(fta, 0, sortFields));
+    }
+
+    public FileReference getFile() {
+        return writer.getFileReference();
+    }
+
+    public long getSize() {
+        return writer.getFileSize();
+    }
+
+    /**
+     * @return a new reader over the whole run which does not delete the file when closed
+     */
+    public RunFileReader createReader() throws HyracksDataException {
+        return writer.createReader();
+    }
+
+    public int getFrameCount() {
+        return frameKeys.size();
+    }
+
+    public Key getFrameKey(int frame) {
+        return frameKeys.get(frame);
+    }
+
+    /**
+     * @return the offset of the first frame that may contain tuples not smaller than the given key, i.e. the
+     *         offset of the last frame whose first tuple is smaller than the key
+     */
+    public long getStartOffset(Key key, IBinaryComparator[] comparators) throws HyracksDataException {
+        /** binary search for the first frame whose key is not smaller than the given key */
+        int lo = 0;
+        int hi = frameKeys.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (frameKeys.get(mid).compareTo(key, comparators) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo == 0 ? 0 : frameOffsets[lo - 1];
+    }
+
+    /**
+     * A copy of the sort fields of a tuple.
+     */
+    public static class Key {
+        private final byte[] bytes;
+        private final int[] fieldEndOffsets;
+
+        Key(IFrameTupleAccessor fta, int tIndex, int[] sortFields) {
+            fieldEndOffsets = new int[sortFields.length];
+            int length = 0;
+            for (int f = 0; f < sortFields.length; ++f) {
+                length += fta.getFieldLength(tIndex, sortFields[f]);
+                fieldEndOffsets[f] = length;
+            }
+            bytes = new byte[length];
+            byte[] src = fta.getBuffer().array();
+            for (int f = 0; f < sortFields.length; ++f) {
+                int start = fieldStart(f);
+                System.arraycopy(src, fta.getAbsoluteFieldStartOffset(tIndex, sortFields[f]), bytes, start,
+                        fieldEndOffsets[f] - start);
+            }
+        }
+
+        private int fieldStart(int f) {
+            return f == 0 ? 0 : fieldEndOffsets[f - 1];
+        }
+
+        public int compareTo(Key other, IBinaryComparator[] comparators) throws HyracksDataException {
+            for (int f = 0; f < comparators.length; ++f) {
+                int s1 = fieldStart(f);
+                int s2 = other.fieldStart(f);
+                int c = comparators[f].compare(bytes, s1, fieldEndOffsets[f] - s1, other.bytes, s2,
+                        other.fieldEndOffsets[f] - s2);
+                if (c != 0) {
+                    return c;
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Compares the sort fields of the given tuple to this key: the result is negative if the tuple is smaller.
+         */
+        public int compareTuple(IFrameTupleAccessor fta, int tIndex, int[] sortFields,
+                IBinaryComparator[] comparators) throws HyracksDataException {
+            byte[] b = fta.getBuffer().array();
+            for (int f = 0; f < comparators.length; ++f) {
+                int s = fieldStart(f);
+                int c = comparators[f].compare(b, fta.getAbsoluteFieldStartOffset(tIndex, sortFields[f]),
+                        fta.getFieldLength(tIndex, sortFields[f]), bytes, s, fieldEndOffsets[f] - s);
+                if (c != 0) {
+                    return c;
+                }
+            }
+            return 0;
+        }
+    }
+}
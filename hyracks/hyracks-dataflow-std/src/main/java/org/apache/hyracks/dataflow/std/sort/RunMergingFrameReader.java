@@ -27,10 +27,12 @@ import org.apache.hyracks.api.comm.IFrameTupleAccessor;
 import org.apache.hyracks.api.context.IHyracksTaskContext;
 import org.apache.hyracks.api.dataflow.value.IBinaryComparator;
 import org.apache.hyracks.api.dataflow.value.INormalizedKeyComputer;
+import org.apache.hyracks.api.dataflow.value.INormalizedKeyComputerFactory;
 import org.apache.hyracks.api.dataflow.value.RecordDescriptor;
 import org.apache.hyracks.api.exceptions.HyracksDataException;
 import org.apache.hyracks.dataflow.common.comm.io.FrameTupleAppender;
 import org.apache.hyracks.dataflow.std.sort.util.GroupFrameAccessor;
+import org.apache.hyracks.dataflow.std.sort.util.MultiFieldNormalizedKeyComputer;
 import org.apache.hyracks.dataflow.std.util.ReferenceEntry;
 import org.apache.hyracks.dataflow.std.util.ReferencedPriorityQueue;
 
@@ -43,6 +45,12 @@ public class RunMergingFrameReader implements IFrameReader {
     private final INormalizedKeyComputer nmkComputer;
     private final RecordDescriptor recordDesc;
     private final int topK;
+    private INormalizedKeyComputerFactory[] keyNormalizerFactories;
+    /**
+     * The multi-word normalized keys of the current tuples of the runs, indexed by run id
+     */
+    private MultiFieldNormalizedKeyComputer runKeyComputer;
+    private int[] runKeys;
     private int tupleCount;
     private FrameTupleAppender outFrameAppender;
     private ReferencedPriorityQueue topTuples;
@@ -68,13 +76,27 @@ public class RunMergingFrameReader implements IFrameReader {
         this.topK = topK;
     }
 
+    /**
+     * Makes the merge compare the multi-word normalized keys of the leading sort fields, as the sorters that
+     * generated the runs did, instead of the single word key of the first sort field. It must be called before
+     * {@link #open()}.
+     */
+    public void setKeyNormalizerFactories(INormalizedKeyComputerFactory[] keyNormalizerFactories) {
+        this.keyNormalizerFactories = keyNormalizerFactories;
+    }
+
     @Override
     public void open() throws HyracksDataException {
         tupleCount = 0;
         tupleAccessors = new IFrameTupleAccessor[runCursors.size()];
         outFrameAppender = new FrameTupleAppender();
         Comparator<ReferenceEntry> comparator = createEntryComparator(comparators);
-        topTuples = new ReferencedPriorityQueue(runCursors.size(), comparator, sortFields, nmkComputer);
+        if (keyNormalizerFactories != null) {
+            runKeyComputer = new MultiFieldNormalizedKeyComputer(keyNormalizerFactories, sortFields.length);
+            runKeys = new int[runCursors.size() * runKeyComputer.getLength()];
+        }
+        topTuples = new ReferencedPriorityQueue(runCursors.size(), comparator, sortFields,
+                runKeyComputer == null ? nmkComputer : null);
         tupleIndexes = new int[runCursors.size()];
         for (int i = 0; i < runCursors.size(); i++) {
             tupleIndexes[i] = 0;
@@ -122,11 +144,16 @@ public class RunMergingFrameReader implements IFrameReader {
         }
     }
 
-    private static void setNextTopTuple(int runIndex, int[] tupleIndexes, List<? extends IFrameReader> runCursors,
+    private void setNextTopTuple(int runIndex, int[] tupleIndexes, List<? extends IFrameReader> runCursors,
             List<? extends IFrame> inFrames, IFrameTupleAccessor[] tupleAccessors, ReferencedPriorityQueue topTuples)
             throws HyracksDataException {
         boolean exists = hasNextTuple(runIndex, tupleIndexes, runCursors, inFrames, tupleAccessors);
         if (exists) {
+            if (runKeyComputer != null) {
+                /** the replaced top entry is the one of this run, so its key can be set before it sifts down */
+                runKeyComputer.normalize(tupleAccessors[runIndex], tupleIndexes[runIndex], sortFields, runKeys,
+                        runIndex * runKeyComputer.getLength());
+            }
             topTuples.popAndReplace(tupleAccessors[runIndex], tupleIndexes[runIndex]);
         } else {
             topTuples.pop();
@@ -165,10 +192,21 @@ public class RunMergingFrameReader implements IFrameReader {
     private Comparator<ReferenceEntry> createEntryComparator(final IBinaryComparator[] comparators) {
         return new Comparator<ReferenceEntry>() {
             public int compare(ReferenceEntry tp1, ReferenceEntry tp2) {
-                int nmk1 = tp1.getNormalizedKey();
-                int nmk2 = tp2.getNormalizedKey();
-                if (nmk1 != nmk2) {
-                    return ((((long) nmk1) & 0xffffffffL) < (((long) nmk2) & 0xffffffffL)) ? -1 : 1;
+                int firstField = 0;
+                if (runKeyComputer != null) {
+                    int nkLength = runKeyComputer.getLength();
+                    int nkCmp = MultiFieldNormalizedKeyComputer.compare(runKeys, tp1.getRunid() * nkLength, runKeys,
+                            tp2.getRunid() * nkLength, nkLength);
+                    if (nkCmp != 0) {
+                        return nkCmp;
+                    }
+                    firstField = runKeyComputer.getDecisiveFieldCount();
+                } else {
+                    int nmk1 = tp1.getNormalizedKey();
+                    int nmk2 = tp2.getNormalizedKey();
+                    if (nmk1 != nmk2) {
+                        return ((((long) nmk1) & 0xffffffffL) < (((long) nmk2) & 0xffffffffL)) ? -1 : 1;
+                    }
                 }
                 IFrameTupleAccessor fta1 = tp1.getAccessor();
                 IFrameTupleAccessor fta2 = tp2.getAccessor();
@@ -177,7 +215,7 @@ public class RunMergingFrameReader implements IFrameReader {
                 int[] tPointers1 = tp1.getTPointers();
                 int[] tPointers2 = tp2.getTPointers();
 
-                for (int f = 0; f < sortFields.length; ++f) {
+                for (int f = firstField; f < sortFields.length; ++f) {
                     int c;
                     try {
                         c = comparators[f].compare(b1, tPointers1[2 * f + 1], tPointers1[2 * f + 2], b2,
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.dataflow.std.sort.util;
+
+import org.apache.hyracks.api.comm.IFrameTupleAccessor;
+import org.apache.hyracks.api.dataflow.value.IMultiWordNormalizedKeyComputer;
+import org.apache.hyracks.api.dataflow.value.INormalizedKeyComputer;
+import org.apache.hyracks.api.dataflow.value.INormalizedKeyComputerFactory;
+
+/**
+ * Computes the normalized key of the leading sort fields of a tuple as a sequence of 32-bit words, which compare
+ * lexicographically as unsigned ints. The key is the concatenation of the keys of the first fields, up to
+ * {@link #MAX_NORMALIZED_KEY_LENGTH} words; the key of a field is only appended if the keys of all the preceding
+ * fields are decisive.
+ */
+public class MultiFieldNormalizedKeyComputer {
+    /**
+     * The maximum number of normalized key words (32 bytes) of a tuple
+     */
+    public static final int MAX_NORMALIZED_KEY_LENGTH = 8;
+
+    private final INormalizedKeyComputer[] nkcs;
+    private final boolean multiWord;
+    private final int[] offsets;
+    private final int[] lengths;
+    private final int fields;
+    private final int length;
+    private final int decisiveFields;
+    private final int[] buffer;
+
+    /**
+     * Creates the single word key of the first sort field, which never decides the order on its own. This is the key
+     * that the sorters use when they are only given the first key normalizer.
+     */
+    public MultiFieldNormalizedKeyComputer(INormalizedKeyComputerFactory firstKeyNormalizerFactory) {
+        nkcs = new INormalizedKeyComputer[] { firstKeyNormalizerFactory == null ? null
+                : firstKeyNormalizerFactory.createNormalizedKeyComputer() };
+        multiWord = false;
+        offsets = new int[] { 0 };
+        lengths = new int[] { 1 };
+        fields = nkcs[0] == null ? 0 : 1;
+        length = 1;
+        decisiveFields = 0;
+        buffer = null;
+    }
+
+    /**
+     * Creates the multi-word key of the leading sort fields that have a key normalizer.
+     */
+    public MultiFieldNormalizedKeyComputer(INormalizedKeyComputerFactory[] keyNormalizerFactories,
+            int numSortFields) {
+        int maxFields = keyNormalizerFactories == null ? 0 : Math.min(keyNormalizerFactories.length, numSortFields);
+        nkcs = new INormalizedKeyComputer[maxFields];
+        multiWord = true;
+        offsets = new int[maxFields];
+        lengths = new int[maxFields];
+        int f = 0;
+        int len = 0;
+        int decisive = 0;
+        while (f < maxFields && keyNormalizerFactories[f] != null) {
+            INormalizedKeyComputer nkc = keyNormalizerFactories[f].createNormalizedKeyComputer();
+            int fieldLength = 1;
+            boolean fieldDecisive = false;
+            if (nkc instanceof IMultiWordNormalizedKeyComputer) {
+                IMultiWordNormalizedKeyComputer mwnkc = (IMultiWordNormalizedKeyComputer) nkc;
+                fieldLength = mwnkc.getNormalizedKeyLength();
+                fieldDecisive = mwnkc.isDecisive();
+                if (len + fieldLength > MAX_NORMALIZED_KEY_LENGTH) {
+                    /** a prefix of a normalized key still preserves the order, but no longer decides it */
+                    fieldLength = MAX_NORMALIZED_KEY_LENGTH - len;
+                    fieldDecisive = false;
+                }
+            } else if (f > 0) {
+                break;
+            }
+            if (fieldLength <= 0) {
+                break;
+            }
+            nkcs[f] = nkc;
+            offsets[f] = len;
+            lengths[f] = fieldLength;
+            len += fieldLength;
+            ++f;
+            if (!fieldDecisive) {
+                break;
+            }
+            decisive = f;
+        }
+        fields = f;
+        length = len;
+        decisiveFields = decisive;
+        buffer = new int[MAX_NORMALIZED_KEY_LENGTH];
+    }
+
+    /**
+     * @return the number of words of the key
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return the number of leading sort fields whose order is fully determined by the key
+     */
+    public int getDecisiveFieldCount() {
+        return decisiveFields;
+    }
+
+    /**
+     * Writes the key of a tuple to target[offset, offset + {@link #getLength()}).
+     */
+    public void normalize(IFrameTupleAccessor fta, int tIndex, int[] sortFields, int[] target, int offset) {
+        byte[] bytes = fta.getBuffer().array();
+        if (!multiWord && fields == 0) {
+            /** the legacy key is always there, even without a key normalizer */
+            target[offset] = 0;
+        }
+        for (int f = 0; f < fields; ++f) {
+            int fIdx = sortFields[f];
+            normalize(f, bytes, fta.getAbsoluteFieldStartOffset(tIndex, fIdx), fta.getFieldLength(tIndex, fIdx),
+                    target, offset + offsets[f]);
+        }
+    }
+
+    private void normalize(int f, byte[] bytes, int start, int len, int[] target, int offset) {
+        INormalizedKeyComputer nkc = nkcs[f];
+        if (!multiWord || !(nkc instanceof IMultiWordNormalizedKeyComputer)) {
+            target[offset] = nkc.normalize(bytes, start, len);
+            return;
+        }
+        IMultiWordNormalizedKeyComputer mwnkc = (IMultiWordNormalizedKeyComputer) nkc;
+        if (mwnkc.getNormalizedKeyLength() == lengths[f]) {
+            mwnkc.normalize(bytes, start, len, target, offset);
+        } else {
+            mwnkc.normalize(bytes, start, len, buffer, 0);
+            System.arraycopy(buffer, 0, target, offset, lengths[f]);
+        }
+    }
+
+    /**
+     * Compares two keys of the given length word by word as unsigned ints.
+     */
+    public static int compare(int[] k1, int offset1, int[] k2, int offset2, int length) {
+        for (int k = 0; k < length; ++k) {
+            int v1 = k1[offset1 + k];
+            int v2 = k2[offset2 + k];
+            if (v1 != v2) {
+                return ((((long) v1) & 0xffffffffL) < (((long) v2) & 0xffffffffL)) ? -1 : 1;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.tests.unit;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.hyracks.api.context.IHyracksTaskContext;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.dataflow.common.io.RunFileWriter;
+import org.apache.hyracks.dataflow.std.sort.AbstractSortRunGenerator;
+import org.apache.hyracks.dataflow.std.sort.Algorithm;
+import org.apache.hyracks.dataflow.std.sort.ExternalSortRunGenerator;
+import org.apache.hyracks.test.support.TestJobletContext;
+import org.junit.Test;
+
+public class AsyncIOExternalSortRunGeneratorTest extends AbstractRunGeneratorTest {
+
+    /**
+     * The run writer holds two blocks of one frame, which the generator gets on top of the frames limit of the
+     * test, so that its runs are as large as without asynchronous I/O.
+     */
+    @Override
+    AbstractSortRunGenerator getSortRunGenerator(IHyracksTaskContext ctx, int frameLimit, int numOfInputRecord)
+            throws HyracksDataException {
+        TestJobletContext jobletCtx = (TestJobletContext) ctx.getJobletContext();
+        jobletCtx.setRunFileAsyncIOFrames(1);
+        return new ExternalSortRunGenerator(ctx, SortFields, null, ComparatorFactories, RecordDesc,
+                Algorithm.MERGE_SORT, frameLimit + 2);
+    }
+
+    @Test
+    public void testAsyncIOFramesFitTheFramesPerWriter() {
+        IHyracksTaskContext ctx = testUtils.create(512);
+        ((TestJobletContext) ctx.getJobletContext()).setRunFileAsyncIOFrames(2);
+        assertEquals(4, RunFileWriter.getAsyncIOFrames(ctx, 8));
+        assertEquals(0, RunFileWriter.getAsyncIOFrames(ctx, 7));
+        ((TestJobletContext) ctx.getJobletContext()).setRunFileAsyncIOFrames(0);
+        assertEquals(0, RunFileWriter.getAsyncIOFrames(ctx, 8));
+    }
+}
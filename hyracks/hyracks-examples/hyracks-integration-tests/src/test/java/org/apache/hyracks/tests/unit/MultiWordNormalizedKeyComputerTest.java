@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.hyracks.tests.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.hyracks.api.dataflow.value.IBinaryComparator;
+import org.apache.hyracks.api.dataflow.value.IMultiWordNormalizedKeyComputer;
+import org.apache.hyracks.api.dataflow.value.INormalizedKeyComputerFactory;
+import org.apache.hyracks.api.dataflow.value.ISerializerDeserializer;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.data.std.accessors.PointableBinaryComparatorFactory;
+import org.apache.hyracks.data.std.api.IPointableFactory;
+import org.apache.hyracks.data.std.primitive.DoublePointable;
+import org.apache.hyracks.data.std.primitive.LongPointable;
+import org.apache.hyracks.data.std.primitive.UTF8StringPointable;
+import org.apache.hyracks.data.std.util.ArrayBackedValueStorage;
+import org.apache.hyracks.dataflow.common.data.marshalling.DoubleSerializerDeserializer;
+import org.apache.hyracks.dataflow.common.data.marshalling.Integer64SerializerDeserializer;
+import org.apache.hyracks.dataflow.common.data.marshalling.UTF8StringSerializerDeserializer;
+import org.apache.hyracks.dataflow.common.data.normalizers.DoubleNormalizedKeyComputerFactory;
+import org.apache.hyracks.dataflow.common.data.normalizers.Integer64NormalizedKeyComputerFactory;
+import org.apache.hyracks.dataflow.common.data.normalizers.UTF8StringNormalizedKeyComputerFactory;
+import org.junit.Test;
+
+public class MultiWordNormalizedKeyComputerTest {
+    static final int NUM_VALUES = 500;
+    static Random GRandom = new Random(System.currentTimeMillis());
+
+    @Test
+    public void testInteger64() throws HyracksDataException {
+        List<Object> values = new ArrayList<>();
+        values.add(Long.MIN_VALUE);
+        values.add(Long.MAX_VALUE);
+        values.add(0L);
+        values.add(-1L);
+        values.add((long) Integer.MAX_VALUE);
+        values.add((long) Integer.MAX_VALUE + 1);
+        while (values.size() < NUM_VALUES) {
+            long value = GRandom.nextLong();
+            values.add(GRandom.nextBoolean() ? value : value >> GRandom.nextInt(64));
+        }
+        assertKeysPreserveOrder(new Integer64NormalizedKeyComputerFactory(), LongPointable.FACTORY,
+                Integer64SerializerDeserializer.INSTANCE, values, true);
+    }
+
+    @Test
+    public void testDouble() throws HyracksDataException {
+        List<Object> values = new ArrayList<>();
+        values.add(0.0d);
+        values.add(-0.0d);
+        values.add(Double.MIN_VALUE);
+        values.add(-Double.MIN_VALUE);
+        values.add(Double.MAX_VALUE);
+        values.add(Double.NEGATIVE_INFINITY);
+        values.add(Double.POSITIVE_INFINITY);
+        while (values.size() < NUM_VALUES) {
+            double value = GRandom.nextDouble() * Math.pow(10, GRandom.nextInt(40) - 20);
+            values.add(GRandom.nextBoolean() ? value : -value);
+        }
+        assertKeysPreserveOrder(new DoubleNormalizedKeyComputerFactory(), DoublePointable.FACTORY,
+                DoubleSerializerDeserializer.INSTANCE, values, true);
+    }
+
+    @Test
+    public void testUTF8String() throws HyracksDataException {
+        List<Object> values = new ArrayList<>();
+        values.add("");
+        values.add("\u0000");
+        values.add("été");
+        values.add("中文");
+        while (values.size() < NUM_VALUES) {
+            /** a small alphabet and a shared prefix make ties within the normalized key likely */
+            StringBuilder sb = new StringBuilder(GRandom.nextBoolean() ? "abcdefgh" : "");
+            int length = GRandom.nextInt(20);
+            for (int i = 0; i < length; ++i) {
+                sb.append((char) (GRandom.nextInt(4) == 0 ? 0x3b1 + GRandom.nextInt(3) : 'a' + GRandom.nextInt(3)));
+            }
+            values.add(sb.toString());
+        }
+        assertKeysPreserveOrder(new UTF8StringNormalizedKeyComputerFactory(), UTF8StringPointable.FACTORY,
+                UTF8StringSerializerDeserializer.INSTANCE, values, false);
+        assertKeysPreserveOrder(new UTF8StringNormalizedKeyComputerFactory(1), UTF8StringPointable.FACTORY,
+                UTF8StringSerializerDeserializer.INSTANCE, values, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    static void assertKeysPreserveOrder(INormalizedKeyComputerFactory nkcFactory, IPointableFactory pointableFactory,
+            @SuppressWarnings("rawtypes") ISerializerDeserializer serde, List<Object> values, boolean decisive)
+            throws HyracksDataException {
+        IMultiWordNormalizedKeyComputer nkc = (IMultiWordNormalizedKeyComputer) nkcFactory
+                .createNormalizedKeyComputer();
+        assertEquals(decisive, nkc.isDecisive());
+        IBinaryComparator comparator = PointableBinaryComparatorFactory.of(pointableFactory)
+                .createBinaryComparator();
+        int keyLength = nkc.getNormalizedKeyLength();
+        byte[][] bytes = new byte[values.size()][];
+        int[] keys = new int[values.size() * keyLength];
+        for (int i = 0; i < values.size(); ++i) {
+            ArrayBackedValueStorage storage = new ArrayBackedValueStorage();
+            serde.serialize(values.get(i), storage.getDataOutput());
+            bytes[i] = storage.getByteArray();
+            nkc.normalize(bytes[i], storage.getStartOffset(), storage.getLength(), keys, i * keyLength);
+        }
+        for (int i = 0; i < values.size(); ++i) {
+            for (int j = 0; j < values.size(); ++j) {
+                int keyCmp = compareKeys(keys, i * keyLength, j * keyLength, keyLength);
+                int cmp = Integer.signum(comparator.compare(bytes[i], 0, bytes[i].length, bytes[j], 0,
+                        bytes[j].length));
+                if (keyCmp != 0) {
+                    assertEquals(values.get(i) + " vs " + values.get(j), cmp, keyCmp);
+                } else if (decisive) {
+                    assertTrue(values.get(i) + " vs " + values.get(j), cmp == 0);
+                }
+            }
+        }
+    }
+
+    static int compareKeys(int[] keys, int k1, int k2, int keyLength) {
+        for (int k = 0; k < keyLength; ++k) {
+            int c = Integer.compareUnsigned(keys[k1 + k], keys[k2 + k]);
+            if (c != 0) {
+                return Integer.signum(c);
+            }
+        }
+        return 0;
+    }
+}
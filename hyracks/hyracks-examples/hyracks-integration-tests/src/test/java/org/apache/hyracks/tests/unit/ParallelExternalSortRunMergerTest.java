@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.hyracks.tests.unit;
+
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.apache.hyracks.api.comm.IFrame;
+import org.apache.hyracks.api.comm.IFrameWriter;
+import org.apache.hyracks.api.context.IHyracksTaskContext;
+import org.apache.hyracks.api.dataflow.value.INormalizedKeyComputerFactory;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.api.job.profiling.counters.ICounterContext;
+import org.apache.hyracks.dataflow.common.comm.io.FrameTupleAccessor;
+import org.apache.hyracks.dataflow.common.data.normalizers.IntegerNormalizedKeyComputerFactory;
+import org.apache.hyracks.dataflow.common.io.RunFileCodec;
+import org.apache.hyracks.dataflow.std.sort.Algorithm;
+import org.apache.hyracks.dataflow.std.sort.ParallelExternalSortRunGenerator;
+import org.apache.hyracks.dataflow.std.sort.ParallelExternalSortRunMerger;
+import org.apache.hyracks.dataflow.std.sort.buffermanager.EnumFreeSlotPolicy;
+import org.apache.hyracks.test.support.TestJobletContext;
+import org.junit.Test;
+
+public class ParallelExternalSortRunMergerTest {
+
+    static final int PARALLELISM = 4;
+
+    private void testSortAndMerge(int pageSize, int frameLimit, int numRuns, int minRecordSize, int maxRecordSize,
+            INormalizedKeyComputerFactory nmkFactory, boolean compressRuns, int asyncIOFrames)
+            throws HyracksDataException {
+        IHyracksTaskContext ctx = AbstractRunGeneratorTest.testUtils.create(pageSize);
+        ((TestJobletContext) ctx.getJobletContext()).setRunFileCompression(compressRuns);
+        ((TestJobletContext) ctx.getJobletContext()).setRunFileChecksums(compressRuns);
+        ((TestJobletContext) ctx.getJobletContext()).setRunFileAsyncIOFrames(asyncIOFrames);
+        HashMap<Integer, String> keyValuePair = new HashMap<>();
+        List<IFrame> frameList = new ArrayList<>();
+        AbstractRunGeneratorTest.prepareData(ctx, frameList, pageSize * frameLimit * numRuns, minRecordSize,
+                maxRecordSize, null, keyValuePair);
+
+        ParallelExternalSortRunGenerator runGenerator = new ParallelExternalSortRunGenerator(ctx,
+                AbstractRunGeneratorTest.SortFields, new INormalizedKeyComputerFactory[] { nmkFactory },
+                AbstractRunGeneratorTest.ComparatorFactories, AbstractRunGeneratorTest.RecordDesc,
+                Algorithm.QUICK_SORT, EnumFreeSlotPolicy.LAST_FIT, frameLimit, Integer.MAX_VALUE, PARALLELISM);
+        runGenerator.open();
+        for (IFrame frame : frameList) {
+            runGenerator.nextFrame(frame.getBuffer());
+        }
+        runGenerator.close();
+        assertTrue(runGenerator.getRuns().size() > 1);
+
+        SortedResultChecker checker = new SortedResultChecker(keyValuePair);
+        ParallelExternalSortRunMerger merger = new ParallelExternalSortRunMerger(ctx, runGenerator.getSorter(),
+                runGenerator.getRuns(), AbstractRunGeneratorTest.SortFields,
+                AbstractRunGeneratorTest.ComparatorFactories, nmkFactory, AbstractRunGeneratorTest.RecordDesc,
+                frameLimit, Integer.MAX_VALUE, checker, PARALLELISM);
+        merger.process();
+        assertTrue(checker.closed);
+        assertTrue(keyValuePair.isEmpty());
+        if (compressRuns) {
+            ICounterContext counters = ctx.getJobletContext().getCounterContext();
+            // random records barely compress, so only check that the spilled frames were accounted for
+            assertTrue(counters.getCounter(RunFileCodec.SPILLED_BYTES_COUNTER, false).get() > 0);
+            assertTrue(counters.getCounter(RunFileCodec.STORED_BYTES_COUNTER, false).get() > 0);
+        }
+    }
+
+    @Test
+    public void testMergeInKeyRanges() throws HyracksDataException {
+        int pageSize = 512;
+        testSortAndMerge(pageSize, 64, 2, pageSize / 8, pageSize / 4, null, false, 0);
+    }
+
+    @Test
+    public void testMergeGroupsBeforeKeyRanges() throws HyracksDataException {
+        int pageSize = 256;
+        testSortAndMerge(pageSize, 8, 16, pageSize / 8, pageSize / 4, new IntegerNormalizedKeyComputerFactory(), false,
+                0);
+    }
+
+    @Test
+    public void testMergeLargeRecords() throws HyracksDataException {
+        int pageSize = 256;
+        testSortAndMerge(pageSize, 32, 4, pageSize / 2, pageSize * 2, null, false, 0);
+    }
+
+    @Test
+    public void testMergeCompressedRuns() throws HyracksDataException {
+        int pageSize = 512;
+        testSortAndMerge(pageSize, 64, 2, pageSize / 8, pageSize / 4, null, true, 0);
+    }
+
+    @Test
+    public void testMergeWithAsyncIO() throws HyracksDataException {
+        int pageSize = 256;
+        // every open run holds 2 * 2 frames of I/O blocks, so the workers get fewer runs per group
+        testSortAndMerge(pageSize, 64, 8, pageSize / 8, pageSize / 4, new IntegerNormalizedKeyComputerFactory(), true,
+                2);
+    }
+
+    private static class SortedResultChecker implements IFrameWriter {
+        private final HashMap<Integer, String> keyValuePair;
+        private final FrameTupleAccessor fta = new FrameTupleAccessor(AbstractRunGeneratorTest.RecordDesc);
+        private int preKey = Integer.MIN_VALUE;
+        private boolean closed;
+
+        SortedResultChecker(HashMap<Integer, String> keyValuePair) {
+            this.keyValuePair = keyValuePair;
+        }
+
+        @Override
+        public void open() throws HyracksDataException {
+        }
+
+        @Override
+        public void nextFrame(ByteBuffer buffer) throws HyracksDataException {
+            fta.reset(buffer);
+            preKey = AbstractRunGeneratorTest.assertFTADataIsSorted(fta, keyValuePair, preKey);
+        }
+
+        @Override
+        public void fail() throws HyracksDataException {
+        }
+
+        @Override
+        public void close() throws HyracksDataException {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.hyracks.tests.unit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.hyracks.api.context.IHyracksTaskContext;
+import org.apache.hyracks.api.dataflow.value.IBinaryComparatorFactory;
+import org.apache.hyracks.api.dataflow.value.INormalizedKeyComputerFactory;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.dataflow.common.data.normalizers.IntegerNormalizedKeyComputerFactory;
+import org.apache.hyracks.dataflow.common.data.normalizers.UTF8StringNormalizedKeyComputerFactory;
+import org.apache.hyracks.dataflow.std.sort.AbstractSortRunGenerator;
+import org.apache.hyracks.dataflow.std.sort.Algorithm;
+import org.apache.hyracks.dataflow.std.sort.ExternalSortRunGenerator;
+import org.apache.hyracks.dataflow.std.sort.FrameSorterMergeSort;
+import org.apache.hyracks.dataflow.std.sort.FrameSorterQuickSort;
+import org.apache.hyracks.dataflow.std.sort.FrameSorterRadixSort;
+import org.apache.hyracks.dataflow.std.sort.buffermanager.EnumFreeSlotPolicy;
+import org.junit.Test;
+
+public class RadixSortRunGeneratorTest extends AbstractRunGeneratorTest {
+
+    /**
+     * The integer keys of the generated records are unique, so sorting on them alone yields the expected order.
+     */
+    static int[] KeyFields = new int[] { 0 };
+    static IBinaryComparatorFactory[] KeyComparatorFactories = new IBinaryComparatorFactory[] {
+            ComparatorFactories[0] };
+    static INormalizedKeyComputerFactory KeyNormalizerFactory = new IntegerNormalizedKeyComputerFactory();
+
+    @Override
+    AbstractSortRunGenerator getSortRunGenerator(IHyracksTaskContext ctx, int frameLimit, int numOfInputRecord)
+            throws HyracksDataException {
+        return new ExternalSortRunGenerator(ctx, KeyFields, new INormalizedKeyComputerFactory[] {
+                KeyNormalizerFactory }, KeyComparatorFactories, RecordDesc, Algorithm.RADIX_SORT,
+                EnumFreeSlotPolicy.LAST_FIT, frameLimit, Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void testRadixSortIsOnlyChosenForDecisiveKeys() throws HyracksDataException {
+        IHyracksTaskContext ctx = testUtils.create(512);
+        assertTrue(getSortRunGenerator(ctx, 4, 0).getSorter() instanceof FrameSorterRadixSort);
+        assertTrue(new ExternalSortRunGenerator(ctx, KeyFields, new INormalizedKeyComputerFactory[] {
+                KeyNormalizerFactory }, KeyComparatorFactories, RecordDesc, Algorithm.QUICK_SORT,
+                EnumFreeSlotPolicy.LAST_FIT, 4, Integer.MAX_VALUE).getSorter() instanceof FrameSorterRadixSort);
+        assertTrue(new ExternalSortRunGenerator(ctx, KeyFields, new INormalizedKeyComputerFactory[] {
+                KeyNormalizerFactory }, KeyComparatorFactories, RecordDesc, Algorithm.MERGE_SORT,
+                EnumFreeSlotPolicy.LAST_FIT, 4, Integer.MAX_VALUE).getSorter() instanceof FrameSorterRadixSort);
+        assertTrue(new ExternalSortRunGenerator(ctx, SortFields, new INormalizedKeyComputerFactory[] {
+                KeyNormalizerFactory }, ComparatorFactories, RecordDesc, Algorithm.QUICK_SORT,
+                EnumFreeSlotPolicy.LAST_FIT, 4, Integer.MAX_VALUE).getSorter() instanceof FrameSorterQuickSort);
+        assertTrue(new ExternalSortRunGenerator(ctx, KeyFields, KeyNormalizerFactory, KeyComparatorFactories,
+                RecordDesc, Algorithm.RADIX_SORT, 4).getSorter() instanceof FrameSorterMergeSort);
+        assertTrue(new ExternalSortRunGenerator(ctx, SortFields, new INormalizedKeyComputerFactory[] {
+                KeyNormalizerFactory }, ComparatorFactories, RecordDesc, Algorithm.RADIX_SORT,
+                EnumFreeSlotPolicy.LAST_FIT, 4, Integer.MAX_VALUE).getSorter() instanceof FrameSorterMergeSort);
+        assertFalse(FrameSorterRadixSort.canSort(null, 1));
+        assertFalse(FrameSorterRadixSort.canSort(new INormalizedKeyComputerFactory[] { KeyNormalizerFactory }, 2));
+        assertFalse(FrameSorterRadixSort.canSort(new INormalizedKeyComputerFactory[] { KeyNormalizerFactory,
+                new UTF8StringNormalizedKeyComputerFactory() }, 2));
+        assertTrue(FrameSorterRadixSort.canSort(new INormalizedKeyComputerFactory[] { KeyNormalizerFactory,
+                KeyNormalizerFactory }, 2));
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.tests.unit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.hyracks.api.comm.IFrame;
+import org.apache.hyracks.api.comm.VSizeFrame;
+import org.apache.hyracks.api.context.IHyracksTaskContext;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.api.io.FileReference;
+import org.apache.hyracks.api.job.profiling.counters.ICounterContext;
+import org.apache.hyracks.dataflow.common.io.RunFileCodec;
+import org.apache.hyracks.dataflow.common.io.RunFileReader;
+import org.apache.hyracks.dataflow.common.io.RunFileWriter;
+import org.apache.hyracks.test.support.TestJobletContext;
+import org.apache.hyracks.test.support.TestUtils;
+import org.junit.Test;
+
+public class RunFileCodecTest {
+    static final int FRAME_SIZE = 512;
+
+    private final Random random = new Random(5);
+
+    @Test
+    public void testCompressedRoundTrip() throws HyracksDataException {
+        IHyracksTaskContext ctx = createContext(true, true, 0);
+        List<byte[]> frames = createFrames();
+        RunFileWriter writer = writeRun(ctx, frames, null);
+        assertTrue(writer.getFileSize() < totalSize(frames));
+        assertFrames(frames, 0, writer.createDeleteOnCloseReader(), 0);
+
+        ICounterContext counters = ctx.getJobletContext().getCounterContext();
+        assertEquals(totalSize(frames), counters.getCounter(RunFileCodec.SPILLED_BYTES_COUNTER, false).get());
+        assertEquals(writer.getFileSize(), counters.getCounter(RunFileCodec.STORED_BYTES_COUNTER, false).get());
+    }
+
+    @Test
+    public void testChecksumsOnly() throws HyracksDataException {
+        IHyracksTaskContext ctx = createContext(false, true, 0);
+        List<byte[]> frames = createFrames();
+        RunFileWriter writer = writeRun(ctx, frames, null);
+        assertEquals(totalSize(frames) + 16 * frames.size(), writer.getFileSize());
+        assertFrames(frames, 0, writer.createDeleteOnCloseReader(), 0);
+    }
+
+    @Test
+    public void testDisabled() throws HyracksDataException {
+        IHyracksTaskContext ctx = createContext(false, false, 0);
+        assertNull(RunFileCodec.create(ctx));
+    }
+
+    @Test
+    public void testSeek() throws HyracksDataException {
+        IHyracksTaskContext ctx = createContext(true, true, 0);
+        List<byte[]> frames = createFrames();
+        long[] offsets = new long[frames.size()];
+        RunFileWriter writer = writeRun(ctx, frames, offsets);
+        for (int i = 0; i < frames.size(); i++) {
+            assertFrames(frames, i, writer.createReader(), offsets[i]);
+        }
+        writer.getFileReference().delete();
+    }
+
+    @Test
+    public void testAsyncIO() throws HyracksDataException {
+        // blocks of 3 frames split the encoded frames at arbitrary positions
+        IHyracksTaskContext ctx = createContext(true, true, 3);
+        List<byte[]> frames = createFrames();
+        long[] offsets = new long[frames.size()];
+        RunFileWriter writer = writeRun(ctx, frames, offsets);
+        for (int i = frames.size() - 1; i >= 0; i -= 3) {
+            assertFrames(frames, i, writer.createReader(), offsets[i]);
+        }
+        assertFrames(frames, 0, writer.createDeleteOnCloseReader(), 0);
+    }
+
+    @Test(expected = HyracksDataException.class)
+    public void testCorruption() throws Exception {
+        IHyracksTaskContext ctx = createContext(true, true, 0);
+        List<byte[]> frames = createFrames();
+        RunFileWriter writer = writeRun(ctx, frames, null);
+        try (RandomAccessFile raf = new RandomAccessFile(writer.getFileReference().getFile(), "rw")) {
+            long pos = writer.getFileSize() / 2;
+            raf.seek(pos);
+            int b = raf.read();
+            raf.seek(pos);
+            raf.write(b ^ 0x10);
+        }
+        RunFileReader reader = writer.createDeleteOnCloseReader();
+        reader.open();
+        try {
+            IFrame frame = new VSizeFrame(ctx);
+            while (reader.nextFrame(frame)) {
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private IHyracksTaskContext createContext(boolean compression, boolean checksums, int asyncIOFrames) {
+        IHyracksTaskContext ctx = TestUtils.create(FRAME_SIZE);
+        TestJobletContext jobletCtx = (TestJobletContext) ctx.getJobletContext();
+        jobletCtx.setRunFileCompression(compression);
+        jobletCtx.setRunFileChecksums(checksums);
+        jobletCtx.setRunFileAsyncIOFrames(asyncIOFrames);
+        return ctx;
+    }
+
+    private List<byte[]> createFrames() {
+        List<byte[]> frames = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            byte[] bytes = new byte[FRAME_SIZE * (1 + i % 3)];
+            switch (i % 4) {
+                case 0:
+                    // incompressible
+                    random.nextBytes(bytes);
+                    break;
+                case 1:
+                    // mostly padding
+                    Arrays.fill(bytes, 0, 40, (byte) i);
+                    break;
+                default:
+                    for (int j = 0; j < bytes.length; j++) {
+                        bytes[j] = (byte) ((j % 17) * random.nextInt(2));
+                    }
+            }
+            frames.add(bytes);
+        }
+        return frames;
+    }
+
+    private static long totalSize(List<byte[]> frames) {
+        long size = 0;
+        for (byte[] frame : frames) {
+            size += frame.length;
+        }
+        return size;
+    }
+
+    private static RunFileWriter writeRun(IHyracksTaskContext ctx, List<byte[]> frames, long[] offsets)
+            throws HyracksDataException {
+        FileReference file = ctx.getJobletContext().createManagedWorkspaceFile("RunFileCodecTest");
+        RunFileWriter writer = new RunFileWriter(file, ctx);
+        writer.open();
+        VSizeFrame frame = new VSizeFrame(ctx);
+        for (int i = 0; i < frames.size(); i++) {
+            if (offsets != null) {
+                offsets[i] = writer.getFileSize();
+            }
+            byte[] bytes = frames.get(i);
+            frame.reset();
+            frame.ensureFrameSize(bytes.length);
+            frame.getBuffer().put(bytes);
+            frame.getBuffer().flip();
+            writer.nextFrame(frame.getBuffer());
+        }
+        writer.close();
+        return writer;
+    }
+
+    private static void assertFrames(List<byte[]> frames, int first, RunFileReader reader, long offset)
+            throws HyracksDataException {
+        reader.open();
+        reader.seek(offset);
+        IFrame frame = new VSizeFrame(TestUtils.create(FRAME_SIZE));
+        for (int i = first; i < frames.size(); i++) {
+            assertTrue(reader.nextFrame(frame));
+            byte[] bytes = new byte[frame.getBuffer().remaining()];
+            frame.getBuffer().get(bytes);
+            assertArrayEquals(frames.get(i), bytes);
+        }
+        assertFalse(reader.nextFrame(frame));
+        reader.close();
+    }
+}
@@ -220,6 +220,28 @@ public class RunMergingFrameReaderTest {
         testMergeSucceed(ctx, reader, keyValueMapList);
     }
 
+    @Test
+    public void testMultiWordNormalizedKeyRunMerge() throws HyracksDataException {
+
+        int pageSize = 128;
+        int numRuns = 5;
+        int numFramesPerRun = 2;
+        int minRecordSize = pageSize / 10;
+        int maxRecordSize = pageSize / 8;
+
+        IHyracksTaskContext ctx = testUtils.create(pageSize);
+        List<Map<Integer, String>> keyValueMapList = new ArrayList<>(numRuns);
+        List<TestFrameReader> readerList = new ArrayList<>(numRuns);
+        List<IFrame> frameList = new ArrayList<>(numRuns);
+        prepareRandomInputRunList(ctx, pageSize, numRuns, numFramesPerRun, minRecordSize, maxRecordSize, readerList,
+                frameList, keyValueMapList);
+
+        RunMergingFrameReader reader = new RunMergingFrameReader(ctx, readerList, frameList, SortFields, Comparators,
+                null, RecordDesc);
+        reader.setKeyNormalizerFactories(MultiWordNormalizedKeySortRunGeneratorTest.KeyNormalizerFactories);
+        testMergeSucceed(ctx, reader, keyValueMapList);
+    }
+
     @Test
     public void testNormalRunMergeWithTopK() throws HyracksDataException {
 
@@ -38,11 +38,22 @@ public class BloomFilter {
     private final static int NUM_HASHES_USED_OFFSET = NUM_PAGES_OFFSET + 4; // 4
     private final static int NUM_ELEMENTS_OFFSET = NUM_HASHES_USED_OFFSET + 4; // 8
     private final static int NUM_BITS_OFFSET = NUM_ELEMENTS_OFFSET + 8; // 12
+    private final static int LAYOUT_OFFSET = NUM_BITS_OFFSET + 8; // 20
+
+    // Marks the blocked layout in the metadata page. Filters written before the layout was recorded are not blocked.
+    private final static int BLOCKED_LAYOUT = 0x424c4b31;
+    // In the blocked layout, all the bits of a key are in one block of a cache line's size, as 8 64-bit words.
+    private final static int BLOCK_SIZE = 64;
+    private final static int BITS_PER_BLOCK = BLOCK_SIZE * Byte.SIZE;
+    private final static int BLOCK_BIT_SHIFT = Long.SIZE - 9; // log2(BITS_PER_BLOCK) = 9
 
     private final IBufferCache bufferCache;
     private final IFileMapProvider fileMapProvider;
     private final FileReference file;
     private final int[] keyFields;
+    private final boolean createBlocked;
+    private final int pageSize;
+    private final boolean declarePageSize;
     private int fileId = -1;
     private boolean isActivated = false;
 
@@ -50,23 +61,56 @@ public class BloomFilter {
     private int numHashes;
     private long numElements;
     private long numBits;
+    private boolean blocked;
     private final int numBitsPerPage;
+    private final int numBlocksPerPage;
     private final static byte[] ZERO_BUFFER = new byte[131072]; // 128kb
     private final static long SEED = 0L;
 
     public BloomFilter(IBufferCache bufferCache, IFileMapProvider fileMapProvider, FileReference file, int[] keyFields)
             throws HyracksDataException {
+        this(bufferCache, fileMapProvider, file, keyFields, false);
+    }
+
+    /**
+     * @param createBlocked
+     *            whether the builder should write a blocked filter, in which all the bits of a key are in one
+     *            64-byte block, so that a lookup pins a single page. A blocked filter has a slightly higher false
+     *            positive rate for the same number of bits. Lookups follow the layout the filter was built with.
+     */
+    public BloomFilter(IBufferCache bufferCache, IFileMapProvider fileMapProvider, FileReference file,
+            int[] keyFields, boolean createBlocked) throws HyracksDataException {
+        this(bufferCache, fileMapProvider, file, keyFields, createBlocked, 0);
+    }
+
+    /**
+     * @param pageSize
+     *            the page size of the filter's file, or 0 for the page size of the buffer cache. Larger pages let a
+     *            filter of many keys be held in fewer pages. The buffer cache must support the page size, see
+     *            {@link IBufferCache#createFile(FileReference, int)}, and the filter must always be opened with the
+     *            page size it was created with.
+     */
+    public BloomFilter(IBufferCache bufferCache, IFileMapProvider fileMapProvider, FileReference file,
+            int[] keyFields, boolean createBlocked, int pageSize) throws HyracksDataException {
         this.bufferCache = bufferCache;
         this.fileMapProvider = fileMapProvider;
         this.file = file;
         this.keyFields = keyFields;
-        this.numBitsPerPage = bufferCache.getPageSize() * Byte.SIZE;
+        this.createBlocked = createBlocked;
+        this.declarePageSize = pageSize > 0;
+        this.pageSize = declarePageSize ? pageSize : bufferCache.getPageSize();
+        this.numBitsPerPage = this.pageSize * Byte.SIZE;
+        this.numBlocksPerPage = this.pageSize / BLOCK_SIZE;
     }
 
     public int getFileId() {
         return fileId;
     }
 
+    public int getPageSize() {
+        return pageSize;
+    }
+
     public FileReference getFileReference() {
         return file;
     }
@@ -85,11 +129,21 @@ public class BloomFilter {
         return numElements;
     }
 
+    public boolean isBlocked() throws HyracksDataException {
+        if (!isActivated) {
+            throw new HyracksDataException("The bloom filter is not activated.");
+        }
+        return blocked;
+    }
+
     public boolean contains(ITupleReference tuple, long[] hashes) throws HyracksDataException {
         if (numPages == 0) {
             return false;
         }
         MurmurHash128Bit.hash3_x64_128(tuple, keyFields, SEED, hashes);
+        if (blocked) {
+            return blockContains(hashes);
+        }
         for (int i = 0; i < numHashes; ++i) {
             long hash = Math.abs((hashes[0] + i * hashes[1]) % numBits);
 
@@ -115,17 +169,67 @@ public class BloomFilter {
         return true;
     }
 
+    /**
+     * Computes the hashes of the key of a tuple into hashes[0] and hashes[1], as they are passed to
+     * {@link BloomFilterBuilder#addHashes(long[], int)}.
+     */
+    public void computeHashes(ITupleReference tuple, long[] hashes) {
+        MurmurHash128Bit.hash3_x64_128(tuple, keyFields, SEED, hashes);
+    }
+
+    private long getBlock(long[] hashes) {
+        return (hashes[0] & Long.MAX_VALUE) % (numBits / BITS_PER_BLOCK);
+    }
+
+    /**
+     * @return the position of the i-th hash's bit in the block
+     */
+    private static int getBlockBit(long[] hashes, int i) {
+        return (int) ((hashes[1] + i * hashes[0]) >>> BLOCK_BIT_SHIFT);
+    }
+
+    private boolean blockContains(long[] hashes) throws HyracksDataException {
+        long block = getBlock(hashes);
+        // we increment the page id by one, since the metadata page id of the filter is 0.
+        ICachedPage page = bufferCache.pin(
+                BufferedFileHandle.getDiskPageId(fileId, (int) (block / numBlocksPerPage) + 1), false);
+        page.acquireReadLatch();
+        try {
+            ByteBuffer buffer = page.getBuffer();
+            int offset = (int) (block % numBlocksPerPage) * BLOCK_SIZE;
+            for (int i = 0; i < numHashes; ++i) {
+                int bit = getBlockBit(hashes, i);
+                // The shift only uses the low 6 bits of the position, i.e. the bit in its word.
+                if ((buffer.getLong(offset + (bit >>> 6) * 8) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            page.releaseReadLatch();
+            bufferCache.unpin(page);
+        }
+    }
+
     private void prepareFile() throws HyracksDataException {
         boolean fileIsMapped = false;
         synchronized (fileMapProvider) {
             fileIsMapped = fileMapProvider.isMapped(file);
             if (!fileIsMapped) {
-                bufferCache.createFile(file);
+                if (declarePageSize) {
+                    bufferCache.createFile(file, pageSize);
+                } else {
+                    bufferCache.createFile(file);
+                }
             }
             fileId = fileMapProvider.lookupFileId(file);
             try {
                 // Also creates the file if it doesn't exist yet.
-                bufferCache.openFile(fileId);
+                if (declarePageSize) {
+                    bufferCache.openFile(fileId, pageSize);
+                } else {
+                    bufferCache.openFile(fileId);
+                }
             } catch (HyracksDataException e) {
                 // Revert state of buffer cache since file failed to open.
                 if (!fileIsMapped) {
@@ -148,6 +252,7 @@ public class BloomFilter {
             metaPage.getBuffer().putInt(NUM_HASHES_USED_OFFSET, 0);
             metaPage.getBuffer().putLong(NUM_ELEMENTS_OFFSET, 0L);
             metaPage.getBuffer().putLong(NUM_BITS_OFFSET, 0L);
+            metaPage.getBuffer().putInt(LAYOUT_OFFSET, 0);
         } finally {
             metaPage.releaseWriteLatch(true);
             bufferCache.unpin(metaPage);
@@ -173,6 +278,7 @@ public class BloomFilter {
             numHashes = metaPage.getBuffer().getInt(NUM_HASHES_USED_OFFSET);
             numElements = metaPage.getBuffer().getLong(NUM_ELEMENTS_OFFSET);
             numBits = metaPage.getBuffer().getLong(NUM_BITS_OFFSET);
+            blocked = metaPage.getBuffer().getInt(LAYOUT_OFFSET) == BLOCKED_LAYOUT;
         } finally {
             metaPage.releaseReadLatch();
             bufferCache.unpin(metaPage);
@@ -219,8 +325,15 @@ public class BloomFilter {
 
             this.numElements = numElements;
             this.numHashes = numHashes;
-            numBits = this.numElements * numBitsPerElement;
-            long tmp = (long) Math.ceil(numBits / (double) numBitsPerPage);
+            long tmp;
+            if (createBlocked) {
+                long numBlocks = (long) Math.ceil(this.numElements * numBitsPerElement / (double) BITS_PER_BLOCK);
+                numBits = numBlocks * BITS_PER_BLOCK;
+                tmp = (long) Math.ceil(numBlocks / (double) numBlocksPerPage);
+            } else {
+                numBits = this.numElements * numBitsPerElement;
+                tmp = (long) Math.ceil(numBits / (double) numBitsPerPage);
+            }
             if (tmp > Integer.MAX_VALUE) {
                 throw new HyracksDataException("Cannot create a bloom filter with his huge number of pages.");
             }
@@ -262,6 +375,7 @@ public class BloomFilter {
                 metaPage.getBuffer().putInt(NUM_HASHES_USED_OFFSET, numHashes);
                 metaPage.getBuffer().putLong(NUM_ELEMENTS_OFFSET, numElements);
                 metaPage.getBuffer().putLong(NUM_BITS_OFFSET, numBits);
+                metaPage.getBuffer().putInt(LAYOUT_OFFSET, createBlocked ? BLOCKED_LAYOUT : 0);
             } finally {
                 metaPage.releaseWriteLatch(true);
                 bufferCache.unpin(metaPage);
@@ -275,6 +389,33 @@ public class BloomFilter {
                         "Cannot add elements to this filter since it is supposed to be empty (number of elements hint passed to the filter during construction was 0).");
             }
             MurmurHash128Bit.hash3_x64_128(tuple, keyFields, SEED, hashes);
+            setBits(hashes);
+        }
+
+        /**
+         * Adds keys whose hashes were computed by {@link BloomFilter#computeHashes(ITupleReference, long[])}, the
+         * hashes of the i-th key being at keyHashes[2 * i] and keyHashes[2 * i + 1]. Unlike
+         * {@link #add(ITupleReference)}, this method may be called by several threads at a time, since every bit is set
+         * under the write latch of its page.
+         */
+        public void addHashes(long[] keyHashes, int numKeys) throws HyracksDataException {
+            if (numPages == 0) {
+                throw new HyracksDataException(
+                        "Cannot add elements to this filter since it is supposed to be empty (number of elements hint passed to the filter during construction was 0).");
+            }
+            long[] keyHash = new long[2];
+            for (int i = 0; i < numKeys; i++) {
+                keyHash[0] = keyHashes[2 * i];
+                keyHash[1] = keyHashes[2 * i + 1];
+                setBits(keyHash);
+            }
+        }
+
+        private void setBits(long[] hashes) throws HyracksDataException {
+            if (blocked) {
+                addToBlock(hashes);
+                return;
+            }
             for (int i = 0; i < numHashes; ++i) {
                 long hash = Math.abs((hashes[0] + i * hashes[1]) % numBits);
 
@@ -296,6 +437,25 @@ public class BloomFilter {
             }
         }
 
+        private void addToBlock(long[] hashes) throws HyracksDataException {
+            long block = getBlock(hashes);
+            ICachedPage page = bufferCache.pin(
+                    BufferedFileHandle.getDiskPageId(fileId, (int) (block / numBlocksPerPage) + 1), false);
+            page.acquireWriteLatch();
+            try {
+                ByteBuffer buffer = page.getBuffer();
+                int offset = (int) (block % numBlocksPerPage) * BLOCK_SIZE;
+                for (int i = 0; i < numHashes; ++i) {
+                    int bit = getBlockBit(hashes, i);
+                    int wordOffset = offset + (bit >>> 6) * 8;
+                    buffer.putLong(wordOffset, buffer.getLong(wordOffset) | (1L << bit));
+                }
+            } finally {
+                page.releaseWriteLatch(true);
+                bufferCache.unpin(page);
+            }
+        }
+
         @Override
         public void end() throws HyracksDataException, IndexException {
         }
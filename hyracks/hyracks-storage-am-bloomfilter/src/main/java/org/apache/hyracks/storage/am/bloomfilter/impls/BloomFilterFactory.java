@@ -28,15 +28,33 @@ public class BloomFilterFactory {
     private final IBufferCache bufferCache;
     private final IFileMapProvider fileMapProvider;
     private final int[] bloomFilterKeyFields;
+    private final boolean blocked;
+    private final int pageSize;
 
     public BloomFilterFactory(IBufferCache bufferCache, IFileMapProvider fileMapProvider, int[] bloomFilterKeyFields) {
+        this(bufferCache, fileMapProvider, bloomFilterKeyFields, false);
+    }
+
+    public BloomFilterFactory(IBufferCache bufferCache, IFileMapProvider fileMapProvider, int[] bloomFilterKeyFields,
+            boolean blocked) {
+        this(bufferCache, fileMapProvider, bloomFilterKeyFields, blocked, 0);
+    }
+
+    /**
+     * @param pageSize
+     *            the page size of the filters' files, or 0 for the page size of the buffer cache
+     */
+    public BloomFilterFactory(IBufferCache bufferCache, IFileMapProvider fileMapProvider, int[] bloomFilterKeyFields,
+            boolean blocked, int pageSize) {
         this.bufferCache = bufferCache;
         this.fileMapProvider = fileMapProvider;
         this.bloomFilterKeyFields = bloomFilterKeyFields;
+        this.blocked = blocked;
+        this.pageSize = pageSize;
     }
 
     public BloomFilter createBloomFiltertInstance(FileReference file) throws HyracksDataException {
-        return new BloomFilter(bufferCache, fileMapProvider, file, bloomFilterKeyFields);
+        return new BloomFilter(bufferCache, fileMapProvider, file, bloomFilterKeyFields, blocked, pageSize);
     }
 
     public int[] getBloomFilterKeyFields() {
@@ -19,8 +19,13 @@
 
 package org.apache.hyracks.storage.am.btree.api;
 
+import java.util.ArrayList;
+
 import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
 import org.apache.hyracks.storage.am.btree.impls.RangePredicate;
+import org.apache.hyracks.storage.am.common.api.ISplitKey;
+import org.apache.hyracks.storage.am.common.ophelpers.MultiComparator;
 
 public interface IBTreeInteriorFrame extends IBTreeFrame {
     public int getChildPageId(RangePredicate pred) throws HyracksDataException;
@@ -32,4 +37,13 @@ public interface IBTreeInteriorFrame extends IBTreeFrame {
     public void setRightmostChildPageId(int pageId);
 
     public void deleteGreatest();
+
+    /**
+     * Gives the frame a chance to replace the key of splitKey, which is the greatest key of a left sibling, with a
+     * shorter key that still sorts strictly before rightTuple, the least key of the right sibling.
+     * The child pointers of splitKey are not preserved, so this must be called before they are set.
+     */
+    public void truncateSplitKey(ISplitKey splitKey, ITupleReference rightTuple) throws HyracksDataException;
+
+    public ArrayList<Integer> getChildren(MultiComparator cmp);
 }
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.btree.api;
+
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.storage.am.btree.impls.RangePredicate;
+import org.apache.hyracks.storage.am.common.api.IIndexAccessor;
+import org.apache.hyracks.storage.am.common.api.IIndexCursor;
+import org.apache.hyracks.storage.am.common.api.IndexException;
+
+/**
+ * An accessor of an ordered index that can look up a batch of keys at once, e.g. the probe keys of one input frame of
+ * an index nested-loop join. The keys are searched in ascending order so that adjacent keys can reuse the work done
+ * for the previous one.
+ */
+public interface IBatchSearchAccessor extends IIndexAccessor {
+    /**
+     * Runs one search per key. Before each search, the handler resets the predicate to the key (the predicate's low
+     * key must then be equal to the key under the predicate's low key comparator), and after it the handler consumes
+     * the results from the cursor. Keys are visited in ascending order of the low key comparator, keys that compare
+     * equal in the order they are given.
+     * 
+     * @param keys
+     *            the keys of the batch, only used for ordering the searches and for filtering them up front
+     * @param keyCount
+     *            the number of keys in the batch, starting at index 0
+     */
+    public void searchBatch(IIndexCursor cursor, RangePredicate searchPred, ITupleReference[] keys, int keyCount,
+            IBatchSearchHandler handler) throws HyracksDataException, IndexException;
+}
@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.btree.api;
+
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexAccessor;
+import org.apache.hyracks.storage.am.common.api.IndexException;
+
+/**
+ * An accessor of an ordered index that can replace an existing tuple depending on its current value. This is what the
+ * memory components of an LSM B-tree need to turn antimatter tuples back into matter tuples.
+ */
+public interface IConditionalUpsertAccessor extends ITreeIndexAccessor {
+    /**
+     * Upserts the tuple if the acceptor accepts the tuple currently stored under the same key (null if there is
+     * none), otherwise inserts it.
+     * 
+     * @throws IndexException
+     *             if the tuple is not accepted and its key already exists
+     */
+    public void upsertIfConditionElseInsert(ITupleReference tuple, ITupleAcceptor acceptor)
+            throws HyracksDataException, IndexException;
+}
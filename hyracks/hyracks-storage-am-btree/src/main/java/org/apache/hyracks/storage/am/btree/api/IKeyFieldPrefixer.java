@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.btree.api;
+
+import java.io.Serializable;
+
+/**
+ * Describes the layout of a variable-length key field so that B-tree interior frames can shorten it.
+ * A serialized value must consist of a header, which only depends on the length of the content, followed by the
+ * content itself. Values must compare character by character, so that a prefix of the content ending at a character
+ * boundary is itself a valid value that sorts before every value it is a proper prefix of.
+ */
+public interface IKeyFieldPrefixer extends Serializable {
+    public int getHeaderLength();
+
+    public void writeHeader(byte[] bytes, int offset, int contentLength);
+
+    /**
+     * @return the number of bytes of the character of the content that starts at the given offset.
+     */
+    public int getCharLength(byte[] bytes, int offset);
+}
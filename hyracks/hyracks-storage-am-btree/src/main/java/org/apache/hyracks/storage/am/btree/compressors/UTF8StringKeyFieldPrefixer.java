@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.btree.compressors;
+
+import org.apache.hyracks.data.std.primitive.UTF8StringPointable;
+import org.apache.hyracks.storage.am.btree.api.IKeyFieldPrefixer;
+
+public class UTF8StringKeyFieldPrefixer implements IKeyFieldPrefixer {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final UTF8StringKeyFieldPrefixer INSTANCE = new UTF8StringKeyFieldPrefixer();
+
+    private UTF8StringKeyFieldPrefixer() {
+    }
+
+    @Override
+    public int getHeaderLength() {
+        return 2;
+    }
+
+    @Override
+    public void writeHeader(byte[] bytes, int offset, int contentLength) {
+        bytes[offset] = (byte) ((contentLength >>> 8) & 0xff);
+        bytes[offset + 1] = (byte) (contentLength & 0xff);
+    }
+
+    @Override
+    public int getCharLength(byte[] bytes, int offset) {
+        return UTF8StringPointable.charSize(bytes, offset);
+    }
+}
@@ -23,6 +23,7 @@ import org.apache.hyracks.api.context.IHyracksTaskContext;
 import org.apache.hyracks.api.exceptions.HyracksDataException;
 import org.apache.hyracks.storage.am.btree.exceptions.BTreeException;
 import org.apache.hyracks.storage.am.btree.frames.BTreeLeafFrameType;
+import org.apache.hyracks.storage.am.btree.impls.BTree;
 import org.apache.hyracks.storage.am.btree.util.BTreeUtils;
 import org.apache.hyracks.storage.am.common.api.ITreeIndex;
 import org.apache.hyracks.storage.am.common.dataflow.AbstractTreeIndexOperatorDescriptor;
@@ -31,18 +32,40 @@ import org.apache.hyracks.storage.am.common.dataflow.TreeIndexDataflowHelper;
 
 public class BTreeDataflowHelper extends TreeIndexDataflowHelper {
 
+    private boolean optimisticReads;
+    private boolean pipelinedBulkLoad;
+
     public BTreeDataflowHelper(IIndexOperatorDescriptor opDesc, IHyracksTaskContext ctx, int partition,
             boolean durable) {
         super(opDesc, ctx, partition, durable);
+        optimisticReads = false;
+        pipelinedBulkLoad = false;
+    }
+
+    /**
+     * @see BTreeDataflowHelperFactory#setOptimisticReads(boolean)
+     */
+    public void setOptimisticReads(boolean optimisticReads) {
+        this.optimisticReads = optimisticReads;
+    }
+
+    /**
+     * @see BTreeDataflowHelperFactory#setPipelinedBulkLoad(boolean)
+     */
+    public void setPipelinedBulkLoad(boolean pipelinedBulkLoad) {
+        this.pipelinedBulkLoad = pipelinedBulkLoad;
     }
 
     @Override
     public ITreeIndex createIndexInstance() throws HyracksDataException {
         AbstractTreeIndexOperatorDescriptor treeOpDesc = (AbstractTreeIndexOperatorDescriptor) opDesc;
         try {
-            return BTreeUtils.createBTree(opDesc.getStorageManager().getBufferCache(ctx), opDesc.getStorageManager()
-                    .getFileMapProvider(ctx), treeOpDesc.getTreeIndexTypeTraits(), treeOpDesc
+            BTree btree = BTreeUtils.createBTree(opDesc.getStorageManager().getBufferCache(ctx), opDesc
+                    .getStorageManager().getFileMapProvider(ctx), treeOpDesc.getTreeIndexTypeTraits(), treeOpDesc
                     .getTreeIndexComparatorFactories(), BTreeLeafFrameType.REGULAR_NSM, file);
+            btree.setOptimisticReads(optimisticReads);
+            btree.setPipelinedBulkLoad(pipelinedBulkLoad);
+            return btree;
         } catch (BTreeException e) {
             throw new HyracksDataException(e);
         }
@@ -20,6 +20,7 @@
 package org.apache.hyracks.storage.am.btree.dataflow;
 
 import org.apache.hyracks.api.context.IHyracksTaskContext;
+import org.apache.hyracks.storage.am.btree.impls.BTree;
 import org.apache.hyracks.storage.am.common.dataflow.IIndexDataflowHelperFactory;
 import org.apache.hyracks.storage.am.common.dataflow.IIndexOperatorDescriptor;
 import org.apache.hyracks.storage.am.common.dataflow.IndexDataflowHelper;
@@ -29,14 +30,37 @@ public class BTreeDataflowHelperFactory implements IIndexDataflowHelperFactory {
     private static final long serialVersionUID = 1L;
 
     private final boolean durable;
+    private boolean optimisticReads;
+    private boolean pipelinedBulkLoad;
 
     public BTreeDataflowHelperFactory(boolean durable) {
         this.durable = durable;
+        optimisticReads = false;
+        pipelinedBulkLoad = false;
+    }
+
+    /**
+     * Makes searches of the B-tree descend without latching the interior nodes, see
+     * {@link BTree#setOptimisticReads(boolean)}.
+     */
+    public void setOptimisticReads(boolean optimisticReads) {
+        this.optimisticReads = optimisticReads;
+    }
+
+    /**
+     * Makes bulk loads of the B-tree build the leaves and the interior levels on separate threads and write full pages
+     * in the background, see {@link BTree#setPipelinedBulkLoad(boolean)}.
+     */
+    public void setPipelinedBulkLoad(boolean pipelinedBulkLoad) {
+        this.pipelinedBulkLoad = pipelinedBulkLoad;
     }
 
     @Override
     public IndexDataflowHelper createIndexDataflowHelper(IIndexOperatorDescriptor opDesc, IHyracksTaskContext ctx,
             int partition) {
-        return new BTreeDataflowHelper(opDesc, ctx, partition, durable);
+        BTreeDataflowHelper helper = new BTreeDataflowHelper(opDesc, ctx, partition, durable);
+        helper.setOptimisticReads(optimisticReads);
+        helper.setPipelinedBulkLoad(pipelinedBulkLoad);
+        return helper;
     }
 }
@@ -46,6 +46,7 @@ public class BTreeSearchOperatorDescriptor extends AbstractTreeIndexOperatorDesc
     protected final boolean highKeyInclusive;
     private final int[] minFilterFieldIndexes;
     private final int[] maxFilterFieldIndexes;
+    private boolean batchPointSearches;
 
     public BTreeSearchOperatorDescriptor(IOperatorDescriptorRegistry spec, RecordDescriptor recDesc,
             IStorageManagerInterface storageManager, IIndexLifecycleManagerProvider lifecycleManagerProvider,
@@ -65,12 +66,27 @@ public class BTreeSearchOperatorDescriptor extends AbstractTreeIndexOperatorDesc
         this.highKeyInclusive = highKeyInclusive;
         this.minFilterFieldIndexes = minFilterFieldIndexes;
         this.maxFilterFieldIndexes = maxFilterFieldIndexes;
+        batchPointSearches = false;
+    }
+
+    /**
+     * Makes point searches, whose low and high keys are the same inclusive fields, be handed to the index one input
+     * frame at a time if the index supports batch searches. The index then visits the keys of a frame in ascending
+     * order, so the output of a frame is ordered by the search keys instead of by the input tuples. The results of
+     * each input tuple stay together, and input tuples with equal keys keep their relative order. Only enable this
+     * if the consumers do not depend on the input order, or if the input is sorted on the search keys already.
+     */
+    public void setBatchPointSearches(boolean batchPointSearches) {
+        this.batchPointSearches = batchPointSearches;
     }
 
     @Override
     public IOperatorNodePushable createPushRuntime(final IHyracksTaskContext ctx,
             IRecordDescriptorProvider recordDescProvider, int partition, int nPartitions) {
-        return new BTreeSearchOperatorNodePushable(this, ctx, partition, recordDescProvider, lowKeyFields,
-                highKeyFields, lowKeyInclusive, highKeyInclusive, minFilterFieldIndexes, maxFilterFieldIndexes);
+        BTreeSearchOperatorNodePushable op = new BTreeSearchOperatorNodePushable(this, ctx, partition,
+                recordDescProvider, lowKeyFields, highKeyFields, lowKeyInclusive, highKeyInclusive,
+                minFilterFieldIndexes, maxFilterFieldIndexes);
+        op.setBatchPointSearches(batchPointSearches);
+        return op;
     }
 }
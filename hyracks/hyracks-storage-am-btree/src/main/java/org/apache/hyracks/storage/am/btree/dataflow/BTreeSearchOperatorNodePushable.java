@@ -18,10 +18,17 @@
  */
 package org.apache.hyracks.storage.am.btree.dataflow;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
 import org.apache.hyracks.api.context.IHyracksTaskContext;
 import org.apache.hyracks.api.dataflow.value.IRecordDescriptorProvider;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.storage.am.btree.api.IBatchSearchAccessor;
+import org.apache.hyracks.storage.am.btree.api.IBatchSearchHandler;
 import org.apache.hyracks.storage.am.btree.impls.RangePredicate;
 import org.apache.hyracks.storage.am.btree.util.BTreeUtils;
+import org.apache.hyracks.storage.am.common.api.IIndexCursor;
 import org.apache.hyracks.storage.am.common.api.ISearchPredicate;
 import org.apache.hyracks.storage.am.common.api.ITreeIndex;
 import org.apache.hyracks.storage.am.common.dataflow.AbstractTreeIndexOperatorDescriptor;
@@ -38,6 +45,28 @@ public class BTreeSearchOperatorNodePushable extends IndexSearchOperatorNodePush
     protected MultiComparator lowKeySearchCmp;
     protected MultiComparator highKeySearchCmp;
 
+    // Point searches of a frame are handed to the index as one batch if enabled and the index supports it.
+    protected final int[] pointKeyFields;
+    protected boolean batchPointSearches = false;
+    protected PermutingFrameTupleReference[] batchKeys = new PermutingFrameTupleReference[0];
+    protected final IBatchSearchHandler batchSearchHandler = new IBatchSearchHandler() {
+        @Override
+        public void prepareSearch(int keyIndex) {
+            resetSearchPredicate(keyIndex);
+        }
+
+        @Override
+        public void writeResults(int keyIndex, IIndexCursor cursor) throws HyracksDataException {
+            try {
+                writeSearchResults(keyIndex);
+            } catch (HyracksDataException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new HyracksDataException(e);
+            }
+        }
+    };
+
     public BTreeSearchOperatorNodePushable(AbstractTreeIndexOperatorDescriptor opDesc, IHyracksTaskContext ctx,
             int partition, IRecordDescriptorProvider recordDescProvider, int[] lowKeyFields, int[] highKeyFields,
             boolean lowKeyInclusive, boolean highKeyInclusive, int[] minFilterFieldIndexes, int[] maxFilterFieldIndexes) {
@@ -52,6 +81,48 @@ public class BTreeSearchOperatorNodePushable extends IndexSearchOperatorNodePush
             highKey = new PermutingFrameTupleReference();
             highKey.setFieldPermutation(highKeyFields);
         }
+        if (lowKey != null && highKey != null && lowKeyInclusive && highKeyInclusive
+                && Arrays.equals(lowKeyFields, highKeyFields)) {
+            pointKeyFields = lowKeyFields;
+        } else {
+            pointKeyFields = null;
+        }
+    }
+
+    /**
+     * @see BTreeSearchOperatorDescriptor#setBatchPointSearches(boolean)
+     */
+    public void setBatchPointSearches(boolean batchPointSearches) {
+        this.batchPointSearches = batchPointSearches;
+    }
+
+    @Override
+    public void nextFrame(ByteBuffer buffer) throws HyracksDataException {
+        if (!batchPointSearches || pointKeyFields == null || !(indexAccessor instanceof IBatchSearchAccessor)) {
+            super.nextFrame(buffer);
+            return;
+        }
+        accessor.reset(buffer);
+        int tupleCount = accessor.getTupleCount();
+        if (batchKeys.length < tupleCount) {
+            int oldLength = batchKeys.length;
+            batchKeys = Arrays.copyOf(batchKeys, tupleCount);
+            for (int i = oldLength; i < tupleCount; i++) {
+                batchKeys[i] = new PermutingFrameTupleReference();
+                batchKeys[i].setFieldPermutation(pointKeyFields);
+            }
+        }
+        for (int i = 0; i < tupleCount; i++) {
+            batchKeys[i].reset(accessor, i);
+        }
+        try {
+            ((IBatchSearchAccessor) indexAccessor).searchBatch(cursor, (RangePredicate) searchPred, batchKeys,
+                    tupleCount, batchSearchHandler);
+        } catch (HyracksDataException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new HyracksDataException(e);
+        }
     }
 
     @Override
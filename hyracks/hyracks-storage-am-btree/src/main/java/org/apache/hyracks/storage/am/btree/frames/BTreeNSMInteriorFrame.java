@@ -426,7 +426,13 @@ public class BTreeNSMInteriorFrame extends TreeIndexNSMFrame implements IBTreeIn
         return tuple;
     }
 
+    @Override
+    public void truncateSplitKey(ISplitKey splitKey, ITupleReference rightTuple) {
+        // Separators are stored in full.
+    }
+
     // For debugging.
+    @Override
     public ArrayList<Integer> getChildren(MultiComparator cmp) {
         ArrayList<Integer> ret = new ArrayList<Integer>();
         frameTuple.setFieldCount(cmp.getKeyFieldCount());
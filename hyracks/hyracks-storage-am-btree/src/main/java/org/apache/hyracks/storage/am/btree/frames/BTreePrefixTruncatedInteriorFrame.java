@@ -0,0 +1,824 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.btree.frames;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.hyracks.api.dataflow.value.IBinaryComparator;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.data.std.primitive.IntegerPointable;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.storage.am.btree.api.IBTreeInteriorFrame;
+import org.apache.hyracks.storage.am.btree.api.IKeyFieldPrefixer;
+import org.apache.hyracks.storage.am.btree.impls.BTreeOpContext.PageValidationInfo;
+import org.apache.hyracks.storage.am.btree.impls.PrefixTruncatedTupleReference;
+import org.apache.hyracks.storage.am.btree.impls.RangePredicate;
+import org.apache.hyracks.storage.am.common.api.ISplitKey;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexFrame;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexTupleReference;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexTupleWriter;
+import org.apache.hyracks.storage.am.common.api.TreeIndexException;
+import org.apache.hyracks.storage.am.common.frames.FrameOpSpaceStatus;
+import org.apache.hyracks.storage.am.common.frames.TreeIndexNSMFrame;
+import org.apache.hyracks.storage.am.common.ophelpers.FindTupleMode;
+import org.apache.hyracks.storage.am.common.ophelpers.FindTupleNoExactMatchPolicy;
+import org.apache.hyracks.storage.am.common.ophelpers.MultiComparator;
+import org.apache.hyracks.storage.am.common.ophelpers.SlotOffTupleOff;
+
+/**
+ * Interior frame that keeps separators short in two ways.
+ * Separators produced by leaf splits and bulk loads are cut down to the shortest prefix that still separates the two
+ * siblings (see {@link #truncateSplitKey(ISplitKey, ITupleReference)}).
+ * The first key field of every separator is stored relative to a prefix kept once per page: the tuple holds the
+ * number of leading prefix bytes it shares, followed by the rest of its content.
+ * The page prefix is taken from the first separator written into an empty page and is recomputed for both halves on
+ * split. Key fields are described by {@link IKeyFieldPrefixer}s; fields without one are stored as in
+ * {@link BTreeNSMInteriorFrame}. The first key field, if it has a prefixer, must be of variable length.
+ */
+public class BTreePrefixTruncatedInteriorFrame extends TreeIndexNSMFrame implements IBTreeInteriorFrame {
+
+    private static final int rightLeafOff = smFlagOff + 1;
+    private static final int prefixLengthOff = rightLeafOff + 4;
+    private static final int prefixOff = prefixLengthOff + 4;
+    private static final int childPtrSize = 4;
+
+    public static final int SHARED_LENGTH_SIZE = 2;
+    private static final int MAX_SHARED_LENGTH = 0xffff;
+
+    private final IKeyFieldPrefixer[] keyFieldPrefixers;
+    private final IKeyFieldPrefixer prefixer;
+    private final ITreeIndexTupleReference cmpFrameTuple;
+    private final ITreeIndexTupleReference previousFt;
+    private final EncodedTuple encodedTuple = new EncodedTuple();
+    private final SeparatorTuple separatorTuple = new SeparatorTuple();
+
+    private byte[] separatorField = new byte[64];
+    private byte[] separatorBytes = new byte[64];
+
+    private MultiComparator cmp;
+
+    public BTreePrefixTruncatedInteriorFrame(ITreeIndexTupleWriter tupleWriter, IKeyFieldPrefixer[] keyFieldPrefixers) {
+        super(tupleWriter, new OrderedSlotManager());
+        this.keyFieldPrefixers = keyFieldPrefixers;
+        this.prefixer = keyFieldPrefixers.length > 0 ? keyFieldPrefixers[0] : null;
+        frameTuple = new PrefixTruncatedTupleReference(tupleWriter.createTupleReference(), prefixer);
+        cmpFrameTuple = new PrefixTruncatedTupleReference(tupleWriter.createTupleReference(), prefixer);
+        previousFt = new PrefixTruncatedTupleReference(tupleWriter.createTupleReference(), prefixer);
+    }
+
+    public static int getPrefixOff() {
+        return prefixOff;
+    }
+
+    public static int getSharedLength(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xff) << 8) | (bytes[offset + 1] & 0xff);
+    }
+
+    @Override
+    public int getBytesRequriedToWriteTuple(ITupleReference tuple) {
+        // The page prefix never makes a tuple larger, unless the shared length needs more room than the header.
+        int headerGrowth = prefixer == null ? 0 : Math.max(0, SHARED_LENGTH_SIZE - prefixer.getHeaderLength());
+        return tupleWriter.bytesRequired(tuple) + headerGrowth + childPtrSize + slotManager.getSlotSize();
+    }
+
+    @Override
+    public void initBuffer(byte level) {
+        buf.putInt(prefixLengthOff, 0);
+        super.initBuffer(level);
+        buf.putInt(rightLeafOff, -1);
+    }
+
+    @Override
+    public int getMaxTupleSize(int pageSize) {
+        return (pageSize - getPageHeaderSize() - getMaxPrefixLength(pageSize)) / 2;
+    }
+
+    private static int getMaxPrefixLength(int pageSize) {
+        return Math.min((pageSize - prefixOff) / 8, MAX_SHARED_LENGTH);
+    }
+
+    public int getPrefixLength() {
+        return buf.getInt(prefixLengthOff);
+    }
+
+    @Override
+    public int findInsertTupleIndex(ITupleReference tuple) throws TreeIndexException {
+        try {
+            return slotManager.findTupleIndex(tuple, frameTuple, cmp, FindTupleMode.INCLUSIVE,
+                    FindTupleNoExactMatchPolicy.HIGHER_KEY);
+        } catch (HyracksDataException e) {
+            throw new TreeIndexException(e);
+        }
+    }
+
+    @Override
+    public FrameOpSpaceStatus hasSpaceInsert(ITupleReference tuple) {
+        if (buf.getInt(tupleCountOff) == 0) {
+            // The page prefix is taken from this tuple.
+            return FrameOpSpaceStatus.SUFFICIENT_CONTIGUOUS_SPACE;
+        }
+        // Encoded tuple bytes + child pointer + slot.
+        int bytesRequired = getEncodedSize(tuple, buf.array(), prefixOff, getPrefixLength()) + childPtrSize
+                + slotManager.getSlotSize();
+        if (bytesRequired <= getFreeContiguousSpace()) {
+            return FrameOpSpaceStatus.SUFFICIENT_CONTIGUOUS_SPACE;
+        }
+        if (bytesRequired <= getTotalFreeSpace()) {
+            return FrameOpSpaceStatus.SUFFICIENT_SPACE;
+        }
+        return FrameOpSpaceStatus.INSUFFICIENT_SPACE;
+    }
+
+    @Override
+    public void insert(ITupleReference tuple, int tupleIndex) {
+        if (buf.getInt(tupleCountOff) == 0) {
+            resetPrefix(tuple);
+        }
+        int freeSpace = buf.getInt(freeSpaceOff);
+        int slotOff = slotManager.insertSlot(tupleIndex, freeSpace);
+        int bytesWritten = writeEncoded(tuple, freeSpace);
+        System.arraycopy(tuple.getFieldData(tuple.getFieldCount() - 1), getLeftChildPageOff(tuple), buf.array(),
+                freeSpace + bytesWritten, childPtrSize);
+        int tupleSize = bytesWritten + childPtrSize;
+        buf.putInt(tupleCountOff, buf.getInt(tupleCountOff) + 1);
+        buf.putInt(freeSpaceOff, buf.getInt(freeSpaceOff) + tupleSize);
+        buf.putInt(totalFreeSpaceOff, buf.getInt(totalFreeSpaceOff) - tupleSize - slotManager.getSlotSize());
+        // Did we insert into the rightmost slot?
+        if (slotOff == slotManager.getSlotEndOff()) {
+            System.arraycopy(tuple.getFieldData(tuple.getFieldCount() - 1), getLeftChildPageOff(tuple) + childPtrSize,
+                    buf.array(), rightLeafOff, childPtrSize);
+        } else if (buf.getInt(tupleCountOff) > 1) {
+            // Update the child pointer of the right (slot-)neighbor.
+            int rightNeighborOff = slotOff - slotManager.getSlotSize();
+            frameTuple.resetByTupleOffset(buf, slotManager.getTupleOff(rightNeighborOff));
+            System.arraycopy(tuple.getFieldData(tuple.getFieldCount() - 1), getLeftChildPageOff(tuple) + childPtrSize,
+                    buf.array(), getLeftChildPageOff(frameTuple), childPtrSize);
+        }
+    }
+
+    @Override
+    public int findDeleteTupleIndex(ITupleReference tuple) throws TreeIndexException {
+        try {
+            return slotManager.findTupleIndex(tuple, frameTuple, cmp, FindTupleMode.INCLUSIVE,
+                    FindTupleNoExactMatchPolicy.HIGHER_KEY);
+        } catch (HyracksDataException e) {
+            throw new TreeIndexException(e);
+        }
+    }
+
+    @Override
+    public void delete(ITupleReference tuple, int tupleIndex) {
+        int slotOff = slotManager.getSlotOff(tupleIndex);
+        int tupleOff;
+        int keySize;
+        if (tupleIndex == slotManager.getGreatestKeyIndicator()) {
+            tupleOff = slotManager.getTupleOff(slotManager.getSlotEndOff());
+            frameTuple.resetByTupleOffset(buf, tupleOff);
+            keySize = frameTuple.getTupleSize();
+            // Copy new rightmost pointer.
+            System.arraycopy(buf.array(), tupleOff + keySize, buf.array(), rightLeafOff, childPtrSize);
+        } else {
+            tupleOff = slotManager.getTupleOff(slotOff);
+            frameTuple.resetByTupleOffset(buf, tupleOff);
+            keySize = frameTuple.getTupleSize();
+            // Perform deletion (we just do a memcpy to overwrite the slot).
+            int slotStartOff = slotManager.getSlotEndOff();
+            int length = slotOff - slotStartOff;
+            System.arraycopy(buf.array(), slotStartOff, buf.array(), slotStartOff + slotManager.getSlotSize(), length);
+        }
+        // Maintain space information.
+        buf.putInt(tupleCountOff, buf.getInt(tupleCountOff) - 1);
+        buf.putInt(totalFreeSpaceOff,
+                buf.getInt(totalFreeSpaceOff) + keySize + childPtrSize + slotManager.getSlotSize());
+    }
+
+    @Override
+    public void deleteGreatest() {
+        int slotOff = slotManager.getSlotEndOff();
+        int tupleOff = slotManager.getTupleOff(slotOff);
+        frameTuple.resetByTupleOffset(buf, tupleOff);
+        int keySize = frameTuple.getTupleSize();
+        System.arraycopy(buf.array(), tupleOff + keySize, buf.array(), rightLeafOff, childPtrSize);
+        // Maintain space information.
+        buf.putInt(tupleCountOff, buf.getInt(tupleCountOff) - 1);
+        buf.putInt(totalFreeSpaceOff,
+                buf.getInt(totalFreeSpaceOff) + keySize + childPtrSize + slotManager.getSlotSize());
+        int freeSpace = buf.getInt(freeSpaceOff);
+        if (freeSpace == tupleOff + keySize + childPtrSize) {
+            buf.putInt(freeSpaceOff, freeSpace - (keySize + childPtrSize));
+        }
+    }
+
+    @Override
+    public FrameOpSpaceStatus hasSpaceUpdate(ITupleReference tuple, int oldTupleIndex) {
+        throw new UnsupportedOperationException("Cannot update tuples in interior node.");
+    }
+
+    @Override
+    public void insertSorted(ITupleReference tuple) {
+        if (buf.getInt(tupleCountOff) == 0) {
+            resetPrefix(tuple);
+        }
+        byte[] childPtrs = tuple.getFieldData(tuple.getFieldCount() - 1);
+        int childPtrOff = getLeftChildPageOff(tuple);
+        appendTuple(tuple, IntegerPointable.getInteger(childPtrs, childPtrOff));
+        buf.putInt(rightLeafOff, IntegerPointable.getInteger(childPtrs, childPtrOff + childPtrSize));
+    }
+
+    @Override
+    public void split(ITreeIndexFrame rightFrame, ITupleReference tuple, ISplitKey splitKey)
+            throws HyracksDataException {
+        // Separators cannot be moved between pages as they are, because their encoding depends on the page prefix.
+        // Instead, we decode all of them (including the new one) and rebuild both pages, each with its own prefix.
+        int tupleCount = getTupleCount();
+        int insertIndex;
+        try {
+            insertIndex = findInsertTupleIndex(tuple);
+        } catch (TreeIndexException e) {
+            throw new HyracksDataException(e);
+        }
+        if (insertIndex == slotManager.getGreatestKeyIndicator()) {
+            insertIndex = tupleCount;
+        }
+        int numEntries = tupleCount + 1;
+        ByteBuffer[] entries = new ByteBuffer[numEntries];
+        int[] leftChildren = new int[numEntries];
+        int rightmostChild = buf.getInt(rightLeafOff);
+        byte[] childPtrs = tuple.getFieldData(tuple.getFieldCount() - 1);
+        int childPtrOff = getLeftChildPageOff(tuple);
+        for (int i = 0, j = 0; i < numEntries; i++) {
+            if (i == insertIndex) {
+                entries[i] = copyTuple(tuple);
+                leftChildren[i] = IntegerPointable.getInteger(childPtrs, childPtrOff);
+            } else {
+                frameTuple.resetByTupleIndex(this, j++);
+                entries[i] = copyTuple(frameTuple);
+                leftChildren[i] = buf.getInt(getLeftChildPageOff(frameTuple));
+            }
+        }
+        // The right neighbor of the new separator now points to the new page.
+        int newRightChild = IntegerPointable.getInteger(childPtrs, childPtrOff + childPtrSize);
+        if (insertIndex == tupleCount) {
+            rightmostChild = newRightChild;
+        } else {
+            leftChildren[insertIndex + 1] = newRightChild;
+        }
+
+        ITreeIndexTupleReference entryTuple = createEntryTuple();
+        byte[] oldPrefix = Arrays.copyOfRange(buf.array(), prefixOff, prefixOff + getPrefixLength());
+
+        // Find split point. Sizes are measured with the current prefix, under which all entries fit into one page.
+        int tuplesToLeft;
+        if (insertIndex == tupleCount) {
+            // This is a special optimization case when the tuple to be inserted is the largest key on the page.
+            tuplesToLeft = tupleCount;
+        } else {
+            int halfPageSize = getMaxTupleSize(buf.capacity());
+            int totalSize = 0;
+            tuplesToLeft = 0;
+            while (tuplesToLeft < numEntries - 1 && totalSize < halfPageSize) {
+                entryTuple.resetByTupleOffset(entries[tuplesToLeft++], 0);
+                totalSize += getEncodedSize(entryTuple, oldPrefix, 0, oldPrefix.length) + childPtrSize
+                        + slotManager.getSlotSize();
+            }
+        }
+
+        // The greatest separator of the left page moves up, and its child becomes the rightmost child of the left page.
+        int promotedIndex = tuplesToLeft - 1;
+        byte level = getLevel();
+        long pageLsn = getPageLsn();
+        boolean smFlag = getSmFlag();
+        BTreePrefixTruncatedInteriorFrame right = (BTreePrefixTruncatedInteriorFrame) rightFrame;
+        right.rebuild(level, pageLsn, smFlag, choosePrefix(entryTuple, entries, tuplesToLeft, numEntries, oldPrefix),
+                entryTuple, entries, leftChildren, tuplesToLeft, numEntries, rightmostChild);
+        rebuild(level, pageLsn, smFlag, choosePrefix(entryTuple, entries, 0, promotedIndex, oldPrefix), entryTuple,
+                entries, leftChildren, 0, promotedIndex, leftChildren[promotedIndex]);
+
+        // Set split key to be the promoted separator.
+        ByteBuffer promoted = entries[promotedIndex];
+        splitKey.initData(promoted.capacity());
+        System.arraycopy(promoted.array(), 0, splitKey.getBuffer().array(), 0, promoted.capacity());
+        splitKey.getTuple().resetByTupleOffset(splitKey.getBuffer(), 0);
+    }
+
+    private ITreeIndexTupleReference createEntryTuple() {
+        ITreeIndexTupleReference entryTuple = tupleWriter.createTupleReference();
+        entryTuple.setFieldCount(cmp.getKeyFieldCount());
+        return entryTuple;
+    }
+
+    private ByteBuffer copyTuple(ITupleReference tuple) {
+        int keyFieldCount = cmp.getKeyFieldCount();
+        byte[] bytes = new byte[tupleWriter.bytesRequired(tuple, 0, keyFieldCount)];
+        tupleWriter.writeTupleFields(tuple, 0, keyFieldCount, bytes, 0);
+        return ByteBuffer.wrap(bytes);
+    }
+
+    /**
+     * Picks the prefix that takes the least space for the given entries: either the current page prefix or the
+     * longest prefix shared by the first and last of them.
+     */
+    private byte[] choosePrefix(ITreeIndexTupleReference entryTuple, ByteBuffer[] entries, int from, int to,
+            byte[] oldPrefix) {
+        if (prefixer == null || from >= to) {
+            return oldPrefix;
+        }
+        int headerLength = prefixer.getHeaderLength();
+        entryTuple.resetByTupleOffset(entries[from], 0);
+        byte[] first = entryTuple.getFieldData(0);
+        int firstStart = entryTuple.getFieldStart(0) + headerLength;
+        int firstLength = entryTuple.getFieldLength(0) - headerLength;
+        entryTuple.resetByTupleOffset(entries[to - 1], 0);
+        int sharedLength = getSharedLength(entryTuple, first, firstStart,
+                Math.min(firstLength, getMaxPrefixLength(buf.capacity())));
+        byte[] newPrefix = Arrays.copyOfRange(first, firstStart, firstStart + sharedLength);
+        int oldSize = oldPrefix.length;
+        int newSize = newPrefix.length;
+        for (int i = from; i < to; i++) {
+            entryTuple.resetByTupleOffset(entries[i], 0);
+            oldSize += getEncodedSize(entryTuple, oldPrefix, 0, oldPrefix.length);
+            newSize += getEncodedSize(entryTuple, newPrefix, 0, newPrefix.length);
+        }
+        return newSize < oldSize ? newPrefix : oldPrefix;
+    }
+
+    private void rebuild(byte level, long pageLsn, boolean smFlag, byte[] prefix, ITreeIndexTupleReference entryTuple,
+            ByteBuffer[] entries, int[] leftChildren, int from, int to, int rightmostChild) {
+        initBuffer(level);
+        setPageLsn(pageLsn);
+        setSmFlag(smFlag);
+        setPrefix(prefix, 0, prefix.length);
+        for (int i = from; i < to; i++) {
+            entryTuple.resetByTupleOffset(entries[i], 0);
+            appendTuple(entryTuple, leftChildren[i]);
+        }
+        buf.putInt(rightLeafOff, rightmostChild);
+    }
+
+    private void appendTuple(ITupleReference tuple, int leftChildPageId) {
+        int freeSpace = buf.getInt(freeSpaceOff);
+        slotManager.insertSlot(slotManager.getGreatestKeyIndicator(), freeSpace);
+        int bytesWritten = writeEncoded(tuple, freeSpace);
+        buf.putInt(freeSpace + bytesWritten, leftChildPageId);
+        int tupleSize = bytesWritten + childPtrSize;
+        buf.putInt(tupleCountOff, buf.getInt(tupleCountOff) + 1);
+        buf.putInt(freeSpaceOff, buf.getInt(freeSpaceOff) + tupleSize);
+        buf.putInt(totalFreeSpaceOff, buf.getInt(totalFreeSpaceOff) - tupleSize - slotManager.getSlotSize());
+    }
+
+    /**
+     * Takes the page prefix from the first key field of the given tuple. Only valid on a page without tuples.
+     */
+    private void resetPrefix(ITupleReference tuple) {
+        if (prefixer == null) {
+            setPrefix(null, 0, 0);
+            return;
+        }
+        int headerLength = prefixer.getHeaderLength();
+        int contentLength = Math.min(tuple.getFieldLength(0) - headerLength, getMaxPrefixLength(buf.capacity()));
+        setPrefix(tuple.getFieldData(0), tuple.getFieldStart(0) + headerLength, contentLength);
+    }
+
+    private void setPrefix(byte[] prefix, int start, int length) {
+        buf.putInt(prefixLengthOff, length);
+        if (length > 0) {
+            System.arraycopy(prefix, start, buf.array(), prefixOff, length);
+        }
+        resetSpaceParams();
+    }
+
+    private int getSharedLength(ITupleReference tuple, byte[] prefix, int prefixStart, int prefixLength) {
+        if (prefixer == null) {
+            return 0;
+        }
+        int headerLength = prefixer.getHeaderLength();
+        byte[] data = tuple.getFieldData(0);
+        int contentStart = tuple.getFieldStart(0) + headerLength;
+        int length = Math.min(prefixLength, tuple.getFieldLength(0) - headerLength);
+        int shared = 0;
+        while (shared < length && data[contentStart + shared] == prefix[prefixStart + shared]) {
+            shared++;
+        }
+        return shared;
+    }
+
+    private ITupleReference encode(ITupleReference tuple, byte[] prefix, int prefixStart, int prefixLength) {
+        if (prefixer == null) {
+            return tuple;
+        }
+        encodedTuple.reset(tuple, getSharedLength(tuple, prefix, prefixStart, prefixLength));
+        return encodedTuple;
+    }
+
+    private int getEncodedSize(ITupleReference tuple, byte[] prefix, int prefixStart, int prefixLength) {
+        ITupleReference encoded = encode(tuple, prefix, prefixStart, prefixLength);
+        return tupleWriter.bytesRequired(encoded, 0, cmp.getKeyFieldCount());
+    }
+
+    private int writeEncoded(ITupleReference tuple, int off) {
+        ITupleReference encoded = encode(tuple, buf.array(), prefixOff, getPrefixLength());
+        return tupleWriter.writeTupleFields(encoded, 0, cmp.getKeyFieldCount(), buf.array(), off);
+    }
+
+    @Override
+    public boolean compact() {
+        resetSpaceParams();
+        int tupleCount = buf.getInt(tupleCountOff);
+        int freeSpace = buf.getInt(freeSpaceOff);
+        // Sort the slots by the tuple offset they point to.
+        ArrayList<SlotOffTupleOff> sortedTupleOffs = new ArrayList<SlotOffTupleOff>();
+        sortedTupleOffs.ensureCapacity(tupleCount);
+        for (int i = 0; i < tupleCount; i++) {
+            int slotOff = slotManager.getSlotOff(i);
+            int tupleOff = slotManager.getTupleOff(slotOff);
+            sortedTupleOffs.add(new SlotOffTupleOff(i, slotOff, tupleOff));
+        }
+        Collections.sort(sortedTupleOffs);
+        // Iterate over the sorted slots, and move their corresponding tuples to
+        // the left, reclaiming free space.
+        for (int i = 0; i < sortedTupleOffs.size(); i++) {
+            int tupleOff = sortedTupleOffs.get(i).tupleOff;
+            frameTuple.resetByTupleOffset(buf, tupleOff);
+            int tupleLength = getLeftChildPageOff(frameTuple) - tupleOff + childPtrSize;
+            System.arraycopy(buf.array(), tupleOff, buf.array(), freeSpace, tupleLength);
+            slotManager.setSlot(sortedTupleOffs.get(i).slotOff, freeSpace);
+            freeSpace += tupleLength;
+        }
+        // Update contiguous free space pointer and total free space indicator.
+        buf.putInt(freeSpaceOff, freeSpace);
+        buf.putInt(totalFreeSpaceOff, buf.capacity() - freeSpace - tupleCount * slotManager.getSlotSize());
+        return false;
+    }
+
+    @Override
+    public int getChildPageId(RangePredicate pred) throws HyracksDataException {
+        // Trivial case where there is only a child pointer (and no key).
+        if (buf.getInt(tupleCountOff) == 0) {
+            return buf.getInt(rightLeafOff);
+        }
+        // Trivial cases where no low key or high key was given (e.g. during an
+        // index scan).
+        ITupleReference tuple = null;
+        FindTupleMode fsm = null;
+        // The target comparator may be on a prefix of the BTree key fields.
+        MultiComparator targetCmp = pred.getLowKeyComparator();
+        tuple = pred.getLowKey();
+        if (tuple == null) {
+            return getLeftmostChildPageId();
+        }
+        if (pred.isLowKeyInclusive()) {
+            fsm = FindTupleMode.INCLUSIVE;
+        } else {
+            fsm = FindTupleMode.EXCLUSIVE;
+        }
+        // Search for a matching key.
+        int tupleIndex = slotManager.findTupleIndex(tuple, frameTuple, targetCmp, fsm,
+                FindTupleNoExactMatchPolicy.HIGHER_KEY);
+        int slotOff = slotManager.getSlotOff(tupleIndex);
+        // Follow the rightmost (greatest) child pointer.
+        if (tupleIndex == slotManager.getGreatestKeyIndicator()) {
+            return buf.getInt(rightLeafOff);
+        }
+        // Deal with prefix searches.
+        // slotManager.findTupleIndex() will return an arbitrary tuple matching
+        // the given field prefix (according to the target comparator).
+        // To make sure we traverse the right path, we must find the
+        // leftmost or rightmost tuple that matches the prefix.
+        int origTupleOff = slotManager.getTupleOff(slotOff);
+        cmpFrameTuple.resetByTupleOffset(buf, origTupleOff);
+        int cmpTupleOff = origTupleOff;
+        // The answer set begins with the lowest key matching the prefix.
+        // We must follow the child pointer of the lowest (leftmost) key
+        // matching the given prefix.
+        int maxSlotOff = buf.capacity();
+        slotOff += slotManager.getSlotSize();
+        while (slotOff < maxSlotOff) {
+            cmpTupleOff = slotManager.getTupleOff(slotOff);
+            frameTuple.resetByTupleOffset(buf, cmpTupleOff);
+            if (targetCmp.compare(cmpFrameTuple, frameTuple) != 0) {
+                break;
+            }
+            slotOff += slotManager.getSlotSize();
+        }
+        slotOff -= slotManager.getSlotSize();
+        frameTuple.resetByTupleOffset(buf, slotManager.getTupleOff(slotOff));
+        int childPageOff = getLeftChildPageOff(frameTuple);
+
+        return buf.getInt(childPageOff);
+    }
+
+    @Override
+    protected void resetSpaceParams() {
+        int dataStartOff = prefixOff + buf.getInt(prefixLengthOff);
+        buf.putInt(freeSpaceOff, dataStartOff);
+        buf.putInt(totalFreeSpaceOff, buf.capacity() - dataStartOff);
+    }
+
+    @Override
+    public int getLeftmostChildPageId() {
+        int tupleOff = slotManager.getTupleOff(slotManager.getSlotStartOff());
+        frameTuple.resetByTupleOffset(buf, tupleOff);
+        int childPageOff = getLeftChildPageOff(frameTuple);
+        return buf.getInt(childPageOff);
+    }
+
+    @Override
+    public int getRightmostChildPageId() {
+        return buf.getInt(rightLeafOff);
+    }
+
+    @Override
+    public void setRightmostChildPageId(int pageId) {
+        buf.putInt(rightLeafOff, pageId);
+    }
+
+    @Override
+    public int getPageHeaderSize() {
+        return prefixOff;
+    }
+
+    private int getLeftChildPageOff(ITupleReference tuple) {
+        if (tuple instanceof PrefixTruncatedTupleReference) {
+            // The first field of a page tuple is decoded elsewhere, so ask for the end of the stored tuple.
+            return ((PrefixTruncatedTupleReference) tuple).getTupleEndOff();
+        }
+        return tuple.getFieldStart(tuple.getFieldCount() - 1) + tuple.getFieldLength(tuple.getFieldCount() - 1);
+    }
+
+    @Override
+    public void truncateSplitKey(ISplitKey splitKey, ITupleReference rightTuple) throws HyracksDataException {
+        ITupleReference leftTuple = splitKey.getTuple();
+        IBinaryComparator[] cmps = cmp.getComparators();
+        int keyFieldCount = cmp.getKeyFieldCount();
+        for (int i = 0; i < keyFieldCount; i++) {
+            int c = cmps[i].compare(leftTuple.getFieldData(i), leftTuple.getFieldStart(i),
+                    leftTuple.getFieldLength(i), rightTuple.getFieldData(i), rightTuple.getFieldStart(i),
+                    rightTuple.getFieldLength(i));
+            if (c == 0) {
+                continue;
+            }
+            // Only the first distinguishing field can be shortened.
+            if (i < keyFieldPrefixers.length && keyFieldPrefixers[i] != null) {
+                int separatorFieldLength = truncateField(i, leftTuple, rightTuple);
+                if (separatorFieldLength >= 0) {
+                    writeSeparator(splitKey, leftTuple, rightTuple, i, separatorFieldLength);
+                }
+            }
+            return;
+        }
+    }
+
+    /**
+     * Writes the shortest prefix of the given field of rightTuple that sorts after the field of leftTuple into
+     * separatorField.
+     *
+     * @return the length of the separator field, or -1 if only the full value of rightTuple would separate the two.
+     */
+    private int truncateField(int fieldIndex, ITupleReference leftTuple, ITupleReference rightTuple)
+            throws HyracksDataException {
+        IKeyFieldPrefixer fieldPrefixer = keyFieldPrefixers[fieldIndex];
+        IBinaryComparator fieldCmp = cmp.getComparators()[fieldIndex];
+        int headerLength = fieldPrefixer.getHeaderLength();
+        byte[] leftData = leftTuple.getFieldData(fieldIndex);
+        int leftStart = leftTuple.getFieldStart(fieldIndex);
+        int leftLength = leftTuple.getFieldLength(fieldIndex);
+        byte[] rightData = rightTuple.getFieldData(fieldIndex);
+        int rightContentStart = rightTuple.getFieldStart(fieldIndex) + headerLength;
+        int rightContentLength = rightTuple.getFieldLength(fieldIndex) - headerLength;
+
+        // Characters shared with the left value cannot tell the two apart, so skip past them.
+        int commonLength = Math.min(leftLength - headerLength, rightContentLength);
+        int common = 0;
+        while (common < commonLength && leftData[leftStart + headerLength + common] == rightData[rightContentStart
+                + common]) {
+            common++;
+        }
+        int end = 0;
+        while (end < rightContentLength) {
+            int charLength = fieldPrefixer.getCharLength(rightData, rightContentStart + end);
+            if (end + charLength > common) {
+                break;
+            }
+            end += charLength;
+        }
+        while (end < rightContentLength) {
+            end += fieldPrefixer.getCharLength(rightData, rightContentStart + end);
+            if (end >= rightContentLength) {
+                break;
+            }
+            int separatorFieldLength = headerLength + end;
+            if (separatorField.length < separatorFieldLength) {
+                separatorField = new byte[Math.max(separatorFieldLength, separatorField.length * 2)];
+            }
+            fieldPrefixer.writeHeader(separatorField, 0, end);
+            System.arraycopy(rightData, rightContentStart, separatorField, headerLength, end);
+            if (fieldCmp.compare(separatorField, 0, separatorFieldLength, leftData, leftStart, leftLength) > 0) {
+                return separatorFieldLength;
+            }
+        }
+        return -1;
+    }
+
+    private void writeSeparator(ISplitKey splitKey, ITupleReference leftTuple, ITupleReference rightTuple,
+            int fieldIndex, int separatorFieldLength) {
+        int keyFieldCount = cmp.getKeyFieldCount();
+        for (int i = 0; i < keyFieldCount; i++) {
+            if (i == fieldIndex) {
+                separatorTuple.setField(i, separatorField, 0, separatorFieldLength);
+            } else if (i > fieldIndex && rightTuple.getFieldLength(i) < leftTuple.getFieldLength(i)) {
+                // Fields after the distinguishing one can hold any value, so take the shorter one.
+                separatorTuple.setField(i, rightTuple.getFieldData(i), rightTuple.getFieldStart(i),
+                        rightTuple.getFieldLength(i));
+            } else {
+                separatorTuple.setField(i, leftTuple.getFieldData(i), leftTuple.getFieldStart(i),
+                        leftTuple.getFieldLength(i));
+            }
+        }
+        int separatorSize = tupleWriter.bytesRequired(separatorTuple, 0, keyFieldCount);
+        if (separatorSize >= tupleWriter.bytesRequired(leftTuple, 0, keyFieldCount)) {
+            return;
+        }
+        // The separator may refer to the bytes of the split key, so write it aside before replacing them.
+        if (separatorBytes.length < separatorSize) {
+            separatorBytes = new byte[Math.max(separatorSize, separatorBytes.length * 2)];
+        }
+        tupleWriter.writeTupleFields(separatorTuple, 0, keyFieldCount, separatorBytes, 0);
+        splitKey.initData(separatorSize);
+        System.arraycopy(separatorBytes, 0, splitKey.getBuffer().array(), 0, separatorSize);
+        splitKey.getTuple().resetByTupleOffset(splitKey.getBuffer(), 0);
+    }
+
+    @Override
+    public boolean getSmFlag() {
+        return buf.get(smFlagOff) != 0;
+    }
+
+    @Override
+    public void setSmFlag(boolean smFlag) {
+        if (smFlag) {
+            buf.put(smFlagOff, (byte) 1);
+        } else {
+            buf.put(smFlagOff, (byte) 0);
+        }
+    }
+
+    @Override
+    public void setMultiComparator(MultiComparator cmp) {
+        this.cmp = cmp;
+        cmpFrameTuple.setFieldCount(cmp.getKeyFieldCount());
+        frameTuple.setFieldCount(cmp.getKeyFieldCount());
+        previousFt.setFieldCount(cmp.getKeyFieldCount());
+        separatorTuple.setFieldCount(cmp.getKeyFieldCount());
+    }
+
+    @Override
+    public ITreeIndexTupleReference createTupleReference() {
+        ITreeIndexTupleReference tuple = new PrefixTruncatedTupleReference(tupleWriter.createTupleReference(),
+                prefixer);
+        tuple.setFieldCount(cmp.getKeyFieldCount());
+        return tuple;
+    }
+
+    // For debugging.
+    @Override
+    public ArrayList<Integer> getChildren(MultiComparator cmp) {
+        ArrayList<Integer> ret = new ArrayList<Integer>();
+        frameTuple.setFieldCount(cmp.getKeyFieldCount());
+        int tupleCount = buf.getInt(tupleCountOff);
+        for (int i = 0; i < tupleCount; i++) {
+            int tupleOff = slotManager.getTupleOff(slotManager.getSlotOff(i));
+            frameTuple.resetByTupleOffset(buf, tupleOff);
+            ret.add(buf.getInt(getLeftChildPageOff(frameTuple)));
+        }
+        if (!isLeaf()) {
+            int rightLeaf = buf.getInt(rightLeafOff);
+            if (rightLeaf > 0)
+                ret.add(buf.getInt(rightLeafOff));
+        }
+        return ret;
+    }
+
+    public void validate(PageValidationInfo pvi) throws HyracksDataException {
+        int tupleCount = getTupleCount();
+        for (int i = 0; i < tupleCount; i++) {
+            frameTuple.resetByTupleIndex(this, i);
+            if (!pvi.isLowRangeNull) {
+                assert cmp.compare(pvi.lowRangeTuple, frameTuple) < 0;
+            }
+
+            if (!pvi.isHighRangeNull) {
+                assert cmp.compare(pvi.highRangeTuple, frameTuple) >= 0;
+            }
+
+            if (i > 0) {
+                previousFt.resetByTupleIndex(this, i - 1);
+                assert cmp.compare(previousFt, frameTuple) < 0;
+            }
+        }
+    }
+
+    /**
+     * The first field of a tuple as it is stored in the page: the shared length followed by the remaining content.
+     */
+    private class EncodedTuple implements ITupleReference {
+        private ITupleReference tuple;
+        private int sharedLength;
+        private byte[] field = new byte[64];
+
+        public void reset(ITupleReference tuple, int sharedLength) {
+            this.tuple = tuple;
+            this.sharedLength = sharedLength;
+        }
+
+        @Override
+        public int getFieldCount() {
+            return tuple.getFieldCount();
+        }
+
+        @Override
+        public byte[] getFieldData(int fIdx) {
+            if (fIdx != 0) {
+                return tuple.getFieldData(fIdx);
+            }
+            int suffixLength = getFieldLength(0) - SHARED_LENGTH_SIZE;
+            if (field.length < SHARED_LENGTH_SIZE + suffixLength) {
+                field = new byte[Math.max(SHARED_LENGTH_SIZE + suffixLength, field.length * 2)];
+            }
+            field[0] = (byte) ((sharedLength >>> 8) & 0xff);
+            field[1] = (byte) (sharedLength & 0xff);
+            System.arraycopy(tuple.getFieldData(0), tuple.getFieldStart(0) + prefixer.getHeaderLength()
+                    + sharedLength, field, SHARED_LENGTH_SIZE, suffixLength);
+            return field;
+        }
+
+        @Override
+        public int getFieldStart(int fIdx) {
+            return fIdx == 0 ? 0 : tuple.getFieldStart(fIdx);
+        }
+
+        @Override
+        public int getFieldLength(int fIdx) {
+            if (fIdx != 0) {
+                return tuple.getFieldLength(fIdx);
+            }
+            return SHARED_LENGTH_SIZE + tuple.getFieldLength(0) - prefixer.getHeaderLength() - sharedLength;
+        }
+    }
+
+    private static class SeparatorTuple implements ITupleReference {
+        private byte[][] fieldData = new byte[0][];
+        private int[] fieldStarts = new int[0];
+        private int[] fieldLengths = new int[0];
+
+        public void setFieldCount(int fieldCount) {
+            fieldData = new byte[fieldCount][];
+            fieldStarts = new int[fieldCount];
+            fieldLengths = new int[fieldCount];
+        }
+
+        public void setField(int fIdx, byte[] data, int start, int length) {
+            fieldData[fIdx] = data;
+            fieldStarts[fIdx] = start;
+            fieldLengths[fIdx] = length;
+        }
+
+        @Override
+        public int getFieldCount() {
+            return fieldData.length;
+        }
+
+        @Override
+        public byte[] getFieldData(int fIdx) {
+            return fieldData[fIdx];
+        }
+
+        @Override
+        public int getFieldStart(int fIdx) {
+            return fieldStarts[fIdx];
+        }
+
+        @Override
+        public int getFieldLength(int fIdx) {
+            return fieldLengths[fIdx];
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.btree.frames;
+
+import org.apache.hyracks.storage.am.btree.api.IBTreeInteriorFrame;
+import org.apache.hyracks.storage.am.btree.api.IKeyFieldPrefixer;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexFrameFactory;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexTupleWriterFactory;
+
+public class BTreePrefixTruncatedInteriorFrameFactory implements ITreeIndexFrameFactory {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ITreeIndexTupleWriterFactory tupleWriterFactory;
+    private final IKeyFieldPrefixer[] keyFieldPrefixers;
+
+    /**
+     * @param keyFieldPrefixers
+     *            one entry per key field, null for fields that cannot be shortened.
+     */
+    public BTreePrefixTruncatedInteriorFrameFactory(ITreeIndexTupleWriterFactory tupleWriterFactory,
+            IKeyFieldPrefixer[] keyFieldPrefixers) {
+        this.tupleWriterFactory = tupleWriterFactory;
+        this.keyFieldPrefixers = keyFieldPrefixers;
+    }
+
+    @Override
+    public IBTreeInteriorFrame createFrame() {
+        return new BTreePrefixTruncatedInteriorFrame(tupleWriterFactory.createTupleWriter(), keyFieldPrefixers);
+    }
+
+    @Override
+    public ITreeIndexTupleWriterFactory getTupleWriterFactory() {
+        return tupleWriterFactory;
+    }
+}
@@ -19,8 +19,16 @@
 
 package org.apache.hyracks.storage.am.btree.impls;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -29,18 +37,24 @@ import org.apache.hyracks.api.dataflow.value.IBinaryComparatorFactory;
 import org.apache.hyracks.api.dataflow.value.ISerializerDeserializer;
 import org.apache.hyracks.api.exceptions.HyracksDataException;
 import org.apache.hyracks.api.io.FileReference;
+import org.apache.hyracks.api.util.TaskGroup;
 import org.apache.hyracks.data.std.primitive.IntegerPointable;
+import org.apache.hyracks.dataflow.common.comm.io.ArrayTupleBuilder;
+import org.apache.hyracks.dataflow.common.comm.io.ArrayTupleReference;
 import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
 import org.apache.hyracks.dataflow.common.data.marshalling.IntegerSerializerDeserializer;
 import org.apache.hyracks.dataflow.common.util.TupleUtils;
 import org.apache.hyracks.storage.am.btree.api.IBTreeFrame;
+import org.apache.hyracks.storage.am.btree.api.IBatchSearchAccessor;
+import org.apache.hyracks.storage.am.btree.api.IBatchSearchHandler;
+import org.apache.hyracks.storage.am.btree.api.IConditionalUpsertAccessor;
 import org.apache.hyracks.storage.am.btree.api.IBTreeInteriorFrame;
 import org.apache.hyracks.storage.am.btree.api.IBTreeLeafFrame;
 import org.apache.hyracks.storage.am.btree.api.ITupleAcceptor;
 import org.apache.hyracks.storage.am.btree.exceptions.BTreeException;
 import org.apache.hyracks.storage.am.btree.exceptions.BTreeNotUpdateableException;
-import org.apache.hyracks.storage.am.btree.frames.BTreeNSMInteriorFrame;
 import org.apache.hyracks.storage.am.btree.impls.BTreeOpContext.PageValidationInfo;
+import org.apache.hyracks.storage.am.btree.util.BTreeUtils;
 import org.apache.hyracks.storage.am.common.api.IFreePageManager;
 import org.apache.hyracks.storage.am.common.api.IIndexAccessor;
 import org.apache.hyracks.storage.am.common.api.IIndexBulkLoader;
@@ -53,7 +67,9 @@ import org.apache.hyracks.storage.am.common.api.ITreeIndexAccessor;
 import org.apache.hyracks.storage.am.common.api.ITreeIndexCursor;
 import org.apache.hyracks.storage.am.common.api.ITreeIndexFrame;
 import org.apache.hyracks.storage.am.common.api.ITreeIndexFrameFactory;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexMetaDataFrame;
 import org.apache.hyracks.storage.am.common.api.ITreeIndexTupleReference;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexTupleWriter;
 import org.apache.hyracks.storage.am.common.api.IndexException;
 import org.apache.hyracks.storage.am.common.api.TreeIndexException;
 import org.apache.hyracks.storage.am.common.api.UnsortedInputException;
@@ -68,6 +84,7 @@ import org.apache.hyracks.storage.am.common.ophelpers.IndexOperation;
 import org.apache.hyracks.storage.am.common.ophelpers.MultiComparator;
 import org.apache.hyracks.storage.common.buffercache.IBufferCache;
 import org.apache.hyracks.storage.common.buffercache.ICachedPage;
+import org.apache.hyracks.storage.common.buffercache.IVersionedCachedPage;
 import org.apache.hyracks.storage.common.file.BufferedFileHandle;
 import org.apache.hyracks.storage.common.file.IFileMapProvider;
 
@@ -78,10 +95,17 @@ public class BTree extends AbstractTreeIndex {
     private final static long RESTART_OP = Long.MIN_VALUE;
     private final static long FULL_RESTART_OP = Long.MIN_VALUE + 1;
     private final static int MAX_RESTARTS = 10;
+    private final static int MAX_OPTIMISTIC_RESTARTS = 3;
+    // Queue sizes and the largest page batch of the pipelined bulk loader.
+    private final static int SEPARATOR_QUEUE_SIZE = 1024;
+    private final static int WRITE_QUEUE_SIZE = 2;
+    private final static int MAX_WRITE_BATCH_SIZE = 64;
 
     private final AtomicInteger smoCounter;
     private final ReadWriteLock treeLatch;
     private final int maxTupleSize;
+    private volatile boolean optimisticReads = false;
+    private volatile boolean pipelinedBulkLoad = false;
 
     public BTree(IBufferCache bufferCache, IFileMapProvider fileMapProvider, IFreePageManager freePageManager,
             ITreeIndexFrameFactory interiorFrameFactory, ITreeIndexFrameFactory leafFrameFactory,
@@ -142,7 +166,7 @@ public class BTree extends AbstractTreeIndex {
             ctx.leafFrame.validate(currentPvi);
         } else {
             PageValidationInfo nextPvi = ctx.createPageValidationInfo(currentPvi);
-            List<Integer> children = ((BTreeNSMInteriorFrame) ctx.interiorFrame).getChildren(ctx.cmp);
+            List<Integer> children = ctx.interiorFrame.getChildren(ctx.cmp);
             ctx.interiorFrame.validate(currentPvi);
             for (int i = 0; i < children.size(); i++) {
                 ctx.interiorFrame.setPage(page);
@@ -198,6 +222,12 @@ public class BTree extends AbstractTreeIndex {
         // we use this loop to deal with possibly multiple operation restarts
         // due to ongoing structure modifications during the descent
         boolean repeatOp = true;
+        if (ctx.sortedSearch && ctx.lastLeafPageId >= 0) {
+            repeatOp = !searchFromLastLeaf(ctx);
+        }
+        for (int i = 0; repeatOp && optimisticReads && i < MAX_OPTIMISTIC_RESTARTS; i++) {
+            repeatOp = !searchOptimistically(ctx);
+        }
         while (repeatOp && ctx.opRestarts < MAX_RESTARTS) {
             performOp(rootPage, null, true, ctx);
             // if we reach this stage then we need to restart from the (possibly
@@ -208,10 +238,180 @@ public class BTree extends AbstractTreeIndex {
             }
             repeatOp = false;
         }
+        if (ctx.sortedSearch) {
+            ctx.lastLeafPageId = ctx.cursorInitialState.getPageId();
+        }
         cursor.setBufferCache(bufferCache);
         cursor.setFileId(fileId);
     }
 
+    /**
+     * Opens the cursor on the leaf at which the previous search of a sorted sequence started, provided that the low
+     * key lies strictly between the first and the last tuple of that leaf. All tuples matching the key then start on
+     * this leaf, so the descent from the root can be skipped.
+     *
+     * @return false if the key is not known to be on that leaf, in which case nothing is pinned or latched.
+     */
+    private boolean searchFromLastLeaf(BTreeOpContext ctx) throws HyracksDataException, TreeIndexException {
+        ITupleReference lowKey = ctx.pred.getLowKey();
+        if (lowKey == null) {
+            return false;
+        }
+        int pageId = ctx.lastLeafPageId;
+        ICachedPage node = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, pageId), false);
+        boolean isReadLatched = acquireLatch(node, ctx, true);
+        boolean onLeaf;
+        try {
+            ctx.leafFrame.setPage(node);
+            onLeaf = ctx.leafFrame.isLeaf() && !ctx.leafFrame.getSmFlag() && ctx.leafFrame.getTupleCount() > 1;
+            if (onLeaf) {
+                MultiComparator lowKeyCmp = ctx.pred.getLowKeyComparator();
+                ctx.leafFrameTuple.resetByTupleIndex(ctx.leafFrame, 0);
+                onLeaf = lowKeyCmp.compare(lowKey, ctx.leafFrameTuple) > 0;
+                if (onLeaf) {
+                    ctx.leafFrameTuple.resetByTupleIndex(ctx.leafFrame, ctx.leafFrame.getTupleCount() - 1);
+                    onLeaf = lowKeyCmp.compare(lowKey, ctx.leafFrameTuple) < 0;
+                }
+            }
+        } catch (HyracksDataException e) {
+            releaseLeaf(node, isReadLatched);
+            throw e;
+        }
+        if (!onLeaf) {
+            releaseLeaf(node, isReadLatched);
+            return false;
+        }
+        openLeafCursor(node, pageId, isReadLatched, ctx);
+        return true;
+    }
+
+    /**
+     * Opens the search cursor on a latched leaf. The cursor takes over the latch and the pin, unless opening fails.
+     */
+    private void openLeafCursor(ICachedPage node, int pageId, boolean isReadLatched, BTreeOpContext ctx)
+            throws HyracksDataException, TreeIndexException {
+        try {
+            ctx.leafFrame.setPage(node);
+            ctx.cursorInitialState.setSearchOperationCallback(ctx.searchCallback);
+            ctx.cursorInitialState.setOriginialKeyComparator(ctx.cmp);
+            ctx.cursorInitialState.setPage(node);
+            ctx.cursorInitialState.setPageId(pageId);
+            ctx.cursor.open(ctx.cursorInitialState, ctx.pred);
+        } catch (Exception e) {
+            releaseLeaf(node, isReadLatched);
+            if (e instanceof TreeIndexException) {
+                throw (TreeIndexException) e;
+            }
+            throw new BTreeException(e);
+        }
+    }
+
+    private void releaseLeaf(ICachedPage node, boolean isReadLatched) throws HyracksDataException {
+        if (isReadLatched) {
+            node.releaseReadLatch();
+        } else {
+            node.releaseWriteLatch(true);
+        }
+        bufferCache.unpin(node);
+    }
+
+    /**
+     * Descends to the leaf without latching the interior nodes. Each node is read under a version stamp that is
+     * validated before the child pointer read from it is followed, so only the leaf is latched (as in the latch
+     * coupled descent) and the cursor is opened on it.
+     *
+     * @return false if a concurrent writer or an ongoing structure modification was detected, in which case nothing
+     *         is pinned or latched and the caller has to restart the search.
+     */
+    private boolean searchOptimistically(BTreeOpContext ctx) throws HyracksDataException, TreeIndexException {
+        int pageId = rootPage;
+        ICachedPage root = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, pageId), false);
+        if (!(root instanceof IVersionedCachedPage)) {
+            // the buffer cache does not version its pages, so searches keep latching them
+            bufferCache.unpin(root);
+            optimisticReads = false;
+            return false;
+        }
+        IVersionedCachedPage node = (IVersionedCachedPage) root;
+        long stamp = node.tryOptimisticRead();
+        while (true) {
+            if (stamp == 0) {
+                bufferCache.unpin(node);
+                return false;
+            }
+            ctx.interiorFrame.setPage(node);
+            boolean isLeaf;
+            boolean smFlag;
+            int childPageId = -1;
+            try {
+                isLeaf = ctx.interiorFrame.isLeaf();
+                smFlag = ctx.interiorFrame.getSmFlag();
+                if (!isLeaf && !smFlag) {
+                    childPageId = ctx.interiorFrame.getChildPageId(ctx.pred);
+                }
+            } catch (Exception e) {
+                // the page may have been changed under us, in which case the exception is meaningless
+                bufferCache.unpin(node);
+                if (node.validate(stamp)) {
+                    throw new BTreeException(e);
+                }
+                return false;
+            }
+            if (smFlag || !node.validate(stamp)) {
+                bufferCache.unpin(node);
+                return false;
+            }
+            if (isLeaf) {
+                break;
+            }
+            IVersionedCachedPage child = (IVersionedCachedPage) bufferCache.pin(
+                    BufferedFileHandle.getDiskPageId(fileId, childPageId), false);
+            long childStamp = child.tryOptimisticRead();
+            boolean parentValid = node.validate(stamp);
+            bufferCache.unpin(node);
+            if (!parentValid) {
+                bufferCache.unpin(child);
+                return false;
+            }
+            node = child;
+            pageId = childPageId;
+            stamp = childStamp;
+        }
+        boolean isReadLatched = acquireLatch(node, ctx, true);
+        // the leaf may have been split between reading its parent and latching it
+        if (!node.validate(stamp)) {
+            releaseLeaf(node, isReadLatched);
+            return false;
+        }
+        openLeafCursor(node, pageId, isReadLatched, ctx);
+        return true;
+    }
+
+    /**
+     * Enables searches that descend without latching the interior nodes and fall back to latch coupling when a
+     * concurrent modification is detected. Writers are not affected. The first search turns the setting off if the
+     * pages of the buffer cache are not {@link IVersionedCachedPage}s.
+     */
+    public void setOptimisticReads(boolean optimisticReads) {
+        this.optimisticReads = optimisticReads;
+    }
+
+    public boolean isOptimisticReads() {
+        return optimisticReads;
+    }
+
+    /**
+     * Makes bulk loads fill the leaves and build the interior levels on separate threads, and write full pages in the
+     * background in large sequential writes, see {@link BTreePipelinedBulkLoader}.
+     */
+    public void setPipelinedBulkLoad(boolean pipelinedBulkLoad) {
+        this.pipelinedBulkLoad = pipelinedBulkLoad;
+    }
+
+    public boolean isPipelinedBulkLoad() {
+        return pipelinedBulkLoad;
+    }
+
     private void unsetSmPages(BTreeOpContext ctx) throws HyracksDataException {
         ICachedPage originalPage = ctx.interiorFrame.getPage();
         for (int i = 0; i < ctx.smPages.size(); i++) {
@@ -435,6 +635,11 @@ public class BTree extends AbstractTreeIndex {
                 ctx.modificationCallback.found(null, tuple);
             }
             ctx.leafFrame.split(rightFrame, tuple, ctx.splitKey);
+            if (rightFrame.getTupleCount() > 0) {
+                ITreeIndexTupleReference rightTuple = rightFrame.createTupleReference();
+                rightTuple.resetByTupleIndex(rightFrame, 0);
+                ctx.interiorFrame.truncateSplitKey(ctx.splitKey, rightTuple);
+            }
 
             ctx.smPages.add(pageId);
             ctx.smPages.add(rightPageId);
@@ -837,7 +1042,7 @@ public class BTree extends AbstractTreeIndex {
 
             strBuilder.append(keyString + "\n");
             if (!interiorFrame.isLeaf()) {
-                ArrayList<Integer> children = ((BTreeNSMInteriorFrame) (interiorFrame)).getChildren(cmp);
+                ArrayList<Integer> children = interiorFrame.getChildren(cmp);
                 for (int i = 0; i < children.size(); i++) {
                     printTree(children.get(i), node, i == children.size() - 1, leafFrame, interiorFrame, treeHeight,
                             keySerdes, strBuilder, cmp);
@@ -853,6 +1058,62 @@ public class BTree extends AbstractTreeIndex {
         }
     }
 
+    /**
+     * Returns up to numRanges - 1 keys that split the key space of the tree into ranges holding roughly the same
+     * number of leaves. The keys are copies of the separators of the highest interior level that has enough of them.
+     * An empty list is returned if the tree consists of a single leaf.
+     */
+    public List<ITupleReference> getRangeSplitKeys(int numRanges) throws HyracksDataException {
+        List<ITupleReference> splitKeys = new ArrayList<ITupleReference>();
+        if (numRanges < 2) {
+            return splitKeys;
+        }
+        MultiComparator cmp = MultiComparator.create(cmpFactories);
+        IBTreeInteriorFrame interiorFrame = (IBTreeInteriorFrame) interiorFrameFactory.createFrame();
+        interiorFrame.setMultiComparator(cmp);
+        ITreeIndexTupleReference frameTuple = interiorFrame.createTupleReference();
+        ArrayTupleBuilder tupleBuilder = new ArrayTupleBuilder(cmp.getKeyFieldCount());
+        List<ITupleReference> separators = new ArrayList<ITupleReference>();
+        List<Integer> levelPageIds = new ArrayList<Integer>();
+        levelPageIds.add(rootPage);
+        while (true) {
+            separators.clear();
+            List<Integer> childPageIds = new ArrayList<Integer>();
+            boolean childrenAreInterior = false;
+            for (int pageId : levelPageIds) {
+                ICachedPage node = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, pageId), false);
+                node.acquireReadLatch();
+                try {
+                    interiorFrame.setPage(node);
+                    if (interiorFrame.isLeaf()) {
+                        return splitKeys;
+                    }
+                    for (int i = 0; i < interiorFrame.getTupleCount(); i++) {
+                        frameTuple.resetByTupleIndex(interiorFrame, i);
+                        TupleUtils.copyTuple(tupleBuilder, frameTuple, cmp.getKeyFieldCount());
+                        ArrayTupleReference separator = new ArrayTupleReference();
+                        separator.reset(tupleBuilder.getFieldEndOffsets(), tupleBuilder.getByteArray().clone());
+                        separators.add(separator);
+                    }
+                    childPageIds.addAll(interiorFrame.getChildren(cmp));
+                    childrenAreInterior = interiorFrame.getLevel() > 1;
+                } finally {
+                    node.releaseReadLatch();
+                    bufferCache.unpin(node);
+                }
+            }
+            if (separators.size() >= numRanges - 1 || !childrenAreInterior) {
+                break;
+            }
+            levelPageIds = childPageIds;
+        }
+        int numSplitKeys = Math.min(numRanges - 1, separators.size());
+        for (int i = 1; i <= numSplitKeys; i++) {
+            splitKeys.add(separators.get(i * separators.size() / (numSplitKeys + 1)));
+        }
+        return splitKeys;
+    }
+
     @Override
     public ITreeIndexAccessor createAccessor(IModificationOperationCallback modificationCallback,
             ISearchOperationCallback searchCallback) {
@@ -861,7 +1122,7 @@ public class BTree extends AbstractTreeIndex {
 
     // TODO: Class should be private. But currently we need to expose the
     // setOpContext() API to the LSM Tree for it to work correctly.
-    public class BTreeAccessor implements ITreeIndexAccessor {
+    public class BTreeAccessor implements IConditionalUpsertAccessor, IBatchSearchAccessor {
         private BTree btree;
         private BTreeOpContext ctx;
 
@@ -894,6 +1155,7 @@ public class BTree extends AbstractTreeIndex {
             upsertIfConditionElseInsert(tuple, UnconditionalTupleAcceptor.INSTANCE);
         }
 
+        @Override
         public void upsertIfConditionElseInsert(ITupleReference tuple, ITupleAcceptor acceptor)
                 throws HyracksDataException, TreeIndexException {
             ctx.setOperation(IndexOperation.UPSERT);
@@ -914,6 +1176,35 @@ public class BTree extends AbstractTreeIndex {
             btree.search((ITreeIndexCursor) cursor, searchPred, ctx);
         }
 
+        @Override
+        public void searchBatch(IIndexCursor cursor, RangePredicate searchPred, ITupleReference[] keys,
+                int keyCount, IBatchSearchHandler handler) throws HyracksDataException, IndexException {
+            MultiComparator keyCmp = searchPred.getLowKeyComparator() != null ? searchPred.getLowKeyComparator()
+                    : ctx.cmp;
+            int[] order = BTreeUtils.getSortedKeyOrder(keys, keyCount, keyCmp);
+            boolean wasSortedSearch = ctx.sortedSearch;
+            setSortedSearch(true);
+            try {
+                for (int i = 0; i < keyCount; i++) {
+                    handler.prepareSearch(order[i]);
+                    cursor.reset();
+                    search(cursor, searchPred);
+                    handler.writeResults(order[i], cursor);
+                }
+            } finally {
+                setSortedSearch(wasSortedSearch);
+            }
+        }
+
+        /**
+         * Tells the accessor whether the following searches come in ascending order of their low keys, in which case
+         * a search starts at the leaf of the previous one whenever its key is known to be there.
+         */
+        public void setSortedSearch(boolean sortedSearch) {
+            ctx.sortedSearch = sortedSearch;
+            ctx.lastLeafPageId = -1;
+        }
+
         @Override
         public ITreeIndexCursor createDiskOrderScanCursor() {
             IBTreeLeafFrame leafFrame = (IBTreeLeafFrame) btree.getLeafFrameFactory().createFrame();
@@ -943,6 +1234,9 @@ public class BTree extends AbstractTreeIndex {
     public IIndexBulkLoader createBulkLoader(float fillFactor, boolean verifyInput, long numElementsHint,
             boolean checkIfEmptyIndex) throws TreeIndexException {
         try {
+            if (pipelinedBulkLoad) {
+                return new BTreePipelinedBulkLoader(fillFactor, verifyInput);
+            }
             return new BTreeBulkLoader(fillFactor, verifyInput);
         } catch (HyracksDataException e) {
             throw new TreeIndexException(e);
@@ -991,12 +1285,12 @@ public class BTree extends AbstractTreeIndex {
                     tupleWriter.writeTupleFields(leafFrontier.lastTuple, 0, cmp.getKeyFieldCount(), splitKey
                             .getBuffer().array(), 0);
                     splitKey.getTuple().resetByTupleOffset(splitKey.getBuffer(), 0);
+                    ((IBTreeInteriorFrame) interiorFrame).truncateSplitKey(splitKey, tuple);
                     splitKey.setLeftPage(leafFrontier.pageId);
-                    leafFrontier.pageId = freePageManager.getFreePage(metaFrame);
+                    leafFrontier.pageId = getFreePage();
 
                     ((IBTreeLeafFrame) leafFrame).setNextLeaf(leafFrontier.pageId);
-                    leafFrontier.page.releaseWriteLatch(true);
-                    bufferCache.unpin(leafFrontier.page);
+                    releaseFullPage(leafFrontier.page);
 
                     splitKey.setRightPage(leafFrontier.pageId);
                     propagateBulk(1);
@@ -1050,7 +1344,7 @@ public class BTree extends AbstractTreeIndex {
             interiorFrame.setPage(frontier.page);
 
             ITupleReference tuple = splitKey.getTuple();
-            int spaceNeeded = tupleWriter.bytesRequired(tuple, 0, cmp.getKeyFieldCount()) + slotSize + 4;
+            int spaceNeeded = interiorFrame.getBytesRequriedToWriteTuple(tuple);
             int spaceUsed = interiorFrame.getBuffer().capacity() - interiorFrame.getTotalFreeSpace();
             if (spaceUsed + spaceNeeded > interiorMaxBytes) {
 
@@ -1067,9 +1361,8 @@ public class BTree extends AbstractTreeIndex {
 
                 ((IBTreeInteriorFrame) interiorFrame).deleteGreatest();
 
-                frontier.page.releaseWriteLatch(true);
-                bufferCache.unpin(frontier.page);
-                frontier.pageId = freePageManager.getFreePage(metaFrame);
+                releaseFullPage(frontier.page);
+                frontier.pageId = getFreePage();
 
                 splitKey.setRightPage(frontier.pageId);
                 propagateBulk(level + 1);
@@ -1082,6 +1375,624 @@ public class BTree extends AbstractTreeIndex {
             ((IBTreeInteriorFrame) interiorFrame).insertSorted(tuple);
         }
 
+        /**
+         * Releases a page that has been filled and will not be modified by the loader anymore.
+         */
+        protected void releaseFullPage(ICachedPage page) throws HyracksDataException {
+            page.releaseWriteLatch(true);
+            bufferCache.unpin(page);
+        }
+
+        protected void setSplitKey(byte[] key, int leftPageId, int rightPageId) {
+            splitKey.initData(key.length);
+            System.arraycopy(key, 0, splitKey.getBuffer().array(), 0, key.length);
+            splitKey.getTuple().resetByTupleOffset(splitKey.getBuffer(), 0);
+            splitKey.setLeftPage(leftPageId);
+            splitKey.setRightPage(rightPageId);
+        }
+    }
+
+    /**
+     * Bulk loads the tree with two pipelines. The calling thread fills the leaves and hands the separator of every
+     * full leaf to a second thread, which builds the interior levels. Full leaf and interior pages stay pinned and are
+     * handed in batches to a write-behind thread, which writes each batch with one gathering write per run of
+     * consecutive pages and then unpins it.
+     */
+    public class BTreePipelinedBulkLoader extends BTreeBulkLoader {
+        private final NodeFrontier leafFrontier;
+        // The leaf side has its own frames, comparator and meta frame, since the inherited ones belong to the
+        // interior builder.
+        private final MultiComparator leafCmp;
+        private final ITreeIndexFrame leafInteriorFrame;
+        private final ITreeIndexMetaDataFrame leafMetaFrame;
+        private final ITreeIndexTupleWriter leafTupleWriter;
+        private final ISplitKey leafSplitKey;
+        private final int writeBatchSize;
+        private final Separator endOfSeparators = new Separator(null, -1, -1);
+        private final ICachedPage[] endOfWrites = new ICachedPage[0];
+        private final BlockingQueue<Separator> separators = new ArrayBlockingQueue<Separator>(SEPARATOR_QUEUE_SIZE);
+        private final BlockingQueue<ICachedPage[]> writes = new ArrayBlockingQueue<ICachedPage[]>(WRITE_QUEUE_SIZE);
+        private final WriteBatch leafWrites;
+        private final WriteBatch interiorWrites;
+        private final TaskGroup<Void> pipelines = new TaskGroup<Void>();
+        private final Future<Void> interiorBuilder;
+        private final Future<Void> pageWriter;
+        private volatile Throwable pipelineFailure;
+        private boolean finished = false;
+
+        public BTreePipelinedBulkLoader(float fillFactor, boolean verifyInput) throws TreeIndexException,
+                HyracksDataException {
+            super(fillFactor, verifyInput);
+            leafFrontier = nodeFrontiers.get(0);
+            leafCmp = MultiComparator.create(cmpFactories);
+            leafFrame = leafFrameFactory.createFrame();
+            leafFrame.setMultiComparator(leafCmp);
+            leafFrame.setPage(leafFrontier.page);
+            leafInteriorFrame = interiorFrameFactory.createFrame();
+            leafInteriorFrame.setMultiComparator(leafCmp);
+            leafMetaFrame = freePageManager.getMetaDataFrameFactory().createFrame();
+            leafTupleWriter = leafFrame.getTupleWriter();
+            leafSplitKey = new BTreeSplitKey(leafTupleWriter.createTupleReference());
+            leafSplitKey.getTuple().setFieldCount(leafCmp.getKeyFieldCount());
+            // at most a sixteenth of the cache is held by each batch
+            writeBatchSize = Math.max(1, Math.min(MAX_WRITE_BATCH_SIZE, bufferCache.getNumPages() / 16));
+            leafWrites = new WriteBatch();
+            interiorWrites = new WriteBatch();
+
+            interiorBuilder = pipelines.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws HyracksDataException {
+                    buildInteriorLevels();
+                    return null;
+                }
+            });
+            pageWriter = pipelines.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws HyracksDataException {
+                    writePages();
+                    return null;
+                }
+            });
+        }
+
+        @Override
+        public void add(ITupleReference tuple) throws IndexException, HyracksDataException {
+            try {
+                int tupleSize = Math.max(leafFrame.getBytesRequriedToWriteTuple(tuple),
+                        leafInteriorFrame.getBytesRequriedToWriteTuple(tuple));
+                if (tupleSize > maxTupleSize) {
+                    throw new TreeIndexException("Space required for record (" + tupleSize
+                            + ") larger than maximum acceptable size (" + maxTupleSize + ")");
+                }
+
+                int spaceNeeded = leafTupleWriter.bytesRequired(tuple) + slotSize;
+                int spaceUsed = leafFrame.getBuffer().capacity() - leafFrame.getTotalFreeSpace();
+
+                // try to free space by compression
+                if (spaceUsed + spaceNeeded > leafMaxBytes) {
+                    leafFrame.compress();
+                    spaceUsed = leafFrame.getBuffer().capacity() - leafFrame.getTotalFreeSpace();
+                }
+
+                if (spaceUsed + spaceNeeded > leafMaxBytes) {
+                    checkPipelines();
+                    leafFrontier.lastTuple.resetByTupleIndex(leafFrame, leafFrame.getTupleCount() - 1);
+                    if (verifyInput) {
+                        verifyInputTuple(tuple, leafFrontier.lastTuple);
+                    }
+                    byte[] separator = getSeparator(leafFrontier.lastTuple, tuple);
+                    int nextPageId = getFreeLeafPage();
+                    ((IBTreeLeafFrame) leafFrame).setNextLeaf(nextPageId);
+                    ICachedPage fullLeaf = leafFrontier.page;
+                    leafFrontier.page = null;
+                    fullLeaf.releaseWriteLatch(true);
+                    leafWrites.add(fullLeaf);
+                    separators.put(new Separator(separator, leafFrontier.pageId, nextPageId));
+
+                    leafFrontier.pageId = nextPageId;
+                    leafFrontier.page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, nextPageId), true);
+                    leafFrontier.page.acquireWriteLatch();
+                    leafFrame.setPage(leafFrontier.page);
+                    leafFrame.initBuffer((byte) 0);
+                } else {
+                    if (verifyInput && leafFrame.getTupleCount() > 0) {
+                        leafFrontier.lastTuple.resetByTupleIndex(leafFrame, leafFrame.getTupleCount() - 1);
+                        verifyInputTuple(tuple, leafFrontier.lastTuple);
+                    }
+                }
+
+                ((IBTreeLeafFrame) leafFrame).insertSorted(tuple);
+            } catch (InterruptedException e) {
+                handleException();
+                throw new HyracksDataException(e);
+            } catch (IndexException | HyracksDataException | RuntimeException e) {
+                handleException();
+                throw e;
+            }
+        }
+
+        @Override
+        protected void verifyInputTuple(ITupleReference tuple, ITupleReference prevTuple) throws IndexException,
+                HyracksDataException {
+            // New tuple should be strictly greater than last tuple.
+            int cmpResult = leafCmp.compare(tuple, prevTuple);
+            if (cmpResult < 0) {
+                throw new UnsortedInputException("Input stream given to BTree bulk load is not sorted.");
+            }
+            if (cmpResult == 0) {
+                throw new TreeIndexDuplicateKeyException("Input stream given to BTree bulk load has duplicates.");
+            }
+        }
+
+        /**
+         * @return the separator between the last tuple of a full leaf and the first tuple of the next one.
+         */
+        private byte[] getSeparator(ITupleReference lastTuple, ITupleReference nextTuple) throws HyracksDataException {
+            int keyFieldCount = leafCmp.getKeyFieldCount();
+            leafSplitKey.initData(leafTupleWriter.bytesRequired(lastTuple, 0, keyFieldCount));
+            leafTupleWriter.writeTupleFields(lastTuple, 0, keyFieldCount, leafSplitKey.getBuffer().array(), 0);
+            leafSplitKey.getTuple().resetByTupleOffset(leafSplitKey.getBuffer(), 0);
+            ((IBTreeInteriorFrame) leafInteriorFrame).truncateSplitKey(leafSplitKey, nextTuple);
+            ITupleReference key = leafSplitKey.getTuple();
+            byte[] separator = new byte[leafTupleWriter.bytesRequired(key, 0, keyFieldCount)];
+            leafTupleWriter.writeTupleFields(key, 0, keyFieldCount, separator, 0);
+            return separator;
+        }
+
+        /**
+         * Runs on the interior builder. Inserts the separators of the full leaves into the interior levels until the
+         * leaves are done, and then releases the latches of the interior frontier, which it owns.
+         */
+        private void buildInteriorLevels() throws HyracksDataException {
+            try {
+                Separator separator = separators.take();
+                while (separator != endOfSeparators) {
+                    if (pipelineFailure == null) {
+                        try {
+                            setSplitKey(separator.key, separator.leftPageId, separator.rightPageId);
+                            propagateBulk(1);
+                        } catch (HyracksDataException | RuntimeException e) {
+                            pipelineFailure = e;
+                        }
+                    }
+                    separator = separators.take();
+                }
+                interiorWrites.handOff();
+            } catch (InterruptedException e) {
+                pipelineFailure = e;
+                throw new HyracksDataException(e);
+            } finally {
+                for (int i = 1; i < nodeFrontiers.size(); i++) {
+                    try {
+                        nodeFrontiers.get(i).page.releaseWriteLatch(true);
+                    } catch (Exception e) {
+                        //ignore illegal monitor state exception
+                    }
+                }
+            }
+        }
+
+        /**
+         * Allocates a page for the interior builder. The leaf pipeline allocates pages at the same time, and the free
+         * page manager is not thread safe.
+         */
+        @Override
+        protected synchronized int getFreePage() throws HyracksDataException {
+            return super.getFreePage();
+        }
+
+        private synchronized int getFreeLeafPage() throws HyracksDataException {
+            return freePageManager.getFreePage(leafMetaFrame);
+        }
+
+        @Override
+        protected void releaseFullPage(ICachedPage page) throws HyracksDataException {
+            // Only reached from the interior builder, since the leaves are handed off by add().
+            page.releaseWriteLatch(true);
+            interiorWrites.add(page);
+        }
+
+        /**
+         * Runs on the write-behind thread. Writes the batches of full pages and unpins them. After a failure, the
+         * remaining batches are only unpinned.
+         */
+        private void writePages() throws HyracksDataException {
+            try {
+                ICachedPage[] pages = writes.take();
+                while (pages != endOfWrites) {
+                    try {
+                        if (pipelineFailure == null) {
+                            bufferCache.flushDirtyPages(pages, pages.length);
+                        }
+                    } catch (HyracksDataException | RuntimeException e) {
+                        pipelineFailure = e;
+                    } finally {
+                        for (ICachedPage page : pages) {
+                            bufferCache.unpin(page);
+                        }
+                    }
+                    pages = writes.take();
+                }
+            } catch (InterruptedException e) {
+                pipelineFailure = e;
+                throw new HyracksDataException(e);
+            }
+        }
+
+        private void checkPipelines() throws HyracksDataException {
+            Throwable failure = pipelineFailure;
+            if (failure != null) {
+                throw new HyracksDataException("Bulk load pipeline failed", failure);
+            }
+        }
+
+        /**
+         * Waits for the interior builder and then for the write-behind thread to finish all pages that were handed to
+         * them. The frontier pages stay pinned.
+         */
+        private void drainPipelines() throws HyracksDataException {
+            try {
+                try {
+                    separators.put(endOfSeparators);
+                    await(interiorBuilder);
+                } finally {
+                    try {
+                        leafWrites.handOff();
+                    } finally {
+                        writes.put(endOfWrites);
+                        await(pageWriter);
+                    }
+                }
+            } catch (InterruptedException e) {
+                throw new HyracksDataException(e);
+            } finally {
+                // both pipelines got their end marker, so they are finishing
+                pipelines.cancelAndWait();
+            }
+        }
+
+        private void await(Future<Void> pipeline) throws HyracksDataException, InterruptedException {
+            try {
+                pipeline.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof HyracksDataException) {
+                    throw (HyracksDataException) e.getCause();
+                }
+                throw new HyracksDataException(e.getCause());
+            }
+        }
+
+        @Override
+        protected void handleException() throws HyracksDataException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (leafFrontier.page != null) {
+                leafFrontier.page.releaseWriteLatch(true);
+            }
+            try {
+                drainPipelines();
+            } finally {
+                for (NodeFrontier frontier : nodeFrontiers) {
+                    if (frontier.page != null) {
+                        bufferCache.unpin(frontier.page);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void end() throws HyracksDataException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            leafFrontier.page.releaseWriteLatch(true);
+            try {
+                drainPipelines();
+                checkPipelines();
+                // copy the root generated from the bulk-load to *the* root page location
+                NodeFrontier lastNodeFrontier = nodeFrontiers.get(nodeFrontiers.size() - 1);
+                ICachedPage newRoot = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, rootPage), true);
+                newRoot.acquireWriteLatch();
+                try {
+                    System.arraycopy(lastNodeFrontier.page.getBuffer().array(), 0, newRoot.getBuffer().array(), 0,
+                            lastNodeFrontier.page.getBuffer().capacity());
+                } finally {
+                    newRoot.releaseWriteLatch(true);
+                    bufferCache.unpin(newRoot);
+                }
+                // register old root as a free page
+                freePageManager.addFreePage(metaFrame, lastNodeFrontier.pageId);
+            } finally {
+                for (NodeFrontier frontier : nodeFrontiers) {
+                    bufferCache.unpin(frontier.page);
+                }
+            }
+        }
+
+        private class Separator {
+            private final byte[] key;
+            private final int leftPageId;
+            private final int rightPageId;
+
+            private Separator(byte[] key, int leftPageId, int rightPageId) {
+                this.key = key;
+                this.leftPageId = leftPageId;
+                this.rightPageId = rightPageId;
+            }
+        }
+
+        /**
+         * Collects the full pages of one pipeline until there are enough of them to be handed to the write-behind
+         * thread.
+         */
+        private class WriteBatch {
+            private ICachedPage[] pages = new ICachedPage[writeBatchSize];
+            private int count = 0;
+
+            private void add(ICachedPage page) throws HyracksDataException {
+                pages[count++] = page;
+                if (count == pages.length) {
+                    handOff();
+                }
+            }
+
+            private void handOff() throws HyracksDataException {
+                if (count == 0) {
+                    return;
+                }
+                ICachedPage[] batch = count == pages.length ? pages : Arrays.copyOf(pages, count);
+                pages = new ICachedPage[writeBatchSize];
+                count = 0;
+                try {
+                    writes.put(batch);
+                } catch (InterruptedException e) {
+                    throw new HyracksDataException(e);
+                }
+            }
+        }
+    }
+
+    public BTreeRangeBulkLoader createRangeBulkLoader(float fillFactor) throws TreeIndexException {
+        try {
+            return new BTreeRangeBulkLoader(fillFactor);
+        } catch (HyracksDataException e) {
+            throw new TreeIndexException(e);
+        }
+    }
+
+    /**
+     * Bulk loads the tree from consecutive key ranges that are loaded concurrently. Each range is written into its
+     * own chain of leaf pages by a {@link BTreeLeafRunLoader}, which may run on any thread. The runs are then added in
+     * key order, which links their leaves and builds the interior levels on top of them.
+     */
+    public class BTreeRangeBulkLoader extends BTreeBulkLoader {
+        // The number of pages that a leaf run loader allocates at a time.
+        private static final int PAGE_BATCH_SIZE = 32;
+        private final float fillFactor;
+        // Allocates the page batches of the run loaders. All allocations of the loader are made under its monitor.
+        private final ITreeIndexMetaDataFrame batchMetaFrame;
+        // Pages of batches that the run loaders did not fill, which are used for the interior levels.
+        private final Deque<Integer> unusedPages;
+        private byte[] lastLeafKey;
+
+        public BTreeRangeBulkLoader(float fillFactor) throws TreeIndexException, HyracksDataException {
+            super(fillFactor, false);
+            this.fillFactor = fillFactor;
+            batchMetaFrame = freePageManager.getMetaDataFrameFactory().createFrame();
+            unusedPages = new ArrayDeque<Integer>();
+        }
+
+        public BTreeLeafRunLoader createLeafRunLoader() {
+            return new BTreeLeafRunLoader(this, fillFactor);
+        }
+
+        @Override
+        protected synchronized int getFreePage() throws HyracksDataException {
+            // The pool does not exist yet while the super constructor allocates the first leaf.
+            if (unusedPages != null && !unusedPages.isEmpty()) {
+                return unusedPages.poll();
+            }
+            return freePageManager.getFreePage(metaFrame);
+        }
+
+        private synchronized void allocatePages(int[] pageIds) throws HyracksDataException {
+            for (int i = 0; i < pageIds.length; i++) {
+                pageIds[i] = freePageManager.getFreePage(batchMetaFrame);
+            }
+        }
+
+        private synchronized void returnPages(int[] pageIds, int start, int end) {
+            for (int i = start; i < end; i++) {
+                unusedPages.add(pageIds[i]);
+            }
+        }
+
+        @Override
+        public void add(ITupleReference tuple) {
+            throw new UnsupportedOperationException("Tuples must be added through a leaf run loader.");
+        }
+
+        /**
+         * Appends the leaves of the given run, whose keys must all be greater than those of the runs added before.
+         */
+        public void addRun(BTreeLeafRunLoader run) throws HyracksDataException {
+            if (run.numLeaves == 0) {
+                return;
+            }
+            NodeFrontier leafFrontier = nodeFrontiers.get(0);
+            try {
+                if (lastLeafKey != null) {
+                    leafFrame.setPage(leafFrontier.page);
+                    ((IBTreeLeafFrame) leafFrame).setNextLeaf(run.leafPageIds[0]);
+                    setSplitKey(lastLeafKey, leafFrontier.pageId, run.leafPageIds[0]);
+                    propagateBulk(1);
+                }
+                for (int i = 1; i < run.numLeaves; i++) {
+                    setSplitKey(run.lastKeys.get(i - 1), run.leafPageIds[i - 1], run.leafPageIds[i]);
+                    propagateBulk(1);
+                }
+
+                leafFrontier.page.releaseWriteLatch(true);
+                bufferCache.unpin(leafFrontier.page);
+                if (lastLeafKey == null) {
+                    // The initial leaf of the loader was never used.
+                    synchronized (this) {
+                        freePageManager.addFreePage(metaFrame, leafFrontier.pageId);
+                    }
+                }
+                leafFrontier.pageId = run.leafPageIds[run.numLeaves - 1];
+                leafFrontier.page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, leafFrontier.pageId),
+                        false);
+                leafFrontier.page.acquireWriteLatch();
+                lastLeafKey = run.lastKeys.get(run.numLeaves - 1);
+            } catch (HyracksDataException e) {
+                handleException();
+                throw e;
+            } catch (RuntimeException e) {
+                handleException();
+                throw e;
+            }
+        }
+
+        @Override
+        public void end() throws HyracksDataException {
+            // The pages that are left over are written as empty leaves and freed, so that the file has no holes.
+            ITreeIndexFrame freeFrame = leafFrameFactory.createFrame();
+            for (Integer pageId : unusedPages) {
+                ICachedPage page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, pageId), true);
+                page.acquireWriteLatch();
+                try {
+                    freeFrame.setPage(page);
+                    freeFrame.initBuffer((byte) 0);
+                } finally {
+                    page.releaseWriteLatch(true);
+                    bufferCache.unpin(page);
+                }
+                freePageManager.addFreePage(metaFrame, pageId);
+            }
+            unusedPages.clear();
+            super.end();
+        }
+    }
+
+    /**
+     * Writes a sorted key range into a chain of new leaf pages for a {@link BTreeRangeBulkLoader}. It remembers the
+     * page id and the highest key of every leaf, so that the interior levels can be built without reading the leaves
+     * again.
+     */
+    public class BTreeLeafRunLoader implements IIndexBulkLoader {
+        private final BTreeRangeBulkLoader rangeLoader;
+        private final IBTreeLeafFrame leafFrame;
+        private final ITreeIndexFrame interiorFrame;
+        private final ITreeIndexTupleWriter tupleWriter;
+        private final ITreeIndexTupleReference lastTuple;
+        private final int keyFieldCount;
+        private final int leafMaxBytes;
+        private final int slotSize;
+        private final List<byte[]> lastKeys = new ArrayList<byte[]>();
+        private int[] leafPageIds = new int[16];
+        private int numLeaves;
+        private ICachedPage page;
+        // The pages that were allocated for the run but have not been used yet.
+        private final int[] pageBatch = new int[BTreeRangeBulkLoader.PAGE_BATCH_SIZE];
+        private int nextPageInBatch = pageBatch.length;
+
+        private BTreeLeafRunLoader(BTreeRangeBulkLoader rangeLoader, float fillFactor) {
+            this.rangeLoader = rangeLoader;
+            MultiComparator cmp = MultiComparator.create(cmpFactories);
+            leafFrame = (IBTreeLeafFrame) leafFrameFactory.createFrame();
+            leafFrame.setMultiComparator(cmp);
+            interiorFrame = interiorFrameFactory.createFrame();
+            interiorFrame.setMultiComparator(cmp);
+            tupleWriter = leafFrame.getTupleWriter();
+            lastTuple = leafFrame.createTupleReference();
+            keyFieldCount = cmp.getKeyFieldCount();
+            leafMaxBytes = (int) ((float) bufferCache.getPageSize() * fillFactor);
+            slotSize = leafFrame.getSlotSize();
+        }
+
+        @Override
+        public void add(ITupleReference tuple) throws IndexException, HyracksDataException {
+            try {
+                int tupleSize = Math.max(leafFrame.getBytesRequriedToWriteTuple(tuple),
+                        interiorFrame.getBytesRequriedToWriteTuple(tuple));
+                if (tupleSize > maxTupleSize) {
+                    throw new TreeIndexException("Space required for record (" + tupleSize
+                            + ") larger than maximum acceptable size (" + maxTupleSize + ")");
+                }
+                if (page == null) {
+                    newLeaf(getFreePage());
+                }
+
+                int spaceNeeded = tupleWriter.bytesRequired(tuple) + slotSize;
+                int spaceUsed = leafFrame.getBuffer().capacity() - leafFrame.getTotalFreeSpace();
+                if (spaceUsed + spaceNeeded > leafMaxBytes) {
+                    leafFrame.compress();
+                    spaceUsed = leafFrame.getBuffer().capacity() - leafFrame.getTotalFreeSpace();
+                }
+                if (spaceUsed + spaceNeeded > leafMaxBytes) {
+                    int nextPageId = getFreePage();
+                    leafFrame.setNextLeaf(nextPageId);
+                    finishLeaf();
+                    newLeaf(nextPageId);
+                }
+                leafFrame.insertSorted(tuple);
+            } catch (IndexException | HyracksDataException | RuntimeException e) {
+                if (page != null) {
+                    page.releaseWriteLatch(true);
+                    bufferCache.unpin(page);
+                    page = null;
+                }
+                throw e;
+            }
+        }
+
+        @Override
+        public void end() throws HyracksDataException {
+            if (page != null) {
+                finishLeaf();
+            }
+            rangeLoader.returnPages(pageBatch, nextPageInBatch, pageBatch.length);
+            nextPageInBatch = pageBatch.length;
+        }
+
+        public int getNumLeaves() {
+            return numLeaves;
+        }
+
+        private int getFreePage() throws HyracksDataException {
+            if (nextPageInBatch == pageBatch.length) {
+                rangeLoader.allocatePages(pageBatch);
+                nextPageInBatch = 0;
+            }
+            return pageBatch[nextPageInBatch++];
+        }
+
+        private void newLeaf(int pageId) throws HyracksDataException {
+            if (numLeaves == leafPageIds.length) {
+                int[] newLeafPageIds = new int[leafPageIds.length * 2];
+                System.arraycopy(leafPageIds, 0, newLeafPageIds, 0, numLeaves);
+                leafPageIds = newLeafPageIds;
+            }
+            leafPageIds[numLeaves++] = pageId;
+            page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, pageId), true);
+            page.acquireWriteLatch();
+            leafFrame.setPage(page);
+            leafFrame.initBuffer((byte) 0);
+        }
+
+        private void finishLeaf() throws HyracksDataException {
+            lastTuple.resetByTupleIndex(leafFrame, leafFrame.getTupleCount() - 1);
+            byte[] lastKey = new byte[tupleWriter.bytesRequired(lastTuple, 0, keyFieldCount)];
+            tupleWriter.writeTupleFields(lastTuple, 0, keyFieldCount, lastKey, 0);
+            lastKeys.add(lastKey);
+            page.releaseWriteLatch(true);
+            bufferCache.unpin(page);
+            page = null;
+        }
     }
 
     @SuppressWarnings("rawtypes")
@@ -68,6 +68,9 @@ public class BTreeOpContext implements IIndexOperationContext {
     public ISearchOperationCallback searchCallback;
     public ITupleAcceptor acceptor;
     public int smoCount;
+    // Set while searches arrive in ascending key order, so that a search can start at the leaf of the previous one.
+    public boolean sortedSearch;
+    public int lastLeafPageId = -1;
 
     // Debug
     public final Deque<PageValidationInfo> validationInfos;
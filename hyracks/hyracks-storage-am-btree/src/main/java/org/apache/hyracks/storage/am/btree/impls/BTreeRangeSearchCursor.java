@@ -40,11 +40,18 @@ import org.apache.hyracks.storage.common.buffercache.ICachedPage;
 import org.apache.hyracks.storage.common.file.BufferedFileHandle;
 
 public class BTreeRangeSearchCursor implements ITreeIndexCursor {
+    // Number of leaves read ahead by sequential scans over leaves that are laid out contiguously (e.g. bulk-loaded).
+    private static final int READ_AHEAD_PAGES = 16;
 
     private final IBTreeLeafFrame frame;
     private final ITreeIndexTupleReference frameTuple;
     private final boolean exclusiveLatchNodes;
+    private final boolean sequentialScan;
     private boolean isPageDirty;
+    // Leaf pins are marked as sequential for full scans and for cursors created as sequential scans (e.g. merges).
+    private boolean pinLeavesSequentially;
+    // End (exclusive) of the leaves that have been read ahead, or -1.
+    private int readAheadEnd = -1;
 
     private IBufferCache bufferCache = null;
     private int fileId = -1;
@@ -74,9 +81,14 @@ public class BTreeRangeSearchCursor implements ITreeIndexCursor {
     private ITupleReference highKey;
 
     public BTreeRangeSearchCursor(IBTreeLeafFrame frame, boolean exclusiveLatchNodes) {
+        this(frame, exclusiveLatchNodes, false);
+    }
+
+    public BTreeRangeSearchCursor(IBTreeLeafFrame frame, boolean exclusiveLatchNodes, boolean sequentialScan) {
         this.frame = frame;
         this.frameTuple = frame.createTupleReference();
         this.exclusiveLatchNodes = exclusiveLatchNodes;
+        this.sequentialScan = sequentialScan;
         this.reusablePredicate = new RangePredicate();
         this.reconciliationTuple = new ArrayTupleReference();
     }
@@ -117,7 +129,11 @@ public class BTreeRangeSearchCursor implements ITreeIndexCursor {
 
     private void fetchNextLeafPage(int nextLeafPage) throws HyracksDataException {
         do {
-            ICachedPage nextLeaf = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, nextLeafPage), false);
+            if (pinLeavesSequentially && !exclusiveLatchNodes) {
+                readAhead(nextLeafPage);
+            }
+            ICachedPage nextLeaf = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, nextLeafPage), false,
+                    pinLeavesSequentially);
             if (exclusiveLatchNodes) {
                 nextLeaf.acquireWriteLatch();
                 page.releaseWriteLatch(isPageDirty);
@@ -135,6 +151,22 @@ public class BTreeRangeSearchCursor implements ITreeIndexCursor {
         } while (frame.getTupleCount() == 0 && nextLeafPage > 0);
     }
 
+    private void readAhead(int nextLeafPage) throws HyracksDataException {
+        if (nextLeafPage != pageId + 1) {
+            // The leaves are not contiguous here, there is nothing to speculate on.
+            readAheadEnd = -1;
+            return;
+        }
+        // Issue the next window once the scan is halfway through the current one.
+        if (nextLeafPage + READ_AHEAD_PAGES / 2 < readAheadEnd) {
+            return;
+        }
+        int start = Math.max(nextLeafPage, readAheadEnd);
+        int end = nextLeafPage + READ_AHEAD_PAGES;
+        bufferCache.prefetch(BufferedFileHandle.getDiskPageId(fileId, start), end - start);
+        readAheadEnd = end;
+    }
+
     @Override
     public boolean hasNext() throws HyracksDataException {
         int nextLeafPage;
@@ -267,6 +299,8 @@ public class BTreeRangeSearchCursor implements ITreeIndexCursor {
         highKeyCmp = pred.getHighKeyComparator();
         lowKey = pred.getLowKey();
         highKey = pred.getHighKey();
+        pinLeavesSequentially = sequentialScan || (lowKey == null && highKey == null);
+        readAheadEnd = -1;
 
         reusablePredicate.setLowKeyComparator(originalKeyCmp);
         reusablePredicate.setHighKeyComparator(pred.getHighKeyComparator());
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.btree.impls;
+
+import java.nio.ByteBuffer;
+
+import org.apache.hyracks.storage.am.btree.api.IKeyFieldPrefixer;
+import org.apache.hyracks.storage.am.btree.frames.BTreePrefixTruncatedInteriorFrame;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexFrame;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexTupleReference;
+
+/**
+ * Reads a tuple of a {@link BTreePrefixTruncatedInteriorFrame}. The first field is stored as the length of the part
+ * of the page prefix it shares, followed by the rest of its content, and is reassembled on reset.
+ * All other fields are read in place.
+ */
+public class PrefixTruncatedTupleReference implements ITreeIndexTupleReference {
+
+    private final ITreeIndexTupleReference encodedTuple;
+    private final IKeyFieldPrefixer prefixer;
+
+    private byte[] decodedField = new byte[64];
+    private int decodedFieldLength;
+
+    public PrefixTruncatedTupleReference(ITreeIndexTupleReference encodedTuple, IKeyFieldPrefixer prefixer) {
+        this.encodedTuple = encodedTuple;
+        this.prefixer = prefixer;
+    }
+
+    @Override
+    public void resetByTupleOffset(ByteBuffer buf, int tupleStartOffset) {
+        encodedTuple.resetByTupleOffset(buf, tupleStartOffset);
+        if (prefixer == null) {
+            return;
+        }
+        byte[] data = encodedTuple.getFieldData(0);
+        int start = encodedTuple.getFieldStart(0);
+        int sharedLength = BTreePrefixTruncatedInteriorFrame.getSharedLength(data, start);
+        int suffixLength = encodedTuple.getFieldLength(0) - BTreePrefixTruncatedInteriorFrame.SHARED_LENGTH_SIZE;
+        int headerLength = prefixer.getHeaderLength();
+        decodedFieldLength = headerLength + sharedLength + suffixLength;
+        if (decodedField.length < decodedFieldLength) {
+            decodedField = new byte[Math.max(decodedFieldLength, decodedField.length * 2)];
+        }
+        prefixer.writeHeader(decodedField, 0, sharedLength + suffixLength);
+        System.arraycopy(buf.array(), BTreePrefixTruncatedInteriorFrame.getPrefixOff(), decodedField, headerLength,
+                sharedLength);
+        System.arraycopy(data, start + BTreePrefixTruncatedInteriorFrame.SHARED_LENGTH_SIZE, decodedField,
+                headerLength + sharedLength, suffixLength);
+    }
+
+    @Override
+    public void resetByTupleIndex(ITreeIndexFrame frame, int tupleIndex) {
+        resetByTupleOffset(frame.getBuffer(), frame.getTupleOffset(tupleIndex));
+    }
+
+    @Override
+    public void setFieldCount(int fieldCount) {
+        encodedTuple.setFieldCount(fieldCount);
+    }
+
+    @Override
+    public void setFieldCount(int fieldStartIndex, int fieldCount) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public int getFieldCount() {
+        return encodedTuple.getFieldCount();
+    }
+
+    @Override
+    public byte[] getFieldData(int fIdx) {
+        if (fIdx == 0 && prefixer != null) {
+            return decodedField;
+        }
+        return encodedTuple.getFieldData(fIdx);
+    }
+
+    @Override
+    public int getFieldStart(int fIdx) {
+        if (fIdx == 0 && prefixer != null) {
+            return 0;
+        }
+        return encodedTuple.getFieldStart(fIdx);
+    }
+
+    @Override
+    public int getFieldLength(int fIdx) {
+        if (fIdx == 0 && prefixer != null) {
+            return decodedFieldLength;
+        }
+        return encodedTuple.getFieldLength(fIdx);
+    }
+
+    /**
+     * @return the number of bytes the tuple occupies in the page.
+     */
+    @Override
+    public int getTupleSize() {
+        return encodedTuple.getTupleSize();
+    }
+
+    /**
+     * @return the offset in the page right after the last stored field.
+     */
+    public int getTupleEndOff() {
+        int lastField = encodedTuple.getFieldCount() - 1;
+        return encodedTuple.getFieldStart(lastField) + encodedTuple.getFieldLength(lastField);
+    }
+}
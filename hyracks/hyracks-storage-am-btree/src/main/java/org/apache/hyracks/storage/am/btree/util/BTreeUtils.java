@@ -21,13 +21,16 @@ package org.apache.hyracks.storage.am.btree.util;
 import org.apache.hyracks.api.dataflow.value.IBinaryComparator;
 import org.apache.hyracks.api.dataflow.value.IBinaryComparatorFactory;
 import org.apache.hyracks.api.dataflow.value.ITypeTraits;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
 import org.apache.hyracks.api.io.FileReference;
 import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.storage.am.btree.api.IKeyFieldPrefixer;
 import org.apache.hyracks.storage.am.btree.exceptions.BTreeException;
 import org.apache.hyracks.storage.am.btree.frames.BTreeFieldPrefixNSMLeafFrameFactory;
 import org.apache.hyracks.storage.am.btree.frames.BTreeLeafFrameType;
 import org.apache.hyracks.storage.am.btree.frames.BTreeNSMInteriorFrameFactory;
 import org.apache.hyracks.storage.am.btree.frames.BTreeNSMLeafFrameFactory;
+import org.apache.hyracks.storage.am.btree.frames.BTreePrefixTruncatedInteriorFrameFactory;
 import org.apache.hyracks.storage.am.btree.impls.BTree;
 import org.apache.hyracks.storage.am.common.api.IFreePageManager;
 import org.apache.hyracks.storage.am.common.api.ITreeIndexFrameFactory;
@@ -44,9 +47,20 @@ public class BTreeUtils {
     public static BTree createBTree(IBufferCache bufferCache, IFileMapProvider fileMapProvider,
             ITypeTraits[] typeTraits, IBinaryComparatorFactory[] cmpFactories, BTreeLeafFrameType leafType,
             FileReference file) throws BTreeException {
+        return createBTree(bufferCache, fileMapProvider, typeTraits, cmpFactories, leafType, null, file);
+    }
+
+    /**
+     * @param keyFieldPrefixers
+     *            if not null, separators in interior nodes are truncated and prefix compressed on the key fields
+     *            that have a prefixer.
+     */
+    public static BTree createBTree(IBufferCache bufferCache, IFileMapProvider fileMapProvider,
+            ITypeTraits[] typeTraits, IBinaryComparatorFactory[] cmpFactories, BTreeLeafFrameType leafType,
+            IKeyFieldPrefixer[] keyFieldPrefixers, FileReference file) throws BTreeException {
         TypeAwareTupleWriterFactory tupleWriterFactory = new TypeAwareTupleWriterFactory(typeTraits);
         ITreeIndexFrameFactory leafFrameFactory = getLeafFrameFactory(tupleWriterFactory, leafType);
-        ITreeIndexFrameFactory interiorFrameFactory = new BTreeNSMInteriorFrameFactory(tupleWriterFactory);
+        ITreeIndexFrameFactory interiorFrameFactory = getInteriorFrameFactory(tupleWriterFactory, keyFieldPrefixers);
         ITreeIndexMetaDataFrameFactory metaFrameFactory = new LIFOMetaDataFrameFactory();
         IFreePageManager freePageManager = new LinkedListFreePageManager(bufferCache, 0, metaFrameFactory);
         BTree btree = new BTree(bufferCache, fileMapProvider, freePageManager, interiorFrameFactory, leafFrameFactory,
@@ -92,4 +106,52 @@ public class BTreeUtils {
             }
         }
     }
+
+    public static ITreeIndexFrameFactory getInteriorFrameFactory(ITreeIndexTupleWriterFactory tupleWriterFactory,
+            IKeyFieldPrefixer[] keyFieldPrefixers) {
+        if (keyFieldPrefixers == null) {
+            return new BTreeNSMInteriorFrameFactory(tupleWriterFactory);
+        }
+        return new BTreePrefixTruncatedInteriorFrameFactory(tupleWriterFactory, keyFieldPrefixers);
+    }
+
+    /**
+     * Returns the indexes of the given keys in ascending key order. The sort is stable, so keys that compare equal
+     * keep their relative order.
+     */
+    public static int[] getSortedKeyOrder(ITupleReference[] keys, int keyCount, MultiComparator cmp)
+            throws HyracksDataException {
+        int[] order = new int[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            order[i] = i;
+        }
+        if (keyCount > 1) {
+            mergeSort(keys, cmp, order, new int[keyCount], 0, keyCount);
+        }
+        return order;
+    }
+
+    private static void mergeSort(ITupleReference[] keys, MultiComparator cmp, int[] order, int[] buffer, int start,
+            int end) throws HyracksDataException {
+        if (end - start < 2) {
+            return;
+        }
+        int mid = (start + end) >>> 1;
+        mergeSort(keys, cmp, order, buffer, start, mid);
+        mergeSort(keys, cmp, order, buffer, mid, end);
+        if (cmp.compare(keys[order[mid - 1]], keys[order[mid]]) <= 0) {
+            // already in order, which is the common case for probe keys that arrive sorted
+            return;
+        }
+        System.arraycopy(order, start, buffer, start, end - start);
+        int left = start;
+        int right = mid;
+        for (int i = start; i < end; i++) {
+            if (right >= end || (left < mid && cmp.compare(keys[buffer[left]], keys[buffer[right]]) <= 0)) {
+                order[i] = buffer[left++];
+            } else {
+                order[i] = buffer[right++];
+            }
+        }
+    }
 }
@@ -275,7 +275,7 @@ public abstract class AbstractTreeIndex implements ITreeIndex {
             tupleWriter = leafFrame.getTupleWriter();
 
             NodeFrontier leafFrontier = new NodeFrontier(leafFrame.createTupleReference());
-            leafFrontier.pageId = freePageManager.getFreePage(metaFrame);
+            leafFrontier.pageId = getFreePage();
             leafFrontier.page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, leafFrontier.pageId), true);
             leafFrontier.page.acquireWriteLatch();
 
@@ -331,9 +331,16 @@ public abstract class AbstractTreeIndex implements ITreeIndex {
             }
         }
 
+        /**
+         * Allocates a page for the loader's nodes.
+         */
+        protected int getFreePage() throws HyracksDataException {
+            return freePageManager.getFreePage(metaFrame);
+        }
+
         protected void addLevel() throws HyracksDataException {
-            NodeFrontier frontier = new NodeFrontier(tupleWriter.createTupleReference());
-            frontier.pageId = freePageManager.getFreePage(metaFrame);
+            NodeFrontier frontier = new NodeFrontier(interiorFrame.createTupleReference());
+            frontier.pageId = getFreePage();
             frontier.page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, frontier.pageId), true);
             frontier.page.acquireWriteLatch();
             frontier.lastTuple.setFieldCount(cmp.getKeyFieldCount());
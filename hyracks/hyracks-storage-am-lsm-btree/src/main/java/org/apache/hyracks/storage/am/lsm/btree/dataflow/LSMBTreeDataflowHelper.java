@@ -28,6 +28,7 @@ import org.apache.hyracks.api.exceptions.HyracksDataException;
 import org.apache.hyracks.storage.am.common.api.ITreeIndex;
 import org.apache.hyracks.storage.am.common.dataflow.AbstractTreeIndexOperatorDescriptor;
 import org.apache.hyracks.storage.am.common.dataflow.IIndexOperatorDescriptor;
+import org.apache.hyracks.storage.am.lsm.btree.impls.LSMBTree;
 import org.apache.hyracks.storage.am.lsm.btree.util.LSMBTreeUtils;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMIOOperationCallbackFactory;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMIOOperationScheduler;
@@ -40,6 +41,11 @@ public class LSMBTreeDataflowHelper extends AbstractLSMIndexDataflowHelper {
 
     private final boolean needKeyDupCheck;
     private final int[] btreeFields;
+    private int bloomFilterPageSize;
+    private boolean blockedBloomFilter;
+    private int mergeParallelism;
+    private boolean optimisticReads;
+    private boolean pipelinedBulkLoad;
 
     public LSMBTreeDataflowHelper(IIndexOperatorDescriptor opDesc, IHyracksTaskContext ctx, int partition,
             List<IVirtualBufferCache> virtualBufferCaches, ILSMMergePolicy mergePolicy,
@@ -62,16 +68,60 @@ public class LSMBTreeDataflowHelper extends AbstractLSMIndexDataflowHelper {
                 ioScheduler, ioOpCallbackFactory, filterTypeTraits, filterCmpFactories, filterFields, durable);
         this.needKeyDupCheck = needKeyDupCheck;
         this.btreeFields = btreeFields;
+        bloomFilterPageSize = 0;
+        blockedBloomFilter = false;
+        mergeParallelism = 1;
+        optimisticReads = false;
+        pipelinedBulkLoad = false;
+    }
+
+    /**
+     * @see LSMBTreeDataflowHelperFactory#setBloomFilterPageSize(int)
+     */
+    public void setBloomFilterPageSize(int bloomFilterPageSize) {
+        this.bloomFilterPageSize = bloomFilterPageSize;
+    }
+
+    /**
+     * @see LSMBTreeDataflowHelperFactory#setBlockedBloomFilter(boolean)
+     */
+    public void setBlockedBloomFilter(boolean blockedBloomFilter) {
+        this.blockedBloomFilter = blockedBloomFilter;
+    }
+
+    /**
+     * @see LSMBTreeDataflowHelperFactory#setMergeParallelism(int)
+     */
+    public void setMergeParallelism(int mergeParallelism) {
+        this.mergeParallelism = mergeParallelism;
+    }
+
+    /**
+     * @see LSMBTreeDataflowHelperFactory#setOptimisticReads(boolean)
+     */
+    public void setOptimisticReads(boolean optimisticReads) {
+        this.optimisticReads = optimisticReads;
+    }
+
+    /**
+     * @see LSMBTreeDataflowHelperFactory#setPipelinedBulkLoad(boolean)
+     */
+    public void setPipelinedBulkLoad(boolean pipelinedBulkLoad) {
+        this.pipelinedBulkLoad = pipelinedBulkLoad;
     }
 
     @Override
     public ITreeIndex createIndexInstance() throws HyracksDataException {
         AbstractTreeIndexOperatorDescriptor treeOpDesc = (AbstractTreeIndexOperatorDescriptor) opDesc;
-        return LSMBTreeUtils.createLSMTree(virtualBufferCaches, file, opDesc.getStorageManager().getBufferCache(ctx),
+        LSMBTree lsmTree = LSMBTreeUtils.createLSMTree(virtualBufferCaches, file, opDesc.getStorageManager().getBufferCache(ctx),
                 opDesc.getStorageManager().getFileMapProvider(ctx), treeOpDesc.getTreeIndexTypeTraits(),
                 treeOpDesc.getTreeIndexComparatorFactories(), treeOpDesc.getTreeIndexBloomFilterKeyFields(),
                 bloomFilterFalsePositiveRate, mergePolicy, opTrackerFactory.getOperationTracker(ctx), ioScheduler,
                 ioOpCallbackFactory.createIOOperationCallback(), needKeyDupCheck, filterTypeTraits, filterCmpFactories,
-                btreeFields, filterFields, durable);
+                btreeFields, filterFields, durable, false, bloomFilterPageSize, blockedBloomFilter);
+        lsmTree.setMergeParallelism(mergeParallelism);
+        lsmTree.setOptimisticReads(optimisticReads);
+        lsmTree.setPipelinedBulkLoad(pipelinedBulkLoad);
+        return lsmTree;
     }
 }
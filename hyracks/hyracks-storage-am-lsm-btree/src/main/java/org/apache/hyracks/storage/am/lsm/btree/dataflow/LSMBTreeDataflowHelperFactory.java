@@ -26,6 +26,7 @@ import org.apache.hyracks.api.dataflow.value.IBinaryComparatorFactory;
 import org.apache.hyracks.api.dataflow.value.ITypeTraits;
 import org.apache.hyracks.storage.am.common.dataflow.IIndexOperatorDescriptor;
 import org.apache.hyracks.storage.am.common.dataflow.IndexDataflowHelper;
+import org.apache.hyracks.storage.am.lsm.btree.impls.LSMBTree;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMIOOperationCallbackFactory;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMIOOperationSchedulerProvider;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMMergePolicyFactory;
@@ -38,6 +39,11 @@ public class LSMBTreeDataflowHelperFactory extends AbstractLSMIndexDataflowHelpe
     private static final long serialVersionUID = 1L;
     private final boolean needKeyDupCheck;
     private final int[] btreeFields;
+    private int bloomFilterPageSize;
+    private boolean blockedBloomFilter;
+    private int mergeParallelism;
+    private boolean optimisticReads;
+    private boolean pipelinedBulkLoad;
 
     public LSMBTreeDataflowHelperFactory(IVirtualBufferCacheProvider virtualBufferCacheProvider,
             ILSMMergePolicyFactory mergePolicyFactory, Map<String, String> mergePolicyProperties,
@@ -50,15 +56,68 @@ public class LSMBTreeDataflowHelperFactory extends AbstractLSMIndexDataflowHelpe
                 filterCmpFactories, filterFields, durable);
         this.needKeyDupCheck = needKeyDupCheck;
         this.btreeFields = btreeFields;
+        bloomFilterPageSize = 0;
+        blockedBloomFilter = false;
+        mergeParallelism = 1;
+        optimisticReads = false;
+        pipelinedBulkLoad = false;
+    }
+
+    /**
+     * Sets the page size of the Bloom filter files of the index, which must be one of the page sizes of the disk
+     * buffer cache. The default, 0, is the page size of the disk buffer cache. The page size must not change over the
+     * lifetime of an index, since it is needed to open the existing filters.
+     */
+    public void setBloomFilterPageSize(int bloomFilterPageSize) {
+        this.bloomFilterPageSize = bloomFilterPageSize;
+    }
+
+    /**
+     * Makes the index build its Bloom filters in the blocked layout, which sets all bits of a key in one cache line.
+     * Lookups then touch a single cache line and a single page, at a slightly higher false positive rate. Filters that
+     * were built before keep their layout, so the setting may change over the lifetime of an index.
+     */
+    public void setBlockedBloomFilter(boolean blockedBloomFilter) {
+        this.blockedBloomFilter = blockedBloomFilter;
+    }
+
+    /**
+     * Sets the number of key ranges that the merges of the index are split into and merged in parallel, see
+     * {@link LSMBTree#setMergeParallelism(int)}.
+     */
+    public void setMergeParallelism(int mergeParallelism) {
+        this.mergeParallelism = mergeParallelism;
+    }
+
+    /**
+     * Makes searches of the in-memory components descend without latching the interior nodes, see
+     * {@link LSMBTree#setOptimisticReads(boolean)}.
+     */
+    public void setOptimisticReads(boolean optimisticReads) {
+        this.optimisticReads = optimisticReads;
+    }
+
+    /**
+     * Makes flushes, single-threaded merges and bulk loads write the B-trees of new disk components with the pipelined
+     * bulk loader, see {@link LSMBTree#setPipelinedBulkLoad(boolean)}.
+     */
+    public void setPipelinedBulkLoad(boolean pipelinedBulkLoad) {
+        this.pipelinedBulkLoad = pipelinedBulkLoad;
     }
 
     @Override
     public IndexDataflowHelper createIndexDataflowHelper(IIndexOperatorDescriptor opDesc, IHyracksTaskContext ctx,
             int partition) {
-        return new LSMBTreeDataflowHelper(opDesc, ctx, partition,
+        LSMBTreeDataflowHelper helper = new LSMBTreeDataflowHelper(opDesc, ctx, partition,
                 virtualBufferCacheProvider.getVirtualBufferCaches(ctx), bloomFilterFalsePositiveRate,
                 mergePolicyFactory.createMergePolicy(mergePolicyProperties, ctx), opTrackerFactory,
                 ioSchedulerProvider.getIOScheduler(ctx), ioOpCallbackFactory, needKeyDupCheck, filterTypeTraits,
                 filterCmpFactories, btreeFields, filterFields, durable);
+        helper.setBloomFilterPageSize(bloomFilterPageSize);
+        helper.setBlockedBloomFilter(blockedBloomFilter);
+        helper.setMergeParallelism(mergeParallelism);
+        helper.setOptimisticReads(optimisticReads);
+        helper.setPipelinedBulkLoad(pipelinedBulkLoad);
+        return helper;
     }
 }
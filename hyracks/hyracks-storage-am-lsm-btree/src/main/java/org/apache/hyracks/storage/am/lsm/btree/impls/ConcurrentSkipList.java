@@ -0,0 +1,602 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.btree.impls;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.hyracks.api.dataflow.value.IBinaryComparatorFactory;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.api.io.FileReference;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.storage.am.btree.api.IConditionalUpsertAccessor;
+import org.apache.hyracks.storage.am.btree.api.ITupleAcceptor;
+import org.apache.hyracks.storage.am.btree.impls.UnconditionalTupleAcceptor;
+import org.apache.hyracks.storage.am.common.api.IFreePageManager;
+import org.apache.hyracks.storage.am.common.api.IIndexBulkLoader;
+import org.apache.hyracks.storage.am.common.api.IIndexCursor;
+import org.apache.hyracks.storage.am.common.api.IModificationOperationCallback;
+import org.apache.hyracks.storage.am.common.api.ISearchOperationCallback;
+import org.apache.hyracks.storage.am.common.api.ISearchPredicate;
+import org.apache.hyracks.storage.am.common.api.ITreeIndex;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexCursor;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexFrameFactory;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexTupleReference;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexTupleWriter;
+import org.apache.hyracks.storage.am.common.api.IndexException;
+import org.apache.hyracks.storage.am.common.exceptions.TreeIndexDuplicateKeyException;
+import org.apache.hyracks.storage.am.common.exceptions.TreeIndexNonExistentKeyException;
+import org.apache.hyracks.storage.am.common.impls.NoOpOperationCallback;
+import org.apache.hyracks.storage.am.common.ophelpers.MultiComparator;
+import org.apache.hyracks.storage.common.buffercache.IBufferCache;
+import org.apache.hyracks.storage.common.buffercache.ICachedPage;
+import org.apache.hyracks.storage.common.file.BufferedFileHandle;
+import org.apache.hyracks.storage.common.file.IFileMapProvider;
+
+/**
+ * A lock-free skip list that can replace the B-tree of an LSM B-tree memory component.
+ * Tuples are appended to the pages of the (virtual) buffer cache by a lock-free bump allocator and are never moved,
+ * so a modification only swings one pointer with a CAS and readers never latch anything. The towers of the skip list
+ * are on-heap objects, but the page space they would take is reserved next to the tuples, so the component still
+ * fills up within the memory budget of its buffer cache.
+ * A physical delete only marks the node as removed; nodes are never unlinked since the whole list is dropped when the
+ * component is flushed.
+ */
+public class ConcurrentSkipList implements ITreeIndex {
+
+    private static final int MAX_HEIGHT = 16;
+    // Page space reserved for a node besides its tuple: the node itself plus one reference per level.
+    private static final int NODE_OVERHEAD = 32;
+    private static final int REFERENCE_SIZE = 8;
+    private static final long REMOVED = Long.MIN_VALUE;
+
+    private final IBufferCache bufferCache;
+    private final IFileMapProvider fileMapProvider;
+    private final ITreeIndexFrameFactory leafFrameFactory;
+    private final IBinaryComparatorFactory[] cmpFactories;
+    private final int fieldCount;
+    private final FileReference file;
+    private final int pageSize;
+
+    // The address (page id in the upper, offset in the lower 32 bits) of the first free byte.
+    private final AtomicLong nextFreeAddress = new AtomicLong();
+    private final AtomicLong tupleCount = new AtomicLong();
+    private volatile ICachedPage[] pages = new ICachedPage[0];
+    private volatile Node head = new Node(0, MAX_HEIGHT);
+
+    private int fileId = -1;
+    private boolean isActivated = false;
+
+    public ConcurrentSkipList(IBufferCache bufferCache, IFileMapProvider fileMapProvider,
+            ITreeIndexFrameFactory leafFrameFactory, IBinaryComparatorFactory[] cmpFactories, int fieldCount,
+            FileReference file) {
+        this.bufferCache = bufferCache;
+        this.fileMapProvider = fileMapProvider;
+        this.leafFrameFactory = leafFrameFactory;
+        this.cmpFactories = cmpFactories;
+        this.fieldCount = fieldCount;
+        this.file = file;
+        this.pageSize = bufferCache.getPageSize();
+    }
+
+    @Override
+    public synchronized void create() throws HyracksDataException {
+        if (isActivated) {
+            throw new HyracksDataException("Failed to create the index since it is activated.");
+        }
+        openFile();
+        bufferCache.closeFile(fileId);
+    }
+
+    @Override
+    public synchronized void activate() throws HyracksDataException {
+        if (isActivated) {
+            throw new HyracksDataException("Failed to activate the index since it is already activated.");
+        }
+        openFile();
+        resetList();
+        isActivated = true;
+    }
+
+    private void openFile() throws HyracksDataException {
+        synchronized (fileMapProvider) {
+            boolean fileIsMapped = fileMapProvider.isMapped(file);
+            if (!fileIsMapped) {
+                bufferCache.createFile(file);
+            }
+            fileId = fileMapProvider.lookupFileId(file);
+            try {
+                bufferCache.openFile(fileId);
+            } catch (HyracksDataException e) {
+                // Revert state of buffer cache since file failed to open.
+                if (!fileIsMapped) {
+                    bufferCache.deleteFile(fileId, false);
+                }
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void clear() throws HyracksDataException {
+        if (!isActivated) {
+            throw new HyracksDataException("Failed to clear the index since it is not activated.");
+        }
+        resetList();
+    }
+
+    @Override
+    public synchronized void deactivate() throws HyracksDataException {
+        if (!isActivated) {
+            throw new HyracksDataException("Failed to deactivate the index since it is already deactivated.");
+        }
+        unpinPages();
+        bufferCache.closeFile(fileId);
+        isActivated = false;
+    }
+
+    @Override
+    public synchronized void destroy() throws HyracksDataException {
+        if (isActivated) {
+            throw new HyracksDataException("Failed to destroy the index since it is activated.");
+        }
+        if (fileId == -1) {
+            return;
+        }
+        bufferCache.deleteFile(fileId, false);
+        file.delete();
+        fileId = -1;
+    }
+
+    private void resetList() throws HyracksDataException {
+        unpinPages();
+        nextFreeAddress.set(0);
+        tupleCount.set(0);
+        head = new Node(0, MAX_HEIGHT);
+    }
+
+    private synchronized void unpinPages() throws HyracksDataException {
+        for (ICachedPage page : pages) {
+            if (page != null) {
+                bufferCache.unpin(page);
+            }
+        }
+        pages = new ICachedPage[0];
+    }
+
+    /**
+     * @return the number of tuples (including antimatter tuples) in the list.
+     */
+    public long getTupleCount() {
+        return tupleCount.get();
+    }
+
+    private ByteBuffer getPageBuffer(int pageId) throws HyracksDataException {
+        ICachedPage[] table = pages;
+        if (pageId < table.length && table[pageId] != null) {
+            return table[pageId].getBuffer();
+        }
+        return pinPage(pageId);
+    }
+
+    private synchronized ByteBuffer pinPage(int pageId) throws HyracksDataException {
+        ICachedPage[] table = pages;
+        if (pageId >= table.length) {
+            ICachedPage[] newTable = new ICachedPage[Math.max(2 * table.length, pageId + 1)];
+            System.arraycopy(table, 0, newTable, 0, table.length);
+            table = newTable;
+        }
+        if (table[pageId] == null) {
+            table[pageId] = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, pageId), true);
+        }
+        pages = table;
+        return table[pageId].getBuffer();
+    }
+
+    private long allocate(int size) throws HyracksDataException {
+        if (size > pageSize) {
+            throw new HyracksDataException("Tuple of " + size + " bytes does not fit into a page of " + pageSize
+                    + " bytes.");
+        }
+        while (true) {
+            long current = nextFreeAddress.get();
+            long address = current;
+            if (getOffset(current) + size > pageSize) {
+                address = (long) (getPageId(current) + 1) << 32;
+            }
+            if (nextFreeAddress.compareAndSet(current, address + size)) {
+                // Every allocated page is pinned, so that the buffer cache accounts for it.
+                getPageBuffer(getPageId(address));
+                return address;
+            }
+        }
+    }
+
+    private long writeTuple(ITupleReference tuple, ITreeIndexTupleWriter tupleWriter) throws HyracksDataException {
+        long address = allocate(tupleWriter.bytesRequired(tuple));
+        tupleWriter.writeTuple(tuple, getPageBuffer(getPageId(address)), getOffset(address));
+        return address;
+    }
+
+    private static int getPageId(long address) {
+        return (int) (address >>> 32);
+    }
+
+    private static int getOffset(long address) {
+        return (int) address;
+    }
+
+    private static int randomHeight() {
+        int random = ThreadLocalRandom.current().nextInt();
+        int height = 1;
+        // Each level holds a quarter of the nodes of the level below.
+        while ((random & 3) == 0 && height < MAX_HEIGHT) {
+            random >>>= 2;
+            height++;
+        }
+        return height;
+    }
+
+    ITupleReference getTuple(long address, ITreeIndexTupleReference tuple) throws HyracksDataException {
+        address &= ~REMOVED;
+        tuple.resetByTupleOffset(getPageBuffer(getPageId(address)), getOffset(address));
+        return tuple;
+    }
+
+    /**
+     * Fills preds and succs with the nodes around the given key on every level and returns the node with the same key,
+     * or null if there is none.
+     */
+    private Node find(ITupleReference key, MultiComparator cmp, Node[] preds, Node[] succs,
+            ITreeIndexTupleReference nodeTuple) throws HyracksDataException {
+        Node pred = head;
+        Node found = null;
+        for (int level = MAX_HEIGHT - 1; level >= 0; level--) {
+            Node curr = pred.getNext(level);
+            while (curr != null) {
+                int c = cmp.compare(key, getTuple(curr.getAddress(), nodeTuple));
+                if (c > 0) {
+                    pred = curr;
+                    curr = curr.getNext(level);
+                } else {
+                    if (c == 0) {
+                        found = curr;
+                    }
+                    break;
+                }
+            }
+            preds[level] = pred;
+            succs[level] = curr;
+        }
+        return found;
+    }
+
+    /**
+     * @return the first node whose key is greater than (or, if inclusive, equal to) the given key, or the first node
+     *         of the list if the key is null.
+     */
+    Node findFirst(ITupleReference key, MultiComparator cmp, boolean inclusive, ITreeIndexTupleReference nodeTuple)
+            throws HyracksDataException {
+        Node pred = head;
+        if (key == null) {
+            return pred.getNext(0);
+        }
+        Node curr = null;
+        for (int level = MAX_HEIGHT - 1; level >= 0; level--) {
+            curr = pred.getNext(level);
+            while (curr != null) {
+                int c = cmp.compare(key, getTuple(curr.getAddress(), nodeTuple));
+                if (c > 0 || (c == 0 && !inclusive)) {
+                    pred = curr;
+                    curr = curr.getNext(level);
+                } else {
+                    break;
+                }
+            }
+        }
+        return curr;
+    }
+
+    @Override
+    public IConditionalUpsertAccessor createAccessor(IModificationOperationCallback modificationCallback,
+            ISearchOperationCallback searchCallback) {
+        return new ConcurrentSkipListAccessor(modificationCallback);
+    }
+
+    public class ConcurrentSkipListAccessor implements IConditionalUpsertAccessor {
+        private final IModificationOperationCallback modificationCallback;
+        private final MultiComparator cmp;
+        private final Node[] preds = new Node[MAX_HEIGHT];
+        private final Node[] succs = new Node[MAX_HEIGHT];
+        private final ITreeIndexTupleReference nodeTuple;
+        private ITreeIndexTupleWriter tupleWriter;
+
+        public ConcurrentSkipListAccessor(IModificationOperationCallback modificationCallback) {
+            this.modificationCallback = modificationCallback;
+            this.cmp = MultiComparator.create(cmpFactories);
+            this.tupleWriter = leafFrameFactory.getTupleWriterFactory().createTupleWriter();
+            this.nodeTuple = tupleWriter.createTupleReference();
+        }
+
+        /**
+         * Sets the writer used for new tuples, e.g. one that writes antimatter tuples for deletes.
+         */
+        public void setTupleWriter(ITreeIndexTupleWriter tupleWriter) {
+            this.tupleWriter = tupleWriter;
+        }
+
+        @Override
+        public void insert(ITupleReference tuple) throws HyracksDataException, IndexException {
+            upsert(tuple, InsertTupleAcceptor.INSTANCE, false);
+        }
+
+        @Override
+        public void update(ITupleReference tuple) throws HyracksDataException, IndexException {
+            upsert(tuple, UnconditionalTupleAcceptor.INSTANCE, true);
+        }
+
+        @Override
+        public void upsert(ITupleReference tuple) throws HyracksDataException, IndexException {
+            upsert(tuple, UnconditionalTupleAcceptor.INSTANCE, false);
+        }
+
+        @Override
+        public void upsertIfConditionElseInsert(ITupleReference tuple, ITupleAcceptor acceptor)
+                throws HyracksDataException, IndexException {
+            upsert(tuple, acceptor, false);
+        }
+
+        private void upsert(ITupleReference tuple, ITupleAcceptor acceptor, boolean mustExist)
+                throws HyracksDataException, IndexException {
+            modificationCallback.before(tuple);
+            long newAddress = -1;
+            while (true) {
+                Node node = find(tuple, cmp, preds, succs, nodeTuple);
+                long address = node == null ? REMOVED : node.getAddress();
+                ITupleReference beforeTuple = (address & REMOVED) != 0 ? null : getTuple(address, nodeTuple);
+                if (beforeTuple == null && mustExist) {
+                    throw new TreeIndexNonExistentKeyException("Trying to update a tuple with a nonexistent key.");
+                }
+                if (beforeTuple != null && !acceptor.accept(beforeTuple)) {
+                    throw new TreeIndexDuplicateKeyException("Failed to insert key since key already exists.");
+                }
+                if (newAddress == -1) {
+                    newAddress = writeTuple(tuple, tupleWriter);
+                }
+                if (node == null) {
+                    if (link(tuple, newAddress)) {
+                        tupleCount.incrementAndGet();
+                        modificationCallback.found(null, tuple);
+                        return;
+                    }
+                } else if (node.casAddress(address, newAddress)) {
+                    if (beforeTuple == null) {
+                        tupleCount.incrementAndGet();
+                    }
+                    modificationCallback.found(beforeTuple, tuple);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Links a new node for the tuple at the given address between the nodes found by the last find().
+         * 
+         * @return false if a node with the same key was linked concurrently.
+         */
+        private boolean link(ITupleReference tuple, long address) throws HyracksDataException {
+            int height = randomHeight();
+            allocate(NODE_OVERHEAD + height * REFERENCE_SIZE);
+            Node node = new Node(address, height);
+            for (int level = 0; level < height; level++) {
+                while (true) {
+                    node.setNext(level, succs[level]);
+                    if (preds[level].casNext(level, succs[level], node)) {
+                        break;
+                    }
+                    // The list changed around the key, so look for the new neighbors.
+                    Node found = find(tuple, cmp, preds, succs, nodeTuple);
+                    if (level == 0 && found != null) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void delete(ITupleReference tuple) throws HyracksDataException, IndexException {
+            modificationCallback.before(tuple);
+            while (true) {
+                Node node = find(tuple, cmp, preds, succs, nodeTuple);
+                long address = node == null ? REMOVED : node.getAddress();
+                if ((address & REMOVED) != 0) {
+                    throw new TreeIndexNonExistentKeyException("Trying to delete a tuple with a nonexistent key.");
+                }
+                if (node.casAddress(address, address | REMOVED)) {
+                    tupleCount.decrementAndGet();
+                    modificationCallback.found(getTuple(address, nodeTuple), tuple);
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public IIndexCursor createSearchCursor(boolean exclusive) {
+            return new ConcurrentSkipListSearchCursor(ConcurrentSkipList.this, leafFrameFactory
+                    .getTupleWriterFactory().createTupleWriter().createTupleReference());
+        }
+
+        @Override
+        public void search(IIndexCursor cursor, ISearchPredicate searchPred) throws HyracksDataException,
+                IndexException {
+            cursor.open(null, searchPred);
+        }
+
+        @Override
+        public ITreeIndexCursor createDiskOrderScanCursor() {
+            throw new UnsupportedOperationException("A skip list has no disk order.");
+        }
+
+        @Override
+        public void diskOrderScan(ITreeIndexCursor cursor) throws HyracksDataException {
+            throw new UnsupportedOperationException("A skip list has no disk order.");
+        }
+    }
+
+    private enum InsertTupleAcceptor implements ITupleAcceptor {
+        INSTANCE;
+
+        @Override
+        public boolean accept(ITupleReference tuple) {
+            return tuple == null;
+        }
+    }
+
+    @Override
+    public IIndexBulkLoader createBulkLoader(float fillFactor, boolean verifyInput, long numElementsHint,
+            boolean checkIfEmptyIndex) throws IndexException {
+        final IConditionalUpsertAccessor accessor = createAccessor(NoOpOperationCallback.INSTANCE,
+                NoOpOperationCallback.INSTANCE);
+        return new IIndexBulkLoader() {
+            @Override
+            public void add(ITupleReference tuple) throws IndexException, HyracksDataException {
+                accessor.insert(tuple);
+            }
+
+            @Override
+            public void end() throws HyracksDataException {
+                // Nothing to do, the tuples are in the list already.
+            }
+        };
+    }
+
+    @Override
+    public void validate() throws HyracksDataException {
+        MultiComparator cmp = MultiComparator.create(cmpFactories);
+        ITreeIndexTupleWriter tupleWriter = leafFrameFactory.getTupleWriterFactory().createTupleWriter();
+        ITreeIndexTupleReference prevTuple = tupleWriter.createTupleReference();
+        ITreeIndexTupleReference tuple = tupleWriter.createTupleReference();
+        Node prev = head.getNext(0);
+        if (prev == null) {
+            return;
+        }
+        for (Node curr = prev.getNext(0); curr != null; prev = curr, curr = curr.getNext(0)) {
+            getTuple(prev.getAddress(), prevTuple);
+            getTuple(curr.getAddress(), tuple);
+            if (cmp.compare(prevTuple, tuple) >= 0) {
+                throw new HyracksDataException("Skip list is not in key order.");
+            }
+        }
+    }
+
+    @Override
+    public ITreeIndexFrameFactory getLeafFrameFactory() {
+        return leafFrameFactory;
+    }
+
+    @Override
+    public ITreeIndexFrameFactory getInteriorFrameFactory() {
+        return null;
+    }
+
+    @Override
+    public IFreePageManager getFreePageManager() {
+        return null;
+    }
+
+    @Override
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    @Override
+    public int getRootPageId() {
+        return -1;
+    }
+
+    @Override
+    public int getFileId() {
+        return fileId;
+    }
+
+    public FileReference getFileReference() {
+        return file;
+    }
+
+    @Override
+    public IBinaryComparatorFactory[] getComparatorFactories() {
+        return cmpFactories;
+    }
+
+    @Override
+    public IBufferCache getBufferCache() {
+        return bufferCache;
+    }
+
+    @Override
+    public long getMemoryAllocationSize() {
+        return 0;
+    }
+
+    @Override
+    public boolean hasMemoryComponents() {
+        return true;
+    }
+
+    static final class Node {
+        private static final AtomicLongFieldUpdater<Node> ADDRESS_UPDATER = AtomicLongFieldUpdater.newUpdater(
+                Node.class, "address");
+
+        private volatile long address;
+        private final AtomicReferenceArray<Node> next;
+
+        Node(long address, int height) {
+            this.address = address;
+            this.next = new AtomicReferenceArray<Node>(height);
+        }
+
+        long getAddress() {
+            return address;
+        }
+
+        boolean isRemoved() {
+            return (address & REMOVED) != 0;
+        }
+
+        boolean casAddress(long expect, long update) {
+            return ADDRESS_UPDATER.compareAndSet(this, expect, update);
+        }
+
+        Node getNext(int level) {
+            return next.get(level);
+        }
+
+        void setNext(int level, Node node) {
+            next.set(level, node);
+        }
+
+        boolean casNext(int level, Node expect, Node update) {
+            return next.compareAndSet(level, expect, update);
+        }
+    }
+}
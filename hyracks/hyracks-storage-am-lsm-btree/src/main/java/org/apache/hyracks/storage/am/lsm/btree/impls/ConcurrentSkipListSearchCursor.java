@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.btree.impls;
+
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.storage.am.btree.impls.RangePredicate;
+import org.apache.hyracks.storage.am.common.api.ICursorInitialState;
+import org.apache.hyracks.storage.am.common.api.IIndexCursor;
+import org.apache.hyracks.storage.am.common.api.ISearchPredicate;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexTupleReference;
+import org.apache.hyracks.storage.am.common.ophelpers.MultiComparator;
+
+/**
+ * Range search over a {@link ConcurrentSkipList}. The cursor holds no latches; it sees every tuple that was in the list
+ * when it reached the tuple's node.
+ */
+public class ConcurrentSkipListSearchCursor implements IIndexCursor {
+    private final ConcurrentSkipList skipList;
+    private final ITreeIndexTupleReference tuple;
+
+    private ConcurrentSkipList.Node nextNode;
+    private ITupleReference highKey;
+    private MultiComparator highKeyCmp;
+    private boolean highKeyInclusive;
+
+    public ConcurrentSkipListSearchCursor(ConcurrentSkipList skipList, ITreeIndexTupleReference tuple) {
+        this.skipList = skipList;
+        this.tuple = tuple;
+    }
+
+    @Override
+    public void open(ICursorInitialState initialState, ISearchPredicate searchPred) throws HyracksDataException {
+        RangePredicate pred = (RangePredicate) searchPred;
+        highKey = pred.getHighKey();
+        highKeyCmp = pred.getHighKeyComparator();
+        highKeyInclusive = pred.isHighKeyInclusive();
+        nextNode = skipList.findFirst(pred.getLowKey(), pred.getLowKeyComparator(), pred.isLowKeyInclusive(), tuple);
+    }
+
+    @Override
+    public boolean hasNext() throws HyracksDataException {
+        while (nextNode != null && nextNode.isRemoved()) {
+            nextNode = nextNode.getNext(0);
+        }
+        if (nextNode == null) {
+            return false;
+        }
+        if (highKey != null) {
+            skipList.getTuple(nextNode.getAddress(), tuple);
+            int c = highKeyCmp.compare(highKey, tuple);
+            if (c < 0 || (c == 0 && !highKeyInclusive)) {
+                nextNode = null;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void next() throws HyracksDataException {
+        skipList.getTuple(nextNode.getAddress(), tuple);
+        nextNode = nextNode.getNext(0);
+    }
+
+    @Override
+    public void close() throws HyracksDataException {
+        nextNode = null;
+    }
+
+    @Override
+    public void reset() throws HyracksDataException {
+        nextNode = null;
+    }
+
+    @Override
+    public ITupleReference getTuple() {
+        return tuple;
+    }
+}
@@ -417,7 +417,8 @@ public class ExternalBTreeWithBuddy extends AbstractLSMIndex implements ITreeInd
             search(opCtx, buddyBtreeCursor, btreeSearchPred);
 
             BTree buddyBtree = mergedComponent.getBuddyBTree();
-            IIndexBulkLoader buddyBtreeBulkLoader = buddyBtree.createBulkLoader(1.0f, true, 0L, false);
+            IIndexBulkLoader buddyBtreeBulkLoader = createRateLimitedBulkLoader(
+                    buddyBtree.createBulkLoader(1.0f, true, 0L, false));
 
             long numElements = 0L;
             for (int i = 0; i < mergeOp.getMergingComponents().size(); ++i) {
@@ -445,7 +446,8 @@ public class ExternalBTreeWithBuddy extends AbstractLSMIndex implements ITreeInd
             buddyBtreeBulkLoader.end();
         }
 
-        IIndexBulkLoader bulkLoader = mergedComponent.getBTree().createBulkLoader(1.0f, false, 0L, false);
+        IIndexBulkLoader bulkLoader = createRateLimitedBulkLoader(
+                mergedComponent.getBTree().createBulkLoader(1.0f, false, 0L, false));
         try {
             while (cursor.hasNext()) {
                 cursor.next();
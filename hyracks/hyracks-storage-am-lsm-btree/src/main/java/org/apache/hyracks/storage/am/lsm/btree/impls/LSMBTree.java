@@ -24,21 +24,31 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.apache.hyracks.api.dataflow.value.IBinaryComparatorFactory;
 import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.api.io.BackgroundIO;
 import org.apache.hyracks.api.io.FileReference;
+import org.apache.hyracks.api.util.TaskGroup;
 import org.apache.hyracks.data.std.primitive.IntegerPointable;
 import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
 import org.apache.hyracks.storage.am.bloomfilter.impls.BloomCalculations;
 import org.apache.hyracks.storage.am.bloomfilter.impls.BloomFilter;
+import org.apache.hyracks.storage.am.bloomfilter.impls.BloomFilter.BloomFilterBuilder;
 import org.apache.hyracks.storage.am.bloomfilter.impls.BloomFilterFactory;
 import org.apache.hyracks.storage.am.bloomfilter.impls.BloomFilterSpecification;
+import org.apache.hyracks.storage.am.btree.api.IBatchSearchAccessor;
+import org.apache.hyracks.storage.am.btree.api.IBatchSearchHandler;
 import org.apache.hyracks.storage.am.btree.impls.BTree;
 import org.apache.hyracks.storage.am.btree.impls.BTree.BTreeAccessor;
 import org.apache.hyracks.storage.am.btree.impls.BTree.BTreeBulkLoader;
-import org.apache.hyracks.storage.am.btree.impls.BTreeRangeSearchCursor;
+import org.apache.hyracks.storage.am.btree.impls.BTree.BTreeLeafRunLoader;
+import org.apache.hyracks.storage.am.btree.impls.BTree.BTreeRangeBulkLoader;
 import org.apache.hyracks.storage.am.btree.impls.RangePredicate;
+import org.apache.hyracks.storage.am.btree.util.BTreeUtils;
 import org.apache.hyracks.storage.am.common.api.IFreePageManager;
 import org.apache.hyracks.storage.am.common.api.IIndexAccessor;
 import org.apache.hyracks.storage.am.common.api.IIndexBulkLoader;
@@ -86,6 +96,9 @@ import org.apache.hyracks.storage.common.file.IFileMapProvider;
 
 public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
 
+    // The number of key hashes that a parallel range merge buffers before it adds them to the Bloom filter.
+    private static final int BLOOM_FILTER_HASH_BATCH_SIZE = 1024;
+
     // For creating BTree's used in flush and merge.
     protected final LSMBTreeDiskComponentFactory componentFactory;
     // For creating BTree's used in bulk load. Different from diskBTreeFactory
@@ -99,6 +112,9 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
 
     private final boolean needKeyDupCheck;
     private final int[] btreeFields;
+    // The number of key ranges that a merge is split into and merged in parallel.
+    private volatile int mergeParallelism = 1;
+    private volatile boolean pipelinedBulkLoad = false;
 
     public LSMBTree(List<IVirtualBufferCache> virtualBufferCaches, ITreeIndexFrameFactory interiorFrameFactory,
             ITreeIndexFrameFactory insertLeafFrameFactory, ITreeIndexFrameFactory deleteLeafFrameFactory,
@@ -110,17 +126,44 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
             ILSMMergePolicy mergePolicy, ILSMOperationTracker opTracker, ILSMIOOperationScheduler ioScheduler,
             ILSMIOOperationCallback ioOpCallback, boolean needKeyDupCheck, int[] btreeFields, int[] filterFields,
             boolean durable) {
+        this(virtualBufferCaches, interiorFrameFactory, insertLeafFrameFactory, deleteLeafFrameFactory, fileManager,
+                diskBTreeFactory, bulkLoadBTreeFactory, bloomFilterFactory, filterFactory, filterFrameFactory,
+                filterManager, bloomFilterFalsePositiveRate, diskFileMapProvider, fieldCount, cmpFactories,
+                mergePolicy, opTracker, ioScheduler, ioOpCallback, needKeyDupCheck, btreeFields, filterFields, durable,
+                false);
+    }
+
+    /**
+     * @param skipListMemoryComponents
+     *            whether the memory components are {@link ConcurrentSkipList}s instead of BTrees
+     */
+    public LSMBTree(List<IVirtualBufferCache> virtualBufferCaches, ITreeIndexFrameFactory interiorFrameFactory,
+            ITreeIndexFrameFactory insertLeafFrameFactory, ITreeIndexFrameFactory deleteLeafFrameFactory,
+            ILSMIndexFileManager fileManager, TreeIndexFactory<BTree> diskBTreeFactory,
+            TreeIndexFactory<BTree> bulkLoadBTreeFactory, BloomFilterFactory bloomFilterFactory,
+            ILSMComponentFilterFactory filterFactory, ILSMComponentFilterFrameFactory filterFrameFactory,
+            LSMComponentFilterManager filterManager, double bloomFilterFalsePositiveRate,
+            IFileMapProvider diskFileMapProvider, int fieldCount, IBinaryComparatorFactory[] cmpFactories,
+            ILSMMergePolicy mergePolicy, ILSMOperationTracker opTracker, ILSMIOOperationScheduler ioScheduler,
+            ILSMIOOperationCallback ioOpCallback, boolean needKeyDupCheck, int[] btreeFields, int[] filterFields,
+            boolean durable, boolean skipListMemoryComponents) {
         super(virtualBufferCaches, diskBTreeFactory.getBufferCache(), fileManager, diskFileMapProvider,
                 bloomFilterFalsePositiveRate, mergePolicy, opTracker, ioScheduler, ioOpCallback, filterFrameFactory,
                 filterManager, filterFields, durable);
         int i = 0;
         for (IVirtualBufferCache virtualBufferCache : virtualBufferCaches) {
-            LSMBTreeMemoryComponent mutableComponent = new LSMBTreeMemoryComponent(new BTree(virtualBufferCache,
-                    virtualBufferCache.getFileMapProvider(), new VirtualFreePageManager(
-                            virtualBufferCache.getNumPages()), interiorFrameFactory, insertLeafFrameFactory,
-                    cmpFactories, fieldCount, new FileReference(new File(fileManager.getBaseDir() + "_virtual_" + i))),
-                    virtualBufferCache, i == 0 ? true : false, filterFactory == null ? null
-                            : filterFactory.createLSMComponentFilter());
+            FileReference memoryFile = new FileReference(new File(fileManager.getBaseDir() + "_virtual_" + i));
+            ITreeIndex memoryIndex;
+            if (skipListMemoryComponents) {
+                memoryIndex = new ConcurrentSkipList(virtualBufferCache, virtualBufferCache.getFileMapProvider(),
+                        insertLeafFrameFactory, cmpFactories, fieldCount, memoryFile);
+            } else {
+                memoryIndex = new BTree(virtualBufferCache, virtualBufferCache.getFileMapProvider(),
+                        new VirtualFreePageManager(virtualBufferCache.getNumPages()), interiorFrameFactory,
+                        insertLeafFrameFactory, cmpFactories, fieldCount, memoryFile);
+            }
+            LSMBTreeMemoryComponent mutableComponent = new LSMBTreeMemoryComponent(memoryIndex, virtualBufferCache,
+                    i == 0 ? true : false, filterFactory == null ? null : filterFactory.createLSMComponentFilter());
             memoryComponents.add(mutableComponent);
             ++i;
         }
@@ -172,9 +215,9 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
         }
         for (ILSMComponent c : memoryComponents) {
             LSMBTreeMemoryComponent mutableComponent = (LSMBTreeMemoryComponent) c;
-            ((IVirtualBufferCache) mutableComponent.getBTree().getBufferCache()).open();
-            mutableComponent.getBTree().create();
-            mutableComponent.getBTree().activate();
+            ((IVirtualBufferCache) mutableComponent.getIndex().getBufferCache()).open();
+            mutableComponent.getIndex().create();
+            mutableComponent.getIndex().activate();
         }
         List<ILSMComponent> immutableComponents = diskComponents;
         immutableComponents.clear();
@@ -203,6 +246,7 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
         if (!isActivated) {
             throw new HyracksDataException("Failed to deactivate the index since it is already deactivated.");
         }
+        retireComponentSnapshot();
 
         if (flushOnExit) {
             BlockingIOOperationCallbackWrapper cb = new BlockingIOOperationCallbackWrapper(ioOpCallback);
@@ -225,9 +269,9 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
         }
         for (ILSMComponent c : memoryComponents) {
             LSMBTreeMemoryComponent mutableComponent = (LSMBTreeMemoryComponent) c;
-            mutableComponent.getBTree().deactivate();
-            mutableComponent.getBTree().destroy();
-            ((IVirtualBufferCache) mutableComponent.getBTree().getBufferCache()).close();
+            mutableComponent.getIndex().deactivate();
+            mutableComponent.getIndex().destroy();
+            ((IVirtualBufferCache) mutableComponent.getIndex().getBufferCache()).close();
         }
         isActivated = false;
     }
@@ -251,7 +295,7 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
         }
         for (ILSMComponent c : memoryComponents) {
             LSMBTreeMemoryComponent mutableComponent = (LSMBTreeMemoryComponent) c;
-            mutableComponent.getBTree().destroy();
+            mutableComponent.getIndex().destroy();
         }
         fileManager.deleteDirs();
     }
@@ -261,11 +305,12 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
         if (!isActivated) {
             throw new HyracksDataException("Failed to clear the index since it is not activated.");
         }
+        retireComponentSnapshot();
 
         List<ILSMComponent> immutableComponents = diskComponents;
         for (ILSMComponent c : memoryComponents) {
             LSMBTreeMemoryComponent mutableComponent = (LSMBTreeMemoryComponent) c;
-            mutableComponent.getBTree().clear();
+            mutableComponent.getIndex().clear();
             mutableComponent.reset();
         }
         for (ILSMComponent c : immutableComponents) {
@@ -360,13 +405,13 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
 
         switch (ctx.getOperation()) {
             case PHYSICALDELETE:
-                ctx.currentMutableBTreeAccessor.delete(indexTuple);
+                ctx.currentMutableIndexAccessor.delete(indexTuple);
                 break;
             case INSERT:
                 insert(indexTuple, ctx);
                 break;
             default:
-                ctx.currentMutableBTreeAccessor.upsert(indexTuple);
+                ctx.currentMutableIndexAccessor.upsert(indexTuple);
                 break;
         }
         if (ctx.filterTuple != null) {
@@ -379,14 +424,14 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
     private boolean insert(ITupleReference tuple, LSMBTreeOpContext ctx) throws HyracksDataException, IndexException {
         ILSMComponent c = ctx.getComponentHolder().get(0);
         LSMBTreeMemoryComponent mutableComponent = (LSMBTreeMemoryComponent) c;
-        MultiComparator comparator = MultiComparator.create(mutableComponent.getBTree().getComparatorFactories());
+        MultiComparator comparator = MultiComparator.create(mutableComponent.getIndex().getComparatorFactories());
         LSMBTreePointSearchCursor searchCursor = new LSMBTreePointSearchCursor(ctx);
-        IIndexCursor memCursor = new BTreeRangeSearchCursor(ctx.currentMutableBTreeOpCtx.leafFrame, false);
+        IIndexCursor memCursor = ctx.currentMutableIndexAccessor.createSearchCursor(false);
         RangePredicate predicate = new RangePredicate(tuple, tuple, true, true, comparator, comparator);
 
         if (needKeyDupCheck) {
             // first check the inmemory component
-            ctx.currentMutableBTreeAccessor.search(memCursor, predicate);
+            ctx.currentMutableIndexAccessor.search(memCursor, predicate);
             try {
                 if (memCursor.hasNext()) {
                     memCursor.next();
@@ -395,7 +440,7 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
                         throw new TreeIndexDuplicateKeyException("Failed to insert key since key already exists.");
                     } else {
                         memCursor.close();
-                        ctx.currentMutableBTreeAccessor.upsertIfConditionElseInsert(tuple,
+                        ctx.currentMutableIndexAccessor.upsertIfConditionElseInsert(tuple,
                                 AntimatterAwareTupleAcceptor.INSTANCE);
                         return true;
                     }
@@ -425,7 +470,7 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
             }
         }
 
-        ctx.currentMutableBTreeAccessor.upsertIfConditionElseInsert(tuple, AntimatterAwareTupleAcceptor.INSTANCE);
+        ctx.currentMutableIndexAccessor.upsertIfConditionElseInsert(tuple, AntimatterAwareTupleAcceptor.INSTANCE);
         return true;
     }
 
@@ -437,6 +482,7 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
 
         LSMBTreeCursorInitialState initialState = new LSMBTreeCursorInitialState(insertLeafFrameFactory, ctx.cmp,
                 ctx.bloomFilterCmp, lsmHarness, pred, ctx.searchCallback, operationalComponents);
+        initialState.setBatchSearch(ctx.batchSearch);
         cursor.open(initialState, pred);
     }
 
@@ -459,21 +505,27 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
     public ILSMComponent flush(ILSMIOOperation operation) throws HyracksDataException, IndexException {
         LSMBTreeFlushOperation flushOp = (LSMBTreeFlushOperation) operation;
         LSMBTreeMemoryComponent flushingComponent = (LSMBTreeMemoryComponent) flushOp.getFlushingComponent();
-        IIndexAccessor accessor = flushingComponent.getBTree().createAccessor(NoOpOperationCallback.INSTANCE,
+        ITreeIndex memoryIndex = flushingComponent.getIndex();
+        IIndexAccessor accessor = memoryIndex.createAccessor(NoOpOperationCallback.INSTANCE,
                 NoOpOperationCallback.INSTANCE);
 
         RangePredicate nullPred = new RangePredicate(null, null, true, true, null, null);
-        IIndexCursor countingCursor = ((BTreeAccessor) accessor).createCountingSearchCursor();
-        accessor.search(countingCursor, nullPred);
         long numElements = 0L;
-        try {
-            while (countingCursor.hasNext()) {
-                countingCursor.next();
-                ITupleReference countTuple = countingCursor.getTuple();
-                numElements = IntegerPointable.getInteger(countTuple.getFieldData(0), countTuple.getFieldStart(0));
+        if (memoryIndex instanceof ConcurrentSkipList) {
+            numElements = ((ConcurrentSkipList) memoryIndex).getTupleCount();
+        } else {
+            IIndexCursor countingCursor = ((BTreeAccessor) accessor).createCountingSearchCursor();
+            accessor.search(countingCursor, nullPred);
+            try {
+                while (countingCursor.hasNext()) {
+                    countingCursor.next();
+                    ITupleReference countTuple = countingCursor.getTuple();
+                    numElements = IntegerPointable.getInteger(countTuple.getFieldData(0),
+                            countTuple.getFieldStart(0));
+                }
+            } finally {
+                countingCursor.close();
             }
-        } finally {
-            countingCursor.close();
         }
 
         int maxBucketsPerElement = BloomCalculations.maxBucketsPerElement(numElements);
@@ -482,7 +534,8 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
 
         LSMBTreeDiskComponent component = createDiskComponent(componentFactory, flushOp.getBTreeFlushTarget(),
                 flushOp.getBloomFilterFlushTarget(), true);
-        IIndexBulkLoader bulkLoader = component.getBTree().createBulkLoader(1.0f, false, numElements, false);
+        IIndexBulkLoader bulkLoader = createRateLimitedBulkLoader(
+                component.getBTree().createBulkLoader(1.0f, false, numElements, false));
         IIndexBulkLoader builder = component.getBloomFilter().createBuilder(numElements,
                 bloomFilterSpec.getNumHashes(), bloomFilterSpec.getNumBucketsPerElements());
 
@@ -538,11 +591,9 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
     public ILSMComponent merge(ILSMIOOperation operation) throws HyracksDataException, IndexException {
         LSMBTreeMergeOperation mergeOp = (LSMBTreeMergeOperation) operation;
         ITreeIndexCursor cursor = mergeOp.getCursor();
-        RangePredicate rangePred = new RangePredicate(null, null, true, true, null, null);
         ILSMIndexOperationContext opCtx = ((LSMIndexSearchCursor) cursor).getOpCtx();
-        opCtx.getComponentHolder().addAll(mergeOp.getMergingComponents());
-        search(opCtx, cursor, rangePred);
         List<ILSMComponent> mergedComponents = mergeOp.getMergingComponents();
+        opCtx.getComponentHolder().addAll(mergedComponents);
 
         long numElements = 0L;
         for (int i = 0; i < mergedComponents.size(); ++i) {
@@ -555,21 +606,34 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
         LSMBTreeDiskComponent mergedComponent = createDiskComponent(componentFactory, mergeOp.getBTreeMergeTarget(),
                 mergeOp.getBloomFilterMergeTarget(), true);
 
-        IIndexBulkLoader bulkLoader = mergedComponent.getBTree().createBulkLoader(1.0f, false, numElements, false);
         IIndexBulkLoader builder = mergedComponent.getBloomFilter().createBuilder(numElements,
                 bloomFilterSpec.getNumHashes(), bloomFilterSpec.getNumBucketsPerElements());
-        try {
-            while (cursor.hasNext()) {
-                cursor.next();
-                ITupleReference frameTuple = cursor.getTuple();
-                builder.add(frameTuple);
-                bulkLoader.add(frameTuple);
+        List<ITupleReference> splitKeys = getMergeSplitKeys(mergedComponents);
+        if (splitKeys.isEmpty()) {
+            IIndexBulkLoader bulkLoader = createRateLimitedBulkLoader(
+                    mergedComponent.getBTree().createBulkLoader(1.0f, false, numElements, false));
+            RangePredicate rangePred = new RangePredicate(null, null, true, true, null, null);
+            search(opCtx, cursor, rangePred);
+            try {
+                while (cursor.hasNext()) {
+                    cursor.next();
+                    ITupleReference frameTuple = cursor.getTuple();
+                    builder.add(frameTuple);
+                    bulkLoader.add(frameTuple);
+                }
+            } finally {
+                cursor.close();
+                builder.end();
+            }
+            bulkLoader.end();
+        } else {
+            try {
+                mergeKeyRanges(mergedComponents, splitKeys, ((LSMIndexSearchCursor) cursor).getReturnDeletedTuples(),
+                        mergedComponent.getBTree(), mergedComponent.getBloomFilter(), (BloomFilterBuilder) builder);
+            } finally {
+                builder.end();
             }
-        } finally {
-            cursor.close();
-            builder.end();
         }
-        bulkLoader.end();
 
         if (mergedComponent.getLSMComponentFilter() != null) {
             List<ITupleReference> filterTuples = new ArrayList<ITupleReference>();
@@ -584,6 +648,152 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
         return mergedComponent;
     }
 
+    /**
+     * Sets the number of key ranges that a merge is split into. The ranges are merged concurrently on the threads of
+     * {@link TaskGroup}, each into its own run of leaf pages, and the runs are stitched into the merged B-tree. A value
+     * of 1 merges on a single thread.
+     */
+    public void setMergeParallelism(int mergeParallelism) {
+        if (mergeParallelism < 1) {
+            throw new IllegalArgumentException("Merge parallelism must be positive: " + mergeParallelism);
+        }
+        this.mergeParallelism = mergeParallelism;
+    }
+
+    public int getMergeParallelism() {
+        return mergeParallelism;
+    }
+
+    /**
+     * Makes flushes, single-threaded merges and bulk loads write the B-trees of new disk components with a
+     * {@link BTree.BTreePipelinedBulkLoader}.
+     */
+    public void setPipelinedBulkLoad(boolean pipelinedBulkLoad) {
+        this.pipelinedBulkLoad = pipelinedBulkLoad;
+    }
+
+    public boolean isPipelinedBulkLoad() {
+        return pipelinedBulkLoad;
+    }
+
+    /**
+     * Makes searches of the in-memory B-trees descend without latching the interior nodes, see
+     * {@link BTree#setOptimisticReads(boolean)}. Disk components are not modified after they are written, so their
+     * latches are not contended and their searches are left as they are.
+     */
+    public void setOptimisticReads(boolean optimisticReads) {
+        for (ILSMComponent c : memoryComponents) {
+            ITreeIndex memoryIndex = ((LSMBTreeMemoryComponent) c).getIndex();
+            if (memoryIndex instanceof BTree) {
+                ((BTree) memoryIndex).setOptimisticReads(optimisticReads);
+            }
+        }
+    }
+
+    private List<ITupleReference> getMergeSplitKeys(List<ILSMComponent> mergingComponents)
+            throws HyracksDataException {
+        if (mergeParallelism < 2) {
+            return new ArrayList<ITupleReference>();
+        }
+        // The key distribution of the largest component is the best guess for that of the merged one.
+        LSMBTreeDiskComponent largestComponent = (LSMBTreeDiskComponent) mergingComponents.get(0);
+        for (ILSMComponent c : mergingComponents) {
+            if (((LSMBTreeDiskComponent) c).getComponentSize() > largestComponent.getComponentSize()) {
+                largestComponent = (LSMBTreeDiskComponent) c;
+            }
+        }
+        return largestComponent.getBTree().getRangeSplitKeys(mergeParallelism);
+    }
+
+    private void mergeKeyRanges(final List<ILSMComponent> mergingComponents, List<ITupleReference> splitKeys,
+            final boolean returnDeletedTuples, BTree mergeTarget, final BloomFilter bloomFilter,
+            final BloomFilterBuilder bloomFilterBuilder) throws HyracksDataException, IndexException {
+        final BTreeRangeBulkLoader bulkLoader = mergeTarget.createRangeBulkLoader(1.0f);
+        final TaskGroup<BTreeLeafRunLoader> rangeMerges = new TaskGroup<BTreeLeafRunLoader>();
+        int numRanges = splitKeys.size() + 1;
+        boolean completed = false;
+        try {
+            List<Future<BTreeLeafRunLoader>> runs = new ArrayList<Future<BTreeLeafRunLoader>>();
+            for (int i = 0; i < numRanges; i++) {
+                final ITupleReference lowKey = i == 0 ? null : splitKeys.get(i - 1);
+                final ITupleReference highKey = i == numRanges - 1 ? null : splitKeys.get(i);
+                runs.add(rangeMerges.submit(new Callable<BTreeLeafRunLoader>() {
+                    @Override
+                    public BTreeLeafRunLoader call() throws HyracksDataException, IndexException {
+                        boolean wasBackground = BackgroundIO.begin();
+                        try {
+                            return mergeKeyRange(mergingComponents, lowKey, highKey, returnDeletedTuples,
+                                    bulkLoader, bloomFilter, bloomFilterBuilder, rangeMerges);
+                        } finally {
+                            BackgroundIO.end(wasBackground);
+                        }
+                    }
+                }));
+            }
+            // Runs are stitched in key order while the later ones are still being merged.
+            for (Future<BTreeLeafRunLoader> run : runs) {
+                bulkLoader.addRun(run.get());
+            }
+            completed = true;
+        } catch (InterruptedException e) {
+            throw new HyracksDataException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof HyracksDataException) {
+                throw (HyracksDataException) e.getCause();
+            } else if (e.getCause() instanceof IndexException) {
+                throw (IndexException) e.getCause();
+            }
+            throw new HyracksDataException(e.getCause());
+        } finally {
+            if (!completed) {
+                // The merge target must not be cleaned up while ranges are still writing to it.
+                rangeMerges.cancelAndWait();
+            }
+        }
+        bulkLoader.end();
+    }
+
+    private BTreeLeafRunLoader mergeKeyRange(List<ILSMComponent> mergingComponents, ITupleReference lowKey,
+            ITupleReference highKey, boolean returnDeletedTuples, BTreeRangeBulkLoader bulkLoader,
+            BloomFilter bloomFilter, BloomFilterBuilder bloomFilterBuilder, TaskGroup<?> rangeMerges)
+            throws HyracksDataException, IndexException {
+        LSMBTreeOpContext opCtx = createOpContext(NoOpOperationCallback.INSTANCE, NoOpOperationCallback.INSTANCE);
+        opCtx.setOperation(IndexOperation.MERGE);
+        opCtx.getComponentHolder().addAll(mergingComponents);
+        ITreeIndexCursor cursor = new LSMBTreeRangeSearchCursor(opCtx, returnDeletedTuples);
+        // Ranges are (lowKey, highKey], so that each split key belongs to exactly one range.
+        RangePredicate rangePred = new RangePredicate(lowKey, highKey, false, true, opCtx.cmp, opCtx.cmp);
+        search(opCtx, cursor, rangePred);
+        BTreeLeafRunLoader run = bulkLoader.createLeafRunLoader();
+        IIndexBulkLoader runLoader = createRateLimitedBulkLoader(run);
+        // The key hashes are buffered, so that the ranges add them to the shared Bloom filter in batches.
+        long[] keyHashes = new long[2 * BLOOM_FILTER_HASH_BATCH_SIZE];
+        long[] keyHash = new long[2];
+        int numKeys = 0;
+        try {
+            while (cursor.hasNext()) {
+                if (rangeMerges.isCancelled()) {
+                    throw new HyracksDataException("The merge of the key range was cancelled.");
+                }
+                cursor.next();
+                ITupleReference frameTuple = cursor.getTuple();
+                bloomFilter.computeHashes(frameTuple, keyHash);
+                keyHashes[2 * numKeys] = keyHash[0];
+                keyHashes[2 * numKeys + 1] = keyHash[1];
+                if (++numKeys == BLOOM_FILTER_HASH_BATCH_SIZE) {
+                    bloomFilterBuilder.addHashes(keyHashes, numKeys);
+                    numKeys = 0;
+                }
+                runLoader.add(frameTuple);
+            }
+            bloomFilterBuilder.addHashes(keyHashes, numKeys);
+        } finally {
+            cursor.close();
+        }
+        runLoader.end();
+        return run;
+    }
+
     protected LSMBTreeDiskComponent createDiskComponent(LSMBTreeDiskComponentFactory factory,
             FileReference btreeFileRef, FileReference bloomFilterFileRef, boolean createComponent)
             throws HyracksDataException, IndexException {
@@ -593,10 +803,16 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
         if (createComponent) {
             component.getBTree().create();
             component.getBloomFilter().create();
+            component.getBTree().setPipelinedBulkLoad(pipelinedBulkLoad);
         }
         // BTree will be closed during cleanup of merge().
         component.getBTree().activate();
         component.getBloomFilter().activate();
+        if (!createComponent) {
+            // an existing component is valid and will not be modified
+            diskBufferCache.markFileImmutable(component.getBTree().getFileId());
+            diskBufferCache.markFileImmutable(component.getBloomFilter().getFileId());
+        }
         if (component.getLSMComponentFilter() != null) {
             filterManager.readFilterInfo(component.getLSMComponentFilter(), component.getBTree());
         }
@@ -630,6 +846,7 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
         int startPage = 0;
         int maxPage = component.getBloomFilter().getNumPages();
         forceFlushDirtyPages(bufferCache, fileId, startPage, maxPage);
+        bufferCache.markFileImmutable(fileId);
         forceFlushDirtyPages(component.getBTree());
         markAsValidInternal(component.getBTree());
     }
@@ -753,11 +970,33 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
         return new LSMBTreeAccessor(lsmHarness, createOpContext(modificationCallback, searchCallback));
     }
 
-    public class LSMBTreeAccessor extends LSMTreeIndexAccessor {
+    public class LSMBTreeAccessor extends LSMTreeIndexAccessor implements IBatchSearchAccessor {
         public LSMBTreeAccessor(ILSMHarness lsmHarness, ILSMIndexOperationContext ctx) {
             super(lsmHarness, ctx);
         }
 
+        @Override
+        public void searchBatch(IIndexCursor cursor, RangePredicate searchPred, ITupleReference[] keys,
+                int keyCount, IBatchSearchHandler handler) throws HyracksDataException, IndexException {
+            LSMBTreeOpContext concreteCtx = (LSMBTreeOpContext) ctx;
+            MultiComparator keyCmp = searchPred.getLowKeyComparator() != null ? searchPred.getLowKeyComparator()
+                    : concreteCtx.cmp;
+            int[] order = BTreeUtils.getSortedKeyOrder(keys, keyCount, keyCmp);
+            LSMBTreeBatchSearch batchSearch = new LSMBTreeBatchSearch(keys, keyCount);
+            concreteCtx.batchSearch = batchSearch;
+            try {
+                for (int i = 0; i < keyCount; i++) {
+                    handler.prepareSearch(order[i]);
+                    batchSearch.setKeyIndex(order[i]);
+                    cursor.reset();
+                    search(cursor, searchPred);
+                    handler.writeResults(order[i], cursor);
+                }
+            } finally {
+                concreteCtx.batchSearch = null;
+            }
+        }
+
         @Override
         public IIndexCursor createSearchCursor(boolean exclusive) {
             return new LSMBTreeSearchCursor(ctx);
@@ -783,35 +1022,35 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
     public ITreeIndexFrameFactory getInteriorFrameFactory() {
         LSMBTreeMemoryComponent mutableComponent = (LSMBTreeMemoryComponent) memoryComponents
                 .get(currentMutableComponentId.get());
-        return mutableComponent.getBTree().getInteriorFrameFactory();
+        return mutableComponent.getIndex().getInteriorFrameFactory();
     }
 
     @Override
     public int getFieldCount() {
         LSMBTreeMemoryComponent mutableComponent = (LSMBTreeMemoryComponent) memoryComponents
                 .get(currentMutableComponentId.get());
-        return mutableComponent.getBTree().getFieldCount();
+        return mutableComponent.getIndex().getFieldCount();
     }
 
     @Override
     public int getFileId() {
         LSMBTreeMemoryComponent mutableComponent = (LSMBTreeMemoryComponent) memoryComponents
                 .get(currentMutableComponentId.get());
-        return mutableComponent.getBTree().getFileId();
+        return mutableComponent.getIndex().getFileId();
     }
 
     @Override
     public IFreePageManager getFreePageManager() {
         LSMBTreeMemoryComponent mutableComponent = (LSMBTreeMemoryComponent) memoryComponents
                 .get(currentMutableComponentId.get());
-        return mutableComponent.getBTree().getFreePageManager();
+        return mutableComponent.getIndex().getFreePageManager();
     }
 
     @Override
     public ITreeIndexFrameFactory getLeafFrameFactory() {
         LSMBTreeMemoryComponent mutableComponent = (LSMBTreeMemoryComponent) memoryComponents
                 .get(currentMutableComponentId.get());
-        return mutableComponent.getBTree().getLeafFrameFactory();
+        return mutableComponent.getIndex().getLeafFrameFactory();
     }
 
     @Override
@@ -819,7 +1058,7 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
         long size = 0;
         for (ILSMComponent c : memoryComponents) {
             LSMBTreeMemoryComponent mutableComponent = (LSMBTreeMemoryComponent) c;
-            IBufferCache virtualBufferCache = mutableComponent.getBTree().getBufferCache();
+            IBufferCache virtualBufferCache = mutableComponent.getIndex().getBufferCache();
             size += virtualBufferCache.getNumPages() * virtualBufferCache.getPageSize();
         }
         return size;
@@ -829,14 +1068,14 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
     public int getRootPageId() {
         LSMBTreeMemoryComponent mutableComponent = (LSMBTreeMemoryComponent) memoryComponents
                 .get(currentMutableComponentId.get());
-        return mutableComponent.getBTree().getRootPageId();
+        return mutableComponent.getIndex().getRootPageId();
     }
 
     @Override
     public void validate() throws HyracksDataException {
         for (ILSMComponent c : memoryComponents) {
             LSMBTreeMemoryComponent mutableComponent = (LSMBTreeMemoryComponent) c;
-            mutableComponent.getBTree().validate();
+            mutableComponent.getIndex().validate();
         }
         List<ILSMComponent> immutableComponents = diskComponents;
         for (ILSMComponent c : immutableComponents) {
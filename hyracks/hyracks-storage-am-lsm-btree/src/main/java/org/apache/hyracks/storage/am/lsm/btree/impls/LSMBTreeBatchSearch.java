@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.hyracks.storage.am.lsm.btree.impls;
+
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.storage.am.bloomfilter.impls.BloomFilter;
+import org.apache.hyracks.storage.am.btree.impls.BTree;
+import org.apache.hyracks.storage.am.common.api.IIndexAccessor;
+import org.apache.hyracks.storage.am.common.api.IIndexCursor;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponent;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponent.LSMComponentType;
+
+/**
+ * State of a batched point search over an LSM BTree that outlives the individual searches of the batch. The component
+ * BTrees are searched through the same accessors for the whole batch, so that searches of a disk component can start
+ * at the leaf of the previous key, and the Bloom filter of a disk component is probed for all keys of the batch
+ * before its BTree is searched for the first one.
+ */
+final class LSMBTreeBatchSearch {
+    private final ITupleReference[] keys;
+    private final int keyCount;
+    private final Map<ILSMComponent, ComponentSearch> componentSearches =
+            new IdentityHashMap<ILSMComponent, ComponentSearch>();
+    private final long[] hashes = new long[2];
+    private int keyIndex = -1;
+
+    LSMBTreeBatchSearch(ITupleReference[] keys, int keyCount) {
+        this.keys = keys;
+        this.keyCount = keyCount;
+    }
+
+    void setKeyIndex(int keyIndex) {
+        this.keyIndex = keyIndex;
+    }
+
+    IIndexAccessor getAccessor(ILSMComponent component) {
+        ComponentSearch search = componentSearches.get(component);
+        return search == null ? null : search.accessor;
+    }
+
+    IIndexCursor getCursor(ILSMComponent component) {
+        ComponentSearch search = componentSearches.get(component);
+        return search == null ? null : search.cursor;
+    }
+
+    /**
+     * Registers the accessor and cursor used to search the given component for the rest of the batch.
+     */
+    void register(ILSMComponent component, IIndexAccessor accessor, IIndexCursor cursor) {
+        // Memory components are recycled after a flush, so only the leaves of disk components stay valid as hints.
+        if (component.getType() == LSMComponentType.DISK && accessor instanceof BTree.BTreeAccessor) {
+            ((BTree.BTreeAccessor) accessor).setSortedSearch(true);
+        }
+        componentSearches.put(component, new ComponentSearch(accessor, cursor));
+    }
+
+    /**
+     * @return false if the Bloom filter of the component rules out the current key.
+     */
+    boolean mayContainKey(ILSMComponent component, BloomFilter bloomFilter) throws HyracksDataException {
+        ComponentSearch search = componentSearches.get(component);
+        if (search.bloomFilterHits == null) {
+            BitSet hits = new BitSet(keyCount);
+            for (int i = 0; i < keyCount; i++) {
+                if (bloomFilter.contains(keys[i], hashes)) {
+                    hits.set(i);
+                }
+            }
+            search.bloomFilterHits = hits;
+        }
+        return search.bloomFilterHits.get(keyIndex);
+    }
+
+    private static class ComponentSearch {
+        private final IIndexAccessor accessor;
+        private final IIndexCursor cursor;
+        private BitSet bloomFilterHits;
+
+        private ComponentSearch(IIndexAccessor accessor, IIndexCursor cursor) {
+            this.accessor = accessor;
+            this.cursor = cursor;
+        }
+    }
+}
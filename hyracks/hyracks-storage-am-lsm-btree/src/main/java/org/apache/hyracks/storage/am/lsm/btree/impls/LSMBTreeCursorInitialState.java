@@ -41,6 +41,7 @@ public class LSMBTreeCursorInitialState implements ICursorInitialState {
     private ISearchOperationCallback searchCallback;
 
     private final List<ILSMComponent> operationalComponents;
+    private LSMBTreeBatchSearch batchSearch;
 
     public LSMBTreeCursorInitialState(ITreeIndexFrameFactory leafFrameFactory, MultiComparator cmp,
             MultiComparator bloomFilterCmp, ILSMHarness lsmHarness, ISearchPredicate predicate,
@@ -85,6 +86,14 @@ public class LSMBTreeCursorInitialState implements ICursorInitialState {
         return operationalComponents;
     }
 
+    LSMBTreeBatchSearch getBatchSearch() {
+        return batchSearch;
+    }
+
+    void setBatchSearch(LSMBTreeBatchSearch batchSearch) {
+        this.batchSearch = batchSearch;
+    }
+
     public ISearchPredicate getSearchPredicate() {
         return predicate;
     }
@@ -20,31 +20,37 @@
 package org.apache.hyracks.storage.am.lsm.btree.impls;
 
 import org.apache.hyracks.api.exceptions.HyracksDataException;
-import org.apache.hyracks.storage.am.btree.impls.BTree;
+import org.apache.hyracks.storage.am.common.api.ITreeIndex;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponentFilter;
 import org.apache.hyracks.storage.am.lsm.common.api.IVirtualBufferCache;
 import org.apache.hyracks.storage.am.lsm.common.impls.AbstractMemoryLSMComponent;
 
 public class LSMBTreeMemoryComponent extends AbstractMemoryLSMComponent {
 
-    private final BTree btree;
+    private final ITreeIndex index;
 
-    public LSMBTreeMemoryComponent(BTree btree, IVirtualBufferCache vbc, boolean isActive, ILSMComponentFilter filter) {
+    /**
+     * @param index
+     *            the in-memory index, either a {@link org.apache.hyracks.storage.am.btree.impls.BTree} or a
+     *            {@link ConcurrentSkipList}
+     */
+    public LSMBTreeMemoryComponent(ITreeIndex index, IVirtualBufferCache vbc, boolean isActive,
+            ILSMComponentFilter filter) {
         super(vbc, isActive, filter);
-        this.btree = btree;
+        this.index = index;
     }
 
-    public BTree getBTree() {
-        return btree;
+    public ITreeIndex getIndex() {
+        return index;
     }
 
     @Override
     protected void reset() throws HyracksDataException {
         super.reset();
-        btree.deactivate();
-        btree.destroy();
-        btree.create();
-        btree.activate();
+        index.deactivate();
+        index.destroy();
+        index.create();
+        index.activate();
     }
 
 }
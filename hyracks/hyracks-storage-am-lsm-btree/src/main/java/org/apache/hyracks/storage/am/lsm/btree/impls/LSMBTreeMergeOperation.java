@@ -29,11 +29,11 @@ import org.apache.hyracks.api.io.IODeviceHandle;
 import org.apache.hyracks.storage.am.common.api.ITreeIndexCursor;
 import org.apache.hyracks.storage.am.common.api.IndexException;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponent;
-import org.apache.hyracks.storage.am.lsm.common.api.ILSMIOOperation;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMIOOperationCallback;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMIndexAccessorInternal;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMMergeOperation;
 
-public class LSMBTreeMergeOperation implements ILSMIOOperation {
+public class LSMBTreeMergeOperation implements ILSMMergeOperation {
 
     private final ILSMIndexAccessorInternal accessor;
     private final List<ILSMComponent> mergingComponents;
@@ -97,6 +97,7 @@ public class LSMBTreeMergeOperation implements ILSMIOOperation {
         return cursor;
     }
 
+    @Override
     public List<ILSMComponent> getMergingComponents() {
         return mergingComponents;
     }
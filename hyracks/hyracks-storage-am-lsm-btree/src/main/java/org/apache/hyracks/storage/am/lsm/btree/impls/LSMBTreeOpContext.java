@@ -24,29 +24,35 @@ import java.util.List;
 
 import org.apache.hyracks.api.dataflow.value.IBinaryComparatorFactory;
 import org.apache.hyracks.storage.am.btree.api.IBTreeLeafFrame;
+import org.apache.hyracks.storage.am.btree.api.IConditionalUpsertAccessor;
 import org.apache.hyracks.storage.am.btree.impls.BTree;
 import org.apache.hyracks.storage.am.btree.impls.BTreeOpContext;
 import org.apache.hyracks.storage.am.common.api.IModificationOperationCallback;
 import org.apache.hyracks.storage.am.common.api.ISearchOperationCallback;
 import org.apache.hyracks.storage.am.common.api.ISearchPredicate;
+import org.apache.hyracks.storage.am.common.api.ITreeIndex;
 import org.apache.hyracks.storage.am.common.api.ITreeIndexFrameFactory;
 import org.apache.hyracks.storage.am.common.impls.NoOpOperationCallback;
 import org.apache.hyracks.storage.am.common.ophelpers.IndexOperation;
 import org.apache.hyracks.storage.am.common.ophelpers.MultiComparator;
 import org.apache.hyracks.storage.am.common.tuples.PermutingTupleReference;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponent;
+import org.apache.hyracks.storage.am.lsm.btree.impls.ConcurrentSkipList.ConcurrentSkipListAccessor;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponentSnapshotContext;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMIndexOperationContext;
+import org.apache.hyracks.storage.am.lsm.common.impls.LSMComponentSnapshot;
 
-public final class LSMBTreeOpContext implements ILSMIndexOperationContext {
+public final class LSMBTreeOpContext implements ILSMIndexOperationContext, ILSMComponentSnapshotContext {
 
     public ITreeIndexFrameFactory insertLeafFrameFactory;
     public ITreeIndexFrameFactory deleteLeafFrameFactory;
     public IBTreeLeafFrame insertLeafFrame;
     public IBTreeLeafFrame deleteLeafFrame;
-    public final BTree[] mutableBTrees;
-    public BTree.BTreeAccessor[] mutableBTreeAccessors;
+    public final ITreeIndex[] mutableIndexes;
+    public IConditionalUpsertAccessor[] mutableIndexAccessors;
+    // Only set for memory components backed by a BTree.
     public BTreeOpContext[] mutableBTreeOpCtxs;
-    public BTree.BTreeAccessor currentMutableBTreeAccessor;
+    public IConditionalUpsertAccessor currentMutableIndexAccessor;
     public BTreeOpContext currentMutableBTreeOpCtx;
     public IndexOperation op;
     public final MultiComparator cmp;
@@ -56,33 +62,42 @@ public final class LSMBTreeOpContext implements ILSMIndexOperationContext {
     private final List<ILSMComponent> componentHolder;
     private final List<ILSMComponent> componentsToBeMerged;
     private final List<ILSMComponent> componentsToBeReplicated;
+    private LSMComponentSnapshot componentSnapshot;
     public final PermutingTupleReference indexTuple;
     public final MultiComparator filterCmp;
     public final PermutingTupleReference filterTuple;
     public ISearchPredicate searchPredicate;
+    // Set while the accessor runs a batch of searches.
+    LSMBTreeBatchSearch batchSearch;
 
     public LSMBTreeOpContext(List<ILSMComponent> mutableComponents, ITreeIndexFrameFactory insertLeafFrameFactory,
             ITreeIndexFrameFactory deleteLeafFrameFactory, IModificationOperationCallback modificationCallback,
             ISearchOperationCallback searchCallback, int numBloomFilterKeyFields, int[] btreeFields, int[] filterFields) {
         LSMBTreeMemoryComponent c = (LSMBTreeMemoryComponent) mutableComponents.get(0);
-        IBinaryComparatorFactory cmpFactories[] = c.getBTree().getComparatorFactories();
+        IBinaryComparatorFactory cmpFactories[] = c.getIndex().getComparatorFactories();
         if (cmpFactories[0] != null) {
-            this.cmp = MultiComparator.create(c.getBTree().getComparatorFactories());
+            this.cmp = MultiComparator.create(c.getIndex().getComparatorFactories());
         } else {
             this.cmp = null;
         }
 
-        bloomFilterCmp = MultiComparator.create(c.getBTree().getComparatorFactories(), 0, numBloomFilterKeyFields);
+        bloomFilterCmp = MultiComparator.create(c.getIndex().getComparatorFactories(), 0, numBloomFilterKeyFields);
 
-        mutableBTrees = new BTree[mutableComponents.size()];
-        mutableBTreeAccessors = new BTree.BTreeAccessor[mutableComponents.size()];
+        mutableIndexes = new ITreeIndex[mutableComponents.size()];
+        mutableIndexAccessors = new IConditionalUpsertAccessor[mutableComponents.size()];
         mutableBTreeOpCtxs = new BTreeOpContext[mutableComponents.size()];
         for (int i = 0; i < mutableComponents.size(); i++) {
             LSMBTreeMemoryComponent mutableComponent = (LSMBTreeMemoryComponent) mutableComponents.get(i);
-            mutableBTrees[i] = mutableComponent.getBTree();
-            mutableBTreeAccessors[i] = (BTree.BTreeAccessor) mutableBTrees[i].createAccessor(modificationCallback,
-                    NoOpOperationCallback.INSTANCE);
-            mutableBTreeOpCtxs[i] = mutableBTreeAccessors[i].getOpContext();
+            mutableIndexes[i] = mutableComponent.getIndex();
+            if (mutableIndexes[i] instanceof BTree) {
+                BTree.BTreeAccessor accessor = (BTree.BTreeAccessor) ((BTree) mutableIndexes[i]).createAccessor(
+                        modificationCallback, NoOpOperationCallback.INSTANCE);
+                mutableIndexAccessors[i] = accessor;
+                mutableBTreeOpCtxs[i] = accessor.getOpContext();
+            } else {
+                mutableIndexAccessors[i] = ((ConcurrentSkipList) mutableIndexes[i]).createAccessor(
+                        modificationCallback, NoOpOperationCallback.INSTANCE);
+            }
         }
 
         this.insertLeafFrameFactory = insertLeafFrameFactory;
@@ -119,13 +134,21 @@ public final class LSMBTreeOpContext implements ILSMIndexOperationContext {
     }
 
     public void setInsertMode() {
-        currentMutableBTreeOpCtx.leafFrame = insertLeafFrame;
-        currentMutableBTreeOpCtx.leafFrameFactory = insertLeafFrameFactory;
+        if (currentMutableBTreeOpCtx != null) {
+            currentMutableBTreeOpCtx.leafFrame = insertLeafFrame;
+            currentMutableBTreeOpCtx.leafFrameFactory = insertLeafFrameFactory;
+        } else {
+            ((ConcurrentSkipListAccessor) currentMutableIndexAccessor).setTupleWriter(insertLeafFrame.getTupleWriter());
+        }
     }
 
     public void setDeleteMode() {
-        currentMutableBTreeOpCtx.leafFrame = deleteLeafFrame;
-        currentMutableBTreeOpCtx.leafFrameFactory = deleteLeafFrameFactory;
+        if (currentMutableBTreeOpCtx != null) {
+            currentMutableBTreeOpCtx.leafFrame = deleteLeafFrame;
+            currentMutableBTreeOpCtx.leafFrameFactory = deleteLeafFrameFactory;
+        } else {
+            ((ConcurrentSkipListAccessor) currentMutableIndexAccessor).setTupleWriter(deleteLeafFrame.getTupleWriter());
+        }
     }
 
     @Override
@@ -156,7 +179,7 @@ public final class LSMBTreeOpContext implements ILSMIndexOperationContext {
 
     @Override
     public void setCurrentMutableComponentId(int currentMutableComponentId) {
-        currentMutableBTreeAccessor = mutableBTreeAccessors[currentMutableComponentId];
+        currentMutableIndexAccessor = mutableIndexAccessors[currentMutableComponentId];
         currentMutableBTreeOpCtx = mutableBTreeOpCtxs[currentMutableComponentId];
         switch (op) {
             case SEARCH:
@@ -199,4 +222,14 @@ public final class LSMBTreeOpContext implements ILSMIndexOperationContext {
     public List<ILSMComponent> getComponentsToBeReplicated() {
         return componentsToBeReplicated;
     }
+
+    @Override
+    public void setComponentSnapshot(LSMComponentSnapshot componentSnapshot) {
+        this.componentSnapshot = componentSnapshot;
+    }
+
+    @Override
+    public LSMComponentSnapshot getComponentSnapshot() {
+        return componentSnapshot;
+    }
 }
\ No newline at end of file
@@ -25,13 +25,13 @@ import org.apache.hyracks.api.exceptions.HyracksDataException;
 import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
 import org.apache.hyracks.storage.am.btree.api.IBTreeLeafFrame;
 import org.apache.hyracks.storage.am.btree.impls.BTree;
-import org.apache.hyracks.storage.am.btree.impls.BTreeRangeSearchCursor;
 import org.apache.hyracks.storage.am.btree.impls.RangePredicate;
 import org.apache.hyracks.storage.am.common.api.ICursorInitialState;
 import org.apache.hyracks.storage.am.common.api.IIndexAccessor;
 import org.apache.hyracks.storage.am.common.api.IIndexCursor;
 import org.apache.hyracks.storage.am.common.api.ISearchOperationCallback;
 import org.apache.hyracks.storage.am.common.api.ISearchPredicate;
+import org.apache.hyracks.storage.am.common.api.ITreeIndex;
 import org.apache.hyracks.storage.am.common.api.ITreeIndexCursor;
 import org.apache.hyracks.storage.am.common.api.IndexException;
 import org.apache.hyracks.storage.am.common.impls.NoOpOperationCallback;
@@ -47,6 +47,8 @@ import org.apache.hyracks.storage.common.buffercache.ICachedPage;
 public class LSMBTreePointSearchCursor implements ITreeIndexCursor {
 
     private IIndexCursor[] rangeCursors;
+    // Components whose Bloom filter ruled out the key up front, only set within a batch of searches.
+    private boolean[] bloomFilterMisses;
     private final ILSMIndexOperationContext opCtx;
     private ISearchOperationCallback searchCallback;
     private RangePredicate predicate;
@@ -72,6 +74,9 @@ public class LSMBTreePointSearchCursor implements ITreeIndexCursor {
         }
         boolean reconciled = false;
         for (int i = 0; i < numBTrees; ++i) {
+            if (bloomFilterMisses[i]) {
+                continue;
+            }
             btreeAccessors[i].search(rangeCursors[i], predicate);
             if (rangeCursors[i].hasNext()) {
                 rangeCursors[i].next();
@@ -153,23 +158,41 @@ public class LSMBTreePointSearchCursor implements ITreeIndexCursor {
         numBTrees = operationalComponents.size();
         rangeCursors = new IIndexCursor[numBTrees];
         btreeAccessors = new IIndexAccessor[numBTrees];
+        bloomFilterMisses = new boolean[numBTrees];
         includeMutableComponent = false;
+        LSMBTreeBatchSearch batchSearch = lsmInitialState.getBatchSearch();
 
         for (int i = 0; i < numBTrees; i++) {
             ILSMComponent component = operationalComponents.get(i);
-            BTree btree;
-            IBTreeLeafFrame leafFrame = (IBTreeLeafFrame) lsmInitialState.getLeafFrameFactory().createFrame();
             if (component.getType() == LSMComponentType.MEMORY) {
                 includeMutableComponent = true;
-                // No need for a bloom filter for the in-memory BTree.
-                rangeCursors[i] = new BTreeRangeSearchCursor(leafFrame, false);
-                btree = (BTree) ((LSMBTreeMemoryComponent) component).getBTree();
+            }
+            if (batchSearch != null && batchSearch.getAccessor(component) != null) {
+                btreeAccessors[i] = batchSearch.getAccessor(component);
+                rangeCursors[i] = batchSearch.getCursor(component);
             } else {
-                rangeCursors[i] = new BloomFilterAwareBTreePointSearchCursor(leafFrame, false,
+                if (component.getType() == LSMComponentType.MEMORY) {
+                    // No need for a bloom filter for the in-memory index.
+                    ITreeIndex memoryIndex = ((LSMBTreeMemoryComponent) component).getIndex();
+                    btreeAccessors[i] = memoryIndex.createAccessor(NoOpOperationCallback.INSTANCE,
+                            NoOpOperationCallback.INSTANCE);
+                    rangeCursors[i] = btreeAccessors[i].createSearchCursor(false);
+                } else {
+                    IBTreeLeafFrame leafFrame = (IBTreeLeafFrame) lsmInitialState.getLeafFrameFactory().createFrame();
+                    rangeCursors[i] = new BloomFilterAwareBTreePointSearchCursor(leafFrame, false,
+                            ((LSMBTreeDiskComponent) component).getBloomFilter());
+                    BTree btree = ((LSMBTreeDiskComponent) component).getBTree();
+                    btreeAccessors[i] = btree.createAccessor(NoOpOperationCallback.INSTANCE,
+                            NoOpOperationCallback.INSTANCE);
+                }
+                if (batchSearch != null) {
+                    batchSearch.register(component, btreeAccessors[i], rangeCursors[i]);
+                }
+            }
+            if (batchSearch != null && component.getType() == LSMComponentType.DISK) {
+                bloomFilterMisses[i] = !batchSearch.mayContainKey(component,
                         ((LSMBTreeDiskComponent) component).getBloomFilter());
-                btree = (BTree) ((LSMBTreeDiskComponent) component).getBTree();
             }
-            btreeAccessors[i] = btree.createAccessor(NoOpOperationCallback.INSTANCE, NoOpOperationCallback.INSTANCE);
         }
         nextHasBeenCalled = false;
         foundTuple = false;
@@ -28,11 +28,11 @@ import org.apache.hyracks.api.io.IODeviceHandle;
 import org.apache.hyracks.storage.am.common.api.ITreeIndexCursor;
 import org.apache.hyracks.storage.am.common.api.IndexException;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponent;
-import org.apache.hyracks.storage.am.lsm.common.api.ILSMIOOperation;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMIOOperationCallback;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMIndexAccessorInternal;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMMergeOperation;
 
-public class LSMBTreeWithBuddyMergeOperation implements ILSMIOOperation {
+public class LSMBTreeWithBuddyMergeOperation implements ILSMMergeOperation {
 
 	private final ILSMIndexAccessorInternal accessor;
 	private final List<ILSMComponent> mergingComponents;
@@ -125,6 +125,7 @@ public class LSMBTreeWithBuddyMergeOperation implements ILSMIOOperation {
 		return cursor;
 	}
 
+	@Override
 	public List<ILSMComponent> getMergingComponents() {
 		return mergingComponents;
 	}
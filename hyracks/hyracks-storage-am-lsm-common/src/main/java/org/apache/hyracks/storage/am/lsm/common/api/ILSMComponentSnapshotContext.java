@@ -0,0 +1,35 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.common.api;
+
+import org.apache.hyracks.storage.am.lsm.common.impls.LSMComponentSnapshot;
+
+/**
+ * An {@link ILSMIndexOperationContext} may implement this interface as well to let its searches share the
+ * {@link LSMComponentSnapshot} of the harness instead of entering their components individually.
+ */
+public interface ILSMComponentSnapshotContext {
+    /**
+     * Sets the component snapshot that the context's current search has entered, or null if it entered its
+     * components individually.
+     */
+    public void setComponentSnapshot(LSMComponentSnapshot componentSnapshot);
+
+    public LSMComponentSnapshot getComponentSnapshot();
+}
@@ -22,4 +22,9 @@ import org.apache.hyracks.api.exceptions.HyracksDataException;
 
 public interface ILSMIOOperationScheduler {
     public void scheduleOperation(ILSMIOOperation operation) throws HyracksDataException;
+
+    /**
+     * @return the limiter shared by all flush and merge operations run by this scheduler
+     */
+    public ILSMIORateLimiter getIORateLimiter();
 }
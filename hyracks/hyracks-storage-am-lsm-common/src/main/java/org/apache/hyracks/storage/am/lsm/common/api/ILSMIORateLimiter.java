@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.common.api;
+
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+
+/**
+ * Limits the rate at which flush and merge operations write new component data.
+ */
+public interface ILSMIORateLimiter {
+    /**
+     * Blocks the calling thread until the given number of bytes may be written.
+     */
+    public void acquire(long bytes) throws HyracksDataException;
+
+    /**
+     * @return the current rate in bytes per second, or 0 if writes are not limited
+     */
+    public long getRate();
+
+    /**
+     * Sets the rate in bytes per second. A rate of 0 disables the limit.
+     */
+    public void setRate(long bytesPerSecond);
+}
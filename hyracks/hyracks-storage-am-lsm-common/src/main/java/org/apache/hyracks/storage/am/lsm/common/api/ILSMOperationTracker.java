@@ -27,6 +27,10 @@ import org.apache.hyracks.storage.am.common.api.ISearchOperationCallback;
  * This interface exposes methods for tracking and setting the status of operations for the purpose
  * of coordinating flushes/merges in {@link ILSMIndex}.
  * Note that 'operation' below refers to {@link IIndexAccessor} methods.
+ * The methods are called while holding the tracker's monitor, which the index also waits on for components to become
+ * available, with one exception: an index whose harness shares component snapshots among its searches calls
+ * {@link #beforeOperation} and {@link #afterOperation} for {@link LSMOperationType#SEARCH} without the monitor, and
+ * concurrently for different searches. Implementations used with such indexes must handle these calls thread-safely.
  * 
  * @author zheilbron
  */
@@ -31,6 +31,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.hyracks.api.exceptions.HyracksDataException;
 import org.apache.hyracks.api.replication.IReplicationJob.ReplicationExecutionType;
 import org.apache.hyracks.api.replication.IReplicationJob.ReplicationOperation;
+import org.apache.hyracks.storage.am.common.api.IIndexBulkLoader;
 import org.apache.hyracks.storage.am.common.api.ITreeIndex;
 import org.apache.hyracks.storage.am.common.api.ITreeIndexMetaDataFrame;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponent;
@@ -39,6 +40,7 @@ import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponentFilterFrameFact
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMHarness;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMIOOperationCallback;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMIOOperationScheduler;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIORateLimiter;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMIndexFileManager;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMIndexInternal;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMIndexOperationContext;
@@ -56,6 +58,8 @@ public abstract class AbstractLSMIndex implements ILSMIndexInternal {
 
     protected final ILSMIOOperationScheduler ioScheduler;
     protected final ILSMIOOperationCallback ioOpCallback;
+    // Limits this index's flushes and merges in addition to the scheduler's node-wide limiter.
+    protected final ILSMIORateLimiter ioRateLimiter = new TokenBucketIORateLimiter(0);
 
     // In-memory components.
     protected final List<ILSMComponent> memoryComponents;
@@ -96,7 +100,9 @@ public abstract class AbstractLSMIndex implements ILSMIndexInternal {
         this.filterFields = filterFields;
         this.inactiveDiskComponents = new LinkedList<ILSMComponent>();
         this.durable = durable;
-        lsmHarness = new LSMHarness(this, mergePolicy, opTracker, diskBufferCache.isReplicationEnabled());
+        // Searches can only share a snapshot of the components if they do not prune them with a filter.
+        lsmHarness = new LSMHarness(this, mergePolicy, opTracker, diskBufferCache.isReplicationEnabled(),
+                filterManager == null);
         isActivated = false;
         diskComponents = new ArrayList<ILSMComponent>();
         memoryComponents = new ArrayList<ILSMComponent>();
@@ -199,6 +205,8 @@ public abstract class AbstractLSMIndex implements ILSMIndexInternal {
         if (durable) {
             bufferCache.force(fileId, true);
         }
+        // A valid disk component is never modified again.
+        bufferCache.markFileImmutable(fileId);
     }
 
     @Override
@@ -245,6 +253,18 @@ public abstract class AbstractLSMIndex implements ILSMIndexInternal {
         return ioScheduler;
     }
 
+    public ILSMIORateLimiter getIORateLimiter() {
+        return ioRateLimiter;
+    }
+
+    /**
+     * Wraps the bulk loader of a flush or merge target so that it is throttled by both the node-wide and the
+     * per-index rate limiters.
+     */
+    protected IIndexBulkLoader createRateLimitedBulkLoader(IIndexBulkLoader bulkLoader) {
+        return new RateLimitedBulkLoader(bulkLoader, ioScheduler.getIORateLimiter(), ioRateLimiter);
+    }
+
     @Override
     public ILSMIOOperationCallback getIOOperationCallback() {
         return ioOpCallback;
@@ -283,6 +303,19 @@ public abstract class AbstractLSMIndex implements ILSMIndexInternal {
         return !((AbstractMemoryLSMComponent) memoryComponents.get(currentMutableComponentId.get())).isModified();
     }
 
+    public int getCurrentMutableComponentId() {
+        return currentMutableComponentId.get();
+    }
+
+    /**
+     * @see LSMHarness#retireComponentSnapshot()
+     */
+    protected void retireComponentSnapshot() throws HyracksDataException {
+        if (lsmHarness instanceof LSMHarness) {
+            ((LSMHarness) lsmHarness).retireComponentSnapshot();
+        }
+    }
+
     public void setCurrentMutableComponentState(ComponentState componentState) {
         ((AbstractMemoryLSMComponent) memoryComponents.get(currentMutableComponentId.get())).setState(componentState);
     }
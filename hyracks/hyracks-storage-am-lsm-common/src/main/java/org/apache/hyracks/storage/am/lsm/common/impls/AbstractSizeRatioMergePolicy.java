@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.common.impls;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.storage.am.common.api.IndexException;
+import org.apache.hyracks.storage.am.common.impls.NoOpOperationCallback;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponent;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponent.ComponentState;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIndex;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIndexAccessor;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMMergePolicy;
+
+/**
+ * Base class of the merge policies that assign disk components to levels by their size. Components of at most
+ * base-component-size bytes are on level 0, and the size limit of every following level is size-ratio times the
+ * limit of the level before it.
+ * The policies decide on the component sizes alone, newest first, in the order in which the index keeps its
+ * components. A merge always covers a contiguous range of them.
+ */
+public abstract class AbstractSizeRatioMergePolicy implements ILSMMergePolicy {
+
+    protected double sizeRatio;
+    protected long baseComponentSize;
+
+    @Override
+    public void diskComponentAdded(final ILSMIndex index, boolean fullMergeIsRequested) throws HyracksDataException,
+            IndexException {
+        List<ILSMComponent> immutableComponents = index.getImmutableComponents();
+        for (ILSMComponent c : immutableComponents) {
+            if (c.getState() != ComponentState.READABLE_UNWRITABLE) {
+                return;
+            }
+        }
+        if (fullMergeIsRequested) {
+            ILSMIndexAccessor accessor = (ILSMIndexAccessor) index.createAccessor(NoOpOperationCallback.INSTANCE,
+                    NoOpOperationCallback.INSTANCE);
+            accessor.scheduleFullMerge(index.getIOOperationCallback());
+            return;
+        }
+        long[] sizes = new long[immutableComponents.size()];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = ((AbstractDiskLSMComponent) immutableComponents.get(i)).getComponentSize();
+        }
+        int[] range = selectMerge(sizes);
+        if (range != null) {
+            ILSMIndexAccessor accessor = (ILSMIndexAccessor) index.createAccessor(NoOpOperationCallback.INSTANCE,
+                    NoOpOperationCallback.INSTANCE);
+            accessor.scheduleMerge(index.getIOOperationCallback(), immutableComponents.subList(range[0], range[1]));
+        }
+    }
+
+    /**
+     * @param sizes
+     *            the sizes of the disk components, newest first
+     * @return the start (inclusive) and end (exclusive) positions of the components to merge, or null if no merge is
+     *         needed
+     */
+    public abstract int[] selectMerge(long[] sizes);
+
+    public int getLevel(long size) {
+        int level = 0;
+        for (double limit = baseComponentSize; size > limit; limit *= sizeRatio) {
+            level++;
+        }
+        return level;
+    }
+
+    @Override
+    public void configure(Map<String, String> properties) {
+        sizeRatio = Double.parseDouble(properties.get("size-ratio"));
+        baseComponentSize = Long.parseLong(properties.get("base-component-size"));
+        if (sizeRatio < 2 || baseComponentSize <= 0) {
+            throw new IllegalArgumentException("Invalid size-ratio " + sizeRatio + " or base-component-size "
+                    + baseComponentSize);
+        }
+    }
+}
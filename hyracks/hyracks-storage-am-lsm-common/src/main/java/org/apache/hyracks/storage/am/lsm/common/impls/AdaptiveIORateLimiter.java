@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.common.impls;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.api.io.BackgroundIO;
+import org.apache.hyracks.api.io.IIOManager;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIORateLimiter;
+
+/**
+ * A node-wide limiter that adapts its rate to the latency of synchronous reads observed by the IIOManager.
+ * At most once per sample interval, the rate is halved (down to the minimum) if the average read latency in the
+ * interval exceeded the target, and raised by an eighth of the maximum otherwise. An interval without any reads
+ * means that the node is idle, so the rate goes straight back to the maximum and merges can catch up.
+ * Only foreground reads are sampled. Flushes and merges run as {@link BackgroundIO}, so their own reads, which are
+ * slowed down by throttling rather than by other load, do not feed back into the rate.
+ */
+public class AdaptiveIORateLimiter extends TokenBucketIORateLimiter {
+    private static final long SAMPLE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final IIOManager ioManager;
+    private final long minRate;
+    private final long targetReadLatencyNanos;
+    private long maxRate;
+    private long lastSampleTime;
+    private long lastReadCount;
+    private long lastReadTimeNanos;
+
+    public AdaptiveIORateLimiter(IIOManager ioManager, long minBytesPerSecond, long maxBytesPerSecond,
+            long targetReadLatencyNanos) {
+        super(maxBytesPerSecond);
+        this.ioManager = ioManager;
+        this.minRate = Math.max(1, minBytesPerSecond);
+        this.maxRate = Math.max(0, maxBytesPerSecond);
+        this.targetReadLatencyNanos = targetReadLatencyNanos;
+        lastSampleTime = System.nanoTime();
+        lastReadCount = ioManager.getReadCount();
+        lastReadTimeNanos = ioManager.getReadTimeNanos();
+    }
+
+    /**
+     * Creates the rate limiter of a node from its settings.
+     *
+     * @param targetReadLatencyMicros
+     *            the average latency of foreground reads above which the rate is reduced, or 0 to keep the rate at
+     *            the maximum
+     * @return an adaptive rate limiter, or a fixed one if no target latency is given
+     */
+    public static ILSMIORateLimiter create(IIOManager ioManager, long minBytesPerSecond, long maxBytesPerSecond,
+            long targetReadLatencyMicros) {
+        if (targetReadLatencyMicros <= 0) {
+            return new TokenBucketIORateLimiter(maxBytesPerSecond);
+        }
+        return new AdaptiveIORateLimiter(ioManager, minBytesPerSecond, maxBytesPerSecond,
+                TimeUnit.MICROSECONDS.toNanos(targetReadLatencyMicros));
+    }
+
+    @Override
+    public void acquire(long bytes) throws HyracksDataException {
+        adjust();
+        super.acquire(bytes);
+    }
+
+    private synchronized void adjust() {
+        long now = System.nanoTime();
+        if (maxRate == 0 || now - lastSampleTime < SAMPLE_INTERVAL_NANOS) {
+            return;
+        }
+        long readCount = ioManager.getReadCount();
+        long readTimeNanos = ioManager.getReadTimeNanos();
+        long reads = readCount - lastReadCount;
+        long rate = super.getRate();
+        if (reads == 0) {
+            rate = maxRate;
+        } else if ((readTimeNanos - lastReadTimeNanos) / reads > targetReadLatencyNanos) {
+            rate = Math.min(maxRate, Math.max(minRate, rate / 2));
+        } else {
+            rate = Math.min(maxRate, rate + Math.max(1, maxRate / 8));
+        }
+        super.setRate(rate);
+        lastSampleTime = now;
+        lastReadCount = readCount;
+        lastReadTimeNanos = readTimeNanos;
+    }
+
+    /**
+     * Sets the maximum rate. The current rate is adjusted within [minimum, maximum] as reads are observed;
+     * a maximum of 0 disables the limit altogether.
+     */
+    @Override
+    public synchronized void setRate(long bytesPerSecond) {
+        maxRate = Math.max(0, bytesPerSecond);
+        long rate = super.getRate();
+        if (maxRate == 0) {
+            rate = 0;
+        } else if (rate == 0 || rate > maxRate) {
+            rate = maxRate;
+        }
+        super.setRate(rate);
+    }
+
+    public synchronized long getMaxRate() {
+        return maxRate;
+    }
+}
@@ -33,6 +33,7 @@ import org.apache.hyracks.api.exceptions.HyracksDataException;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMIOOperation;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMIOOperation.LSMIOOpertionType;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMIOOperationScheduler;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIORateLimiter;
 
 public class AsynchronousScheduler implements ILSMIOOperationScheduler {
     // Since this is a asynchronous scheduler, we make sure that flush operations coming from the same lsm index
@@ -40,9 +41,15 @@ public class AsynchronousScheduler implements ILSMIOOperationScheduler {
 
     public final static AsynchronousScheduler INSTANCE = new AsynchronousScheduler();
     private ExecutorService executor;
+    private ILSMIORateLimiter ioRateLimiter = new TokenBucketIORateLimiter(0);
     private final Map<String, ILSMIOOperation> runningFlushOperations = new HashMap<String, ILSMIOOperation>();
     private final Map<String, PriorityQueue<ILSMIOOperation>> waitingFlushOperations = new HashMap<String, PriorityQueue<ILSMIOOperation>>();
 
+    public void init(ThreadFactory threadFactory, ILSMIORateLimiter ioRateLimiter) {
+        this.ioRateLimiter = ioRateLimiter;
+        init(threadFactory);
+    }
+
     public void init(ThreadFactory threadFactory) {
         // Creating an executor with the same configuration of Executors.newCachedThreadPool. 
         executor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS,
@@ -101,4 +108,9 @@ public class AsynchronousScheduler implements ILSMIOOperationScheduler {
             }
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public ILSMIORateLimiter getIORateLimiter() {
+        return ioRateLimiter;
+    }
+}
@@ -23,9 +23,10 @@ import java.util.List;
 import org.apache.hyracks.api.exceptions.HyracksDataException;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponent;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMIOOperationCallback;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIOOperationQueueCallback;
 import org.apache.hyracks.storage.am.lsm.common.api.LSMOperationType;
 
-public class BlockingIOOperationCallbackWrapper implements ILSMIOOperationCallback {
+public class BlockingIOOperationCallbackWrapper implements ILSMIOOperationCallback, ILSMIOOperationQueueCallback {
 
     private boolean notified = false;
 
@@ -60,6 +61,13 @@ public class BlockingIOOperationCallbackWrapper implements ILSMIOOperationCallba
         notified = true;
     }
 
+    @Override
+    public void afterDequeue(LSMOperationType opType, int queueDepth, long waitTimeNanos) {
+        if (wrappedCallback instanceof ILSMIOOperationQueueCallback) {
+            ((ILSMIOOperationQueueCallback) wrappedCallback).afterDequeue(opType, queueDepth, waitTimeNanos);
+        }
+    }
+
     @Override
     public void setNumOfMutableComponents(int count) {
         wrappedCallback.setNumOfMutableComponents(count);
@@ -0,0 +1,249 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.common.impls;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.api.io.IODeviceHandle;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponent;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIOOperation;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIOOperation.LSMIOOpertionType;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIOOperationCallback;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIOOperationQueueCallback;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIOOperationScheduler;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIORateLimiter;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMMergeOperation;
+import org.apache.hyracks.storage.am.lsm.common.api.LSMOperationType;
+
+/**
+ * Runs IO operations asynchronously, with a fixed number of slots per device. An operation occupies one slot on
+ * every device it reads from or writes to, and waits in a queue until all of them are free.
+ * The queue serves flushes before merges, and smaller merges (by the size of the merging components) before larger
+ * ones. An operation that cannot start holds back lower priority operations on its devices, and merges never take
+ * the last slot of a device, so that a flush never waits behind more than the merges that are already running.
+ * Like in {@link AsynchronousScheduler}, the flushes of an index are executed one at a time, in scheduling order.
+ */
+public class BoundedPriorityScheduler implements ILSMIOOperationScheduler {
+    private static final Logger LOGGER = Logger.getLogger(BoundedPriorityScheduler.class.getName());
+
+    private static final Comparator<QueuedOperation> PRIORITY_ORDER = new Comparator<QueuedOperation>() {
+        @Override
+        public int compare(QueuedOperation o1, QueuedOperation o2) {
+            if (o1.isFlush != o2.isFlush) {
+                return o1.isFlush ? -1 : 1;
+            }
+            if (o1.size != o2.size) {
+                return o1.size < o2.size ? -1 : 1;
+            }
+            return Long.compare(o1.sequence, o2.sequence);
+        }
+    };
+
+    private final ExecutorService executor;
+    private final int slotsPerDevice;
+    private final ILSMIORateLimiter ioRateLimiter;
+    private final TreeSet<QueuedOperation> waitingOperations = new TreeSet<QueuedOperation>(PRIORITY_ORDER);
+    private final Map<IODeviceHandle, Integer> busySlots = new HashMap<IODeviceHandle, Integer>();
+    private final Set<String> flushingIndexes = new HashSet<String>();
+    private long sequence;
+
+    private long executedOperations;
+    private long totalWaitTimeNanos;
+    private long maxWaitTimeNanos;
+    private int maxQueueDepth;
+
+    public BoundedPriorityScheduler(ThreadFactory threadFactory, int slotsPerDevice) {
+        this(threadFactory, slotsPerDevice, new TokenBucketIORateLimiter(0));
+    }
+
+    public BoundedPriorityScheduler(ThreadFactory threadFactory, int slotsPerDevice, ILSMIORateLimiter ioRateLimiter) {
+        if (slotsPerDevice < 1) {
+            throw new IllegalArgumentException("At least one slot per device is needed");
+        }
+        this.executor = Executors.newCachedThreadPool(threadFactory);
+        this.slotsPerDevice = slotsPerDevice;
+        this.ioRateLimiter = ioRateLimiter;
+    }
+
+    @Override
+    public synchronized void scheduleOperation(ILSMIOOperation operation) throws HyracksDataException {
+        waitingOperations.add(new QueuedOperation(operation, sequence++));
+        maxQueueDepth = Math.max(maxQueueDepth, waitingOperations.size());
+        dispatch();
+    }
+
+    private void dispatch() {
+        // Devices that are needed by an operation that is waiting ahead in the queue.
+        Set<IODeviceHandle> heldDevices = new HashSet<IODeviceHandle>();
+        List<QueuedOperation> startedOperations = new ArrayList<QueuedOperation>();
+        for (Iterator<QueuedOperation> it = waitingOperations.iterator(); it.hasNext();) {
+            QueuedOperation qop = it.next();
+            if (qop.isFlush && flushingIndexes.contains(qop.operation.getIndexUniqueIdentifier())) {
+                continue;
+            }
+            int slots = qop.isFlush || slotsPerDevice == 1 ? slotsPerDevice : slotsPerDevice - 1;
+            boolean startable = true;
+            for (IODeviceHandle device : qop.devices) {
+                if (heldDevices.contains(device) || getBusySlots(device) >= slots) {
+                    startable = false;
+                }
+            }
+            if (!startable) {
+                heldDevices.addAll(qop.devices);
+                continue;
+            }
+            it.remove();
+            for (IODeviceHandle device : qop.devices) {
+                busySlots.put(device, getBusySlots(device) + 1);
+            }
+            if (qop.isFlush) {
+                flushingIndexes.add(qop.operation.getIndexUniqueIdentifier());
+            }
+            startedOperations.add(qop);
+        }
+        for (QueuedOperation qop : startedOperations) {
+            qop.startTime = System.nanoTime();
+            qop.queueDepth = waitingOperations.size();
+            long waitTimeNanos = qop.startTime - qop.scheduleTime;
+            executedOperations++;
+            totalWaitTimeNanos += waitTimeNanos;
+            maxWaitTimeNanos = Math.max(maxWaitTimeNanos, waitTimeNanos);
+            executor.execute(qop);
+        }
+    }
+
+    private int getBusySlots(IODeviceHandle device) {
+        Integer slots = busySlots.get(device);
+        return slots == null ? 0 : slots;
+    }
+
+    private synchronized void complete(QueuedOperation qop) {
+        for (IODeviceHandle device : qop.devices) {
+            int slots = getBusySlots(device) - 1;
+            if (slots == 0) {
+                busySlots.remove(device);
+            } else {
+                busySlots.put(device, slots);
+            }
+        }
+        if (qop.isFlush) {
+            flushingIndexes.remove(qop.operation.getIndexUniqueIdentifier());
+        }
+        dispatch();
+    }
+
+    @Override
+    public ILSMIORateLimiter getIORateLimiter() {
+        return ioRateLimiter;
+    }
+
+    public int getSlotsPerDevice() {
+        return slotsPerDevice;
+    }
+
+    public synchronized int getQueueDepth() {
+        return waitingOperations.size();
+    }
+
+    public synchronized int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    public synchronized long getExecutedOperationCount() {
+        return executedOperations;
+    }
+
+    public synchronized long getTotalWaitTimeNanos() {
+        return totalWaitTimeNanos;
+    }
+
+    public synchronized long getMaxWaitTimeNanos() {
+        return maxWaitTimeNanos;
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static long getMergeSize(ILSMIOOperation operation) {
+        long size = 0;
+        if (operation instanceof ILSMMergeOperation) {
+            for (ILSMComponent c : ((ILSMMergeOperation) operation).getMergingComponents()) {
+                if (c instanceof AbstractDiskLSMComponent) {
+                    size += ((AbstractDiskLSMComponent) c).getComponentSize();
+                }
+            }
+        }
+        return size;
+    }
+
+    private class QueuedOperation implements Runnable {
+        private final ILSMIOOperation operation;
+        private final long sequence;
+        private final boolean isFlush;
+        private final long size;
+        private final Set<IODeviceHandle> devices;
+        private final long scheduleTime;
+        private long startTime;
+        private int queueDepth;
+
+        private QueuedOperation(ILSMIOOperation operation, long sequence) {
+            this.operation = operation;
+            this.sequence = sequence;
+            this.isFlush = operation.getIOOpertionType() == LSMIOOpertionType.FLUSH;
+            this.size = isFlush ? 0 : getMergeSize(operation);
+            this.devices = new HashSet<IODeviceHandle>(operation.getReadDevices());
+            devices.addAll(operation.getWriteDevices());
+            this.scheduleTime = System.nanoTime();
+        }
+
+        @Override
+        public void run() {
+            try {
+                ILSMIOOperationCallback callback = operation.getCallback();
+                if (callback instanceof ILSMIOOperationQueueCallback) {
+                    ((ILSMIOOperationQueueCallback) callback).afterDequeue(isFlush ? LSMOperationType.FLUSH
+                            : LSMOperationType.MERGE, queueDepth, startTime - scheduleTime);
+                }
+                operation.call();
+            } catch (Exception e) {
+                if (LOGGER.isLoggable(Level.SEVERE)) {
+                    LOGGER.log(Level.SEVERE, "IO operation for index " + operation.getIndexUniqueIdentifier()
+                            + " failed", e);
+                }
+            } finally {
+                complete(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.common.impls;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponent;
+
+/**
+ * An immutable list of the components that a search operates on. A snapshot is entered once, on behalf of all the
+ * searches that pick it up while it is the current one, so that a search only needs a volatile read and an increment
+ * of a striped reference count instead of the operation tracker's monitor.
+ * Once the harness publishes a new component list, the snapshot is retired and its components are exited by whoever
+ * drops the last reference to it.
+ */
+public class LSMComponentSnapshot {
+    // Counters are spaced a cache line apart so that readers on different cores do not share lines.
+    private static final int PADDING = 16;
+    private static final int NUM_STRIPES = numStripes();
+
+    private final List<ILSMComponent> components;
+    private final int currentMutableComponentId;
+    private final AtomicIntegerArray refCounts;
+    private final AtomicBoolean released;
+    private volatile boolean retired;
+
+    public LSMComponentSnapshot(List<ILSMComponent> components, int currentMutableComponentId) {
+        this.components = Collections.unmodifiableList(new ArrayList<ILSMComponent>(components));
+        this.currentMutableComponentId = currentMutableComponentId;
+        refCounts = new AtomicIntegerArray(NUM_STRIPES * PADDING);
+        released = new AtomicBoolean();
+    }
+
+    public List<ILSMComponent> getComponents() {
+        return components;
+    }
+
+    public int getCurrentMutableComponentId() {
+        return currentMutableComponentId;
+    }
+
+    /**
+     * Takes a reference on behalf of the given reader. A reader must call {@link #release(Object)} with the same
+     * object afterwards, also when the acquisition failed.
+     *
+     * @return false if the snapshot has already been retired and must not be read.
+     */
+    public boolean acquire(Object reader) {
+        refCounts.incrementAndGet(stripe(reader));
+        // The increment above and the read below pair with the write and the sum in retire(). Either the retiring
+        // thread sees this reference, or this reader sees that the snapshot has been retired.
+        return !retired;
+    }
+
+    /**
+     * Drops a reference taken by {@link #acquire(Object)}.
+     *
+     * @return true if the caller dropped the last reference to a retired snapshot and must exit its components.
+     */
+    public boolean release(Object reader) {
+        refCounts.decrementAndGet(stripe(reader));
+        return retired && tryRelease();
+    }
+
+    /**
+     * Marks the snapshot as retired so that no new reader picks it up.
+     *
+     * @return true if there are no readers left and the caller must exit the snapshot's components.
+     */
+    public boolean retire() {
+        retired = true;
+        return tryRelease();
+    }
+
+    public boolean isRetired() {
+        return retired;
+    }
+
+    private boolean tryRelease() {
+        int refCount = 0;
+        for (int i = 0; i < NUM_STRIPES; i++) {
+            refCount += refCounts.get(i * PADDING);
+        }
+        return refCount == 0 && released.compareAndSet(false, true);
+    }
+
+    private static int stripe(Object reader) {
+        int h = System.identityHashCode(reader);
+        h ^= h >>> 16;
+        return (h & (NUM_STRIPES - 1)) * PADDING;
+    }
+
+    private static int numStripes() {
+        int stripes = 1;
+        while (stripes < 2 * Runtime.getRuntime().availableProcessors()) {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
+}
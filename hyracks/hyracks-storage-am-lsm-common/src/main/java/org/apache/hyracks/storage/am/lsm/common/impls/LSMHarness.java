@@ -27,6 +27,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.api.io.BackgroundIO;
 import org.apache.hyracks.api.replication.IReplicationJob.ReplicationOperation;
 import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
 import org.apache.hyracks.storage.am.common.api.IIndexCursor;
@@ -35,6 +36,7 @@ import org.apache.hyracks.storage.am.common.api.IndexException;
 import org.apache.hyracks.storage.am.common.impls.NoOpOperationCallback;
 import org.apache.hyracks.storage.am.common.ophelpers.IndexOperation;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponent;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponentSnapshotContext;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponent.ComponentState;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponent.LSMComponentType;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMHarness;
@@ -56,9 +58,24 @@ public class LSMHarness implements ILSMHarness {
     protected final AtomicBoolean fullMergeIsRequested;
     protected final boolean replicationEnabled;
     protected List<ILSMComponent> componentsToBeReplicated;
+    protected final boolean useComponentSnapshots;
+    // The components that searches operate on. It is null until a search builds it after the components have changed.
+    private volatile LSMComponentSnapshot componentSnapshot;
 
     public LSMHarness(ILSMIndexInternal lsmIndex, ILSMMergePolicy mergePolicy, ILSMOperationTracker opTracker,
             boolean replicationEnabled) {
+        this(lsmIndex, mergePolicy, opTracker, replicationEnabled, false);
+    }
+
+    /**
+     * @param useComponentSnapshots
+     *            whether searches share an {@link LSMComponentSnapshot} instead of entering their components under the
+     *            operation tracker's monitor. This requires the index to operate on the same components for every
+     *            search, i.e. not to prune them by a filter on the search predicate. The operation tracker is then
+     *            notified of such searches without holding its monitor, see {@link ILSMOperationTracker}.
+     */
+    public LSMHarness(ILSMIndexInternal lsmIndex, ILSMMergePolicy mergePolicy, ILSMOperationTracker opTracker,
+            boolean replicationEnabled, boolean useComponentSnapshots) {
         this.lsmIndex = lsmIndex;
         this.opTracker = opTracker;
         this.mergePolicy = mergePolicy;
@@ -67,6 +84,7 @@ public class LSMHarness implements ILSMHarness {
         if (replicationEnabled) {
             this.componentsToBeReplicated = new ArrayList<ILSMComponent>();
         }
+        this.useComponentSnapshots = useComponentSnapshots;
     }
 
     protected boolean getAndEnterComponents(ILSMIndexOperationContext ctx, LSMOperationType opType,
@@ -131,7 +149,32 @@ public class LSMHarness implements ILSMHarness {
 
     protected boolean enterComponents(ILSMIndexOperationContext ctx, LSMOperationType opType)
             throws HyracksDataException {
-        List<ILSMComponent> components = ctx.getComponentHolder();
+        if (!threadEnter(ctx.getComponentHolder(), opType)) {
+            return false;
+        }
+        // Check if there is any action that is needed to be taken based on the operation type
+        switch (opType) {
+            case FLUSH:
+                lsmIndex.getIOOperationCallback().beforeOperation(LSMOperationType.FLUSH);
+                // Changing the flush status should *always* precede changing the mutable component.
+                lsmIndex.changeFlushStatusForCurrentMutableCompoent(false);
+                lsmIndex.changeMutableComponent();
+                // Searches have to pick up the new mutable component.
+                unpublishComponentSnapshot();
+                // Notify all waiting threads whenever a flush has been scheduled since they will check
+                // again if they can grab and enter the mutable component.
+                opTracker.notifyAll();
+                break;
+            case MERGE:
+                lsmIndex.getIOOperationCallback().beforeOperation(LSMOperationType.MERGE);
+            default:
+                break;
+        }
+        opTracker.beforeOperation(lsmIndex, opType, ctx.getSearchOperationCallback(), ctx.getModificationCallback());
+        return true;
+    }
+
+    private boolean threadEnter(List<ILSMComponent> components, LSMOperationType opType) throws HyracksDataException {
         int numEntered = 0;
         boolean entranceSuccessful = false;
         try {
@@ -161,29 +204,11 @@ public class LSMHarness implements ILSMHarness {
                 return false;
             }
         }
-        // Check if there is any action that is needed to be taken based on the operation type
-        switch (opType) {
-            case FLUSH:
-                lsmIndex.getIOOperationCallback().beforeOperation(LSMOperationType.FLUSH);
-                // Changing the flush status should *always* precede changing the mutable component.
-                lsmIndex.changeFlushStatusForCurrentMutableCompoent(false);
-                lsmIndex.changeMutableComponent();
-                // Notify all waiting threads whenever a flush has been scheduled since they will check
-                // again if they can grab and enter the mutable component.
-                opTracker.notifyAll();
-                break;
-            case MERGE:
-                lsmIndex.getIOOperationCallback().beforeOperation(LSMOperationType.MERGE);
-            default:
-                break;
-        }
-        opTracker.beforeOperation(lsmIndex, opType, ctx.getSearchOperationCallback(), ctx.getModificationCallback());
         return true;
     }
 
     private void exitComponents(ILSMIndexOperationContext ctx, LSMOperationType opType, ILSMComponent newComponent,
             boolean failedOperation) throws HyracksDataException, IndexException {
-        List<ILSMComponent> inactiveDiskComponents = null;
         List<ILSMComponent> inactiveDiskComponentsToBeDeleted = null;
         try {
             synchronized (opTracker) {
@@ -192,35 +217,7 @@ public class LSMHarness implements ILSMHarness {
                     // First check if there is any action that is needed to be taken based on the state of each component.
                     for (ILSMComponent c : ctx.getComponentHolder()) {
                         boolean isMutableComponent = i == 0 && c.getType() == LSMComponentType.MEMORY ? true : false;
-                        c.threadExit(opType, failedOperation, isMutableComponent);
-                        if (c.getType() == LSMComponentType.MEMORY) {
-                            switch (c.getState()) {
-                                case READABLE_UNWRITABLE:
-                                    if (isMutableComponent
-                                            && (opType == LSMOperationType.MODIFICATION || opType == LSMOperationType.FORCE_MODIFICATION)) {
-                                        lsmIndex.changeFlushStatusForCurrentMutableCompoent(true);
-                                    }
-                                    break;
-                                case INACTIVE:
-                                    ((AbstractMemoryLSMComponent) c).reset();
-                                    // Notify all waiting threads whenever the mutable component's has change to inactive. This is important because
-                                    // even though we switched the mutable components, it is possible that the component that we just switched
-                                    // to is still busy flushing its data to disk. Thus, the notification that was issued upon scheduling the flush
-                                    // is not enough.
-                                    opTracker.notifyAll();
-                                    break;
-                                default:
-                                    break;
-                            }
-                        } else {
-                            switch (c.getState()) {
-                                case INACTIVE:
-                                    lsmIndex.addInactiveDiskComponent(c);
-                                    break;
-                                default:
-                                    break;
-                            }
-                        }
+                        exitComponent(c, opType, failedOperation, isMutableComponent);
                         i++;
                     }
                     // Then, perform any action that is needed to be taken based on the operation type.
@@ -236,6 +233,8 @@ public class LSMHarness implements ILSMHarness {
                                 }
                                 mergePolicy.diskComponentAdded(lsmIndex, false);
                             }
+                            // Searches have to stop reading the flushed memory component.
+                            unpublishComponentSnapshot();
                             break;
                         case MERGE:
                             // newComponent is null if the merge op. was not performed.
@@ -248,6 +247,8 @@ public class LSMHarness implements ILSMHarness {
                                 }
                                 mergePolicy.diskComponentAdded(lsmIndex, fullMergeIsRequested.get());
                             }
+                            // Searches have to stop reading the merged disk components.
+                            unpublishComponentSnapshot();
                             break;
                         default:
                             break;
@@ -266,51 +267,201 @@ public class LSMHarness implements ILSMHarness {
                         opTracker.afterOperation(lsmIndex, opType, ctx.getSearchOperationCallback(),
                                 ctx.getModificationCallback());
                     }
-
-                    /*
-                     * = Inactive disk components lazy cleanup if any =
-                     * Prepare to cleanup inactive diskComponents which were old merged components
-                     * and not anymore accessed.
-                     * This cleanup is done outside of optracker synchronized block.
-                     */
-                    inactiveDiskComponents = lsmIndex.getInactiveDiskComponents();
-                    if (!inactiveDiskComponents.isEmpty()) {
-                        for (ILSMComponent inactiveComp : inactiveDiskComponents) {
-                            if (((AbstractDiskLSMComponent) inactiveComp).getFileReferenceCount() == 1) {
-                                if (inactiveDiskComponentsToBeDeleted == null) {
-                                    inactiveDiskComponentsToBeDeleted = new LinkedList<ILSMComponent>();
-                                }
-                                inactiveDiskComponentsToBeDeleted.add(inactiveComp);
-                            }
-                        }
-                        if (inactiveDiskComponentsToBeDeleted != null) {
-                            inactiveDiskComponents.removeAll(inactiveDiskComponentsToBeDeleted);
-                        }
-                    }
+                    inactiveDiskComponentsToBeDeleted = getInactiveDiskComponentsToBeDeleted();
                 }
             }
         } finally {
-            /*
-             * cleanup inactive disk components if any
-             */
-            if (inactiveDiskComponentsToBeDeleted != null) {
-                try {
-                    //schedule a replication job to delete these inactive disk components from replicas
-                    if (replicationEnabled) {
-                        lsmIndex.scheduleReplication(null, inactiveDiskComponentsToBeDeleted, false,
-                                ReplicationOperation.DELETE, opType);
+            destroyInactiveDiskComponents(inactiveDiskComponentsToBeDeleted, opType);
+        }
+
+    }
+
+    private void exitComponent(ILSMComponent c, LSMOperationType opType, boolean failedOperation,
+            boolean isMutableComponent) throws HyracksDataException {
+        c.threadExit(opType, failedOperation, isMutableComponent);
+        if (c.getType() == LSMComponentType.MEMORY) {
+            switch (c.getState()) {
+                case READABLE_UNWRITABLE:
+                    if (isMutableComponent
+                            && (opType == LSMOperationType.MODIFICATION || opType == LSMOperationType.FORCE_MODIFICATION)) {
+                        lsmIndex.changeFlushStatusForCurrentMutableCompoent(true);
                     }
+                    break;
+                case INACTIVE:
+                    ((AbstractMemoryLSMComponent) c).reset();
+                    // Notify all waiting threads whenever the mutable component's has change to inactive. This is important because
+                    // even though we switched the mutable components, it is possible that the component that we just switched
+                    // to is still busy flushing its data to disk. Thus, the notification that was issued upon scheduling the flush
+                    // is not enough.
+                    opTracker.notifyAll();
+                    break;
+                default:
+                    break;
+            }
+        } else {
+            switch (c.getState()) {
+                case INACTIVE:
+                    lsmIndex.addInactiveDiskComponent(c);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
 
-                    for (ILSMComponent c : inactiveDiskComponentsToBeDeleted) {
-                        ((AbstractDiskLSMComponent) c).destroy();
+    private List<ILSMComponent> getInactiveDiskComponentsToBeDeleted() {
+        /*
+         * = Inactive disk components lazy cleanup if any =
+         * Prepare to cleanup inactive diskComponents which were old merged components
+         * and not anymore accessed.
+         * This cleanup is done outside of optracker synchronized block.
+         */
+        List<ILSMComponent> inactiveDiskComponentsToBeDeleted = null;
+        List<ILSMComponent> inactiveDiskComponents = lsmIndex.getInactiveDiskComponents();
+        if (!inactiveDiskComponents.isEmpty()) {
+            for (ILSMComponent inactiveComp : inactiveDiskComponents) {
+                if (((AbstractDiskLSMComponent) inactiveComp).getFileReferenceCount() == 1) {
+                    if (inactiveDiskComponentsToBeDeleted == null) {
+                        inactiveDiskComponentsToBeDeleted = new LinkedList<ILSMComponent>();
                     }
-                } catch (Throwable e) {
-                    e.printStackTrace();
-                    throw e;
+                    inactiveDiskComponentsToBeDeleted.add(inactiveComp);
+                }
+            }
+            if (inactiveDiskComponentsToBeDeleted != null) {
+                inactiveDiskComponents.removeAll(inactiveDiskComponentsToBeDeleted);
+            }
+        }
+        return inactiveDiskComponentsToBeDeleted;
+    }
+
+    private void destroyInactiveDiskComponents(List<ILSMComponent> inactiveDiskComponentsToBeDeleted,
+            LSMOperationType opType) throws HyracksDataException {
+        /*
+         * cleanup inactive disk components if any
+         */
+        if (inactiveDiskComponentsToBeDeleted != null) {
+            try {
+                //schedule a replication job to delete these inactive disk components from replicas
+                if (replicationEnabled) {
+                    lsmIndex.scheduleReplication(null, inactiveDiskComponentsToBeDeleted, false,
+                            ReplicationOperation.DELETE, opType);
+                }
+
+                for (ILSMComponent c : inactiveDiskComponentsToBeDeleted) {
+                    ((AbstractDiskLSMComponent) c).destroy();
+                }
+            } catch (Throwable e) {
+                e.printStackTrace();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Enters the components of a search through the current component snapshot. The operation tracker's monitor is
+     * only taken if the snapshot has to be built because the components have changed since the last search. The
+     * tracker is notified of the search without its monitor.
+     *
+     * @return false if the components cannot be entered right now, in which case the search has to wait for them.
+     */
+    private boolean enterComponentSnapshot(ILSMIndexOperationContext ctx) throws HyracksDataException {
+        while (true) {
+            LSMComponentSnapshot snapshot = componentSnapshot;
+            if (snapshot == null) {
+                snapshot = createComponentSnapshot(ctx);
+                if (snapshot == null) {
+                    return false;
+                }
+            }
+            if (snapshot.acquire(ctx)) {
+                List<ILSMComponent> components = ctx.getComponentHolder();
+                components.clear();
+                components.addAll(snapshot.getComponents());
+                ctx.setCurrentMutableComponentId(snapshot.getCurrentMutableComponentId());
+                ((ILSMComponentSnapshotContext) ctx).setComponentSnapshot(snapshot);
+                opTracker.beforeOperation(lsmIndex, LSMOperationType.SEARCH, ctx.getSearchOperationCallback(),
+                        ctx.getModificationCallback());
+                return true;
+            }
+            // The snapshot was retired after we read it. A newer one has been published or is about to be built.
+            releaseComponentSnapshot(snapshot, ctx);
+        }
+    }
+
+    private LSMComponentSnapshot createComponentSnapshot(ILSMIndexOperationContext ctx) throws HyracksDataException {
+        synchronized (opTracker) {
+            LSMComponentSnapshot snapshot = componentSnapshot;
+            if (snapshot != null) {
+                return snapshot;
+            }
+            lsmIndex.getOperationalComponents(ctx);
+            if (!threadEnter(ctx.getComponentHolder(), LSMOperationType.SEARCH)) {
+                return null;
+            }
+            snapshot = new LSMComponentSnapshot(ctx.getComponentHolder(),
+                    ((AbstractLSMIndex) lsmIndex).getCurrentMutableComponentId());
+            componentSnapshot = snapshot;
+            return snapshot;
+        }
+    }
+
+    private void exitComponentSnapshot(ILSMIndexOperationContext ctx) throws HyracksDataException {
+        LSMComponentSnapshot snapshot = getComponentSnapshot(ctx);
+        ((ILSMComponentSnapshotContext) ctx).setComponentSnapshot(null);
+        try {
+            opTracker.afterOperation(lsmIndex, LSMOperationType.SEARCH, ctx.getSearchOperationCallback(),
+                    ctx.getModificationCallback());
+        } finally {
+            releaseComponentSnapshot(snapshot, ctx);
+        }
+    }
+
+    private static LSMComponentSnapshot getComponentSnapshot(ILSMIndexOperationContext ctx) {
+        if (ctx instanceof ILSMComponentSnapshotContext) {
+            return ((ILSMComponentSnapshotContext) ctx).getComponentSnapshot();
+        }
+        return null;
+    }
+
+    private void releaseComponentSnapshot(LSMComponentSnapshot snapshot, ILSMIndexOperationContext ctx)
+            throws HyracksDataException {
+        if (!snapshot.release(ctx)) {
+            return;
+        }
+        // This was the last search on a retired snapshot, so it exits the components on behalf of all of them.
+        List<ILSMComponent> inactiveDiskComponentsToBeDeleted = null;
+        try {
+            synchronized (opTracker) {
+                try {
+                    exitSnapshotComponents(snapshot);
+                } finally {
+                    inactiveDiskComponentsToBeDeleted = getInactiveDiskComponentsToBeDeleted();
                 }
             }
+        } finally {
+            destroyInactiveDiskComponents(inactiveDiskComponentsToBeDeleted, LSMOperationType.SEARCH);
+        }
+    }
+
+    /**
+     * Retires the current component snapshot, so that the next search builds a new one. The caller must hold the
+     * operation tracker's monitor.
+     */
+    private void unpublishComponentSnapshot() throws HyracksDataException {
+        LSMComponentSnapshot snapshot = componentSnapshot;
+        componentSnapshot = null;
+        if (snapshot != null && snapshot.retire()) {
+            exitSnapshotComponents(snapshot);
         }
+    }
 
+    private void exitSnapshotComponents(LSMComponentSnapshot snapshot) throws HyracksDataException {
+        int i = 0;
+        for (ILSMComponent c : snapshot.getComponents()) {
+            boolean isMutableComponent = i == 0 && c.getType() == LSMComponentType.MEMORY ? true : false;
+            exitComponent(c, LSMOperationType.SEARCH, false, isMutableComponent);
+            i++;
+        }
     }
 
     @Override
@@ -352,11 +503,18 @@ public class LSMHarness implements ILSMHarness {
             throws HyracksDataException, IndexException {
         LSMOperationType opType = LSMOperationType.SEARCH;
         ctx.setSearchPredicate(pred);
-        getAndEnterComponents(ctx, opType, false);
+        if (!useComponentSnapshots || !(ctx instanceof ILSMComponentSnapshotContext)
+                || !enterComponentSnapshot(ctx)) {
+            getAndEnterComponents(ctx, opType, false);
+        }
         try {
             lsmIndex.search(ctx, cursor, pred);
         } catch (HyracksDataException | IndexException e) {
-            exitComponents(ctx, opType, null, true);
+            if (getComponentSnapshot(ctx) != null) {
+                exitComponentSnapshot(ctx);
+            } else {
+                exitComponents(ctx, opType, null, true);
+            }
             throw e;
         }
     }
@@ -364,6 +522,10 @@ public class LSMHarness implements ILSMHarness {
     @Override
     public void endSearch(ILSMIndexOperationContext ctx) throws HyracksDataException {
         if (ctx.getOperation() == IndexOperation.SEARCH) {
+            if (getComponentSnapshot(ctx) != null) {
+                exitComponentSnapshot(ctx);
+                return;
+            }
             try {
                 exitComponents(ctx, LSMOperationType.SEARCH, null, false);
             } catch (IndexException e) {
@@ -390,6 +552,7 @@ public class LSMHarness implements ILSMHarness {
         }
 
         ILSMComponent newComponent = null;
+        boolean wasBackground = BackgroundIO.begin();
         try {
             newComponent = lsmIndex.flush(operation);
             operation.getCallback().afterOperation(LSMOperationType.FLUSH, null, newComponent);
@@ -398,6 +561,7 @@ public class LSMHarness implements ILSMHarness {
             e.printStackTrace();
             throw e;
         } finally {
+            BackgroundIO.end(wasBackground);
             exitComponents(ctx, LSMOperationType.FLUSH, newComponent, false);
             operation.getCallback().afterFinalize(LSMOperationType.FLUSH, newComponent);
         }
@@ -438,6 +602,7 @@ public class LSMHarness implements ILSMHarness {
         }
 
         ILSMComponent newComponent = null;
+        boolean wasBackground = BackgroundIO.begin();
         try {
             newComponent = lsmIndex.merge(operation);
             operation.getCallback().afterOperation(LSMOperationType.MERGE, ctx.getComponentHolder(), newComponent);
@@ -446,6 +611,7 @@ public class LSMHarness implements ILSMHarness {
             e.printStackTrace();
             throw e;
         } finally {
+            BackgroundIO.end(wasBackground);
             exitComponents(ctx, LSMOperationType.MERGE, newComponent, false);
             operation.getCallback().afterFinalize(LSMOperationType.MERGE, newComponent);
         }
@@ -459,6 +625,7 @@ public class LSMHarness implements ILSMHarness {
         lsmIndex.markAsValid(c);
         synchronized (opTracker) {
             lsmIndex.addComponent(c);
+            unpublishComponentSnapshot();
             if (replicationEnabled) {
                 componentsToBeReplicated.clear();
                 componentsToBeReplicated.add(c);
@@ -468,6 +635,27 @@ public class LSMHarness implements ILSMHarness {
         }
     }
 
+    /**
+     * Makes searches stop using the components they currently share. Must be called whenever an index changes its
+     * components without going through the harness, e.g. when it is cleared or deactivated.
+     *
+     * @throws HyracksDataException
+     */
+    public void retireComponentSnapshot() throws HyracksDataException {
+        List<ILSMComponent> inactiveDiskComponentsToBeDeleted = null;
+        try {
+            synchronized (opTracker) {
+                try {
+                    unpublishComponentSnapshot();
+                } finally {
+                    inactiveDiskComponentsToBeDeleted = getInactiveDiskComponentsToBeDeleted();
+                }
+            }
+        } finally {
+            destroyInactiveDiskComponents(inactiveDiskComponentsToBeDeleted, LSMOperationType.SEARCH);
+        }
+    }
+
     @Override
     public ILSMOperationTracker getOperationTracker() {
         return opTracker;
@@ -61,6 +61,10 @@ public abstract class LSMIndexSearchCursor implements ITreeIndexCursor {
         return opCtx;
     }
 
+    public boolean getReturnDeletedTuples() {
+        return returnDeletedTuples;
+    }
+
     public void initPriorityQueue() throws HyracksDataException, IndexException {
         int pqInitSize = (rangeCursors.length > 0) ? rangeCursors.length : 1;
         outputPriorityQueue = new PriorityQueue<PriorityQueueElement>(pqInitSize, pqCmp);
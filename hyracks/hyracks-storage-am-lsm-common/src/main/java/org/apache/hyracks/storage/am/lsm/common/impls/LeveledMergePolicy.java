@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.common.impls;
+
+/**
+ * Keeps at most one component per level. The newest component is merged with the following older components for
+ * as long as they are on the same or a lower level than the merge result.
+ * Every record is rewritten about size-ratio / 2 times per level, which is more than with
+ * {@link SizeTieredMergePolicy} for size ratios above 2, but the number of components stays at about one per level.
+ * Since the components of an index are not split by key range, a level is a single component, and a merge into
+ * it rewrites the whole level.
+ */
+public class LeveledMergePolicy extends AbstractSizeRatioMergePolicy {
+
+    @Override
+    public int[] selectMerge(long[] sizes) {
+        if (sizes.length == 0) {
+            return null;
+        }
+        long size = sizes[0];
+        int end = 1;
+        while (end < sizes.length && getLevel(sizes[end]) <= getLevel(size)) {
+            size += sizes[end];
+            end++;
+        }
+        return end > 1 ? new int[] { 0, end } : null;
+    }
+}
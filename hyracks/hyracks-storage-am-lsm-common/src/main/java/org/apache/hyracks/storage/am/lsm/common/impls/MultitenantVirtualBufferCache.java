@@ -40,11 +40,21 @@ public class MultitenantVirtualBufferCache implements IVirtualBufferCache {
         vbc.createFile(fileRef);
     }
 
+    @Override
+    public void createFile(FileReference fileRef, int pageSize) throws HyracksDataException {
+        vbc.createFile(fileRef, pageSize);
+    }
+
     @Override
     public void openFile(int fileId) throws HyracksDataException {
         vbc.openFile(fileId);
     }
 
+    @Override
+    public void openFile(int fileId, int pageSize) throws HyracksDataException {
+        vbc.openFile(fileId, pageSize);
+    }
+
     @Override
     public void closeFile(int fileId) throws HyracksDataException {
         vbc.closeFile(fileId);
@@ -65,6 +75,21 @@ public class MultitenantVirtualBufferCache implements IVirtualBufferCache {
         return vbc.pin(dpid, newPage);
     }
 
+    @Override
+    public ICachedPage pin(long dpid, boolean newPage, boolean sequential) throws HyracksDataException {
+        return vbc.pin(dpid, newPage, sequential);
+    }
+
+    @Override
+    public void prefetch(long dpid, int numPages) throws HyracksDataException {
+        vbc.prefetch(dpid, numPages);
+    }
+
+    @Override
+    public void markFileImmutable(int fileId) throws HyracksDataException {
+        vbc.markFileImmutable(fileId);
+    }
+
     @Override
     public void unpin(ICachedPage page) throws HyracksDataException {
         vbc.unpin(page);
@@ -75,6 +100,11 @@ public class MultitenantVirtualBufferCache implements IVirtualBufferCache {
         vbc.flushDirtyPage(page);
     }
 
+    @Override
+    public void flushDirtyPages(ICachedPage[] pages, int count) throws HyracksDataException {
+        vbc.flushDirtyPages(pages, count);
+    }
+
     @Override
     public void force(int fileId, boolean metadata) throws HyracksDataException {
         vbc.force(fileId, metadata);
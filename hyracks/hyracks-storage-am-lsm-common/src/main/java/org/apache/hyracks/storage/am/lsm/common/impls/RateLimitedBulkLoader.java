@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.common.impls;
+
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.storage.am.common.api.IIndexBulkLoader;
+import org.apache.hyracks.storage.am.common.api.IndexException;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIORateLimiter;
+
+/**
+ * Charges the bytes of the loaded tuples to the given rate limiters, so that a flush or merge produces (and the
+ * cleaner writes) its new component no faster than the limiters allow.
+ */
+public class RateLimitedBulkLoader implements IIndexBulkLoader {
+    // Bytes are charged in chunks so that the limiters are not contended for every tuple.
+    private static final int CHARGE_SIZE = 64 * 1024;
+
+    private final IIndexBulkLoader bulkLoader;
+    private final ILSMIORateLimiter[] rateLimiters;
+    private long unchargedBytes;
+
+    public RateLimitedBulkLoader(IIndexBulkLoader bulkLoader, ILSMIORateLimiter... rateLimiters) {
+        this.bulkLoader = bulkLoader;
+        this.rateLimiters = rateLimiters;
+    }
+
+    @Override
+    public void add(ITupleReference tuple) throws IndexException, HyracksDataException {
+        bulkLoader.add(tuple);
+        for (int i = 0; i < tuple.getFieldCount(); i++) {
+            unchargedBytes += tuple.getFieldLength(i);
+        }
+        if (unchargedBytes >= CHARGE_SIZE) {
+            charge();
+        }
+    }
+
+    @Override
+    public void end() throws IndexException, HyracksDataException {
+        charge();
+        bulkLoader.end();
+    }
+
+    private void charge() throws HyracksDataException {
+        for (ILSMIORateLimiter rateLimiter : rateLimiters) {
+            rateLimiter.acquire(unchargedBytes);
+        }
+        unchargedBytes = 0;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.common.impls;
+
+/**
+ * Lets up to size-ratio - 1 components accumulate on each level. Once there are size-ratio (rounded) adjacent
+ * components on the same level, they are merged into one component, which usually lands on the next level. If the
+ * result would complete the next level right away, the components of that level are merged along with it, so that a
+ * cascade of merges is a single merge that writes each record once.
+ * Every record is rewritten at most once per level, so the write amplification grows with the logarithm of the data
+ * size, to the base of the size ratio, at the cost of more components to search.
+ */
+public class SizeTieredMergePolicy extends AbstractSizeRatioMergePolicy {
+
+    @Override
+    public int[] selectMerge(long[] sizes) {
+        int mergeCount = (int) Math.round(sizeRatio);
+        int start = 0;
+        while (start < sizes.length) {
+            int level = getLevel(sizes[start]);
+            int end = start + 1;
+            while (end < sizes.length && getLevel(sizes[end]) == level) {
+                end++;
+            }
+            if (end - start >= mergeCount) {
+                return new int[] { start, extendMerge(sizes, start, end, mergeCount) };
+            }
+            start = end;
+        }
+        return null;
+    }
+
+    private int extendMerge(long[] sizes, int start, int end, int mergeCount) {
+        long size = 0;
+        for (int i = start; i < end; i++) {
+            size += sizes[i];
+        }
+        while (true) {
+            int level = getLevel(size);
+            int next = end;
+            long nextSize = size;
+            while (next < sizes.length && getLevel(sizes[next]) == level) {
+                nextSize += sizes[next];
+                next++;
+            }
+            if (next - end + 1 < mergeCount) {
+                return end;
+            }
+            end = next;
+            size = nextSize;
+        }
+    }
+}
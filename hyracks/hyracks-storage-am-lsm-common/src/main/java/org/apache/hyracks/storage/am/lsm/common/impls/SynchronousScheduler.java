@@ -22,10 +22,13 @@ import org.apache.hyracks.api.exceptions.HyracksDataException;
 import org.apache.hyracks.storage.am.common.api.IndexException;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMIOOperation;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMIOOperationScheduler;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIORateLimiter;
 
 public enum SynchronousScheduler implements ILSMIOOperationScheduler {
     INSTANCE;
 
+    private final ILSMIORateLimiter ioRateLimiter = new TokenBucketIORateLimiter(0);
+
     @Override
     public void scheduleOperation(ILSMIOOperation operation) throws HyracksDataException {
         try {
@@ -34,4 +37,9 @@ public enum SynchronousScheduler implements ILSMIOOperationScheduler {
             throw new HyracksDataException(e);
         }
     }
+
+    @Override
+    public ILSMIORateLimiter getIORateLimiter() {
+        return ioRateLimiter;
+    }
 }
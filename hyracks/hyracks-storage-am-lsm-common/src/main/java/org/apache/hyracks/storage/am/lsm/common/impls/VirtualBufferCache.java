@@ -21,9 +21,9 @@ package org.apache.hyracks.storage.am.lsm.common.impls;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
 
 import org.apache.hyracks.api.exceptions.HyracksDataException;
 import org.apache.hyracks.api.io.FileReference;
@@ -31,6 +31,7 @@ import org.apache.hyracks.api.replication.IIOReplicationManager;
 import org.apache.hyracks.storage.am.lsm.common.api.IVirtualBufferCache;
 import org.apache.hyracks.storage.common.buffercache.ICacheMemoryAllocator;
 import org.apache.hyracks.storage.common.buffercache.ICachedPage;
+import org.apache.hyracks.storage.common.buffercache.IVersionedCachedPage;
 import org.apache.hyracks.storage.common.file.BufferedFileHandle;
 import org.apache.hyracks.storage.common.file.IFileMapManager;
 import org.apache.hyracks.storage.common.file.TransientFileMapManager;
@@ -72,10 +73,28 @@ public class VirtualBufferCache implements IVirtualBufferCache {
         }
     }
 
+    @Override
+    public void createFile(FileReference fileRef, int pageSize) throws HyracksDataException {
+        checkPageSize(pageSize);
+        createFile(fileRef);
+    }
+
+    private void checkPageSize(int pageSize) throws HyracksDataException {
+        if (pageSize != this.pageSize) {
+            throw new HyracksDataException("Page size " + pageSize + " is not supported by virtual buffer cache with "
+                    + "page size " + this.pageSize);
+        }
+    }
+
     @Override
     public void openFile(int fileId) throws HyracksDataException {
     }
 
+    @Override
+    public void openFile(int fileId, int pageSize) throws HyracksDataException {
+        checkPageSize(pageSize);
+    }
+
     @Override
     public void closeFile(int fileId) throws HyracksDataException {
     }
@@ -189,6 +208,21 @@ public class VirtualBufferCache implements IVirtualBufferCache {
         return page;
     }
 
+    @Override
+    public ICachedPage pin(long dpid, boolean newPage, boolean sequential) throws HyracksDataException {
+        return pin(dpid, newPage);
+    }
+
+    @Override
+    public void prefetch(long dpid, int numPages) throws HyracksDataException {
+        // Pages of a virtual buffer cache are always in memory.
+    }
+
+    @Override
+    public void markFileImmutable(int fileId) throws HyracksDataException {
+        // Pages of a virtual buffer cache are never read from a file.
+    }
+
     private int hash(long dpid) {
         int hashValue = (int) dpid ^ (Integer.reverse((int) (dpid >>> 32)) >>> 1);
         return hashValue % buckets.length;
@@ -217,6 +251,12 @@ public class VirtualBufferCache implements IVirtualBufferCache {
     public void flushDirtyPage(ICachedPage page) throws HyracksDataException {
     }
 
+    @Override
+    public void flushDirtyPages(ICachedPage[] pages, int count) throws HyracksDataException {
+        // Callers that hand off pages for writing, such as the pipelined bulk loader, must not use virtual pages.
+        throw new HyracksDataException("Pages of a virtual buffer cache are not written");
+    }
+
     @Override
     public void force(int fileId, boolean metadata) throws HyracksDataException {
     }
@@ -303,15 +343,18 @@ public class VirtualBufferCache implements IVirtualBufferCache {
         }
     }
 
-    private class VirtualPage implements ICachedPage {
+    private class VirtualPage implements IVersionedCachedPage {
         final ByteBuffer buffer;
-        final ReadWriteLock latch;
+        final ReentrantReadWriteLock latch;
+        final StampedLock version;
+        long writeStamp;
         volatile long dpid;
         VirtualPage next;
 
         public VirtualPage(ByteBuffer buffer) {
             this.buffer = buffer;
             latch = new ReentrantReadWriteLock(true);
+            version = new StampedLock();
             dpid = -1;
             next = null;
         }
@@ -339,13 +382,29 @@ public class VirtualBufferCache implements IVirtualBufferCache {
         @Override
         public void acquireWriteLatch() {
             latch.writeLock().lock();
+            if (latch.getWriteHoldCount() == 1) {
+                writeStamp = version.writeLock();
+            }
         }
 
         @Override
         public void releaseWriteLatch(boolean markDirty) {
+            if (latch.getWriteHoldCount() == 1) {
+                version.unlockWrite(writeStamp);
+            }
             latch.writeLock().unlock();
         }
 
+        @Override
+        public long tryOptimisticRead() {
+            return version.tryOptimisticRead();
+        }
+
+        @Override
+        public boolean validate(long stamp) {
+            return version.validate(stamp);
+        }
+
     }
 
     //These 4 methods aren't applicable here.
@@ -33,4 +33,10 @@ public interface IInvertedListBuilder {
     public int getListSize();
 
     public int getPos();
+
+    /**
+     * @return an upper bound on the number of pages of the given size that the given number of lists with the given
+     *         total number of elements take when they are written one after the other, starting on an empty page.
+     */
+    public int getMaxPages(long numLists, long numElements, int pageSize);
 }
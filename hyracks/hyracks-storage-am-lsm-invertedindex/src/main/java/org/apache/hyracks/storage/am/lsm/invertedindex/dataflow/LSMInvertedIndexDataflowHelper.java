@@ -44,6 +44,8 @@ public final class LSMInvertedIndexDataflowHelper extends AbstractLSMIndexDatafl
     private final int[] invertedIndexFields;
     private final int[] filterFieldsForNonBulkLoadOps;
     private final int[] invertedIndexFieldsForNonBulkLoadOps;
+    private boolean compressedInvertedLists;
+    private int mergeParallelism = 1;
 
     public LSMInvertedIndexDataflowHelper(IIndexOperatorDescriptor opDesc, IHyracksTaskContext ctx, int partition,
             List<IVirtualBufferCache> virtualBufferCaches, ILSMMergePolicy mergePolicy,
@@ -69,6 +71,21 @@ public final class LSMInvertedIndexDataflowHelper extends AbstractLSMIndexDatafl
         this.invertedIndexFields = invertedIndexFields;
         this.filterFieldsForNonBulkLoadOps = filterFieldsForNonBulkLoadOps;
         this.invertedIndexFieldsForNonBulkLoadOps = invertedIndexFieldsForNonBulkLoadOps;
+        compressedInvertedLists = false;
+    }
+
+    /**
+     * @see LSMInvertedIndexDataflowHelperFactory#setCompressedInvertedLists(boolean)
+     */
+    public void setCompressedInvertedLists(boolean compressedInvertedLists) {
+        this.compressedInvertedLists = compressedInvertedLists;
+    }
+
+    /**
+     * @see LSMInvertedIndexDataflowHelperFactory#setMergeParallelism(int)
+     */
+    public void setMergeParallelism(int mergeParallelism) {
+        this.mergeParallelism = mergeParallelism;
     }
 
     @Override
@@ -85,7 +102,8 @@ public final class LSMInvertedIndexDataflowHelper extends AbstractLSMIndexDatafl
                     opTrackerFactory.getOperationTracker(ctx), ioScheduler,
                     ioOpCallbackFactory.createIOOperationCallback(), invertedIndexFields, filterTypeTraits,
                     filterCmpFactories, filterFields, filterFieldsForNonBulkLoadOps,
-                    invertedIndexFieldsForNonBulkLoadOps, durable);
+                    invertedIndexFieldsForNonBulkLoadOps, durable, compressedInvertedLists);
+            invIndex.setMergeParallelism(mergeParallelism);
             return invIndex;
         } catch (IndexException e) {
             throw new HyracksDataException(e);
@@ -44,6 +44,8 @@ public final class PartitionedLSMInvertedIndexDataflowHelper extends AbstractLSM
     private final int[] invertedIndexFields;
     private final int[] filterFieldsForNonBulkLoadOps;
     private final int[] invertedIndexFieldsForNonBulkLoadOps;
+    private boolean compressedInvertedLists;
+    private int mergeParallelism = 1;
 
     public PartitionedLSMInvertedIndexDataflowHelper(IIndexOperatorDescriptor opDesc, IHyracksTaskContext ctx,
             int partition, List<IVirtualBufferCache> virtualBufferCache, ILSMMergePolicy mergePolicy,
@@ -69,6 +71,21 @@ public final class PartitionedLSMInvertedIndexDataflowHelper extends AbstractLSM
         this.invertedIndexFields = invertedIndexFields;
         this.filterFieldsForNonBulkLoadOps = filterFieldsForNonBulkLoadOps;
         this.invertedIndexFieldsForNonBulkLoadOps = invertedIndexFieldsForNonBulkLoadOps;
+        compressedInvertedLists = false;
+    }
+
+    /**
+     * @see PartitionedLSMInvertedIndexDataflowHelperFactory#setCompressedInvertedLists(boolean)
+     */
+    public void setCompressedInvertedLists(boolean compressedInvertedLists) {
+        this.compressedInvertedLists = compressedInvertedLists;
+    }
+
+    /**
+     * @see PartitionedLSMInvertedIndexDataflowHelperFactory#setMergeParallelism(int)
+     */
+    public void setMergeParallelism(int mergeParallelism) {
+        this.mergeParallelism = mergeParallelism;
     }
 
     @Override
@@ -85,7 +102,8 @@ public final class PartitionedLSMInvertedIndexDataflowHelper extends AbstractLSM
                     opTrackerFactory.getOperationTracker(ctx), ioScheduler,
                     ioOpCallbackFactory.createIOOperationCallback(), invertedIndexFields, filterTypeTraits,
                     filterCmpFactories, filterFields, filterFieldsForNonBulkLoadOps,
-                    invertedIndexFieldsForNonBulkLoadOps, durable);
+                    invertedIndexFieldsForNonBulkLoadOps, durable, compressedInvertedLists);
+            invIndex.setMergeParallelism(mergeParallelism);
             return invIndex;
         } catch (IndexException e) {
             throw new HyracksDataException(e);
@@ -32,6 +32,7 @@ import org.apache.hyracks.storage.am.lsm.common.api.ILSMMergePolicyFactory;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMOperationTrackerProvider;
 import org.apache.hyracks.storage.am.lsm.common.api.IVirtualBufferCacheProvider;
 import org.apache.hyracks.storage.am.lsm.common.dataflow.AbstractLSMIndexDataflowHelperFactory;
+import org.apache.hyracks.storage.am.lsm.invertedindex.impls.LSMInvertedIndex;
 
 public class PartitionedLSMInvertedIndexDataflowHelperFactory extends AbstractLSMIndexDataflowHelperFactory {
 
@@ -39,6 +40,8 @@ public class PartitionedLSMInvertedIndexDataflowHelperFactory extends AbstractLS
     private final int[] invertedIndexFields;
     private final int[] filterFieldsForNonBulkLoadOps;
     private final int[] invertedIndexFieldsForNonBulkLoadOps;
+    private boolean compressedInvertedLists;
+    private int mergeParallelism = 1;
 
     public PartitionedLSMInvertedIndexDataflowHelperFactory(IVirtualBufferCacheProvider virtualBufferCacheProvider,
             ILSMMergePolicyFactory mergePolicyFactory, Map<String, String> mergePolicyProperties,
@@ -53,16 +56,37 @@ public class PartitionedLSMInvertedIndexDataflowHelperFactory extends AbstractLS
         this.invertedIndexFields = invertedIndexFields;
         this.filterFieldsForNonBulkLoadOps = filterFieldsForNonBulkLoadOps;
         this.invertedIndexFieldsForNonBulkLoadOps = invertedIndexFieldsForNonBulkLoadOps;
+        compressedInvertedLists = false;
+    }
+
+    /**
+     * Makes the disk components store their inverted lists delta-encoded in blocks with a skip table, which makes
+     * them smaller and speeds up the lookups of the merging searchers. The first inverted-list field must be an
+     * integer. The list format is not recorded in the files, so it must stay the same for the lifetime of an index.
+     */
+    public void setCompressedInvertedLists(boolean compressedInvertedLists) {
+        this.compressedInvertedLists = compressedInvertedLists;
+    }
+
+    /**
+     * Sets the number of token ranges that the merges of the index are split into and merged in parallel, see
+     * {@link LSMInvertedIndex#setMergeParallelism(int)}.
+     */
+    public void setMergeParallelism(int mergeParallelism) {
+        this.mergeParallelism = mergeParallelism;
     }
 
     @Override
     public IndexDataflowHelper createIndexDataflowHelper(IIndexOperatorDescriptor opDesc, IHyracksTaskContext ctx,
             int partition) {
-        return new PartitionedLSMInvertedIndexDataflowHelper(opDesc, ctx, partition,
+        PartitionedLSMInvertedIndexDataflowHelper helper = new PartitionedLSMInvertedIndexDataflowHelper(opDesc, ctx, partition,
                 virtualBufferCacheProvider.getVirtualBufferCaches(ctx), bloomFilterFalsePositiveRate,
                 mergePolicyFactory.createMergePolicy(mergePolicyProperties, ctx), opTrackerFactory,
                 ioSchedulerProvider.getIOScheduler(ctx), ioOpCallbackFactory, invertedIndexFields, filterTypeTraits,
                 filterCmpFactories, filterFields, filterFieldsForNonBulkLoadOps, invertedIndexFieldsForNonBulkLoadOps,
                 durable);
+        helper.setCompressedInvertedLists(compressedInvertedLists);
+        helper.setMergeParallelism(mergeParallelism);
+        return helper;
     }
 }
@@ -23,11 +23,16 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.apache.hyracks.api.dataflow.value.IBinaryComparatorFactory;
 import org.apache.hyracks.api.dataflow.value.ITypeTraits;
 import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.api.io.BackgroundIO;
 import org.apache.hyracks.api.io.FileReference;
+import org.apache.hyracks.api.util.TaskGroup;
 import org.apache.hyracks.data.std.primitive.IntegerPointable;
 import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
 import org.apache.hyracks.storage.am.bloomfilter.impls.BloomCalculations;
@@ -81,6 +86,8 @@ import org.apache.hyracks.storage.am.lsm.invertedindex.api.IInvertedListCursor;
 import org.apache.hyracks.storage.am.lsm.invertedindex.inmemory.InMemoryInvertedIndex;
 import org.apache.hyracks.storage.am.lsm.invertedindex.inmemory.InMemoryInvertedIndexAccessor;
 import org.apache.hyracks.storage.am.lsm.invertedindex.ondisk.OnDiskInvertedIndex;
+import org.apache.hyracks.storage.am.lsm.invertedindex.ondisk.OnDiskInvertedIndex.OnDiskInvertedIndexBulkLoader;
+import org.apache.hyracks.storage.am.lsm.invertedindex.ondisk.OnDiskInvertedIndex.OnDiskInvertedIndexRangeBulkLoader;
 import org.apache.hyracks.storage.am.lsm.invertedindex.ondisk.OnDiskInvertedIndexFactory;
 import org.apache.hyracks.storage.am.lsm.invertedindex.search.InvertedIndexSearchPredicate;
 import org.apache.hyracks.storage.am.lsm.invertedindex.tokenizers.IBinaryTokenizerFactory;
@@ -104,6 +111,7 @@ public class LSMInvertedIndex extends AbstractLSMIndex implements IInvertedIndex
     private final int[] invertedIndexFields;
     private final int[] filterFieldsForNonBulkLoadOps;
     private final int[] invertedIndexFieldsForNonBulkLoadOps;
+    private volatile int mergeParallelism = 1;
 
     public LSMInvertedIndex(List<IVirtualBufferCache> virtualBufferCaches,
             OnDiskInvertedIndexFactory diskInvIndexFactory, BTreeFactory deletedKeysBTreeFactory,
@@ -203,6 +211,7 @@ public class LSMInvertedIndex extends AbstractLSMIndex implements IInvertedIndex
         if (!isActivated) {
             throw new HyracksDataException("Failed to clear the index since it is not activated.");
         }
+        retireComponentSnapshot();
 
         for (ILSMComponent c : memoryComponents) {
             LSMInvertedIndexMemoryComponent mutableComponent = (LSMInvertedIndexMemoryComponent) c;
@@ -228,6 +237,7 @@ public class LSMInvertedIndex extends AbstractLSMIndex implements IInvertedIndex
         if (!isActivated) {
             throw new HyracksDataException("Failed to deactivate the index since it is already deactivated.");
         }
+        retireComponentSnapshot();
 
         isActivated = false;
         if (flushOnExit) {
@@ -514,7 +524,8 @@ public class LSMInvertedIndex extends AbstractLSMIndex implements IInvertedIndex
         memBTreeAccessor.search(scanCursor, nullPred);
 
         // Bulk load the disk inverted index from the in-memory inverted index.
-        IIndexBulkLoader invIndexBulkLoader = diskInvertedIndex.createBulkLoader(1.0f, false, 0L, false);
+        IIndexBulkLoader invIndexBulkLoader = createRateLimitedBulkLoader(
+                diskInvertedIndex.createBulkLoader(1.0f, false, 0L, false));
         try {
             while (scanCursor.hasNext()) {
                 scanCursor.next();
@@ -553,7 +564,8 @@ public class LSMInvertedIndex extends AbstractLSMIndex implements IInvertedIndex
             deletedKeysBTreeAccessor.search(deletedKeysScanCursor, nullPred);
 
             // Bulk load the deleted-keys BTree.
-            IIndexBulkLoader deletedKeysBTreeBulkLoader = diskDeletedKeysBTree.createBulkLoader(1.0f, false, 0L, false);
+            IIndexBulkLoader deletedKeysBTreeBulkLoader = createRateLimitedBulkLoader(
+                    diskDeletedKeysBTree.createBulkLoader(1.0f, false, 0L, false));
             IIndexBulkLoader builder = component.getBloomFilter().createBuilder(numBTreeTuples,
                     bloomFilterSpec.getNumHashes(), bloomFilterSpec.getNumBucketsPerElements());
 
@@ -614,8 +626,11 @@ public class LSMInvertedIndex extends AbstractLSMIndex implements IInvertedIndex
         RangePredicate mergePred = new RangePredicate(null, null, true, true, null, null);
         ILSMIndexOperationContext opCtx = ((LSMIndexSearchCursor) cursor).getOpCtx();
         opCtx.getComponentHolder().addAll(mergeOp.getMergingComponents());
-        // Scan diskInvertedIndexes ignoring the memoryInvertedIndex.
-        search(opCtx, cursor, mergePred);
+        List<ITupleReference> splitKeys = getMergeSplitKeys(mergeOp.getMergingComponents());
+        if (splitKeys.isEmpty()) {
+            // Scan diskInvertedIndexes ignoring the memoryInvertedIndex.
+            search(opCtx, cursor, mergePred);
+        }
 
         // Create an inverted index instance.
         LSMInvertedIndexDiskComponent component = createDiskInvIndexComponent(componentFactory,
@@ -635,7 +650,8 @@ public class LSMInvertedIndex extends AbstractLSMIndex implements IInvertedIndex
             search(opCtx, btreeCursor, mergePred);
 
             BTree btree = component.getDeletedKeysBTree();
-            IIndexBulkLoader btreeBulkLoader = btree.createBulkLoader(1.0f, true, 0L, false);
+            IIndexBulkLoader btreeBulkLoader = createRateLimitedBulkLoader(
+                    btree.createBulkLoader(1.0f, true, 0L, false));
 
             long numElements = 0L;
             for (int i = 0; i < mergeOp.getMergingComponents().size(); ++i) {
@@ -662,17 +678,22 @@ public class LSMInvertedIndex extends AbstractLSMIndex implements IInvertedIndex
             btreeBulkLoader.end();
         }
 
-        IIndexBulkLoader invIndexBulkLoader = mergedDiskInvertedIndex.createBulkLoader(1.0f, true, 0L, false);
-        try {
-            while (cursor.hasNext()) {
-                cursor.next();
-                ITupleReference tuple = cursor.getTuple();
-                invIndexBulkLoader.add(tuple);
+        if (splitKeys.isEmpty()) {
+            IIndexBulkLoader invIndexBulkLoader = createRateLimitedBulkLoader(
+                    mergedDiskInvertedIndex.createBulkLoader(1.0f, true, 0L, false));
+            try {
+                while (cursor.hasNext()) {
+                    cursor.next();
+                    ITupleReference tuple = cursor.getTuple();
+                    invIndexBulkLoader.add(tuple);
+                }
+            } finally {
+                cursor.close();
             }
-        } finally {
-            cursor.close();
+            invIndexBulkLoader.end();
+        } else {
+            mergeTokenRanges(mergeOp.getMergingComponents(), splitKeys, (OnDiskInvertedIndex) mergedDiskInvertedIndex);
         }
-        invIndexBulkLoader.end();
 
         if (component.getLSMComponentFilter() != null) {
             List<ITupleReference> filterTuples = new ArrayList<ITupleReference>();
@@ -688,6 +709,121 @@ public class LSMInvertedIndex extends AbstractLSMIndex implements IInvertedIndex
         return component;
     }
 
+    /**
+     * Sets the number of token ranges that a merge is split into. The ranges are merged concurrently on the threads of
+     * {@link TaskGroup}, each into its own region of the inverted-lists file and its own run of dictionary B-tree
+     * leaves, and the runs are stitched into the merged inverted index. The deleted-keys B-trees are still merged on
+     * the calling thread. A value of 1 merges on a single thread.
+     */
+    public void setMergeParallelism(int mergeParallelism) {
+        if (mergeParallelism < 1) {
+            throw new IllegalArgumentException("Merge parallelism must be positive: " + mergeParallelism);
+        }
+        this.mergeParallelism = mergeParallelism;
+    }
+
+    public int getMergeParallelism() {
+        return mergeParallelism;
+    }
+
+    private List<ITupleReference> getMergeSplitKeys(List<ILSMComponent> mergingComponents)
+            throws HyracksDataException {
+        if (mergeParallelism < 2) {
+            return new ArrayList<ITupleReference>();
+        }
+        // The token distribution of the largest component is the best guess for that of the merged one.
+        LSMInvertedIndexDiskComponent largestComponent = (LSMInvertedIndexDiskComponent) mergingComponents.get(0);
+        for (ILSMComponent c : mergingComponents) {
+            if (((LSMInvertedIndexDiskComponent) c).getComponentSize() > largestComponent.getComponentSize()) {
+                largestComponent = (LSMInvertedIndexDiskComponent) c;
+            }
+        }
+        return ((OnDiskInvertedIndex) largestComponent.getInvIndex()).getBTree().getRangeSplitKeys(mergeParallelism);
+    }
+
+    private void mergeTokenRanges(final List<ILSMComponent> mergingComponents, List<ITupleReference> splitKeys,
+            OnDiskInvertedIndex mergeTarget) throws HyracksDataException, IndexException {
+        int numRanges = splitKeys.size() + 1;
+        // The region of a range in the inverted-lists file must have room for all the lists of the range in the
+        // merging components, so they are counted before the ranges are merged.
+        long[] numLists = new long[numRanges];
+        long[] numElements = new long[numRanges];
+        for (ILSMComponent c : mergingComponents) {
+            OnDiskInvertedIndex invIndex = (OnDiskInvertedIndex) ((LSMInvertedIndexDiskComponent) c).getInvIndex();
+            invIndex.countInvLists(splitKeys, numLists, numElements);
+        }
+        final MultiComparator tokenCmp = MultiComparator.create(mergeTarget.getBTree().getComparatorFactories());
+        OnDiskInvertedIndexRangeBulkLoader bulkLoader = mergeTarget.createRangeBulkLoader(1.0f);
+        final TaskGroup<OnDiskInvertedIndexBulkLoader> rangeMerges = new TaskGroup<OnDiskInvertedIndexBulkLoader>();
+        boolean completed = false;
+        try {
+            List<Future<OnDiskInvertedIndexBulkLoader>> runs = new ArrayList<Future<OnDiskInvertedIndexBulkLoader>>();
+            for (int i = 0; i < numRanges; i++) {
+                final ITupleReference lowKey = i == 0 ? null : splitKeys.get(i - 1);
+                final ITupleReference highKey = i == numRanges - 1 ? null : splitKeys.get(i);
+                final OnDiskInvertedIndexBulkLoader run = bulkLoader.createRunLoader(numLists[i], numElements[i]);
+                runs.add(rangeMerges.submit(new Callable<OnDiskInvertedIndexBulkLoader>() {
+                    @Override
+                    public OnDiskInvertedIndexBulkLoader call() throws HyracksDataException, IndexException {
+                        boolean wasBackground = BackgroundIO.begin();
+                        try {
+                            mergeTokenRange(mergingComponents, lowKey, highKey, tokenCmp, run, rangeMerges);
+                            return run;
+                        } finally {
+                            BackgroundIO.end(wasBackground);
+                        }
+                    }
+                }));
+            }
+            // Runs are stitched in token order while the later ones are still being merged.
+            for (Future<OnDiskInvertedIndexBulkLoader> run : runs) {
+                bulkLoader.addRun(run.get());
+            }
+            completed = true;
+        } catch (InterruptedException e) {
+            throw new HyracksDataException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof HyracksDataException) {
+                throw (HyracksDataException) e.getCause();
+            } else if (e.getCause() instanceof IndexException) {
+                throw (IndexException) e.getCause();
+            }
+            throw new HyracksDataException(e.getCause());
+        } finally {
+            if (!completed) {
+                // The merge target must not be cleaned up while ranges are still writing to it.
+                rangeMerges.cancelAndWait();
+            }
+        }
+        bulkLoader.end();
+    }
+
+    private void mergeTokenRange(List<ILSMComponent> mergingComponents, ITupleReference lowKey,
+            ITupleReference highKey, MultiComparator tokenCmp, OnDiskInvertedIndexBulkLoader run,
+            TaskGroup<?> rangeMerges) throws HyracksDataException, IndexException {
+        LSMInvertedIndexOpContext opCtx = createOpContext(NoOpOperationCallback.INSTANCE,
+                NoOpOperationCallback.INSTANCE);
+        opCtx.setOperation(IndexOperation.MERGE);
+        opCtx.getComponentHolder().addAll(mergingComponents);
+        IIndexCursor cursor = new LSMInvertedIndexRangeSearchCursor(opCtx);
+        // Ranges are (lowKey, highKey], so that each split token belongs to exactly one range.
+        RangePredicate rangePred = new RangePredicate(lowKey, highKey, false, true, tokenCmp, tokenCmp);
+        search(opCtx, cursor, rangePred);
+        IIndexBulkLoader runLoader = createRateLimitedBulkLoader(run);
+        try {
+            while (cursor.hasNext()) {
+                if (rangeMerges.isCancelled()) {
+                    throw new HyracksDataException("The merge of the token range was cancelled.");
+                }
+                cursor.next();
+                runLoader.add(cursor.getTuple());
+            }
+        } finally {
+            cursor.close();
+        }
+        runLoader.end();
+    }
+
     private ILSMComponent createBulkLoadTarget() throws HyracksDataException, IndexException {
         LSMComponentFileReferences componentFileRefs = fileManager.getRelFlushFileReference();
         return createDiskInvIndexComponent(componentFactory, componentFileRefs.getInsertIndexFileReference(),
@@ -907,6 +1043,8 @@ public class LSMInvertedIndex extends AbstractLSMIndex implements IInvertedIndex
         // Flush inverted index second.
         forceFlushDirtyPages(invIndex.getBTree());
         forceFlushInvListsFileDirtyPages(invIndex);
+        // The inverted lists are not modified once they are flushed.
+        bufferCache.markFileImmutable(invIndex.getInvListsFileId());
         markAsValidInternal(invIndex.getBTree());
 
         // Flush deleted keys BTree.
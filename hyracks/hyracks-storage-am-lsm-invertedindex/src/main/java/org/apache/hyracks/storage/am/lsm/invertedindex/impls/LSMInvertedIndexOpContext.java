@@ -32,10 +32,12 @@ import org.apache.hyracks.storage.am.common.ophelpers.IndexOperation;
 import org.apache.hyracks.storage.am.common.ophelpers.MultiComparator;
 import org.apache.hyracks.storage.am.common.tuples.PermutingTupleReference;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponent;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponentSnapshotContext;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMIndexOperationContext;
+import org.apache.hyracks.storage.am.lsm.common.impls.LSMComponentSnapshot;
 import org.apache.hyracks.storage.am.lsm.invertedindex.api.IInvertedIndexAccessor;
 
-public class LSMInvertedIndexOpContext implements ILSMIndexOperationContext {
+public class LSMInvertedIndexOpContext implements ILSMIndexOperationContext, ILSMComponentSnapshotContext {
 
     private static final int NUM_DOCUMENT_FIELDS = 1;
 
@@ -43,6 +45,7 @@ public class LSMInvertedIndexOpContext implements ILSMIndexOperationContext {
     private final List<ILSMComponent> componentHolder;
     private final List<ILSMComponent> componentsToBeMerged;
     private final List<ILSMComponent> componentsToBeReplicated;
+    private LSMComponentSnapshot componentSnapshot;
 
     public final IModificationOperationCallback modificationCallback;
     public final ISearchOperationCallback searchCallback;
@@ -166,4 +169,14 @@ public class LSMInvertedIndexOpContext implements ILSMIndexOperationContext {
     public List<ILSMComponent> getComponentsToBeReplicated() {
         return componentsToBeReplicated;
     }
+
+    @Override
+    public void setComponentSnapshot(LSMComponentSnapshot componentSnapshot) {
+        this.componentSnapshot = componentSnapshot;
+    }
+
+    @Override
+    public LSMComponentSnapshot getComponentSnapshot() {
+        return componentSnapshot;
+    }
 }
@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.invertedindex.ondisk;
+
+import org.apache.hyracks.api.dataflow.value.ITypeTraits;
+import org.apache.hyracks.data.std.primitive.IntegerPointable;
+import org.apache.hyracks.data.std.primitive.ShortPointable;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.storage.am.lsm.invertedindex.api.IInvertedListBuilder;
+
+/**
+ * Builds inverted lists whose elements are stored in blocks of up to {@link #BLOCK_SIZE} elements. A block starts
+ * with a header and its first element in full. The following elements of the block store their first field as the
+ * varint-encoded difference to the first field of the previous element, and their other fields in full.
+ * Blocks never span pages. The headers give the length of every block, which lets
+ * {@link CompressedInvertedListCursor} seek to a key by visiting only the first element of each block.
+ * The first field of the elements must be an integer that the lists are sorted on.
+ */
+public class CompressedInvertedListBuilder implements IInvertedListBuilder {
+    public static final int BLOCK_SIZE = 128;
+
+    // Block header: number of elements, length of the block in bytes, flags.
+    public static final int BLOCK_COUNT_OFF = 0;
+    public static final int BLOCK_LENGTH_OFF = 2;
+    public static final int BLOCK_FLAGS_OFF = 6;
+    public static final int BLOCK_HEADER_SIZE = 7;
+    // Set on the last block of a page when the list continues on the next page.
+    public static final byte LAST_BLOCK_ON_PAGE = 1;
+
+    private final int listElementSize;
+    private int listSize = 0;
+
+    private byte[] targetBuf;
+    private int pos;
+    // Start of the open block of the current list in the target buffer, -1 if there is none.
+    private int blockStart = -1;
+    private int blockCount;
+    private int prevKey;
+
+    public CompressedInvertedListBuilder(ITypeTraits[] invListFields) {
+        if (invListFields[0].getFixedLength() != 4) {
+            throw new IllegalArgumentException("The first inverted-list field must be an integer.");
+        }
+        int tmp = 0;
+        for (int i = 0; i < invListFields.length; i++) {
+            tmp += invListFields[i].getFixedLength();
+        }
+        listElementSize = tmp;
+    }
+
+    @Override
+    public boolean startNewList(ITupleReference tuple, int tokenField) {
+        if (pos + BLOCK_HEADER_SIZE + listElementSize > targetBuf.length) {
+            return false;
+        } else {
+            listSize = 0;
+            blockStart = -1;
+            return true;
+        }
+    }
+
+    @Override
+    public boolean appendElement(ITupleReference tuple, int numTokenFields, int numElementFields) {
+        int key = IntegerPointable.getInteger(tuple.getFieldData(numTokenFields), tuple.getFieldStart(numTokenFields));
+        if (blockStart < 0 || blockCount == BLOCK_SIZE) {
+            if (pos + BLOCK_HEADER_SIZE + listElementSize > targetBuf.length) {
+                endPage();
+                return false;
+            }
+            blockStart = pos;
+            blockCount = 0;
+            targetBuf[blockStart + BLOCK_FLAGS_OFF] = 0;
+            pos += BLOCK_HEADER_SIZE;
+            pos = copyFields(tuple, numTokenFields, numTokenFields + numElementFields, pos);
+        } else {
+            long delta = (long) key - prevKey;
+            if (delta < 0) {
+                throw new IllegalStateException("Inverted list is not sorted on its first field.");
+            }
+            if (pos + getVarIntSize((int) delta) + listElementSize - 4 > targetBuf.length) {
+                endPage();
+                return false;
+            }
+            pos = writeVarInt((int) delta, targetBuf, pos);
+            pos = copyFields(tuple, numTokenFields + 1, numTokenFields + numElementFields, pos);
+        }
+        prevKey = key;
+        blockCount++;
+        ShortPointable.setShort(targetBuf, blockStart + BLOCK_COUNT_OFF, (short) blockCount);
+        IntegerPointable.setInteger(targetBuf, blockStart + BLOCK_LENGTH_OFF, pos - blockStart);
+
+        listSize++;
+        return true;
+    }
+
+    private int copyFields(ITupleReference tuple, int startField, int endField, int off) {
+        for (int field = startField; field < endField; field++) {
+            System.arraycopy(tuple.getFieldData(field), tuple.getFieldStart(field), targetBuf, off,
+                    tuple.getFieldLength(field));
+            off += tuple.getFieldLength(field);
+        }
+        return off;
+    }
+
+    /**
+     * Marks the open block as the last one of the page, since the list continues on the next page.
+     */
+    private void endPage() {
+        if (blockStart >= 0) {
+            targetBuf[blockStart + BLOCK_FLAGS_OFF] = LAST_BLOCK_ON_PAGE;
+        }
+    }
+
+    @Override
+    public void setTargetBuffer(byte[] targetBuf, int startPos) {
+        this.targetBuf = targetBuf;
+        this.pos = startPos;
+        this.blockStart = -1;
+    }
+
+    @Override
+    public int getListSize() {
+        return listSize;
+    }
+
+    @Override
+    public int getPos() {
+        return pos;
+    }
+
+    @Override
+    public int getMaxPages(long numLists, long numElements, int pageSize) {
+        // An element takes at most one byte more than uncompressed, since a delta varint takes at most five bytes.
+        // A page is left when less than a block header and an element are free, and every page starts a new block.
+        int maxWaste = BLOCK_HEADER_SIZE + listElementSize + 1;
+        long maxBytes = numElements * (listElementSize + 1)
+                + BLOCK_HEADER_SIZE * (numLists + numElements / BLOCK_SIZE + 1);
+        long usablePageSize = pageSize - maxWaste - BLOCK_HEADER_SIZE;
+        return (int) Math.max(1, (pageSize - maxWaste + maxBytes + usablePageSize - 1) / usablePageSize);
+    }
+
+    /**
+     * @return the number of bytes that the unsigned varint encoding of the value takes.
+     */
+    public static int getVarIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Writes the value as an unsigned varint, 7 bits per byte with the lowest bits first.
+     *
+     * @return the offset after the written bytes.
+     */
+    public static int writeVarInt(int value, byte[] bytes, int off) {
+        while ((value & ~0x7F) != 0) {
+            bytes[off++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[off++] = (byte) value;
+        return off;
+    }
+}
@@ -0,0 +1,373 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.invertedindex.ondisk;
+
+import static org.apache.hyracks.storage.am.lsm.invertedindex.ondisk.CompressedInvertedListBuilder.BLOCK_COUNT_OFF;
+import static org.apache.hyracks.storage.am.lsm.invertedindex.ondisk.CompressedInvertedListBuilder.BLOCK_FLAGS_OFF;
+import static org.apache.hyracks.storage.am.lsm.invertedindex.ondisk.CompressedInvertedListBuilder.BLOCK_HEADER_SIZE;
+import static org.apache.hyracks.storage.am.lsm.invertedindex.ondisk.CompressedInvertedListBuilder.BLOCK_LENGTH_OFF;
+import static org.apache.hyracks.storage.am.lsm.invertedindex.ondisk.CompressedInvertedListBuilder.LAST_BLOCK_ON_PAGE;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+
+import org.apache.hyracks.api.dataflow.value.ISerializerDeserializer;
+import org.apache.hyracks.api.dataflow.value.ITypeTraits;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.data.std.primitive.IntegerPointable;
+import org.apache.hyracks.data.std.primitive.ShortPointable;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.storage.am.common.ophelpers.MultiComparator;
+import org.apache.hyracks.storage.am.lsm.invertedindex.api.IInvertedListCursor;
+import org.apache.hyracks.storage.common.buffercache.IBufferCache;
+import org.apache.hyracks.storage.common.buffercache.ICachedPage;
+import org.apache.hyracks.storage.common.file.BufferedFileHandle;
+
+/**
+ * Reads inverted lists written by {@link CompressedInvertedListBuilder}. Elements are decoded into a private buffer
+ * one at a time. {@link #containsKey(ITupleReference, MultiComparator)} uses a skip table with the position of every
+ * block, which is built from the block headers on first use. It binary searches the first elements of the blocks
+ * and then decodes only the block that may hold the key.
+ */
+public class CompressedInvertedListCursor implements IInvertedListCursor {
+
+    private final IBufferCache bufferCache;
+    private final int fileId;
+    private final int elementSize;
+    private final byte[] element;
+    private final FixedSizeTupleReference tuple;
+
+    private int startPageId;
+    private int endPageId;
+    private int startOff;
+    private int numElements;
+
+    private ICachedPage[] pages = new ICachedPage[10];
+    private boolean pinned = false;
+    // Pages are pinned as sequential accesses when the cursor is used to scan the whole index, e.g. by merges.
+    private final boolean sequentialScan;
+
+    // Decoding position.
+    private int currentElementIx;
+    private int currentPageIx;
+    private int currentOff;
+    private int blockRemaining;
+    private boolean lastBlockOnPage;
+    private int prevKey;
+
+    // Skip table, built on the first containsKey() of a list.
+    private int numBlocks = -1;
+    private int[] blockPageIxs = new int[10];
+    private int[] blockOffs = new int[10];
+    private int[] blockElementIxs = new int[10];
+    // Block of the last key that was looked up, which narrows the search for the next one.
+    private int lastSeekBlock;
+
+    public CompressedInvertedListCursor(IBufferCache bufferCache, int fileId, ITypeTraits[] invListFields) {
+        this(bufferCache, fileId, invListFields, false);
+    }
+
+    public CompressedInvertedListCursor(IBufferCache bufferCache, int fileId, ITypeTraits[] invListFields,
+            boolean sequentialScan) {
+        this.sequentialScan = sequentialScan;
+        this.bufferCache = bufferCache;
+        this.fileId = fileId;
+        int tmp = 0;
+        for (int i = 0; i < invListFields.length; i++) {
+            tmp += invListFields[i].getFixedLength();
+        }
+        elementSize = tmp;
+        element = new byte[elementSize];
+        tuple = new FixedSizeTupleReference(invListFields);
+        tuple.reset(element, 0);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return currentElementIx < numElements;
+    }
+
+    @Override
+    public void next() {
+        byte[] buf;
+        if (blockRemaining == 0) {
+            if (lastBlockOnPage) {
+                currentPageIx++;
+                currentOff = 0;
+            }
+            buf = pages[currentPageIx].getBuffer().array();
+            blockRemaining = ShortPointable.getShort(buf, currentOff + BLOCK_COUNT_OFF);
+            lastBlockOnPage = buf[currentOff + BLOCK_FLAGS_OFF] == LAST_BLOCK_ON_PAGE;
+            currentOff += BLOCK_HEADER_SIZE;
+            System.arraycopy(buf, currentOff, element, 0, elementSize);
+            currentOff += elementSize;
+            prevKey = IntegerPointable.getInteger(element, 0);
+        } else {
+            buf = pages[currentPageIx].getBuffer().array();
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buf[currentOff++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            prevKey += delta;
+            IntegerPointable.setInteger(element, 0, prevKey);
+            System.arraycopy(buf, currentOff, element, 4, elementSize - 4);
+            currentOff += elementSize - 4;
+        }
+        blockRemaining--;
+        currentElementIx++;
+    }
+
+    @Override
+    public void pinPages() throws HyracksDataException {
+        if (pinned) {
+            return;
+        }
+        int pix = 0;
+        for (int i = startPageId; i <= endPageId; i++) {
+            pages[pix] = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, i), false, sequentialScan);
+            pages[pix].acquireReadLatch();
+            pix++;
+        }
+        pinned = true;
+    }
+
+    @Override
+    public void unpinPages() throws HyracksDataException {
+        int numPages = endPageId - startPageId + 1;
+        for (int i = 0; i < numPages; i++) {
+            pages[i].releaseReadLatch();
+            bufferCache.unpin(pages[i]);
+        }
+        pinned = false;
+    }
+
+    /**
+     * Positions the cursor before the first element of the given block.
+     */
+    private void positionCursor(int block) {
+        currentElementIx = blockElementIxs[block];
+        currentPageIx = blockPageIxs[block];
+        currentOff = blockOffs[block];
+        blockRemaining = 0;
+        lastBlockOnPage = false;
+    }
+
+    private void buildSkipTable() {
+        numBlocks = 0;
+        int pageIx = 0;
+        int off = startOff;
+        int elementIx = 0;
+        while (elementIx < numElements) {
+            if (numBlocks == blockPageIxs.length) {
+                blockPageIxs = grow(blockPageIxs);
+                blockOffs = grow(blockOffs);
+                blockElementIxs = grow(blockElementIxs);
+            }
+            byte[] buf = pages[pageIx].getBuffer().array();
+            blockPageIxs[numBlocks] = pageIx;
+            blockOffs[numBlocks] = off;
+            blockElementIxs[numBlocks] = elementIx;
+            numBlocks++;
+            elementIx += ShortPointable.getShort(buf, off + BLOCK_COUNT_OFF);
+            if (buf[off + BLOCK_FLAGS_OFF] == LAST_BLOCK_ON_PAGE) {
+                pageIx++;
+                off = 0;
+            } else {
+                off += IntegerPointable.getInteger(buf, off + BLOCK_LENGTH_OFF);
+            }
+        }
+        lastSeekBlock = 0;
+    }
+
+    private static int[] grow(int[] arr) {
+        int[] newArr = new int[arr.length * 2];
+        System.arraycopy(arr, 0, newArr, 0, arr.length);
+        return newArr;
+    }
+
+    /**
+     * @return the comparison of the search key with the first element of the block.
+     */
+    private int compareFirstElement(ITupleReference searchTuple, MultiComparator invListCmp, int block)
+            throws HyracksDataException {
+        tuple.reset(pages[blockPageIxs[block]].getBuffer().array(), blockOffs[block] + BLOCK_HEADER_SIZE);
+        try {
+            return invListCmp.compare(searchTuple, tuple);
+        } finally {
+            tuple.reset(element, 0);
+        }
+    }
+
+    @Override
+    public boolean containsKey(ITupleReference searchTuple, MultiComparator invListCmp) throws HyracksDataException {
+        if (numElements == 0) {
+            return false;
+        }
+        if (numBlocks < 0) {
+            buildSkipTable();
+        }
+        // Find the last block whose first element is not greater than the key.
+        int begin = 0;
+        int end = numBlocks - 1;
+        int block = -1;
+        int lastCmp = compareFirstElement(searchTuple, invListCmp, lastSeekBlock);
+        if (lastCmp == 0) {
+            return true;
+        } else if (lastCmp > 0) {
+            block = lastSeekBlock;
+            begin = lastSeekBlock + 1;
+        } else {
+            end = lastSeekBlock - 1;
+        }
+        while (begin <= end) {
+            int mid = (begin + end) / 2;
+            int cmp = compareFirstElement(searchTuple, invListCmp, mid);
+            if (cmp < 0) {
+                end = mid - 1;
+            } else if (cmp > 0) {
+                block = mid;
+                begin = mid + 1;
+            } else {
+                lastSeekBlock = mid;
+                return true;
+            }
+        }
+        if (block < 0) {
+            return false;
+        }
+        lastSeekBlock = block;
+
+        positionCursor(block);
+        int blockEnd = block + 1 < numBlocks ? blockElementIxs[block + 1] : numElements;
+        while (currentElementIx < blockEnd) {
+            next();
+            int cmp = invListCmp.compare(searchTuple, tuple);
+            if (cmp <= 0) {
+                return cmp == 0;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void reset(int startPageId, int endPageId, int startOff, int numElements) {
+        this.startPageId = startPageId;
+        this.endPageId = endPageId;
+        this.startOff = startOff;
+        this.numElements = numElements;
+        this.currentElementIx = 0;
+        this.currentPageIx = 0;
+        this.currentOff = startOff;
+        this.blockRemaining = 0;
+        this.lastBlockOnPage = false;
+        this.numBlocks = -1;
+
+        int numPages = endPageId - startPageId + 1;
+        if (numPages > pages.length) {
+            pages = new ICachedPage[endPageId - startPageId + 1];
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Override
+    public String printInvList(ISerializerDeserializer[] serdes) throws HyracksDataException {
+        int oldCurrentElementIx = currentElementIx;
+        int oldCurrentPageIx = currentPageIx;
+        int oldCurrentOff = currentOff;
+        int oldBlockRemaining = blockRemaining;
+        boolean oldLastBlockOnPage = lastBlockOnPage;
+        int oldPrevKey = prevKey;
+        byte[] oldElement = element.clone();
+
+        currentElementIx = 0;
+        currentPageIx = 0;
+        currentOff = startOff;
+        blockRemaining = 0;
+        lastBlockOnPage = false;
+
+        StringBuilder strBuilder = new StringBuilder();
+        while (hasNext()) {
+            next();
+            strBuilder.append(printCurrentElement(serdes));
+            strBuilder.append(" ");
+        }
+
+        // reset previous state
+        currentElementIx = oldCurrentElementIx;
+        currentPageIx = oldCurrentPageIx;
+        currentOff = oldCurrentOff;
+        blockRemaining = oldBlockRemaining;
+        lastBlockOnPage = oldLastBlockOnPage;
+        prevKey = oldPrevKey;
+        System.arraycopy(oldElement, 0, element, 0, elementSize);
+
+        return strBuilder.toString();
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Override
+    public String printCurrentElement(ISerializerDeserializer[] serdes) throws HyracksDataException {
+        StringBuilder strBuilder = new StringBuilder();
+        for (int i = 0; i < tuple.getFieldCount(); i++) {
+            ByteArrayInputStream inStream = new ByteArrayInputStream(tuple.getFieldData(i), tuple.getFieldStart(i),
+                    tuple.getFieldLength(i));
+            DataInput dataIn = new DataInputStream(inStream);
+            Object o = serdes[i].deserialize(dataIn);
+            strBuilder.append(o.toString());
+            if (i + 1 < tuple.getFieldCount())
+                strBuilder.append(",");
+        }
+        return strBuilder.toString();
+    }
+
+    @Override
+    public int compareTo(IInvertedListCursor invListCursor) {
+        return numElements - invListCursor.size();
+    }
+
+    @Override
+    public int getEndPageId() {
+        return endPageId;
+    }
+
+    @Override
+    public int size() {
+        return numElements;
+    }
+
+    @Override
+    public int getStartOff() {
+        return startOff;
+    }
+
+    @Override
+    public int getStartPageId() {
+        return startPageId;
+    }
+
+    @Override
+    public ITupleReference getTuple() {
+        return tuple;
+    }
+}
@@ -81,4 +81,11 @@ public class FixedSizeElementInvertedListBuilder implements IInvertedListBuilder
     public int getPos() {
         return pos;
     }
+
+    @Override
+    public int getMaxPages(long numLists, long numElements, int pageSize) {
+        // Lists are packed one after the other and only the elements that do not fit start a new page.
+        long elementsPerPage = pageSize / listElementSize;
+        return (int) Math.max(1, (numElements + elementsPerPage - 1) / elementsPerPage);
+    }
 }
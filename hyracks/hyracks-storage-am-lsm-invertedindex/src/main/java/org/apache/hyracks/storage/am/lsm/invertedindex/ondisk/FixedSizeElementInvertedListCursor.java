@@ -52,8 +52,16 @@ public class FixedSizeElementInvertedListCursor implements IInvertedListCursor {
     private int[] elementIndexes = new int[10];
 
     private boolean pinned = false;
+    // Pages are pinned as sequential accesses when the cursor is used to scan the whole index, e.g. by merges.
+    private final boolean sequentialScan;
 
     public FixedSizeElementInvertedListCursor(IBufferCache bufferCache, int fileId, ITypeTraits[] invListFields) {
+        this(bufferCache, fileId, invListFields, false);
+    }
+
+    public FixedSizeElementInvertedListCursor(IBufferCache bufferCache, int fileId, ITypeTraits[] invListFields,
+            boolean sequentialScan) {
+        this.sequentialScan = sequentialScan;
         this.bufferCache = bufferCache;
         this.fileId = fileId;
         this.currentElementIx = 0;
@@ -95,7 +103,7 @@ public class FixedSizeElementInvertedListCursor implements IInvertedListCursor {
         }
         int pix = 0;
         for (int i = startPageId; i <= endPageId; i++) {
-            pages[pix] = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, i), false);
+            pages[pix] = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, i), false, sequentialScan);
             pages[pix].acquireReadLatch();
             pix++;
         }
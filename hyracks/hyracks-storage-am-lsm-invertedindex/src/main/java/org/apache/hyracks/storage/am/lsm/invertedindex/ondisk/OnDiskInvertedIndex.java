@@ -22,6 +22,7 @@ package org.apache.hyracks.storage.am.lsm.invertedindex.ondisk;
 import java.io.DataOutput;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.List;
 
 import org.apache.hyracks.api.context.IHyracksCommonContext;
 import org.apache.hyracks.api.dataflow.value.IBinaryComparatorFactory;
@@ -37,6 +38,8 @@ import org.apache.hyracks.dataflow.common.data.marshalling.IntegerSerializerDese
 import org.apache.hyracks.dataflow.common.util.TupleUtils;
 import org.apache.hyracks.storage.am.btree.frames.BTreeLeafFrameType;
 import org.apache.hyracks.storage.am.btree.impls.BTree;
+import org.apache.hyracks.storage.am.btree.impls.BTree.BTreeLeafRunLoader;
+import org.apache.hyracks.storage.am.btree.impls.BTree.BTreeRangeBulkLoader;
 import org.apache.hyracks.storage.am.btree.impls.RangePredicate;
 import org.apache.hyracks.storage.am.btree.util.BTreeUtils;
 import org.apache.hyracks.storage.am.common.api.IIndexAccessor;
@@ -251,7 +254,19 @@ public class OnDiskInvertedIndex implements IInvertedIndex {
 
     @Override
     public IInvertedListCursor createInvertedListCursor() {
-        return new FixedSizeElementInvertedListCursor(bufferCache, fileId, invListTypeTraits);
+        return createInvertedListCursor(false);
+    }
+
+    /**
+     * @param sequentialScan
+     *            whether the cursor visits the inverted lists in file order, e.g. for a merge, so that their pages
+     *            are pinned as sequential accesses
+     */
+    IInvertedListCursor createInvertedListCursor(boolean sequentialScan) {
+        if (invListBuilder instanceof CompressedInvertedListBuilder) {
+            return new CompressedInvertedListCursor(bufferCache, fileId, invListTypeTraits, sequentialScan);
+        }
+        return new FixedSizeElementInvertedListCursor(bufferCache, fileId, invListTypeTraits, sequentialScan);
     }
 
     @Override
@@ -284,10 +299,102 @@ public class OnDiskInvertedIndex implements IInvertedIndex {
         listCursor.reset(startPageId, endPageId, startOff, numElements);
     }
 
+    /**
+     * Creates a new list builder of the same kind as that of the index, for a bulk loader that runs concurrently with
+     * others.
+     */
+    private IInvertedListBuilder createInvListBuilder() {
+        if (invListBuilder instanceof CompressedInvertedListBuilder) {
+            return new CompressedInvertedListBuilder(invListTypeTraits);
+        }
+        return new FixedSizeElementInvertedListBuilder(invListTypeTraits);
+    }
+
+    /**
+     * Counts the inverted lists and their elements in each of the token ranges that the given split keys separate.
+     * The ranges are (splitKeys[i - 1], splitKeys[i]], and the first and the last one are unbounded.
+     */
+    public void countInvLists(List<ITupleReference> splitKeys, long[] numLists, long[] numElements)
+            throws HyracksDataException, IndexException {
+        IIndexAccessor btreeAccessor = btree.createAccessor(NoOpOperationCallback.INSTANCE,
+                NoOpOperationCallback.INSTANCE);
+        IIndexCursor btreeCursor = btreeAccessor.createSearchCursor(false);
+        MultiComparator tokenCmp = MultiComparator.create(btree.getComparatorFactories());
+        btreeAccessor.search(btreeCursor, new RangePredicate(null, null, true, true, null, null));
+        int range = 0;
+        try {
+            while (btreeCursor.hasNext()) {
+                btreeCursor.next();
+                ITupleReference btreeTuple = btreeCursor.getTuple();
+                while (range < splitKeys.size() && tokenCmp.compare(btreeTuple, splitKeys.get(range)) > 0) {
+                    range++;
+                }
+                numLists[range]++;
+                numElements[range] += IntegerPointable.getInteger(btreeTuple.getFieldData(invListNumElementsField),
+                        btreeTuple.getFieldStart(invListNumElementsField));
+            }
+        } finally {
+            btreeCursor.close();
+        }
+    }
+
+    public OnDiskInvertedIndexRangeBulkLoader createRangeBulkLoader(float btreeFillFactor) throws IndexException {
+        return new OnDiskInvertedIndexRangeBulkLoader(btreeFillFactor);
+    }
+
+    /**
+     * Bulk loads the index from consecutive token ranges that are loaded concurrently. Each range is written by its own
+     * {@link OnDiskInvertedIndexBulkLoader}, which may run on any thread, into a run of B-tree leaves and into a region
+     * of the inverted-lists file that is reserved for it. The runs are then added in token order, so the lists stay in
+     * token order in the file. The regions are sized for the worst case and are not compacted, so the pages that a
+     * range does not use are left unwritten.
+     */
+    public class OnDiskInvertedIndexRangeBulkLoader {
+        private final BTreeRangeBulkLoader btreeBulkLoader;
+        private int nextRegionPageId = rootPageId;
+        private int maxPageId = -1;
+
+        private OnDiskInvertedIndexRangeBulkLoader(float btreeFillFactor) throws IndexException {
+            btreeBulkLoader = btree.createRangeBulkLoader(btreeFillFactor);
+        }
+
+        /**
+         * Creates the loader of the next token range, whose region of the inverted-lists file follows that of the
+         * previous range and has room for the given number of lists and elements. The loaders must be created in token
+         * order, but they may be used concurrently.
+         */
+        public OnDiskInvertedIndexBulkLoader createRunLoader(long numLists, long numElements)
+                throws HyracksDataException {
+            int startPageId = nextRegionPageId;
+            nextRegionPageId += invListBuilder.getMaxPages(numLists, numElements, bufferCache.getPageSize());
+            return new OnDiskInvertedIndexBulkLoader(btreeBulkLoader.createLeafRunLoader(), createInvListBuilder(),
+                    false, startPageId, nextRegionPageId - 1, fileId);
+        }
+
+        /**
+         * Appends the lists of the given run, whose tokens must all follow those of the runs added before.
+         */
+        public void addRun(OnDiskInvertedIndexBulkLoader run) throws HyracksDataException {
+            btreeBulkLoader.addRun((BTreeLeafRunLoader) run.btreeBulkloader);
+            if (run.currentPage != null) {
+                maxPageId = Math.max(maxPageId, run.currentPageId);
+            }
+        }
+
+        public void end() throws HyracksDataException {
+            btreeBulkLoader.end();
+            invListsMaxPageId = maxPageId;
+        }
+    }
+
     public final class OnDiskInvertedIndexBulkLoader implements IIndexBulkLoader {
         private final ArrayTupleBuilder btreeTupleBuilder;
         private final ArrayTupleReference btreeTupleReference;
         private final IIndexBulkLoader btreeBulkloader;
+        private final IInvertedListBuilder invListBuilder;
+        // The last page that the lists may take. It is bounded for the runs of a range bulk loader.
+        private final int maxPageId;
+        private final boolean isRun;
 
         private int currentInvListStartPageId;
         private int currentInvListStartOffset;
@@ -304,6 +411,16 @@ public class OnDiskInvertedIndex implements IInvertedIndex {
 
         public OnDiskInvertedIndexBulkLoader(float btreeFillFactor, boolean verifyInput, long numElementsHint,
                 boolean checkIfEmptyIndex, int startPageId, int fileId) throws IndexException, HyracksDataException {
+            this(btree.createBulkLoader(btreeFillFactor, verifyInput, numElementsHint, checkIfEmptyIndex),
+                    OnDiskInvertedIndex.this.invListBuilder, verifyInput, startPageId, Integer.MAX_VALUE, fileId);
+        }
+
+        private OnDiskInvertedIndexBulkLoader(IIndexBulkLoader btreeBulkloader, IInvertedListBuilder invListBuilder,
+                boolean verifyInput, int startPageId, int maxPageId, int fileId) throws HyracksDataException {
+            this.btreeBulkloader = btreeBulkloader;
+            this.invListBuilder = invListBuilder;
+            this.maxPageId = maxPageId;
+            this.isRun = btreeBulkloader instanceof BTreeLeafRunLoader;
             this.verifyInput = verifyInput;
             this.tokenCmp = MultiComparator.create(btree.getComparatorFactories());
             this.invListCmp = MultiComparator.create(invListCmpFactories);
@@ -316,15 +433,24 @@ public class OnDiskInvertedIndex implements IInvertedIndex {
             this.btreeTupleReference = new ArrayTupleReference();
             this.lastTupleBuilder = new ArrayTupleBuilder(numTokenFields + numInvListKeys);
             this.lastTuple = new ArrayTupleReference();
-            this.btreeBulkloader = btree.createBulkLoader(btreeFillFactor, verifyInput, numElementsHint,
-                    checkIfEmptyIndex);
             currentPageId = startPageId;
+            // The runs of a range bulk loader are created ahead of the threads that fill them, so they pin their first
+            // page when the first tuple is added.
+            if (!isRun) {
+                pinFirstPage();
+            }
+        }
+
+        private void pinFirstPage() throws HyracksDataException {
             currentPage = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, currentPageId), true);
             currentPage.acquireWriteLatch();
             invListBuilder.setTargetBuffer(currentPage.getBuffer().array(), 0);
         }
 
         public void pinNextPage() throws HyracksDataException {
+            if (currentPageId == maxPageId) {
+                throw new IllegalStateException("The inverted lists exceed the pages reserved for them.");
+            }
             currentPage.releaseWriteLatch(true);
             bufferCache.unpin(currentPage);
             currentPageId++;
@@ -370,6 +496,9 @@ public class OnDiskInvertedIndex implements IInvertedIndex {
          */
         @Override
         public void add(ITupleReference tuple) throws IndexException, HyracksDataException {
+            if (currentPage == null) {
+                pinFirstPage();
+            }
             boolean firstElement = lastTupleBuilder.getSize() == 0;
             boolean startNewList = firstElement;
             if (!firstElement) {
@@ -435,7 +564,10 @@ public class OnDiskInvertedIndex implements IInvertedIndex {
                 currentPage.releaseWriteLatch(true);
                 bufferCache.unpin(currentPage);
             }
-            invListsMaxPageId = currentPageId;
+            // The range bulk loader tracks the pages of its runs.
+            if (!isRun) {
+                invListsMaxPageId = currentPageId;
+            }
         }
     }
 
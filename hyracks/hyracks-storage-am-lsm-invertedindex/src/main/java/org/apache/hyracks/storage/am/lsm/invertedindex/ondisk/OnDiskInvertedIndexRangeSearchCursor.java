@@ -65,7 +65,8 @@ public class OnDiskInvertedIndexRangeSearchCursor implements IIndexCursor {
         tokenTuple = new PermutingTupleReference(fieldPermutation);
         btreeCursor = btreeAccessor.createSearchCursor(false);
         concatTuple = new ConcatenatingTupleReference(2);
-        invListCursor = invIndex.createInvertedListCursor();
+        // A range search visits the inverted lists in token order, which is their order in the file.
+        invListCursor = ((OnDiskInvertedIndex) invIndex).createInvertedListCursor(true);
         unpinNeeded = false;
     }
 
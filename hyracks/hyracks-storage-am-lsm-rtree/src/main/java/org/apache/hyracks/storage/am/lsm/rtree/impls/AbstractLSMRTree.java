@@ -185,6 +185,7 @@ public abstract class AbstractLSMRTree extends AbstractLSMIndex implements ITree
         if (!isActivated) {
             throw new HyracksDataException("Failed to deactivate the index since it is already deactivated.");
         }
+        retireComponentSnapshot();
 
         if (flushOnExit) {
             BlockingIOOperationCallbackWrapper cb = new BlockingIOOperationCallbackWrapper(ioOpCallback);
@@ -219,6 +220,7 @@ public abstract class AbstractLSMRTree extends AbstractLSMIndex implements ITree
         if (!isActivated) {
             throw new HyracksDataException("Failed to clear the index since it is not activated.");
         }
+        retireComponentSnapshot();
 
         for (ILSMComponent c : memoryComponents) {
             LSMRTreeMemoryComponent mutableComponent = (LSMRTreeMemoryComponent) c;
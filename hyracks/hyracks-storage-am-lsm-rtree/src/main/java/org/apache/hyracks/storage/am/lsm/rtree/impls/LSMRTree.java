@@ -23,16 +23,23 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.apache.hyracks.api.dataflow.value.IBinaryComparatorFactory;
+import org.apache.hyracks.api.dataflow.value.ILinearizeComparator;
 import org.apache.hyracks.api.dataflow.value.ILinearizeComparatorFactory;
 import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.api.io.BackgroundIO;
+import org.apache.hyracks.api.util.TaskGroup;
 import org.apache.hyracks.data.std.primitive.IntegerPointable;
 import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
 import org.apache.hyracks.storage.am.bloomfilter.impls.BloomCalculations;
 import org.apache.hyracks.storage.am.bloomfilter.impls.BloomFilter;
 import org.apache.hyracks.storage.am.bloomfilter.impls.BloomFilterFactory;
 import org.apache.hyracks.storage.am.bloomfilter.impls.BloomFilterSpecification;
+import org.apache.hyracks.storage.am.btree.api.IBTreeLeafFrame;
 import org.apache.hyracks.storage.am.btree.impls.BTree;
 import org.apache.hyracks.storage.am.btree.impls.BTree.BTreeAccessor;
 import org.apache.hyracks.storage.am.btree.impls.RangePredicate;
@@ -66,11 +73,15 @@ import org.apache.hyracks.storage.am.lsm.common.api.ILSMIndexOperationContext;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMMergePolicy;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMOperationTracker;
 import org.apache.hyracks.storage.am.lsm.common.api.IVirtualBufferCache;
+import org.apache.hyracks.storage.am.lsm.common.impls.BloomFilterAwareBTreePointSearchCursor;
 import org.apache.hyracks.storage.am.lsm.common.impls.LSMComponentFileReferences;
 import org.apache.hyracks.storage.am.lsm.common.impls.LSMComponentFilterManager;
 import org.apache.hyracks.storage.am.lsm.common.impls.LSMTreeIndexAccessor;
 import org.apache.hyracks.storage.am.lsm.common.impls.TreeIndexFactory;
 import org.apache.hyracks.storage.am.rtree.impls.RTree;
+import org.apache.hyracks.storage.am.rtree.impls.RTree.RTreeLeafRunLoader;
+import org.apache.hyracks.storage.am.rtree.impls.RTree.RTreeRangeBulkLoader;
+import org.apache.hyracks.storage.am.rtree.impls.RTreeOrderedScanCursor;
 import org.apache.hyracks.storage.am.rtree.impls.RTreeSearchCursor;
 import org.apache.hyracks.storage.am.rtree.impls.SearchPredicate;
 import org.apache.hyracks.storage.common.buffercache.IBufferCache;
@@ -78,6 +89,7 @@ import org.apache.hyracks.storage.common.file.IFileMapProvider;
 
 public class LSMRTree extends AbstractLSMRTree {
     protected int[] buddyBTreeFields;
+    private volatile int mergeParallelism = 1;
 
     public LSMRTree(List<IVirtualBufferCache> virtualBufferCaches, ITreeIndexFrameFactory rtreeInteriorFrameFactory,
             ITreeIndexFrameFactory rtreeLeafFrameFactory, ITreeIndexFrameFactory btreeInteriorFrameFactory,
@@ -259,7 +271,7 @@ public class LSMRTree extends AbstractLSMRTree {
         if (!isEmpty) {
             rTreeTupleSorter.sort();
 
-            rTreeBulkloader = diskRTree.createBulkLoader(1.0f, false, 0L, false);
+            rTreeBulkloader = createRateLimitedBulkLoader(diskRTree.createBulkLoader(1.0f, false, 0L, false));
             cursor = rTreeTupleSorter;
 
             try {
@@ -300,7 +312,8 @@ public class LSMRTree extends AbstractLSMRTree {
             BTree diskBTree = component.getBTree();
 
             // BulkLoad the tuples from the in-memory tree into the new disk BTree.
-            IIndexBulkLoader bTreeBulkloader = diskBTree.createBulkLoader(1.0f, false, numBTreeTuples, false);
+            IIndexBulkLoader bTreeBulkloader = createRateLimitedBulkLoader(
+                    diskBTree.createBulkLoader(1.0f, false, numBTreeTuples, false));
             IIndexBulkLoader builder = component.getBloomFilter().createBuilder(numBTreeTuples,
                     bloomFilterSpec.getNumHashes(), bloomFilterSpec.getNumBucketsPerElements());
             // scan the memory BTree
@@ -350,7 +363,6 @@ public class LSMRTree extends AbstractLSMRTree {
         ISearchPredicate rtreeSearchPred = new SearchPredicate(null, null);
         ILSMIndexOperationContext opCtx = ((LSMRTreeSortedCursor) cursor).getOpCtx();
         opCtx.getComponentHolder().addAll(mergeOp.getMergingComponents());
-        search(opCtx, cursor, rtreeSearchPred);
 
         LSMRTreeDiskComponent mergedComponent = createDiskComponent(componentFactory, mergeOp.getRTreeMergeTarget(),
                 mergeOp.getBTreeMergeTarget(), mergeOp.getBloomFilterMergeTarget(), true);
@@ -365,7 +377,8 @@ public class LSMRTree extends AbstractLSMRTree {
             search(opCtx, btreeCursor, rtreeSearchPred);
 
             BTree btree = mergedComponent.getBTree();
-            IIndexBulkLoader btreeBulkLoader = btree.createBulkLoader(1.0f, true, 0L, false);
+            IIndexBulkLoader btreeBulkLoader = createRateLimitedBulkLoader(
+                    btree.createBulkLoader(1.0f, true, 0L, false));
 
             long numElements = 0L;
             for (int i = 0; i < mergeOp.getMergingComponents().size(); ++i) {
@@ -393,17 +406,24 @@ public class LSMRTree extends AbstractLSMRTree {
             btreeBulkLoader.end();
         }
 
-        IIndexBulkLoader bulkLoader = mergedComponent.getRTree().createBulkLoader(1.0f, false, 0L, false);
-        try {
-            while (cursor.hasNext()) {
-                cursor.next();
-                ITupleReference frameTuple = cursor.getTuple();
-                bulkLoader.add(frameTuple);
+        List<ITupleReference> splitKeys = getMergeSplitKeys(mergeOp.getMergingComponents());
+        if (splitKeys.isEmpty()) {
+            IIndexBulkLoader bulkLoader = createRateLimitedBulkLoader(
+                    mergedComponent.getRTree().createBulkLoader(1.0f, false, 0L, false));
+            search(opCtx, cursor, rtreeSearchPred);
+            try {
+                while (cursor.hasNext()) {
+                    cursor.next();
+                    ITupleReference frameTuple = cursor.getTuple();
+                    bulkLoader.add(frameTuple);
+                }
+            } finally {
+                cursor.close();
             }
-        } finally {
-            cursor.close();
+            bulkLoader.end();
+        } else {
+            mergeKeyRanges(mergeOp.getMergingComponents(), splitKeys, mergedComponent.getRTree());
         }
-        bulkLoader.end();
 
         if (mergedComponent.getLSMComponentFilter() != null) {
             List<ITupleReference> filterTuples = new ArrayList<ITupleReference>();
@@ -418,6 +438,182 @@ public class LSMRTree extends AbstractLSMRTree {
         return mergedComponent;
     }
 
+    /**
+     * Sets the number of ranges of the linearized key order that a merge is split into. The ranges are merged
+     * concurrently on the threads of {@link TaskGroup}, each into its own leaf pages, and the pages are stitched into
+     * the merged R-tree. A value of 1 merges on a single thread.
+     */
+    public void setMergeParallelism(int mergeParallelism) {
+        if (mergeParallelism < 1) {
+            throw new IllegalArgumentException("Merge parallelism must be positive: " + mergeParallelism);
+        }
+        this.mergeParallelism = mergeParallelism;
+    }
+
+    public int getMergeParallelism() {
+        return mergeParallelism;
+    }
+
+    private List<ITupleReference> getMergeSplitKeys(List<ILSMComponent> mergingComponents)
+            throws HyracksDataException {
+        if (mergeParallelism < 2) {
+            return new ArrayList<ITupleReference>();
+        }
+        // The key distribution of the largest component is the best guess for that of the merged one.
+        LSMRTreeDiskComponent largestComponent = (LSMRTreeDiskComponent) mergingComponents.get(0);
+        for (ILSMComponent c : mergingComponents) {
+            if (((LSMRTreeDiskComponent) c).getComponentSize() > largestComponent.getComponentSize()) {
+                largestComponent = (LSMRTreeDiskComponent) c;
+            }
+        }
+        return largestComponent.getRTree().getRangeSplitKeys(mergeParallelism);
+    }
+
+    private void mergeKeyRanges(final List<ILSMComponent> mergingComponents, List<ITupleReference> splitKeys,
+            RTree mergeTarget) throws HyracksDataException, IndexException {
+        // Every component is split at the scan positions of the split keys. A range ends where the next one starts,
+        // so each tuple is merged exactly once even if a component was not loaded in the linearized order.
+        ILinearizeComparator linearizeCmp = linearizer.createBinaryComparator();
+        int numComponents = mergingComponents.size();
+        int numRanges = splitKeys.size() + 1;
+        int[][][] positions = new int[numRanges + 1][numComponents][];
+        for (int c = 0; c < numComponents; c++) {
+            RTree rtree = ((LSMRTreeDiskComponent) mergingComponents.get(c)).getRTree();
+            for (int i = 1; i < numRanges; i++) {
+                int[] position = rtree.findOrderedScanPosition(splitKeys.get(i - 1), linearizeCmp);
+                if (positions[i - 1][c] != null
+                        && RTreeOrderedScanCursor.comparePositions(position, positions[i - 1][c]) < 0) {
+                    position = positions[i - 1][c];
+                }
+                positions[i][c] = position;
+            }
+        }
+
+        final RTreeRangeBulkLoader bulkLoader = mergeTarget.createRangeBulkLoader(1.0f);
+        final TaskGroup<RTreeLeafRunLoader> rangeMerges = new TaskGroup<RTreeLeafRunLoader>();
+        boolean completed = false;
+        try {
+            List<Future<RTreeLeafRunLoader>> runs = new ArrayList<Future<RTreeLeafRunLoader>>();
+            for (int i = 0; i < numRanges; i++) {
+                final int[][] startPositions = positions[i];
+                final int[][] endPositions = positions[i + 1];
+                runs.add(rangeMerges.submit(new Callable<RTreeLeafRunLoader>() {
+                    @Override
+                    public RTreeLeafRunLoader call() throws HyracksDataException, IndexException {
+                        boolean wasBackground = BackgroundIO.begin();
+                        try {
+                            return mergeKeyRange(mergingComponents, startPositions, endPositions, bulkLoader,
+                                    rangeMerges);
+                        } finally {
+                            BackgroundIO.end(wasBackground);
+                        }
+                    }
+                }));
+            }
+            // Runs are stitched in key order while the later ones are still being merged.
+            for (Future<RTreeLeafRunLoader> run : runs) {
+                bulkLoader.addRun(run.get());
+            }
+            completed = true;
+        } catch (InterruptedException e) {
+            throw new HyracksDataException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof HyracksDataException) {
+                throw (HyracksDataException) e.getCause();
+            } else if (e.getCause() instanceof IndexException) {
+                throw (IndexException) e.getCause();
+            }
+            throw new HyracksDataException(e.getCause());
+        } finally {
+            if (!completed) {
+                // The merge target must not be cleaned up while ranges are still writing to it.
+                rangeMerges.cancelAndWait();
+            }
+        }
+        bulkLoader.end();
+    }
+
+    /**
+     * Merges one range of the components like {@link LSMRTreeSortedCursor} does: the tuples are visited in the
+     * linearized order, and a tuple is dropped if the buddy B-tree of a newer component contains it.
+     */
+    private RTreeLeafRunLoader mergeKeyRange(List<ILSMComponent> mergingComponents, int[][] startPositions,
+            int[][] endPositions, RTreeRangeBulkLoader bulkLoader, TaskGroup<?> rangeMerges)
+            throws HyracksDataException, IndexException {
+        ILinearizeComparator linearizeCmp = linearizer.createBinaryComparator();
+        int numComponents = mergingComponents.size();
+        RTreeOrderedScanCursor[] rtreeCursors = new RTreeOrderedScanCursor[numComponents];
+        ITreeIndexAccessor[] btreeAccessors = new ITreeIndexAccessor[numComponents];
+        ITreeIndexCursor[] btreeCursors = new ITreeIndexCursor[numComponents];
+        for (int i = 0; i < numComponents; i++) {
+            LSMRTreeDiskComponent component = (LSMRTreeDiskComponent) mergingComponents.get(i);
+            rtreeCursors[i] = new RTreeOrderedScanCursor(component.getRTree(), true);
+            btreeAccessors[i] = component.getBTree().createAccessor(NoOpOperationCallback.INSTANCE,
+                    NoOpOperationCallback.INSTANCE);
+            btreeCursors[i] = new BloomFilterAwareBTreePointSearchCursor(
+                    (IBTreeLeafFrame) btreeLeafFrameFactory.createFrame(), false, component.getBloomFilter());
+        }
+        MultiComparator btreeCmp = MultiComparator.create(btreeCmpFactories);
+        RangePredicate btreeRangePredicate = new RangePredicate(null, null, true, true, btreeCmp, btreeCmp);
+        PermutingTupleReference btreeTuple = new PermutingTupleReference(buddyBTreeFields);
+        RTreeLeafRunLoader run = bulkLoader.createLeafRunLoader();
+        IIndexBulkLoader runLoader = createRateLimitedBulkLoader(run);
+        // The current tuple of each cursor, or null once the cursor is exhausted.
+        ITupleReference[] tuples = new ITupleReference[numComponents];
+        try {
+            for (int i = 0; i < numComponents; i++) {
+                rtreeCursors[i].open(startPositions[i], endPositions[i]);
+                tuples[i] = nextTuple(rtreeCursors[i]);
+            }
+            while (true) {
+                if (rangeMerges.isCancelled()) {
+                    throw new HyracksDataException("The merge of the key range was cancelled.");
+                }
+                int foundIn = -1;
+                for (int i = 0; i < numComponents; i++) {
+                    if (tuples[i] != null && (foundIn == -1
+                            || RTree.compareLinearized(linearizeCmp, tuples[foundIn], tuples[i]) > 0)) {
+                        foundIn = i;
+                    }
+                }
+                if (foundIn == -1) {
+                    break;
+                }
+                boolean killed = false;
+                btreeTuple.reset(tuples[foundIn]);
+                btreeRangePredicate.setLowKey(btreeTuple, true);
+                btreeRangePredicate.setHighKey(btreeTuple, true);
+                for (int i = 0; i < foundIn && !killed; i++) {
+                    btreeCursors[i].reset();
+                    btreeAccessors[i].search(btreeCursors[i], btreeRangePredicate);
+                    try {
+                        killed = btreeCursors[i].hasNext();
+                    } finally {
+                        btreeCursors[i].close();
+                    }
+                }
+                if (!killed) {
+                    runLoader.add(tuples[foundIn]);
+                }
+                tuples[foundIn] = nextTuple(rtreeCursors[foundIn]);
+            }
+        } finally {
+            for (int i = 0; i < numComponents; i++) {
+                rtreeCursors[i].close();
+            }
+        }
+        runLoader.end();
+        return run;
+    }
+
+    private static ITupleReference nextTuple(RTreeOrderedScanCursor cursor) throws HyracksDataException {
+        if (!cursor.hasNext()) {
+            return null;
+        }
+        cursor.next();
+        return cursor.getTuple();
+    }
+
     @Override
     public ILSMIndexAccessorInternal createAccessor(IModificationOperationCallback modificationCallback,
             ISearchOperationCallback searchCallback) {
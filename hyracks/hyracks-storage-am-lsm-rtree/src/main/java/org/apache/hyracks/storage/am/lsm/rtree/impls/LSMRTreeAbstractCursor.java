@@ -31,6 +31,7 @@ import org.apache.hyracks.storage.am.common.api.ISearchPredicate;
 import org.apache.hyracks.storage.am.common.api.ITreeIndexAccessor;
 import org.apache.hyracks.storage.am.common.api.ITreeIndexCursor;
 import org.apache.hyracks.storage.am.common.impls.NoOpOperationCallback;
+import org.apache.hyracks.storage.am.common.ophelpers.IndexOperation;
 import org.apache.hyracks.storage.am.common.ophelpers.MultiComparator;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponent;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponent.LSMComponentType;
@@ -88,6 +89,8 @@ public abstract class LSMRTreeAbstractCursor implements ITreeIndexCursor {
         btreeAccessors = new ITreeIndexAccessor[numberOfTrees];
 
         includeMutableComponent = false;
+        // A merge reads each page of its input components exactly once.
+        boolean sequentialScan = opCtx.getOperation() == IndexOperation.MERGE;
         for (int i = 0; i < numberOfTrees; i++) {
             ILSMComponent component = operationalComponents.get(i);
             RTree rtree;
@@ -108,7 +111,7 @@ public abstract class LSMRTreeAbstractCursor implements ITreeIndexCursor {
             }
             rtreeCursors[i] = new RTreeSearchCursor((IRTreeInteriorFrame) lsmInitialState
                     .getRTreeInteriorFrameFactory().createFrame(), (IRTreeLeafFrame) lsmInitialState
-                    .getRTreeLeafFrameFactory().createFrame());
+                    .getRTreeLeafFrameFactory().createFrame(), sequentialScan);
             rtreeAccessors[i] = rtree.createAccessor(NoOpOperationCallback.INSTANCE, NoOpOperationCallback.INSTANCE);
             btreeAccessors[i] = btree.createAccessor(NoOpOperationCallback.INSTANCE, NoOpOperationCallback.INSTANCE);
         }
@@ -34,13 +34,15 @@ import org.apache.hyracks.storage.am.common.ophelpers.IndexOperation;
 import org.apache.hyracks.storage.am.common.ophelpers.MultiComparator;
 import org.apache.hyracks.storage.am.common.tuples.PermutingTupleReference;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponent;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponentSnapshotContext;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMIndexOperationContext;
+import org.apache.hyracks.storage.am.lsm.common.impls.LSMComponentSnapshot;
 import org.apache.hyracks.storage.am.rtree.api.IRTreeInteriorFrame;
 import org.apache.hyracks.storage.am.rtree.api.IRTreeLeafFrame;
 import org.apache.hyracks.storage.am.rtree.impls.RTree;
 import org.apache.hyracks.storage.am.rtree.impls.RTreeOpContext;
 
-public final class LSMRTreeOpContext implements ILSMIndexOperationContext {
+public final class LSMRTreeOpContext implements ILSMIndexOperationContext, ILSMComponentSnapshotContext {
 
     public RTree.RTreeAccessor[] mutableRTreeAccessors;
     public RTree.RTreeAccessor currentMutableRTreeAccessor;
@@ -56,6 +58,7 @@ public final class LSMRTreeOpContext implements ILSMIndexOperationContext {
     public final List<ILSMComponent> componentHolder;
     private final List<ILSMComponent> componentsToBeMerged;
     private final List<ILSMComponent> componentsToBeReplicated;
+    private LSMComponentSnapshot componentSnapshot;
     public final IModificationOperationCallback modificationCallback;
     public final ISearchOperationCallback searchCallback;
     public final PermutingTupleReference indexTuple;
@@ -173,4 +176,14 @@ public final class LSMRTreeOpContext implements ILSMIndexOperationContext {
     public List<ILSMComponent> getComponentsToBeReplicated() {
         return componentsToBeReplicated;
     }
+
+    @Override
+    public void setComponentSnapshot(LSMComponentSnapshot componentSnapshot) {
+        this.componentSnapshot = componentSnapshot;
+    }
+
+    @Override
+    public LSMComponentSnapshot getComponentSnapshot() {
+        return componentSnapshot;
+    }
 }
\ No newline at end of file
@@ -20,14 +20,21 @@
 package org.apache.hyracks.storage.am.rtree.impls;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.hyracks.api.dataflow.value.IBinaryComparatorFactory;
+import org.apache.hyracks.api.dataflow.value.ILinearizeComparator;
 import org.apache.hyracks.api.dataflow.value.ISerializerDeserializer;
 import org.apache.hyracks.api.exceptions.HyracksDataException;
 import org.apache.hyracks.api.io.FileReference;
+import org.apache.hyracks.dataflow.common.comm.io.ArrayTupleBuilder;
+import org.apache.hyracks.dataflow.common.comm.io.ArrayTupleReference;
 import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.dataflow.common.util.TupleUtils;
 import org.apache.hyracks.storage.am.common.api.IFreePageManager;
 import org.apache.hyracks.storage.am.common.api.IIndexBulkLoader;
 import org.apache.hyracks.storage.am.common.api.IIndexCursor;
@@ -39,6 +46,7 @@ import org.apache.hyracks.storage.am.common.api.ITreeIndexAccessor;
 import org.apache.hyracks.storage.am.common.api.ITreeIndexCursor;
 import org.apache.hyracks.storage.am.common.api.ITreeIndexFrame;
 import org.apache.hyracks.storage.am.common.api.ITreeIndexFrameFactory;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexMetaDataFrame;
 import org.apache.hyracks.storage.am.common.api.ITreeIndexTupleReference;
 import org.apache.hyracks.storage.am.common.api.IndexException;
 import org.apache.hyracks.storage.am.common.api.TreeIndexException;
@@ -794,6 +802,174 @@ public class RTree extends AbstractTreeIndex {
         }
     }
 
+    /**
+     * Returns up to numRanges - 1 keys that split the tree into ranges holding roughly the same number of leaves.
+     * The keys are copies of the key fields of the first leaf tuples of the subtrees of the highest level that has
+     * enough of them, so they split the order in which the tree was bulk loaded. An empty list is returned if the tree
+     * consists of a single leaf.
+     */
+    public List<ITupleReference> getRangeSplitKeys(int numRanges) throws HyracksDataException {
+        List<ITupleReference> splitKeys = new ArrayList<ITupleReference>();
+        if (numRanges < 2) {
+            return splitKeys;
+        }
+        IRTreeInteriorFrame interiorFrame = (IRTreeInteriorFrame) interiorFrameFactory.createFrame();
+        List<Integer> levelPageIds = new ArrayList<Integer>();
+        levelPageIds.add(rootPage);
+        List<Integer> childPageIds = new ArrayList<Integer>();
+        while (true) {
+            childPageIds.clear();
+            boolean childrenAreInterior = false;
+            for (int pageId : levelPageIds) {
+                ICachedPage node = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, pageId), false);
+                node.acquireReadLatch();
+                try {
+                    interiorFrame.setPage(node);
+                    if (interiorFrame.isLeaf()) {
+                        return splitKeys;
+                    }
+                    for (int i = 0; i < interiorFrame.getTupleCount(); i++) {
+                        childPageIds.add(interiorFrame.getChildPageId(i));
+                    }
+                    childrenAreInterior = interiorFrame.getLevel() > 1;
+                } finally {
+                    node.releaseReadLatch();
+                    bufferCache.unpin(node);
+                }
+            }
+            if (childPageIds.size() >= numRanges || !childrenAreInterior) {
+                break;
+            }
+            levelPageIds = new ArrayList<Integer>(childPageIds);
+        }
+        // The first subtree starts the first range, so it does not give a split key.
+        int numSplitKeys = Math.min(numRanges - 1, childPageIds.size() - 1);
+        IRTreeLeafFrame leafFrame = (IRTreeLeafFrame) leafFrameFactory.createFrame();
+        ITreeIndexTupleReference leafTuple = leafFrame.createTupleReference();
+        ArrayTupleBuilder tupleBuilder = new ArrayTupleBuilder(cmpFactories.length);
+        for (int i = 1; i <= numSplitKeys; i++) {
+            int pageId = childPageIds.get(i * childPageIds.size() / (numSplitKeys + 1));
+            ICachedPage leaf = pinFirstLeaf(pageId, interiorFrame);
+            try {
+                leafFrame.setPage(leaf);
+                leafTuple.resetByTupleIndex(leafFrame, 0);
+                TupleUtils.copyTuple(tupleBuilder, leafTuple, cmpFactories.length);
+            } finally {
+                leaf.releaseReadLatch();
+                bufferCache.unpin(leaf);
+            }
+            ArrayTupleReference splitKey = new ArrayTupleReference();
+            splitKey.reset(tupleBuilder.getFieldEndOffsets(), tupleBuilder.getByteArray().clone());
+            splitKeys.add(splitKey);
+        }
+        return splitKeys;
+    }
+
+    /**
+     * Returns the position of the first leaf tuple whose linearized key is greater than the given key, in a tree that
+     * was bulk loaded in the order of the linearized keys. The position is given by the indexes of the children on
+     * the path from the root to the leaf, followed by the index of the tuple in the leaf, see
+     * {@link RTreeOrderedScanCursor}. It may point past the last tuple of a leaf, which is the position of the first
+     * tuple of the next leaf. If the tree was not loaded in that order, the position is still valid, but the tuples
+     * before it are not the ones with the smaller keys.
+     */
+    public int[] findOrderedScanPosition(ITupleReference key, ILinearizeComparator linearizeCmp)
+            throws HyracksDataException {
+        IRTreeInteriorFrame interiorFrame = (IRTreeInteriorFrame) interiorFrameFactory.createFrame();
+        IRTreeLeafFrame leafFrame = (IRTreeLeafFrame) leafFrameFactory.createFrame();
+        ITreeIndexTupleReference leafTuple = leafFrame.createTupleReference();
+        List<Integer> path = new ArrayList<Integer>();
+        int pageId = rootPage;
+        while (true) {
+            ICachedPage node = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, pageId), false);
+            node.acquireReadLatch();
+            int[] children;
+            try {
+                interiorFrame.setPage(node);
+                if (interiorFrame.isLeaf()) {
+                    leafFrame.setPage(node);
+                    int low = 0;
+                    int high = leafFrame.getTupleCount();
+                    while (low < high) {
+                        int mid = (low + high) >>> 1;
+                        leafTuple.resetByTupleIndex(leafFrame, mid);
+                        if (compareLinearized(linearizeCmp, leafTuple, key) <= 0) {
+                            low = mid + 1;
+                        } else {
+                            high = mid;
+                        }
+                    }
+                    path.add(low);
+                    break;
+                }
+                children = new int[interiorFrame.getTupleCount()];
+                for (int i = 0; i < children.length; i++) {
+                    children[i] = interiorFrame.getChildPageId(i);
+                }
+            } finally {
+                node.releaseReadLatch();
+                bufferCache.unpin(node);
+            }
+            // Descend into the last child whose first key is not greater than the key.
+            int child = 0;
+            int low = 1;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                ICachedPage leaf = pinFirstLeaf(children[mid], interiorFrame);
+                int c;
+                try {
+                    leafFrame.setPage(leaf);
+                    leafTuple.resetByTupleIndex(leafFrame, 0);
+                    c = compareLinearized(linearizeCmp, leafTuple, key);
+                } finally {
+                    leaf.releaseReadLatch();
+                    bufferCache.unpin(leaf);
+                }
+                if (c <= 0) {
+                    child = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            path.add(child);
+            pageId = children[child];
+        }
+        int[] position = new int[path.size()];
+        for (int i = 0; i < position.length; i++) {
+            position[i] = path.get(i);
+        }
+        return position;
+    }
+
+    /**
+     * Pins and read latches the leftmost leaf of the given subtree, which must not be empty.
+     */
+    private ICachedPage pinFirstLeaf(int pageId, IRTreeInteriorFrame interiorFrame) throws HyracksDataException {
+        while (true) {
+            ICachedPage node = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, pageId), false);
+            node.acquireReadLatch();
+            interiorFrame.setPage(node);
+            if (interiorFrame.isLeaf()) {
+                return node;
+            }
+            pageId = interiorFrame.getChildPageId(0);
+            node.releaseReadLatch();
+            bufferCache.unpin(node);
+        }
+    }
+
+    /**
+     * Compares the linearized keys of two tuples. The comparator reads one coordinate from each of the first
+     * fields, so it is given the length of a single field.
+     */
+    public static int compareLinearized(ILinearizeComparator linearizeCmp, ITupleReference a, ITupleReference b)
+            throws HyracksDataException {
+        return linearizeCmp.compare(a.getFieldData(0), a.getFieldStart(0), a.getFieldLength(0), b.getFieldData(0),
+                b.getFieldStart(0), b.getFieldLength(0));
+    }
+
     @Override
     public ITreeIndexAccessor createAccessor(IModificationOperationCallback modificationCallback,
             ISearchOperationCallback searchCallback) {
@@ -874,6 +1050,14 @@ public class RTree extends AbstractTreeIndex {
         }
     }
 
+    public RTreeRangeBulkLoader createRangeBulkLoader(float fillFactor) throws TreeIndexException {
+        try {
+            return new RTreeRangeBulkLoader(fillFactor);
+        } catch (HyracksDataException e) {
+            throw new TreeIndexException(e);
+        }
+    }
+
     public class RTreeBulkLoader extends AbstractTreeIndex.AbstractTreeIndexBulkLoader {
         ITreeIndexFrame lowerFrame, prevInteriorFrame;
         RTreeTypeAwareTupleWriter tupleWriter = ((RTreeTypeAwareTupleWriter) interiorFrame.getTupleWriter());
@@ -909,7 +1093,7 @@ public class RTree extends AbstractTreeIndex {
                 if (spaceUsed + spaceNeeded > leafMaxBytes) {
                     propagateBulk(1, false);
 
-                    leafFrontier.pageId = freePageManager.getFreePage(metaFrame);
+                    leafFrontier.pageId = getFreePage();
 
                     leafFrontier.page.releaseWriteLatch(true);
                     bufferCache.unpin(leafFrontier.page);
@@ -940,17 +1124,12 @@ public class RTree extends AbstractTreeIndex {
         }
 
         protected void propagateBulk(int level, boolean toRoot) throws HyracksDataException {
-            boolean propagated = false;
-
             if (level == 1)
                 lowerFrame = leafFrame;
 
             if (lowerFrame.getTupleCount() == 0)
                 return;
 
-            if (level >= nodeFrontiers.size())
-                addLevel();
-
             ((RTreeNSMFrame) lowerFrame).adjustMBR();
 
             if (mbr == null) {
@@ -962,6 +1141,18 @@ public class RTree extends AbstractTreeIndex {
             tupleWriter.writeTupleFields(((RTreeNSMFrame) lowerFrame).getTuples(), 0, mbr, 0);
             mbrTuple.resetByTupleOffset(mbr, 0);
 
+            insertMBR(level, nodeFrontiers.get(level - 1).pageId, toRoot);
+        }
+
+        /**
+         * Adds the MBR in mbrTuple with a pointer to the given child to the frontier node of the given level.
+         */
+        protected void insertMBR(int level, int childPageId, boolean toRoot) throws HyracksDataException {
+            boolean propagated = false;
+
+            if (level >= nodeFrontiers.size())
+                addLevel();
+
             NodeFrontier frontier = nodeFrontiers.get(level);
             interiorFrame.setPage(frontier.page);
 
@@ -969,7 +1160,7 @@ public class RTree extends AbstractTreeIndex {
 
             interiorFrame.getBuffer().putInt(
                     interiorFrame.getTupleOffset(interiorFrame.getTupleCount() - 1) + mbrTuple.getTupleSize(),
-                    nodeFrontiers.get(level - 1).pageId);
+                    childPageId);
 
             if (interiorFrame.hasSpaceInsert(mbrTuple) != FrameOpSpaceStatus.SUFFICIENT_CONTIGUOUS_SPACE && !toRoot) {
                 lowerFrame = prevInteriorFrame;
@@ -980,7 +1171,7 @@ public class RTree extends AbstractTreeIndex {
 
                 frontier.page.releaseWriteLatch(true);
                 bufferCache.unpin(frontier.page);
-                frontier.pageId = freePageManager.getFreePage(metaFrame);
+                frontier.pageId = getFreePage();
 
                 frontier.page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, frontier.pageId), true);
                 frontier.page.acquireWriteLatch();
@@ -998,6 +1189,231 @@ public class RTree extends AbstractTreeIndex {
         }
     }
 
+    /**
+     * Bulk loads the tree from consecutive ranges of the load order that are loaded concurrently. Each range is
+     * written into its own leaf pages by an {@link RTreeLeafRunLoader}, which may run on any thread. The runs are then
+     * added in order, which builds the interior levels on top of their leaves.
+     */
+    public class RTreeRangeBulkLoader extends RTreeBulkLoader {
+        // The number of pages that a leaf run loader allocates at a time.
+        private static final int PAGE_BATCH_SIZE = 32;
+        private final float fillFactor;
+        // Allocates the page batches of the run loaders. All allocations of the loader are made under its monitor.
+        private final ITreeIndexMetaDataFrame batchMetaFrame;
+        // Pages of batches that the run loaders did not fill, which are used for the interior levels.
+        private final Deque<Integer> unusedPages;
+        // The MBR of the last leaf that was added, which is the leaf frontier. It is null before the first leaf.
+        private byte[] lastLeafMBR;
+
+        public RTreeRangeBulkLoader(float fillFactor) throws TreeIndexException, HyracksDataException {
+            super(fillFactor);
+            this.fillFactor = fillFactor;
+            batchMetaFrame = freePageManager.getMetaDataFrameFactory().createFrame();
+            unusedPages = new ArrayDeque<Integer>();
+        }
+
+        public RTreeLeafRunLoader createLeafRunLoader() {
+            return new RTreeLeafRunLoader(this, fillFactor);
+        }
+
+        @Override
+        protected synchronized int getFreePage() throws HyracksDataException {
+            // The pool does not exist yet while the super constructor allocates the first leaf.
+            if (unusedPages != null && !unusedPages.isEmpty()) {
+                return unusedPages.poll();
+            }
+            return freePageManager.getFreePage(metaFrame);
+        }
+
+        private synchronized void allocatePages(int[] pageIds) throws HyracksDataException {
+            for (int i = 0; i < pageIds.length; i++) {
+                pageIds[i] = freePageManager.getFreePage(batchMetaFrame);
+            }
+        }
+
+        private synchronized void returnPages(int[] pageIds, int start, int end) {
+            for (int i = start; i < end; i++) {
+                unusedPages.add(pageIds[i]);
+            }
+        }
+
+        @Override
+        public void add(ITupleReference tuple) {
+            throw new UnsupportedOperationException("Tuples must be added through a leaf run loader.");
+        }
+
+        /**
+         * Appends the leaves of the given run, whose tuples must all follow those of the runs added before.
+         */
+        public void addRun(RTreeLeafRunLoader run) throws HyracksDataException {
+            if (run.numLeaves == 0) {
+                return;
+            }
+            NodeFrontier leafFrontier = nodeFrontiers.get(0);
+            try {
+                // The last leaf stays the leaf frontier, so that end() adds it like the bulk loader does.
+                if (lastLeafMBR != null) {
+                    mbrTuple.resetByTupleOffset(ByteBuffer.wrap(lastLeafMBR), 0);
+                    insertMBR(1, leafFrontier.pageId, false);
+                }
+                for (int i = 0; i < run.numLeaves - 1; i++) {
+                    mbrTuple.resetByTupleOffset(ByteBuffer.wrap(run.leafMBRs.get(i)), 0);
+                    insertMBR(1, run.leafPageIds[i], false);
+                }
+
+                leafFrontier.page.releaseWriteLatch(true);
+                bufferCache.unpin(leafFrontier.page);
+                if (lastLeafMBR == null) {
+                    // The initial leaf of the loader was never used.
+                    synchronized (this) {
+                        freePageManager.addFreePage(metaFrame, leafFrontier.pageId);
+                    }
+                }
+                leafFrontier.pageId = run.leafPageIds[run.numLeaves - 1];
+                leafFrontier.page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, leafFrontier.pageId),
+                        false);
+                leafFrontier.page.acquireWriteLatch();
+                leafFrame.setPage(leafFrontier.page);
+                lastLeafMBR = run.leafMBRs.get(run.numLeaves - 1);
+            } catch (HyracksDataException e) {
+                handleException();
+                throw e;
+            } catch (RuntimeException e) {
+                handleException();
+                throw e;
+            }
+        }
+
+        @Override
+        public void end() throws HyracksDataException {
+            // The pages that are left over are written as empty leaves and freed, so that the file has no holes.
+            ITreeIndexFrame freeFrame = leafFrameFactory.createFrame();
+            for (Integer pageId : unusedPages) {
+                ICachedPage page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, pageId), true);
+                page.acquireWriteLatch();
+                try {
+                    freeFrame.setPage(page);
+                    freeFrame.initBuffer((byte) 0);
+                } finally {
+                    page.releaseWriteLatch(true);
+                    bufferCache.unpin(page);
+                }
+                freePageManager.addFreePage(metaFrame, pageId);
+            }
+            unusedPages.clear();
+            super.end();
+        }
+    }
+
+    /**
+     * Writes a range of the load order into new leaf pages for an {@link RTreeRangeBulkLoader}. It remembers the page
+     * id and the MBR of every leaf, so that the interior levels can be built without reading the leaves again.
+     */
+    public class RTreeLeafRunLoader implements IIndexBulkLoader {
+        private final RTreeRangeBulkLoader rangeLoader;
+        private final ITreeIndexFrame leafFrame;
+        private final ITreeIndexFrame interiorFrame;
+        private final RTreeTypeAwareTupleWriter tupleWriter;
+        private final int keyFieldCount;
+        private final int leafMaxBytes;
+        private final int slotSize;
+        private final List<byte[]> leafMBRs = new ArrayList<byte[]>();
+        private int[] leafPageIds = new int[16];
+        private int numLeaves;
+        private ICachedPage page;
+        // The pages that were allocated for the run but have not been used yet.
+        private final int[] pageBatch = new int[RTreeRangeBulkLoader.PAGE_BATCH_SIZE];
+        private int nextPageInBatch = pageBatch.length;
+
+        private RTreeLeafRunLoader(RTreeRangeBulkLoader rangeLoader, float fillFactor) {
+            this.rangeLoader = rangeLoader;
+            leafFrame = leafFrameFactory.createFrame();
+            interiorFrame = interiorFrameFactory.createFrame();
+            tupleWriter = (RTreeTypeAwareTupleWriter) interiorFrame.getTupleWriter();
+            keyFieldCount = cmpFactories.length;
+            leafMaxBytes = (int) ((float) bufferCache.getPageSize() * fillFactor);
+            slotSize = leafFrame.getSlotSize();
+        }
+
+        @Override
+        public void add(ITupleReference tuple) throws IndexException, HyracksDataException {
+            try {
+                int tupleSize = Math.max(leafFrame.getBytesRequriedToWriteTuple(tuple),
+                        interiorFrame.getBytesRequriedToWriteTuple(tuple));
+                if (tupleSize > maxTupleSize) {
+                    throw new TreeIndexException("Space required for record (" + tupleSize
+                            + ") larger than maximum acceptable size (" + maxTupleSize + ")");
+                }
+                if (page == null) {
+                    newLeaf();
+                }
+
+                int spaceNeeded = tupleWriter.bytesRequired(tuple) + slotSize;
+                int spaceUsed = leafFrame.getBuffer().capacity() - leafFrame.getTotalFreeSpace();
+                if (spaceUsed + spaceNeeded > leafMaxBytes) {
+                    leafFrame.compress();
+                    spaceUsed = leafFrame.getBuffer().capacity() - leafFrame.getTotalFreeSpace();
+                }
+                if (spaceUsed + spaceNeeded > leafMaxBytes) {
+                    finishLeaf();
+                    newLeaf();
+                }
+                leafFrame.insert(tuple, -1);
+            } catch (IndexException | HyracksDataException | RuntimeException e) {
+                if (page != null) {
+                    page.releaseWriteLatch(true);
+                    bufferCache.unpin(page);
+                    page = null;
+                }
+                throw e;
+            }
+        }
+
+        @Override
+        public void end() throws HyracksDataException {
+            if (page != null) {
+                finishLeaf();
+            }
+            rangeLoader.returnPages(pageBatch, nextPageInBatch, pageBatch.length);
+            nextPageInBatch = pageBatch.length;
+        }
+
+        public int getNumLeaves() {
+            return numLeaves;
+        }
+
+        private void newLeaf() throws HyracksDataException {
+            if (nextPageInBatch == pageBatch.length) {
+                rangeLoader.allocatePages(pageBatch);
+                nextPageInBatch = 0;
+            }
+            int pageId = pageBatch[nextPageInBatch++];
+            if (numLeaves == leafPageIds.length) {
+                int[] newLeafPageIds = new int[leafPageIds.length * 2];
+                System.arraycopy(leafPageIds, 0, newLeafPageIds, 0, numLeaves);
+                leafPageIds = newLeafPageIds;
+            }
+            leafPageIds[numLeaves++] = pageId;
+            page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, pageId), true);
+            page.acquireWriteLatch();
+            leafFrame.setPage(page);
+            leafFrame.initBuffer((byte) 0);
+        }
+
+        private void finishLeaf() throws HyracksDataException {
+            RTreeNSMFrame frame = (RTreeNSMFrame) leafFrame;
+            frame.adjustMBR();
+            // The interior frame copies the child pointer from behind the tuple, so the MBR leaves room for it.
+            byte[] mbr = new byte[tupleWriter.bytesRequired(frame.getTuples()[0], 0, keyFieldCount)
+                    + ((RTreeNSMInteriorFrame) interiorFrame).getChildPointerSize()];
+            tupleWriter.writeTupleFields(frame.getTuples(), 0, ByteBuffer.wrap(mbr), 0);
+            leafMBRs.add(mbr);
+            page.releaseWriteLatch(true);
+            bufferCache.unpin(page);
+            page = null;
+        }
+    }
+
     @Override
     public void validate() throws HyracksDataException {
         throw new UnsupportedOperationException("Validation not implemented for R-Trees.");
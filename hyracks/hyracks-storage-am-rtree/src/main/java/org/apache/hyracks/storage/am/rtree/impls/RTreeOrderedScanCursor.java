@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.rtree.impls;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexTupleReference;
+import org.apache.hyracks.storage.am.rtree.api.IRTreeInteriorFrame;
+import org.apache.hyracks.storage.am.rtree.api.IRTreeLeafFrame;
+import org.apache.hyracks.storage.common.buffercache.IBufferCache;
+import org.apache.hyracks.storage.common.buffercache.ICachedPage;
+import org.apache.hyracks.storage.common.file.BufferedFileHandle;
+
+/**
+ * Scans the leaf tuples of an R-tree that is not modified, such as a disk component, in depth-first order, which is
+ * the order in which a bulk load wrote them. The scan may start and stop at positions of that order. A position is
+ * given by the indexes of the children on the path from the root to a leaf, followed by the index of a tuple in the
+ * leaf, see {@link RTree#findOrderedScanPosition}.
+ */
+public class RTreeOrderedScanCursor {
+    private final IBufferCache bufferCache;
+    private final int fileId;
+    private final int rootPage;
+    private final IRTreeInteriorFrame interiorFrame;
+    private final IRTreeLeafFrame leafFrame;
+    private final ITreeIndexTupleReference frameTuple;
+    private final boolean sequentialScan;
+
+    // The children of the interior nodes on the path to the current leaf, and the index of the child that it takes.
+    private final List<int[]> pathChildren = new ArrayList<int[]>();
+    private int[] pathIndexes = new int[8];
+    private int depth;
+
+    private ICachedPage page;
+    private int tupleIndex;
+    // The scan stops at this tuple index of the current leaf.
+    private int endTupleIndex;
+    // Whether the end position is in the current leaf.
+    private boolean lastLeaf;
+    private int[] endPosition;
+
+    /**
+     * @param sequentialScan
+     *            whether the scan is expected to visit most pages of the tree once, e.g. for a merge, so that its pages
+     *            are pinned as sequential accesses
+     */
+    public RTreeOrderedScanCursor(RTree rtree, boolean sequentialScan) {
+        this.sequentialScan = sequentialScan;
+        bufferCache = rtree.getBufferCache();
+        fileId = rtree.getFileId();
+        rootPage = rtree.getRootPageId();
+        interiorFrame = (IRTreeInteriorFrame) rtree.getInteriorFrameFactory().createFrame();
+        leafFrame = (IRTreeLeafFrame) rtree.getLeafFrameFactory().createFrame();
+        frameTuple = leafFrame.createTupleReference();
+    }
+
+    /**
+     * Opens the scan of the tuples from the start position up to, but not including, the end position.
+     *
+     * @param startPosition
+     *            the position of the first tuple, or null to start with the first tuple of the tree
+     * @param endPosition
+     *            the position after the last tuple, or null to end with the last tuple of the tree
+     */
+    public void open(int[] startPosition, int[] endPosition) throws HyracksDataException {
+        close();
+        this.endPosition = endPosition;
+        depth = 0;
+        descend(rootPage, startPosition);
+    }
+
+    public boolean hasNext() throws HyracksDataException {
+        while (page != null) {
+            if (tupleIndex < endTupleIndex) {
+                return true;
+            }
+            releaseLeaf();
+            if (lastLeaf) {
+                return false;
+            }
+            nextSubtree();
+        }
+        return false;
+    }
+
+    public void next() {
+        frameTuple.resetByTupleIndex(leafFrame, tupleIndex++);
+    }
+
+    public ITupleReference getTuple() {
+        return frameTuple;
+    }
+
+    public void close() throws HyracksDataException {
+        if (page != null) {
+            releaseLeaf();
+        }
+    }
+
+    /**
+     * Compares two positions of the same tree in the order of the scan.
+     */
+    public static int comparePositions(int[] a, int[] b) {
+        for (int i = 0; i < a.length && i < b.length; i++) {
+            if (a[i] != b[i]) {
+                return a[i] < b[i] ? -1 : 1;
+            }
+        }
+        return a.length - b.length;
+    }
+
+    /**
+     * Descends from the given node to the leaf of the given position, or to the first leaf of the node if the
+     * position is null. If the position is past the end of a subtree, the scan continues with the next subtree.
+     */
+    private void descend(int pageId, int[] position) throws HyracksDataException {
+        while (true) {
+            ICachedPage node = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, pageId), false,
+                    sequentialScan);
+            node.acquireReadLatch();
+            interiorFrame.setPage(node);
+            if (interiorFrame.isLeaf()) {
+                page = node;
+                leafFrame.setPage(page);
+                tupleIndex = position == null ? 0 : Math.min(position[depth], leafFrame.getTupleCount());
+                setLeafEnd();
+                return;
+            }
+            int[] children = new int[interiorFrame.getTupleCount()];
+            for (int i = 0; i < children.length; i++) {
+                children[i] = interiorFrame.getChildPageId(i);
+            }
+            node.releaseReadLatch();
+            bufferCache.unpin(node);
+            int index = position == null ? 0 : position[depth];
+            if (depth == pathChildren.size()) {
+                pathChildren.add(children);
+            } else {
+                pathChildren.set(depth, children);
+            }
+            if (depth == pathIndexes.length) {
+                int[] newPathIndexes = new int[pathIndexes.length * 2];
+                System.arraycopy(pathIndexes, 0, newPathIndexes, 0, depth);
+                pathIndexes = newPathIndexes;
+            }
+            pathIndexes[depth++] = index;
+            if (index >= children.length) {
+                nextSubtree();
+                return;
+            }
+            pageId = children[index];
+        }
+    }
+
+    /**
+     * Moves to the first leaf after the subtree of the current path, unless the scan reached the end of the tree.
+     */
+    private void nextSubtree() throws HyracksDataException {
+        while (depth > 0) {
+            int level = depth - 1;
+            int[] children = pathChildren.get(level);
+            if (pathIndexes[level] + 1 < children.length) {
+                pathIndexes[level]++;
+                descend(children[pathIndexes[level]], null);
+                return;
+            }
+            depth--;
+        }
+    }
+
+    private void setLeafEnd() {
+        int tupleCount = leafFrame.getTupleCount();
+        if (endPosition == null) {
+            endTupleIndex = tupleCount;
+            lastLeaf = false;
+            return;
+        }
+        int c = 0;
+        for (int i = 0; i < depth && c == 0; i++) {
+            if (pathIndexes[i] != endPosition[i]) {
+                c = pathIndexes[i] < endPosition[i] ? -1 : 1;
+            }
+        }
+        if (c < 0) {
+            endTupleIndex = tupleCount;
+            lastLeaf = false;
+        } else {
+            endTupleIndex = c == 0 ? Math.min(endPosition[depth], tupleCount) : 0;
+            lastLeaf = true;
+        }
+    }
+
+    private void releaseLeaf() throws HyracksDataException {
+        page.releaseReadLatch();
+        bufferCache.unpin(page);
+        page = null;
+    }
+}
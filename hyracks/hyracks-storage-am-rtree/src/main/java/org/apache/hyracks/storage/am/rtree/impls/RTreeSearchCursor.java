@@ -54,8 +54,19 @@ public class RTreeSearchCursor implements ITreeIndexCursor {
 
     private ITreeIndexTupleReference frameTuple;
     private boolean readLatched = false;
+    private final boolean sequentialScan;
 
     public RTreeSearchCursor(IRTreeInteriorFrame interiorFrame, IRTreeLeafFrame leafFrame) {
+        this(interiorFrame, leafFrame, false);
+    }
+
+    /**
+     * @param sequentialScan
+     *            whether the cursor is expected to visit every page of the tree once, e.g. for a merge, so that its
+     *            pages are pinned as sequential accesses
+     */
+    public RTreeSearchCursor(IRTreeInteriorFrame interiorFrame, IRTreeLeafFrame leafFrame, boolean sequentialScan) {
+        this.sequentialScan = sequentialScan;
         this.interiorFrame = interiorFrame;
         this.leafFrame = leafFrame;
         this.frameTuple = leafFrame.createTupleReference();
@@ -104,7 +115,7 @@ public class RTreeSearchCursor implements ITreeIndexCursor {
             int pageId = pathList.getLastPageId();
             long parentLsn = pathList.getLastPageLsn();
             pathList.moveLast();
-            ICachedPage node = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, pageId), false);
+            ICachedPage node = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, pageId), false, sequentialScan);
             node.acquireReadLatch();
             readLatched = true;
             try {
@@ -18,17 +18,27 @@
  */
 package org.apache.hyracks.storage.common.buffercache;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
@@ -37,9 +47,13 @@ import java.util.logging.Logger;
 import org.apache.hyracks.api.exceptions.HyracksDataException;
 import org.apache.hyracks.api.io.FileReference;
 import org.apache.hyracks.api.io.IFileHandle;
+import org.apache.hyracks.api.io.IIOFuture;
 import org.apache.hyracks.api.io.IIOManager;
+import org.apache.hyracks.api.io.IListenableIOFuture;
 import org.apache.hyracks.api.lifecycle.ILifeCycleComponent;
 import org.apache.hyracks.api.replication.IIOReplicationManager;
+import org.apache.hyracks.storage.common.compression.CompressedPageFile;
+import org.apache.hyracks.storage.common.compression.IPageCompressor;
 import org.apache.hyracks.storage.common.file.BufferedFileHandle;
 import org.apache.hyracks.storage.common.file.IFileMapManager;
 
@@ -49,6 +63,24 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
 
     private static final int MIN_CLEANED_COUNT_DIFF = 3;
     private static final int PIN_MAX_WAIT_TIME = 50;
+    // At most this fraction of the cache is pinned by a single read-ahead request.
+    private static final int MAX_READ_AHEAD_FRACTION = 8;
+    // Immutable files are mapped in segments of at most this size.
+    private static final int MAX_MAPPED_SEGMENT_SIZE = 1 << 30;
+    // Maximum number of dirty pages that the cleaner latches and writes together.
+    private static final int MAX_CLEANER_BATCH_SIZE = 256;
+    // Immutable files are compressed into a hidden file with this suffix, which then replaces them.
+    private static final String COMPRESSING_FILE_SUFFIX = ".compressing";
+    // A compressed file has an empty hidden file with this suffix next to it. Only files that have one are read as
+    // compressed, so that the data of other files is never taken for a compressed file.
+    private static final String COMPRESSED_FILE_MARKER_SUFFIX = ".compressed";
+
+    private static final Comparator<CachedPage> DPID_ORDER = new Comparator<CachedPage>() {
+        @Override
+        public int compare(CachedPage p1, CachedPage p2) {
+            return Long.compare(p1.dpid, p2.dpid);
+        }
+    };
 
     private final int pageSize;
     private final int maxOpenFiles;
@@ -58,29 +90,101 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
     private final IPageCleanerPolicy pageCleanerPolicy;
     private final IFileMapManager fileMapManager;
     private final CleanerThread cleanerThread;
+    private final Executor executor;
     private final Map<Integer, BufferedFileHandle> fileInfoMap;
     private final Set<Integer> virtualFiles;
+    private final boolean optimisticPageTable;
+    private final boolean mapImmutableFiles;
+    private final int mappedSegmentSize;
+    private final IPageCompressor pageCompressor;
+    // Files that were marked immutable and wait to be compressed, in that order. Guarded by itself.
+    private final Set<Integer> pendingCompressions = new LinkedHashSet<Integer>();
+    private boolean compressorRunning;
+    // Set once a compressed file is opened, so that writes to compressed files are only looked for from then on.
+    private volatile boolean compressedFilesOpen;
     private IIOReplicationManager ioReplicationManager;
+    private final AtomicLong cleanerBatchCount = new AtomicLong();
+    private final AtomicLong cleanerPagesWritten = new AtomicLong();
+    private final AtomicLong cleanerWriteCount = new AtomicLong();
+    private final AtomicLong cleanerBytesWritten = new AtomicLong();
+    private final AtomicLong cleanerWriteTime = new AtomicLong();
+    private final AtomicLong cleanerForceCount = new AtomicLong();
     private List<ICachedPageInternal> cachedPages = new ArrayList<ICachedPageInternal>();
     private boolean closed;
 
     public BufferCache(IIOManager ioManager, IPageReplacementStrategy pageReplacementStrategy,
             IPageCleanerPolicy pageCleanerPolicy, IFileMapManager fileMapManager, int maxOpenFiles,
             ThreadFactory threadFactory) {
+        this(ioManager, pageReplacementStrategy, pageCleanerPolicy, fileMapManager, maxOpenFiles, threadFactory,
+                false);
+    }
+
+    /**
+     * @param optimisticPageTable
+     *            if true, page lookups walk the hash bucket chains without taking the bucket lock and pin pages by
+     *            CAS on the pin count, falling back to the locked path only on a miss. Open file handles are then
+     *            kept in a concurrent map that is read without synchronization.
+     */
+    public BufferCache(IIOManager ioManager, IPageReplacementStrategy pageReplacementStrategy,
+            IPageCleanerPolicy pageCleanerPolicy, IFileMapManager fileMapManager, int maxOpenFiles,
+            ThreadFactory threadFactory, boolean optimisticPageTable) {
+        this(ioManager, pageReplacementStrategy, pageCleanerPolicy, fileMapManager, maxOpenFiles, threadFactory,
+                optimisticPageTable, false, null);
+    }
+
+    /**
+     * @param mapImmutableFiles
+     *            if true, files that are marked immutable are mapped read-only, and pages of these files that are not
+     *            cached are copied from the mapping instead of being read from the file. A page that the OS already
+     *            caches is then copied once into its frame, without a read call, and without the copy through a
+     *            temporary direct buffer that a FileChannel read into a heap frame makes.
+     */
+    public BufferCache(IIOManager ioManager, IPageReplacementStrategy pageReplacementStrategy,
+            IPageCleanerPolicy pageCleanerPolicy, IFileMapManager fileMapManager, int maxOpenFiles,
+            ThreadFactory threadFactory, boolean optimisticPageTable, boolean mapImmutableFiles) {
+        this(ioManager, pageReplacementStrategy, pageCleanerPolicy, fileMapManager, maxOpenFiles, threadFactory,
+                optimisticPageTable, mapImmutableFiles, null);
+    }
+
+    public BufferCache(IIOManager ioManager, IPageReplacementStrategy pageReplacementStrategy,
+            IPageCleanerPolicy pageCleanerPolicy, IFileMapManager fileMapManager, int maxOpenFiles,
+            ThreadFactory threadFactory, boolean optimisticPageTable, IPageCompressor pageCompressor) {
+        this(ioManager, pageReplacementStrategy, pageCleanerPolicy, fileMapManager, maxOpenFiles, threadFactory,
+                optimisticPageTable, false, pageCompressor);
+    }
+
+    /**
+     * @param pageCompressor
+     *            if not null, files that are marked immutable are rewritten with each page compressed by it, and pages
+     *            of compressed files are decompressed into their frames when they are read. Files that were compressed
+     *            before are read whether or not a compressor is given. Compressed files are not mapped.
+     */
+    public BufferCache(IIOManager ioManager, IPageReplacementStrategy pageReplacementStrategy,
+            IPageCleanerPolicy pageCleanerPolicy, IFileMapManager fileMapManager, int maxOpenFiles,
+            ThreadFactory threadFactory, boolean optimisticPageTable, boolean mapImmutableFiles,
+            IPageCompressor pageCompressor) {
         this.ioManager = ioManager;
         this.pageSize = pageReplacementStrategy.getPageSize();
         this.maxOpenFiles = maxOpenFiles;
         pageReplacementStrategy.setBufferCache(this);
-        pageMap = new CacheBucket[pageReplacementStrategy.getMaxAllowedNumPages() * MAP_FACTOR + 1];
+        pageMap = new CacheBucket[getExpectedNumPages(pageReplacementStrategy) * MAP_FACTOR + 1];
         for (int i = 0; i < pageMap.length; ++i) {
             pageMap[i] = new CacheBucket();
         }
         this.pageReplacementStrategy = pageReplacementStrategy;
         this.pageCleanerPolicy = pageCleanerPolicy;
         this.fileMapManager = fileMapManager;
+        this.optimisticPageTable = optimisticPageTable;
+        this.mapImmutableFiles = mapImmutableFiles;
+        mappedSegmentSize = (MAX_MAPPED_SEGMENT_SIZE / pageSize) * pageSize;
+        this.pageCompressor = pageCompressor;
 
-        Executor executor = Executors.newCachedThreadPool(threadFactory);
-        fileInfoMap = new HashMap<Integer, BufferedFileHandle>();
+        executor = Executors.newCachedThreadPool(threadFactory);
+        if (optimisticPageTable) {
+            fileInfoMap = new ConcurrentHashMap<Integer, BufferedFileHandle>();
+        } else {
+            fileInfoMap = new HashMap<Integer, BufferedFileHandle>();
+        }
         virtualFiles = new HashSet<Integer>();
         cleanerThread = new CleanerThread();
         executor.execute(cleanerThread);
@@ -96,6 +200,24 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
         this.ioReplicationManager = ioReplicationManager;
     }
 
+    /**
+     * A pool of a {@link MultiPageSizeBufferCache} may grow to the whole memory budget, but the budget is shared with
+     * the other pools, so its page table is sized for its own share.
+     */
+    private static int getExpectedNumPages(IPageReplacementStrategy pageReplacementStrategy) {
+        if (pageReplacementStrategy instanceof ClockPageReplacementStrategy) {
+            return ((ClockPageReplacementStrategy) pageReplacementStrategy).getExpectedNumPages();
+        }
+        return pageReplacementStrategy.getMaxAllowedNumPages();
+    }
+
+    /**
+     * @return the number of pages that the page table of this cache is sized for
+     */
+    int getExpectedNumPages() {
+        return getExpectedNumPages(pageReplacementStrategy);
+    }
+
     @Override
     public int getPageSize() {
         return pageSize;
@@ -131,6 +253,13 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
         CachedPage cPage = null;
         int hash = hash(dpid);
         CacheBucket bucket = pageMap[hash];
+        if (optimisticPageTable) {
+            cPage = findPageOptimistic(bucket, dpid);
+            if (cPage != null) {
+                pageReplacementStrategy.notifyCachePageAccess(cPage);
+                return cPage;
+            }
+        }
         bucket.bucketLock.lock();
         try {
             cPage = bucket.cachedPage;
@@ -150,9 +279,19 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
 
     @Override
     public ICachedPage pin(long dpid, boolean newPage) throws HyracksDataException {
+        return pin(dpid, newPage, false);
+    }
+
+    @Override
+    public ICachedPage pin(long dpid, boolean newPage, boolean sequential) throws HyracksDataException {
         // Calling the pinSanityCheck should be used only for debugging, since the synchronized block over the fileInfoMap is a hot spot.
         //pinSanityCheck(dpid);
         CachedPage cPage = findPage(dpid, false);
+        ReadAheadRun readAhead = cPage.readAhead;
+        if (readAhead != null) {
+            // The page is being loaded in the background, don't read it twice.
+            readAhead.await();
+        }
         if (!newPage) {
             // Resolve race of multiple threads trying to read the page from
             // disk.
@@ -165,10 +304,90 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
         } else {
             cPage.valid = true;
         }
-        pageReplacementStrategy.notifyCachePageAccess(cPage);
+        if (sequential) {
+            pageReplacementStrategy.notifyCachePageSequentialAccess(cPage);
+        } else {
+            pageReplacementStrategy.notifyCachePageAccess(cPage);
+        }
         return cPage;
     }
 
+    @Override
+    public void prefetch(long dpid, int numPages) throws HyracksDataException {
+        int fileId = BufferedFileHandle.getFileId(dpid);
+        int startPageId = BufferedFileHandle.getPageId(dpid);
+        BufferedFileHandle fInfo = lookupFileInfo(fileId);
+        if (closed || fInfo == null || fInfo.fileHasBeenDeleted() || fInfo.getMappedSegments() != null) {
+            // Pages of mapped files are copied from memory that the OS reads ahead on its own.
+            return;
+        }
+        numPages = Math.min(numPages, Math.max(1, pageReplacementStrategy.getMaxAllowedNumPages()
+                / MAX_READ_AHEAD_FRACTION));
+        // Pages past the end of the file are not on disk yet, they are created by the writer that pins them.
+        // The handle is read before the layout, see BufferedFileHandle.setCompressedFile().
+        IFileHandle handle = fInfo.getFileHandle();
+        CompressedPageFile compressedFile = fInfo.getCompressedFile();
+        if (compressedFile != null) {
+            handle = compressedFile.getFileHandle();
+        }
+        numPages = Math.min(numPages, getNumPagesOnDisk(fInfo, compressedFile) - startPageId);
+        if (numPages <= 0) {
+            return;
+        }
+        ReadAheadRun run = null;
+        try {
+            for (int i = 0; i < numPages; ++i) {
+                int pageId = startPageId + i;
+                CachedPage cPage = findPage(BufferedFileHandle.getDiskPageId(fileId, pageId), false);
+                if (!cPage.valid && cPage.readAhead == null) {
+                    if (run == null) {
+                        run = new ReadAheadRun(pageSize, numPages - i, compressedFile, pageId);
+                    }
+                    if (run.add(cPage)) {
+                        continue;
+                    }
+                }
+                // Already cached or being read. Pages on either side of it are read separately.
+                cPage.pinCount.decrementAndGet();
+                if (run != null && run.getPageCount() > 0) {
+                    submitReadAhead(handle, run);
+                }
+                run = null;
+            }
+        } finally {
+            if (run != null && run.getPageCount() > 0) {
+                submitReadAhead(handle, run);
+            }
+        }
+    }
+
+    private int getNumPagesOnDisk(BufferedFileHandle fInfo, CompressedPageFile compressedFile)
+            throws HyracksDataException {
+        if (compressedFile != null) {
+            return compressedFile.getNumPages();
+        }
+        long fileSize = fileMapManager.lookupFileName(fInfo.getFileId()).getFile().length();
+        return (int) Math.min(Integer.MAX_VALUE, fileSize / pageSize);
+    }
+
+    private void submitReadAhead(IFileHandle handle, ReadAheadRun run) {
+        try {
+            IIOFuture future = ioManager.asyncRead(handle, run.getFileOffset(), run.allocateBuffer());
+            if (future instanceof IListenableIOFuture) {
+                ((IListenableIOFuture) future).setListener(run);
+            } else {
+                run.setFuture(future);
+                executor.execute(run);
+            }
+        } catch (RuntimeException e) {
+            // Read-ahead is only a hint. The pages stay invalid and are read on demand.
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.log(Level.FINE, "Could not issue read-ahead", e);
+            }
+            run.install(-1);
+        }
+    }
+
     @Override
     /**
      * Allocate and pin a virtual page. This is just like a normal page, except that it will never be flushed.
@@ -202,7 +421,28 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
         return realPage;
     }
 
+    /**
+     * Walks the bucket chain without taking the bucket lock. Chains may be relinked concurrently, so a null result
+     * only means that the page was not found on this walk and the caller must retry under the bucket lock.
+     */
+    private CachedPage findPageOptimistic(CacheBucket bucket, long dpid) {
+        CachedPage cPage = bucket.cachedPage;
+        while (cPage != null) {
+            if (cPage.dpid == dpid && cPage.pinIfHolds(dpid)) {
+                return cPage;
+            }
+            cPage = cPage.next;
+        }
+        return null;
+    }
+
     private CachedPage findPage(long dpid, boolean virtual) throws HyracksDataException {
+        if (optimisticPageTable) {
+            CachedPage cPage = findPageOptimistic(pageMap[hash(dpid)], dpid);
+            if (cPage != null) {
+                return cPage;
+            }
+        }
         while (true) {
             int startCleanedCount = cleanerThread.cleanedCount;
 
@@ -303,7 +543,12 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
                             }
                             cPage = cPage.next;
                         }
+                        if (!victim.claim(1)) {
+                            victim.pinCount.decrementAndGet();
+                            continue;
+                        }
                         victim.reset(dpid);
+                        victim.pinCount.set(1);
                     } finally {
                         bucket.bucketLock.unlock();
                     }
@@ -334,6 +579,10 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
                             }
                             cPage = cPage.next;
                         }
+                        if (!victim.claim(1)) {
+                            victim.pinCount.decrementAndGet();
+                            continue;
+                        }
                         if (victimBucket.cachedPage == victim) {
                             victimBucket.cachedPage = victim.next;
                         } else {
@@ -347,6 +596,7 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
                         victim.reset(dpid);
                         victim.next = bucket.cachedPage;
                         bucket.cachedPage = victim;
+                        victim.pinCount.set(1);
                     } finally {
                         victimBucket.bucketLock.unlock();
                         bucket.bucketLock.unlock();
@@ -405,23 +655,76 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
             }
         }
         buffer.append("Number of cached pages: ").append(nCachedPages).append('\n');
+        long batches = cleanerBatchCount.get();
+        long writeTime = cleanerWriteTime.get();
+        buffer.append("Cleaner batches: ").append(batches).append(", pages written: ")
+                .append(cleanerPagesWritten.get()).append(", writes: ").append(cleanerWriteCount.get())
+                .append(", forces: ").append(cleanerForceCount.get()).append('\n');
+        buffer.append("Cleaner average batch size: ")
+                .append(batches == 0 ? 0 : cleanerPagesWritten.get() / (double) batches).append(" pages")
+                .append(", write bandwidth: ")
+                .append(writeTime == 0 ? 0 : cleanerBytesWritten.get() * 1000.0 / writeTime).append(" MB/s\n");
         return buffer.toString();
     }
 
     private void read(CachedPage cPage) throws HyracksDataException {
         BufferedFileHandle fInfo = getFileInfo(cPage);
         cPage.buffer.clear();
-        ioManager.syncRead(fInfo.getFileHandle(), (long) BufferedFileHandle.getPageId(cPage.dpid) * pageSize,
+        // The handle is read before the layout, see BufferedFileHandle.setCompressedFile().
+        IFileHandle handle = fInfo.getFileHandle();
+        CompressedPageFile compressedFile = fInfo.getCompressedFile();
+        if (compressedFile != null) {
+            int pageId = BufferedFileHandle.getPageId(cPage.dpid);
+            if (!compressedFile.readPage(ioManager, pageId, cPage.buffer)) {
+                throw new HyracksDataException("Reading page " + pageId + " beyond the end of compressed file "
+                        + fInfo.getFileId() + " with " + compressedFile.getNumPages() + " pages");
+            }
+            return;
+        }
+        ByteBuffer[] mappedSegments = fInfo.getMappedSegments();
+        if (mappedSegments != null && readMapped(mappedSegments, cPage)) {
+            return;
+        }
+        ioManager.syncRead(handle, (long) BufferedFileHandle.getPageId(cPage.dpid) * pageSize,
                 cPage.buffer);
     }
 
+    /**
+     * Copies a page from the mapping of its file.
+     *
+     * @return false if the page lies beyond the mapped part of the file.
+     */
+    private boolean readMapped(ByteBuffer[] mappedSegments, CachedPage cPage) {
+        long offset = (long) BufferedFileHandle.getPageId(cPage.dpid) * pageSize;
+        int segment = (int) (offset / mappedSegmentSize);
+        if (segment >= mappedSegments.length) {
+            return false;
+        }
+        int segmentOffset = (int) (offset % mappedSegmentSize);
+        if (segmentOffset + pageSize > mappedSegments[segment].capacity()) {
+            return false;
+        }
+        ByteBuffer src = mappedSegments[segment].duplicate();
+        src.limit(segmentOffset + pageSize);
+        src.position(segmentOffset);
+        cPage.buffer.put(src);
+        return true;
+    }
+
     private BufferedFileHandle getFileInfo(CachedPage cPage) throws HyracksDataException {
+        BufferedFileHandle fInfo = lookupFileInfo(BufferedFileHandle.getFileId(cPage.dpid));
+        if (fInfo == null) {
+            throw new HyracksDataException("No such file mapped");
+        }
+        return fInfo;
+    }
+
+    private BufferedFileHandle lookupFileInfo(int fileId) {
+        if (optimisticPageTable) {
+            return fileInfoMap.get(fileId);
+        }
         synchronized (fileInfoMap) {
-            BufferedFileHandle fInfo = fileInfoMap.get(BufferedFileHandle.getFileId(cPage.dpid));
-            if (fInfo == null) {
-                throw new HyracksDataException("No such file mapped");
-            }
-            return fInfo;
+            return fileInfoMap.get(fileId);
         }
     }
 
@@ -430,6 +733,10 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
         if (fInfo.fileHasBeenDeleted()) {
             return;
         }
+        if (fInfo.getCompressedFile() != null) {
+            throw new HyracksDataException("Writing page " + BufferedFileHandle.getPageId(cPage.dpid)
+                    + " of compressed file " + fInfo.getFileId());
+        }
         cPage.buffer.position(0);
         cPage.buffer.limit(pageSize);
         ioManager.syncWrite(fInfo.getFileHandle(), (long) BufferedFileHandle.getPageId(cPage.dpid) * pageSize,
@@ -441,7 +748,18 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
         if (closed) {
             throw new HyracksDataException("unpin called on a closed cache");
         }
-        ((CachedPage) page).pinCount.decrementAndGet();
+        CachedPage cPage = (CachedPage) page;
+        cPage.pinCount.decrementAndGet();
+        assert !isModifiedCompressedPage(cPage) : "Page " + BufferedFileHandle.getPageId(cPage.dpid)
+                + " of compressed file " + BufferedFileHandle.getFileId(cPage.dpid) + " was modified";
+    }
+
+    private boolean isModifiedCompressedPage(CachedPage cPage) {
+        if (!compressedFilesOpen || !cPage.dirty.get() || cPage.virtual) {
+            return false;
+        }
+        BufferedFileHandle fInfo = lookupFileInfo(BufferedFileHandle.getFileId(cPage.dpid));
+        return fInfo != null && fInfo.getCompressedFile() != null;
     }
 
     private int hash(long dpid) {
@@ -451,7 +769,7 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
 
     private static class CacheBucket {
         private final Lock bucketLock;
-        private CachedPage cachedPage;
+        private volatile CachedPage cachedPage;
 
         public CacheBucket() {
             bucketLock = new ReentrantLock();
@@ -473,6 +791,8 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
         // No need to make this var volatile or synchronize it's access in any
         // way because it is used for heuristics.
         private int cleanedCount = 0;
+        // Dirty pages that are read latched by the cleaner and waiting to be written.
+        private final List<CachedPage> batch = new ArrayList<CachedPage>();
 
         public CleanerThread() {
             setPriority(Thread.NORM_PRIORITY);
@@ -522,15 +842,144 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
             }
         }
 
+        /**
+         * Read latches the page if it is dirty, so that it can be added to the current batch.
+         */
+        private boolean latchIfDirty(CachedPage cPage) {
+            if (!cPage.dirty.get() || cPage.virtual) {
+                return false;
+            }
+            if (!cPage.latch.readLock().tryLock()) {
+                if (shutdownStart) {
+                    throw new IllegalStateException("Cache closed, but unable to acquire read lock on dirty page: "
+                            + cPage.dpid);
+                }
+                return false;
+            }
+            // Make sure page is still dirty.
+            if (!cPage.dirty.get()) {
+                cPage.latch.readLock().unlock();
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * Writes the latched pages of the batch in (fileId, pageId) order, with one gathering write per run of
+         * consecutive pages, and then forces each file that was written once.
+         */
+        private void cleanBatch() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<BufferedFileHandle> writtenFiles = new ArrayList<BufferedFileHandle>();
+            try {
+                Collections.sort(batch, DPID_ORDER);
+                int start = 0;
+                while (start < batch.size()) {
+                    int end = start + 1;
+                    while (end < batch.size() && batch.get(end).dpid == batch.get(end - 1).dpid + 1) {
+                        ++end;
+                    }
+                    BufferedFileHandle fInfo = writeRun(start, end);
+                    if (fInfo != null
+                            && (writtenFiles.isEmpty() || writtenFiles.get(writtenFiles.size() - 1) != fInfo)) {
+                        writtenFiles.add(fInfo);
+                    }
+                    start = end;
+                }
+            } finally {
+                for (CachedPage cPage : batch) {
+                    cPage.latch.readLock().unlock();
+                }
+                batch.clear();
+            }
+            for (BufferedFileHandle fInfo : writtenFiles) {
+                if (fInfo.fileHasBeenDeleted()) {
+                    continue;
+                }
+                try {
+                    ioManager.sync(fInfo.getFileHandle(), false);
+                    cleanerForceCount.incrementAndGet();
+                } catch (HyracksDataException e) {
+                    if (LOGGER.isLoggable(Level.WARNING)) {
+                        LOGGER.log(Level.WARNING, "Failed to force file " + fInfo.getFileId(), e);
+                    }
+                }
+            }
+            cleanerBatchCount.incrementAndGet();
+            synchronized (cleanNotification) {
+                cleanNotification.notifyAll();
+            }
+        }
+
+        /**
+         * Writes the pages [start, end) of the batch, which are consecutive pages of one file, and marks them clean.
+         *
+         * @return the file if it was written to, null otherwise.
+         */
+        private BufferedFileHandle writeRun(int start, int end) {
+            BufferedFileHandle fInfo;
+            try {
+                fInfo = getFileInfo(batch.get(start));
+                if (fInfo.getCompressedFile() != null) {
+                    // Compressed files are immutable, so this is a bug that unpin() asserts against.
+                    // The pages stay dirty and closing or flushing the file fails.
+                    LOGGER.severe("Dirty pages of compressed file " + fInfo.getFileId() + " cannot be written");
+                    return null;
+                }
+                if (!fInfo.fileHasBeenDeleted()) {
+                    ByteBuffer[] buffers = new ByteBuffer[end - start];
+                    for (int i = start; i < end; ++i) {
+                        ByteBuffer buffer = batch.get(i).buffer.duplicate();
+                        buffer.position(0);
+                        buffer.limit(pageSize);
+                        buffers[i - start] = buffer;
+                    }
+                    long startTime = System.nanoTime();
+                    long bytesWritten = ioManager.syncWrite(fInfo.getFileHandle(),
+                            (long) BufferedFileHandle.getPageId(batch.get(start).dpid) * pageSize, buffers);
+                    cleanerWriteTime.addAndGet(System.nanoTime() - startTime);
+                    cleanerBytesWritten.addAndGet(bytesWritten);
+                    cleanerWriteCount.incrementAndGet();
+                    cleanerPagesWritten.addAndGet(end - start);
+                } else {
+                    // The pages of a deleted file are dropped without being written.
+                    fInfo = null;
+                }
+            } catch (HyracksDataException e) {
+                // The pages stay dirty and are retried in the next cycle.
+                return null;
+            }
+            for (int i = start; i < end; ++i) {
+                CachedPage cPage = batch.get(i);
+                // the page may have been cleaned by a sweep of its file in the meantime
+                if (cPage.dirty.compareAndSet(true, false)) {
+                    cPage.pinCount.decrementAndGet();
+                    cleanedCount++;
+                }
+            }
+            return fInfo;
+        }
+
         @Override
         public synchronized void run() {
             try {
                 while (true) {
                     pageCleanerPolicy.notifyCleanCycleStart(this);
                     int numPages = pageReplacementStrategy.getNumPages();
-                    for (int i = 0; i < numPages; ++i) {
-                        CachedPage cPage = (CachedPage) cachedPages.get(i);
-                        cleanPage(cPage, false);
+                    try {
+                        for (int i = 0; i < numPages; ++i) {
+                            CachedPage cPage = (CachedPage) cachedPages.get(i);
+                            if (latchIfDirty(cPage)) {
+                                batch.add(cPage);
+                                if (batch.size() >= MAX_CLEANER_BATCH_SIZE) {
+                                    cleanBatch();
+                                }
+                            }
+                        }
+                    } finally {
+                        cleanBatch();
                     }
                     if (shutdownStart) {
                         break;
@@ -560,6 +1009,16 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
                 }
             }
         }
+        synchronized (pendingCompressions) {
+            pendingCompressions.clear();
+            while (compressorRunning) {
+                try {
+                    pendingCompressions.wait();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
 
         synchronized (fileInfoMap) {
             try {
@@ -567,7 +1026,7 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
                     boolean fileHasBeenDeleted = entry.getValue().fileHasBeenDeleted();
                     sweepAndFlush(entry.getKey(), !fileHasBeenDeleted);
                     if (!fileHasBeenDeleted) {
-                        ioManager.close(entry.getValue().getFileHandle());
+                        closeFileHandles(entry.getValue());
                     }
                 }
             } catch (HyracksDataException e) {
@@ -587,6 +1046,19 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
         }
     }
 
+    @Override
+    public void createFile(FileReference fileRef, int pageSize) throws HyracksDataException {
+        checkPageSize(pageSize);
+        createFile(fileRef);
+    }
+
+    private void checkPageSize(int pageSize) throws HyracksDataException {
+        if (pageSize != this.pageSize) {
+            throw new HyracksDataException("Page size " + pageSize + " is not supported by buffer cache " + this
+                    + " with page size " + this.pageSize);
+        }
+    }
+
     @Override
     public int createMemFile() throws HyracksDataException {
         if (LOGGER.isLoggable(Level.INFO)) {
@@ -623,7 +1095,7 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
                             boolean fileHasBeenDeleted = entry.getValue().fileHasBeenDeleted();
                             sweepAndFlush(entryFileId, !fileHasBeenDeleted);
                             if (!fileHasBeenDeleted) {
-                                ioManager.close(entry.getValue().getFileHandle());
+                                closeFileHandles(entry.getValue());
                             }
                             fileInfoMap.remove(entryFileId);
                             unreferencedFileFound = true;
@@ -644,12 +1116,35 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
                 IFileHandle fh = ioManager.open(fileRef, IIOManager.FileReadWriteMode.READ_WRITE,
                         IIOManager.FileSyncMode.METADATA_ASYNC_DATA_ASYNC);
                 fInfo = new BufferedFileHandle(fileId, fh);
+                File marker = getCompressedFileMarker(fileRef.getFile());
+                if (marker.exists()) {
+                    try {
+                        CompressedPageFile compressedFile = CompressedPageFile.open(ioManager, fh, fileRef.getFile()
+                                .length(), pageSize);
+                        if (compressedFile != null) {
+                            fInfo.setCompressedFile(compressedFile);
+                            compressedFilesOpen = true;
+                        } else {
+                            // Left by a compression that did not replace the file, or by a deleted file.
+                            marker.delete();
+                        }
+                    } catch (HyracksDataException e) {
+                        ioManager.close(fh);
+                        throw e;
+                    }
+                }
                 fileInfoMap.put(fileId, fInfo);
             }
             fInfo.incReferenceCount();
         }
     }
 
+    @Override
+    public void openFile(int fileId, int pageSize) throws HyracksDataException {
+        checkPageSize(pageSize);
+        openFile(fileId);
+    }
+
     private void sweepAndFlush(int fileId, boolean flushDirtyPages) throws HyracksDataException {
         for (int i = 0; i < pageMap.length; ++i) {
             CacheBucket bucket = pageMap[i];
@@ -685,20 +1180,23 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
     private boolean invalidateIfFileIdMatch(int fileId, CachedPage cPage, boolean flushDirtyPages)
             throws HyracksDataException {
         if (BufferedFileHandle.getFileId(cPage.dpid) == fileId) {
-            int pinCount = -1;
+            ReadAheadRun readAhead = cPage.readAhead;
+            if (readAhead != null) {
+                readAhead.await();
+            }
             if (cPage.dirty.get()) {
                 if (flushDirtyPages) {
                     write(cPage);
                 }
                 cPage.dirty.set(false);
-                pinCount = cPage.pinCount.decrementAndGet();
-            } else {
-                pinCount = cPage.pinCount.get();
+                cPage.pinCount.decrementAndGet();
             }
-            if (pinCount > 0) {
-                throw new IllegalStateException("Page is pinned and file is being closed. Pincount is: " + pinCount);
+            if (!cPage.claim(0)) {
+                throw new IllegalStateException("Page is pinned and file is being closed. Pincount is: "
+                        + cPage.pinCount.get());
             }
             cPage.invalidate();
+            cPage.pinCount.set(0);
             return true;
         }
         return false;
@@ -733,13 +1231,243 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
         cleanerThread.cleanPage((CachedPage) page, true);
     }
 
+    @Override
+    public void flushDirtyPages(ICachedPage[] pages, int count) throws HyracksDataException {
+        // Assumes the caller has pinned the pages.
+        List<CachedPage> dirtyPages = new ArrayList<CachedPage>(count);
+        for (int i = 0; i < count; ++i) {
+            CachedPage cPage = (CachedPage) pages[i];
+            if (cPage.dirty.get() && !cPage.virtual) {
+                dirtyPages.add(cPage);
+            }
+        }
+        if (dirtyPages.isEmpty()) {
+            return;
+        }
+        Collections.sort(dirtyPages, DPID_ORDER);
+        int latched = 0;
+        try {
+            for (; latched < dirtyPages.size(); ++latched) {
+                dirtyPages.get(latched).latch.readLock().lock();
+            }
+            int start = 0;
+            while (start < dirtyPages.size()) {
+                int end = start + 1;
+                while (end < dirtyPages.size() && dirtyPages.get(end).dpid == dirtyPages.get(end - 1).dpid + 1) {
+                    ++end;
+                }
+                writeDirtyRun(dirtyPages, start, end);
+                start = end;
+            }
+        } finally {
+            for (int i = 0; i < latched; ++i) {
+                dirtyPages.get(i).latch.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Writes the read latched pages [start, end) of the list, which are consecutive pages of one file, with a single
+     * gathering write and marks the ones that are still dirty clean.
+     */
+    private void writeDirtyRun(List<CachedPage> pages, int start, int end) throws HyracksDataException {
+        BufferedFileHandle fInfo = getFileInfo(pages.get(start));
+        if (fInfo.fileHasBeenDeleted()) {
+            return;
+        }
+        if (fInfo.getCompressedFile() != null) {
+            throw new HyracksDataException("Writing page " + BufferedFileHandle.getPageId(pages.get(start).dpid)
+                    + " of compressed file " + fInfo.getFileId());
+        }
+        ByteBuffer[] buffers = new ByteBuffer[end - start];
+        for (int i = start; i < end; ++i) {
+            ByteBuffer buffer = pages.get(i).buffer.duplicate();
+            buffer.position(0);
+            buffer.limit(pageSize);
+            buffers[i - start] = buffer;
+        }
+        ioManager.syncWrite(fInfo.getFileHandle(), (long) BufferedFileHandle.getPageId(pages.get(start).dpid)
+                * pageSize, buffers);
+        for (int i = start; i < end; ++i) {
+            CachedPage cPage = pages.get(i);
+            if (cPage.dirty.compareAndSet(true, false)) {
+                cPage.pinCount.decrementAndGet();
+            }
+        }
+    }
+
     @Override
     public void force(int fileId, boolean metadata) throws HyracksDataException {
-        BufferedFileHandle fInfo = null;
+        BufferedFileHandle fInfo = lookupFileInfo(fileId);
+        ioManager.sync(fInfo.getFileHandle(), metadata);
+    }
+
+    @Override
+    public void markFileImmutable(int fileId) throws HyracksDataException {
+        if (!mapImmutableFiles && pageCompressor == null) {
+            return;
+        }
+        BufferedFileHandle fInfo = lookupFileInfo(fileId);
+        if (fInfo == null) {
+            throw new HyracksDataException("Marking unopened file " + fileId + " immutable");
+        }
+        if (fInfo.getCompressedFile() != null) {
+            return;
+        }
+        if (mapImmutableFiles) {
+            // Until a compressor replaces the file, its pages are copied from the mapping.
+            synchronized (fInfo) {
+                if (fInfo.getMappedSegments() == null && !fInfo.fileHasBeenDeleted()) {
+                    fInfo.setMappedSegments(ioManager.mapReadOnly(fInfo.getFileHandle(), mappedSegmentSize));
+                }
+            }
+        }
+        if (pageCompressor == null) {
+            return;
+        }
+        // Compressing rewrites the whole file, so it is left to a background task that compresses one file at a time
+        // instead of holding up the flush, merge or activation that made the file immutable.
+        synchronized (pendingCompressions) {
+            pendingCompressions.add(fileId);
+            if (!compressorRunning) {
+                compressorRunning = true;
+                executor.execute(new FileCompressor());
+            }
+        }
+    }
+
+    /**
+     * Waits until the files that were marked immutable so far have been compressed or left as they are.
+     */
+    public void waitForCompressions() throws InterruptedException {
+        synchronized (pendingCompressions) {
+            while (compressorRunning) {
+                pendingCompressions.wait();
+            }
+        }
+    }
+
+    private class FileCompressor implements Runnable {
+        @Override
+        public void run() {
+            while (true) {
+                int fileId;
+                synchronized (pendingCompressions) {
+                    Iterator<Integer> iterator = pendingCompressions.iterator();
+                    if (!iterator.hasNext()) {
+                        compressorRunning = false;
+                        pendingCompressions.notifyAll();
+                        return;
+                    }
+                    fileId = iterator.next();
+                    iterator.remove();
+                }
+                try {
+                    compressFile(fileId);
+                } catch (HyracksDataException e) {
+                    // The file stays as it is, which is still valid.
+                    if (LOGGER.isLoggable(Level.WARNING)) {
+                        LOGGER.log(Level.WARNING, "Failed to compress file " + fileId, e);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces an immutable file by its compressed form. The compressed file is written next to it and renamed over
+     * it, so that a crash leaves either of them in place, and is marked as compressed before that. Files that do not
+     * get smaller, and files that are closed or deleted in the meantime, are left as they are.
+     */
+    private void compressFile(int fileId) throws HyracksDataException {
+        BufferedFileHandle fInfo;
+        FileReference fileRef;
         synchronized (fileInfoMap) {
             fInfo = fileInfoMap.get(fileId);
+            if (fInfo == null || fInfo.fileHasBeenDeleted() || fInfo.getCompressedFile() != null) {
+                return;
+            }
+            fileRef = fileMapManager.lookupFileName(fileId);
+        }
+        File file = fileRef.getFile();
+        long fileSize = file.length();
+        if (fileSize == 0) {
+            return;
+        }
+        // Names that start with a dot are ignored when the files of an index are listed.
+        File compressingFile = new File(file.getParentFile(), "." + file.getName() + COMPRESSING_FILE_SUFFIX);
+        FileReference compressingFileRef = new FileReference(compressingFile);
+        compressingFile.delete();
+        File marker = getCompressedFileMarker(file);
+        boolean markerCreated = false;
+        boolean replaced = false;
+        try {
+            IFileHandle fh = ioManager.open(compressingFileRef, IIOManager.FileReadWriteMode.READ_WRITE,
+                    IIOManager.FileSyncMode.METADATA_ASYNC_DATA_ASYNC);
+            try {
+                CompressedPageFile.write(ioManager, fInfo.getFileHandle(), fileSize, fh, pageSize, pageCompressor);
+                ioManager.sync(fh, true);
+            } finally {
+                ioManager.close(fh);
+            }
+            if (compressingFile.length() >= fileSize) {
+                return;
+            }
+            // The marker goes first, so that a crash before the rename leaves a marker that openFile() drops.
+            markerCreated = true;
+            IFileHandle markerHandle = ioManager.open(new FileReference(marker),
+                    IIOManager.FileReadWriteMode.READ_WRITE, IIOManager.FileSyncMode.METADATA_ASYNC_DATA_ASYNC);
+            try {
+                ioManager.sync(markerHandle, true);
+            } finally {
+                ioManager.close(markerHandle);
+            }
+            // Closing or deleting the file closes its handles, so the switch cannot overlap with either.
+            synchronized (fileInfoMap) {
+                if (fileInfoMap.get(fileId) != fInfo || fInfo.fileHasBeenDeleted()) {
+                    return;
+                }
+                Files.move(compressingFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                replaced = true;
+                IFileHandle compressedHandle = ioManager.open(fileRef, IIOManager.FileReadWriteMode.READ_WRITE,
+                        IIOManager.FileSyncMode.METADATA_ASYNC_DATA_ASYNC);
+                try {
+                    fInfo.setCompressedFile(CompressedPageFile.open(ioManager, compressedHandle, file.length(),
+                            pageSize));
+                    // The mapping still shows the replaced file, which has the same pages, to reads that got it.
+                    fInfo.setMappedSegments(null);
+                } catch (HyracksDataException e) {
+                    // The raw handle still reads the pages of the file that was replaced.
+                    ioManager.close(compressedHandle);
+                    throw e;
+                }
+                compressedFilesOpen = true;
+            }
+        } catch (IOException e) {
+            throw new HyracksDataException(e);
+        } finally {
+            if (!replaced) {
+                compressingFile.delete();
+                if (markerCreated) {
+                    marker.delete();
+                }
+            }
+        }
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info("Compressed file " + fileRef + " from " + fileSize + " to " + file.length() + " bytes");
         }
-        ioManager.sync(fInfo.getFileHandle(), metadata);
+    }
+
+    private static File getCompressedFileMarker(File file) {
+        return new File(file.getParentFile(), "." + file.getName() + COMPRESSED_FILE_MARKER_SUFFIX);
+    }
+
+    private void closeFileHandles(BufferedFileHandle fInfo) throws HyracksDataException {
+        IFileHandle replacedHandle = fInfo.getReplacedFileHandle();
+        if (replacedHandle != null) {
+            ioManager.close(replacedHandle);
+        }
+        ioManager.close(fInfo.getFileHandle());
     }
 
     @Override
@@ -759,6 +1487,11 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
                 if (fInfo != null && fInfo.getReferenceCount() > 0) {
                     throw new HyracksDataException("Deleting open file");
                 }
+                if (fInfo != null && fInfo.getCompressedFile() != null) {
+                    // The marker of a file that is deleted while it is not in the map is dropped when a new file of
+                    // the same name is opened.
+                    getCompressedFileMarker(fileMapManager.lookupFileName(fileId).getFile()).delete();
+                }
             } finally {
                 fileMapManager.unregisterFile(fileId);
                 if (fInfo != null) {
@@ -766,9 +1499,10 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
                     // such that when its pages are reclaimed in openFile(),
                     // the pages are not flushed to disk but only invalidated.
                     if (!fInfo.fileHasBeenDeleted()) {
-                        ioManager.close(fInfo.getFileHandle());
+                        closeFileHandles(fInfo);
                         fInfo.markAsDeleted();
                     }
+                    fInfo.setMappedSegments(null);
                 }
             }
         }
@@ -835,4 +1569,40 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
     public IIOReplicationManager getIOReplicationManager() {
         return ioReplicationManager;
     }
+
+    /**
+     * @return the number of batches of dirty pages written by the cleaner
+     */
+    public long getCleanerBatchCount() {
+        return cleanerBatchCount.get();
+    }
+
+    /**
+     * @return the number of pages written by the cleaner
+     */
+    public long getCleanerPagesWritten() {
+        return cleanerPagesWritten.get();
+    }
+
+    /**
+     * @return the number of gathering writes issued by the cleaner, one per run of consecutive dirty pages
+     */
+    public long getCleanerWriteCount() {
+        return cleanerWriteCount.get();
+    }
+
+    public long getCleanerBytesWritten() {
+        return cleanerBytesWritten.get();
+    }
+
+    /**
+     * @return the time spent by the cleaner in writes, excluding forces, in nanoseconds
+     */
+    public long getCleanerWriteTimeNanos() {
+        return cleanerWriteTime.get();
+    }
+
+    public long getCleanerForceCount() {
+        return cleanerForceCount.get();
+    }
 }
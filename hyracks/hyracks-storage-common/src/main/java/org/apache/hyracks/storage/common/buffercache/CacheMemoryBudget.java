@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.common.buffercache;
+
+/**
+ * A memory budget shared by the page replacement strategies of the page pools of a {@link MultiPageSizeBufferCache}.
+ * Each strategy reserves a number of pages that it can always allocate. Beyond its reservation, a strategy allocates
+ * from the unreserved part of the budget, which the pools share on a first come, first served basis. Like the pages
+ * themselves, memory is never given back.
+ */
+public class CacheMemoryBudget {
+    private final long capacity;
+    private long reservedBytes;
+    private long sharedBytes;
+
+    public CacheMemoryBudget(long capacity) {
+        this.capacity = capacity;
+        reservedBytes = 0;
+        sharedBytes = 0;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public synchronized long getAllocatedSharedBytes() {
+        return sharedBytes;
+    }
+
+    synchronized long getReservedBytes() {
+        return reservedBytes;
+    }
+
+    synchronized void reserve(int pageSize, int numPages) {
+        long bytes = (long) pageSize * numPages;
+        if (reservedBytes + sharedBytes + bytes > capacity) {
+            throw new IllegalArgumentException("Cannot reserve " + numPages + " pages of size " + pageSize
+                    + ", only " + (capacity - reservedBytes - sharedBytes) + " bytes of the budget are left");
+        }
+        reservedBytes += bytes;
+    }
+
+    /**
+     * Called by a strategy before it allocates a new page.
+     *
+     * @param pageSize
+     *            the page size of the strategy
+     * @param numPages
+     *            the number of pages that the strategy has allocated so far
+     * @param numReservedPages
+     *            the number of pages that the strategy has reserved
+     * @return true if the strategy may allocate another page, false if it has to evict one.
+     */
+    synchronized boolean allocate(int pageSize, int numPages, int numReservedPages) {
+        if (numPages < numReservedPages) {
+            return true;
+        }
+        if (reservedBytes + sharedBytes + pageSize > capacity) {
+            return false;
+        }
+        sharedBytes += pageSize;
+        return true;
+    }
+}
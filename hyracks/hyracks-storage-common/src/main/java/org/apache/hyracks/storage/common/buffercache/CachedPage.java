@@ -21,24 +21,34 @@ package org.apache.hyracks.storage.common.buffercache;
 import java.nio.ByteBuffer;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
 
 /**
  * @author yingyib
  */
-class CachedPage implements ICachedPageInternal {
+class CachedPage implements ICachedPageInternal, IVersionedCachedPage {
+    /**
+     * Pin count of a page that is being reassigned to a new dpid. Lock-free lookups never pin a page in this state.
+     */
+    static final int CLAIMED = Integer.MIN_VALUE;
+
     final int cpid;
     final ByteBuffer buffer;
     final AtomicInteger pinCount;
     final AtomicBoolean dirty;
-    final ReadWriteLock latch;
+    final ReentrantReadWriteLock latch;
+    // Bumped whenever the write latch is taken so that optimistic readers can detect concurrent changes.
+    private final StampedLock version;
+    private long writeStamp;
     private final Object replacementStrategyObject;
     private final IPageReplacementStrategy pageReplacementStrategy;
     volatile long dpid;
-    CachedPage next;
+    volatile CachedPage next;
     volatile boolean valid;
     volatile boolean virtual;
+    // Set while the page is being loaded by a read-ahead run.
+    volatile ReadAheadRun readAhead;
 
     public CachedPage(int cpid, ByteBuffer buffer, IPageReplacementStrategy pageReplacementStrategy) {
         this.cpid = cpid;
@@ -47,6 +57,7 @@ class CachedPage implements ICachedPageInternal {
         pinCount = new AtomicInteger();
         dirty = new AtomicBoolean();
         latch = new ReentrantReadWriteLock(true);
+        version = new StampedLock();
         replacementStrategyObject = pageReplacementStrategy.createPerPageStrategyObject(cpid);
         dpid = -1;
         valid = false;
@@ -82,6 +93,37 @@ class CachedPage implements ICachedPageInternal {
             return pinCount.compareAndSet(0, 1);
     }
 
+    /**
+     * Pins this page for a lookup that did not take the bucket lock.
+     *
+     * @return true if the page was pinned and still holds dpid after the pin, false otherwise.
+     */
+    boolean pinIfHolds(long dpid) {
+        while (true) {
+            int count = pinCount.get();
+            if (count < 0) {
+                // the page is being reassigned
+                return false;
+            }
+            if (pinCount.compareAndSet(count, count + 1)) {
+                break;
+            }
+        }
+        if (this.dpid != dpid) {
+            pinCount.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Moves the pin count from the given value to {@link #CLAIMED}, fencing off lock-free lookups while the page
+     * header is changed.
+     */
+    boolean claim(int expectedPinCount) {
+        return pinCount.compareAndSet(expectedPinCount, CLAIMED);
+    }
+
     @Override
     public int getCachedPageId() {
         return cpid;
@@ -95,6 +137,9 @@ class CachedPage implements ICachedPageInternal {
     @Override
     public void acquireWriteLatch() {
         latch.writeLock().lock();
+        if (latch.getWriteHoldCount() == 1) {
+            writeStamp = version.writeLock();
+        }
     }
 
     @Override
@@ -109,6 +154,19 @@ class CachedPage implements ICachedPageInternal {
                 pinCount.incrementAndGet();
             }
         }
+        if (latch.getWriteHoldCount() == 1) {
+            version.unlockWrite(writeStamp);
+        }
         latch.writeLock().unlock();
     }
+
+    @Override
+    public long tryOptimisticRead() {
+        return version.tryOptimisticRead();
+    }
+
+    @Override
+    public boolean validate(long stamp) {
+        return version.validate(stamp);
+    }
 }
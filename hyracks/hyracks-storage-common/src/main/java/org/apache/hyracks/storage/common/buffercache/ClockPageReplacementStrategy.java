@@ -30,11 +30,37 @@ public class ClockPageReplacementStrategy implements IPageReplacementStrategy {
     private AtomicInteger numPages = new AtomicInteger(0);
     private final int pageSize;
     private final int maxAllowedNumPages;
+    private final CacheMemoryBudget memoryBudget;
+    private final int numReservedPages;
 
     public ClockPageReplacementStrategy(ICacheMemoryAllocator allocator, int pageSize, int maxAllowedNumPages) {
+        this(allocator, pageSize, maxAllowedNumPages, null, 0);
+    }
+
+    /**
+     * Creates a strategy whose pages are charged to a memory budget that it shares with the strategies of other page
+     * sizes.
+     *
+     * @param numReservedPages
+     *            the number of pages that are set aside for this strategy in the budget, at least one
+     */
+    public ClockPageReplacementStrategy(ICacheMemoryAllocator allocator, int pageSize, CacheMemoryBudget memoryBudget,
+            int numReservedPages) {
+        this(allocator, pageSize, (int) Math.min(Integer.MAX_VALUE, memoryBudget.getCapacity() / pageSize),
+                memoryBudget, numReservedPages);
+        if (numReservedPages < 1) {
+            throw new IllegalArgumentException("At least one page must be reserved: " + numReservedPages);
+        }
+        memoryBudget.reserve(pageSize, numReservedPages);
+    }
+
+    private ClockPageReplacementStrategy(ICacheMemoryAllocator allocator, int pageSize, int maxAllowedNumPages,
+            CacheMemoryBudget memoryBudget, int numReservedPages) {
         this.allocator = allocator;
         this.pageSize = pageSize;
         this.maxAllowedNumPages = maxAllowedNumPages;
+        this.memoryBudget = memoryBudget;
+        this.numReservedPages = numReservedPages;
         clockPtr = 0;
     }
 
@@ -58,6 +84,12 @@ public class ClockPageReplacementStrategy implements IPageReplacementStrategy {
         getPerPageObject(cPage).set(true);
     }
 
+    @Override
+    public void notifyCachePageSequentialAccess(ICachedPageInternal cPage) {
+        // CLOCK does not distinguish sequential accesses, use TwoQueuePageReplacementStrategy for scan resistance.
+        notifyCachePageAccess(cPage);
+    }
+
     @Override
     public ICachedPageInternal findVictim() {
         ICachedPageInternal cachedPage = null;
@@ -114,9 +146,15 @@ public class ClockPageReplacementStrategy implements IPageReplacementStrategy {
     private ICachedPageInternal allocatePage() {
         CachedPage cPage = null;
         synchronized (this) {
-            cPage = new CachedPage(numPages.get(), allocator.allocate(pageSize, 1)[0], this);
-            bufferCache.addPage(cPage);
-            numPages.incrementAndGet();
+            if (memoryBudget == null || memoryBudget.allocate(pageSize, numPages.get(), numReservedPages)) {
+                cPage = new CachedPage(numPages.get(), allocator.allocate(pageSize, 1)[0], this);
+                bufferCache.addPage(cPage);
+                numPages.incrementAndGet();
+            }
+        }
+        if (cPage == null) {
+            // The shared budget is used up by the other page sizes, reuse one of ours.
+            return findVictimByEviction();
         }
         AtomicBoolean accessedFlag = getPerPageObject(cPage);
         if (!accessedFlag.compareAndSet(true, false)) {
@@ -140,4 +178,16 @@ public class ClockPageReplacementStrategy implements IPageReplacementStrategy {
     public int getMaxAllowedNumPages() {
         return maxAllowedNumPages;
     }
+
+    /**
+     * @return the number of pages that this strategy is expected to hold. For a strategy that shares a memory budget,
+     *         this is its share of the budget in proportion to its reservation, otherwise the maximum number of pages.
+     */
+    int getExpectedNumPages() {
+        if (memoryBudget == null) {
+            return maxAllowedNumPages;
+        }
+        long share = memoryBudget.getCapacity() * numReservedPages / memoryBudget.getReservedBytes();
+        return (int) Math.min(maxAllowedNumPages, Math.max(numReservedPages, share));
+    }
 }
\ No newline at end of file
@@ -57,12 +57,24 @@ public class DebugBufferCache implements IBufferCache {
         createFileCount.addAndGet(1);
     }
 
+    @Override
+    public void createFile(FileReference fileRef, int pageSize) throws HyracksDataException {
+        bufferCache.createFile(fileRef, pageSize);
+        createFileCount.addAndGet(1);
+    }
+
     @Override
     public void openFile(int fileId) throws HyracksDataException {
         bufferCache.openFile(fileId);
         openFileCount.addAndGet(1);
     }
 
+    @Override
+    public void openFile(int fileId, int pageSize) throws HyracksDataException {
+        bufferCache.openFile(fileId, pageSize);
+        openFileCount.addAndGet(1);
+    }
+
     @Override
     public void closeFile(int fileId) throws HyracksDataException {
         bufferCache.closeFile(fileId);
@@ -87,12 +99,29 @@ public class DebugBufferCache implements IBufferCache {
         return page;
     }
 
+    @Override
+    public ICachedPage pin(long dpid, boolean newPage, boolean sequential) throws HyracksDataException {
+        ICachedPage page = bufferCache.pin(dpid, newPage, sequential);
+        pinCount.addAndGet(1);
+        return page;
+    }
+
+    @Override
+    public void prefetch(long dpid, int numPages) throws HyracksDataException {
+        bufferCache.prefetch(dpid, numPages);
+    }
+
     @Override
     public void unpin(ICachedPage page) throws HyracksDataException {
         bufferCache.unpin(page);
         unpinCount.addAndGet(1);
     }
 
+    @Override
+    public void markFileImmutable(int fileId) throws HyracksDataException {
+        bufferCache.markFileImmutable(fileId);
+    }
+
     @Override
     public int getPageSize() {
         return bufferCache.getPageSize();
@@ -166,6 +195,11 @@ public class DebugBufferCache implements IBufferCache {
         bufferCache.flushDirtyPage(page);
     }
 
+    @Override
+    public void flushDirtyPages(ICachedPage[] pages, int count) throws HyracksDataException {
+        bufferCache.flushDirtyPages(pages, count);
+    }
+
     @Override
     public void force(int fileId, boolean metadata) throws HyracksDataException {
         bufferCache.force(fileId, metadata);
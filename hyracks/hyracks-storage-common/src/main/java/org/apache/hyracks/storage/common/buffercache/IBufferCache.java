@@ -25,10 +25,21 @@ import org.apache.hyracks.api.replication.IIOReplicationManager;
 public interface IBufferCache {
     public void createFile(FileReference fileRef) throws HyracksDataException;
 
+    /**
+     * Creates a file whose pages have the given size. Caches that only have one page size fail if it is a different
+     * one.
+     */
+    public void createFile(FileReference fileRef, int pageSize) throws HyracksDataException;
+
     public int createMemFile() throws HyracksDataException;
 
     public void openFile(int fileId) throws HyracksDataException;
 
+    /**
+     * Opens a file whose pages have the given size, e.g. a file that was created before a restart.
+     */
+    public void openFile(int fileId, int pageSize) throws HyracksDataException;
+
     public void closeFile(int fileId) throws HyracksDataException;
 
     public void deleteFile(int fileId, boolean flushDirtyPages) throws HyracksDataException;
@@ -39,6 +50,18 @@ public interface IBufferCache {
 
     public ICachedPage pin(long dpid, boolean newPage) throws HyracksDataException;
 
+    /**
+     * Pins a page like {@link #pin(long, boolean)}. If sequential is true, the page is being read by a scan that is
+     * not expected to come back to it, so the replacement strategy may evict it before pages that are re-referenced.
+     */
+    public ICachedPage pin(long dpid, boolean newPage, boolean sequential) throws HyracksDataException;
+
+    /**
+     * Starts reading numPages consecutive pages of a file, beginning at dpid, in the background. Pages that are not
+     * cached yet are read with as few asynchronous reads as possible. The pages are not pinned on behalf of the caller.
+     */
+    public void prefetch(long dpid, int numPages) throws HyracksDataException;
+
     public ICachedPage pinVirtual(long vpid) throws HyracksDataException;
 
     public ICachedPage unpinVirtual(long vpid, long dpid) throws HyracksDataException;
@@ -47,8 +70,21 @@ public interface IBufferCache {
 
     public void flushDirtyPage(ICachedPage page) throws HyracksDataException;
 
+    /**
+     * Writes the dirty pages among the first count pages, which must be pinned by the caller and not write latched.
+     * Pages of one file with consecutive page ids are written with one gathering write. The pages stay pinned.
+     */
+    public void flushDirtyPages(ICachedPage[] pages, int count) throws HyracksDataException;
+
     public void force(int fileId, boolean metadata) throws HyracksDataException;
 
+    /**
+     * Declares that the pages of an open file will not be modified anymore and that they have all been written.
+     * Caches may then read the file through a read-only memory mapping, or rewrite it into a form that is only read,
+     * such as a compressed one.
+     */
+    public void markFileImmutable(int fileId) throws HyracksDataException;
+
     public int getPageSize();
 
     public int getNumPages();
@@ -0,0 +1,36 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.common.buffercache;
+
+/**
+ * A cached page whose write latch carries a version, so that the page can be read without taking its latch.
+ */
+public interface IVersionedCachedPage extends ICachedPage {
+    /**
+     * Returns a stamp for reading the page without holding its latch, or 0 if a writer currently holds the write
+     * latch. Anything read after taking the stamp may be inconsistent until {@link #validate(long)} succeeds.
+     */
+    public long tryOptimisticRead();
+
+    /**
+     * @return true if no write latch was acquired on the page since the given stamp was returned by
+     *         {@link #tryOptimisticRead()}.
+     */
+    public boolean validate(long stamp);
+}
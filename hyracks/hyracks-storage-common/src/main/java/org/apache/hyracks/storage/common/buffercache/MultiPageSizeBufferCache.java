@@ -0,0 +1,302 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.common.buffercache;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.api.io.FileReference;
+import org.apache.hyracks.api.io.IIOManager;
+import org.apache.hyracks.api.lifecycle.ILifeCycleComponent;
+import org.apache.hyracks.api.replication.IIOReplicationManager;
+import org.apache.hyracks.storage.common.file.BufferedFileHandle;
+import org.apache.hyracks.storage.common.file.IFileMapManager;
+
+/**
+ * A buffer cache that supports a different page size per file. Each page size has its own pool of pages, which is a
+ * {@link BufferCache} with its own page replacement strategy and cleaner. The strategies are expected to share one
+ * {@link CacheMemoryBudget}, so that the pools grow on demand within a single memory budget. All pools share the same
+ * file map, so file ids are unique across pools.
+ * The page size of a file is given when the file is created or opened, and the file stays in the pool of that size
+ * until it is deleted, whether or not later calls declare its page size. Page sizes are not recorded on disk, so an
+ * index that uses another page size than the default one keeps it in its own configuration and declares it with
+ * {@link #createFile(FileReference, int)} and {@link #openFile(int, int)} each time it registers or opens a file.
+ * Files for which no page size was ever given and memory files use the first (default) pool. Virtual pages belong to
+ * the pool of the file of their page id.
+ */
+public class MultiPageSizeBufferCache implements IBufferCache, ILifeCycleComponent {
+    private final BufferCache[] pools;
+    private final BufferCache defaultPool;
+    private final IFileMapManager fileMapManager;
+    private final Map<Integer, BufferCache> filePools;
+
+    /**
+     * @param pageReplacementStrategies
+     *            one strategy per page size. The first one is used for files that have no declared page size.
+     * @param maxOpenFiles
+     *            the maximum number of open files of each pool
+     */
+    public MultiPageSizeBufferCache(IIOManager ioManager, IPageReplacementStrategy[] pageReplacementStrategies,
+            IPageCleanerPolicy pageCleanerPolicy, IFileMapManager fileMapManager, int maxOpenFiles,
+            ThreadFactory threadFactory) {
+        pools = new BufferCache[pageReplacementStrategies.length];
+        for (int i = 0; i < pageReplacementStrategies.length; ++i) {
+            int pageSize = pageReplacementStrategies[i].getPageSize();
+            for (int j = 0; j < i; ++j) {
+                if (pageReplacementStrategies[j].getPageSize() == pageSize) {
+                    throw new IllegalArgumentException("Duplicate page size " + pageSize);
+                }
+            }
+        }
+        // The strategies reserve their share of a shared budget when they are created, so the pools are created once
+        // all the reservations are known, to size their page tables by their share.
+        for (int i = 0; i < pageReplacementStrategies.length; ++i) {
+            pools[i] = new BufferCache(ioManager, pageReplacementStrategies[i], pageCleanerPolicy, fileMapManager,
+                    maxOpenFiles, threadFactory);
+        }
+        defaultPool = pools[0];
+        this.fileMapManager = fileMapManager;
+        filePools = new ConcurrentHashMap<Integer, BufferCache>();
+    }
+
+    private BufferCache getPool(int pageSize) throws HyracksDataException {
+        for (BufferCache pool : pools) {
+            if (pool.getPageSize() == pageSize) {
+                return pool;
+            }
+        }
+        throw new HyracksDataException("No page pool for page size " + pageSize);
+    }
+
+    private BufferCache getFilePool(int fileId) {
+        BufferCache pool = filePools.get(fileId);
+        return pool == null ? defaultPool : pool;
+    }
+
+    private BufferCache getPagePool(long dpid) {
+        return getFilePool(BufferedFileHandle.getFileId(dpid));
+    }
+
+    private BufferCache getPagePool(ICachedPage page) {
+        return getPagePool(((CachedPage) page).dpid);
+    }
+
+    /**
+     * @return the page size of the given file
+     */
+    public int getPageSize(int fileId) {
+        return getFilePool(fileId).getPageSize();
+    }
+
+    @Override
+    public void createFile(FileReference fileRef) throws HyracksDataException {
+        createFile(fileRef, defaultPool.getPageSize());
+    }
+
+    // File management is serialized here because the pools share the file map.
+    @Override
+    public synchronized void createFile(FileReference fileRef, int pageSize) throws HyracksDataException {
+        BufferCache pool = getPool(pageSize);
+        pool.createFile(fileRef);
+        filePools.put(fileMapManager.lookupFileId(fileRef), pool);
+    }
+
+    @Override
+    public synchronized int createMemFile() throws HyracksDataException {
+        return defaultPool.createMemFile();
+    }
+
+    @Override
+    public synchronized void openFile(int fileId) throws HyracksDataException {
+        getFilePool(fileId).openFile(fileId);
+    }
+
+    @Override
+    public synchronized void openFile(int fileId, int pageSize) throws HyracksDataException {
+        BufferCache pool = getPool(pageSize);
+        BufferCache filePool = filePools.get(fileId);
+        if (filePool != null && filePool != pool) {
+            throw new HyracksDataException("File " + fileId + " has page size " + filePool.getPageSize()
+                    + ", cannot open it with page size " + pageSize);
+        }
+        pool.openFile(fileId);
+        filePools.put(fileId, pool);
+    }
+
+    @Override
+    public synchronized void closeFile(int fileId) throws HyracksDataException {
+        getFilePool(fileId).closeFile(fileId);
+    }
+
+    @Override
+    public synchronized void deleteFile(int fileId, boolean flushDirtyPages) throws HyracksDataException {
+        try {
+            getFilePool(fileId).deleteFile(fileId, flushDirtyPages);
+        } finally {
+            filePools.remove(fileId);
+        }
+    }
+
+    @Override
+    public synchronized void deleteMemFile(int fileId) throws HyracksDataException {
+        defaultPool.deleteMemFile(fileId);
+    }
+
+    @Override
+    public ICachedPage tryPin(long dpid) throws HyracksDataException {
+        return getPagePool(dpid).tryPin(dpid);
+    }
+
+    @Override
+    public ICachedPage pin(long dpid, boolean newPage) throws HyracksDataException {
+        return getPagePool(dpid).pin(dpid, newPage);
+    }
+
+    @Override
+    public ICachedPage pin(long dpid, boolean newPage, boolean sequential) throws HyracksDataException {
+        return getPagePool(dpid).pin(dpid, newPage, sequential);
+    }
+
+    @Override
+    public void prefetch(long dpid, int numPages) throws HyracksDataException {
+        getPagePool(dpid).prefetch(dpid, numPages);
+    }
+
+    @Override
+    public ICachedPage pinVirtual(long vpid) throws HyracksDataException {
+        return getPagePool(vpid).pinVirtual(vpid);
+    }
+
+    @Override
+    public ICachedPage unpinVirtual(long vpid, long dpid) throws HyracksDataException {
+        // the virtual page is copied into the real one, so both have to come from the same pool
+        BufferCache pool = getPagePool(dpid);
+        BufferCache virtualPool = getPagePool(vpid);
+        if (virtualPool != pool) {
+            throw new HyracksDataException("Virtual page " + vpid + " has page size " + virtualPool.getPageSize()
+                    + ", cannot copy it to page " + dpid + " of page size " + pool.getPageSize());
+        }
+        return pool.unpinVirtual(vpid, dpid);
+    }
+
+    @Override
+    public void unpin(ICachedPage page) throws HyracksDataException {
+        getPagePool(page).unpin(page);
+    }
+
+    @Override
+    public void flushDirtyPage(ICachedPage page) throws HyracksDataException {
+        getPagePool(page).flushDirtyPage(page);
+    }
+
+    @Override
+    public void flushDirtyPages(ICachedPage[] pages, int count) throws HyracksDataException {
+        if (count == 0) {
+            return;
+        }
+        BufferCache pool = getPagePool(pages[0]);
+        for (int i = 1; i < count; ++i) {
+            if (getPagePool(pages[i]) != pool) {
+                // pages of files with different page sizes are written one at a time
+                for (int j = 0; j < count; ++j) {
+                    flushDirtyPage(pages[j]);
+                }
+                return;
+            }
+        }
+        pool.flushDirtyPages(pages, count);
+    }
+
+    @Override
+    public void force(int fileId, boolean metadata) throws HyracksDataException {
+        getFilePool(fileId).force(fileId, metadata);
+    }
+
+    @Override
+    public void markFileImmutable(int fileId) throws HyracksDataException {
+        getFilePool(fileId).markFileImmutable(fileId);
+    }
+
+    /**
+     * @return the page size of files that have no declared page size
+     */
+    @Override
+    public int getPageSize() {
+        return defaultPool.getPageSize();
+    }
+
+    /**
+     * @return the number of pages of the default page size that the memory of all the pools amounts to
+     */
+    @Override
+    public int getNumPages() {
+        long bytes = 0;
+        for (BufferCache pool : pools) {
+            bytes += (long) pool.getExpectedNumPages() * pool.getPageSize();
+        }
+        return (int) Math.min(Integer.MAX_VALUE, bytes / defaultPool.getPageSize());
+    }
+
+    @Override
+    public int getFileReferenceCount(int fileId) {
+        return getFilePool(fileId).getFileReferenceCount(fileId);
+    }
+
+    @Override
+    public void close() throws HyracksDataException {
+        for (BufferCache pool : pools) {
+            pool.close();
+        }
+    }
+
+    @Override
+    public boolean isReplicationEnabled() {
+        return false;
+    }
+
+    @Override
+    public IIOReplicationManager getIOReplicationManager() {
+        return null;
+    }
+
+    @Override
+    public void start() {
+        for (BufferCache pool : pools) {
+            pool.start();
+        }
+    }
+
+    @Override
+    public void stop(boolean dumpState, OutputStream os) throws IOException {
+        for (BufferCache pool : pools) {
+            pool.stop(dumpState, os);
+        }
+    }
+
+    @Override
+    public void dumpState(OutputStream os) throws IOException {
+        for (BufferCache pool : pools) {
+            pool.dumpState(os);
+        }
+    }
+}
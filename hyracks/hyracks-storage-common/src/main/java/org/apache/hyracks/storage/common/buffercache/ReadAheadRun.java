@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.common.buffercache;
+
+import java.nio.ByteBuffer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.api.io.IIOFuture;
+import org.apache.hyracks.api.io.IIOFutureListener;
+import org.apache.hyracks.storage.common.compression.CompressedPageFile;
+
+/**
+ * A run of consecutive pages of one file that is read from disk with a single asynchronous read. The pages are pinned
+ * while the read is in flight and are marked valid and unpinned once it completes. Threads that pin one of the pages
+ * in the meantime wait for the run instead of issuing their own read. The pages of a compressed file are read in their
+ * compressed form, which is contiguous as well, and are decompressed into their frames.
+ * The pages are installed by the thread that completes the read if the I/O manager supports completion listeners,
+ * otherwise the run is executed as a task that waits for the read.
+ */
+class ReadAheadRun implements IIOFutureListener, Runnable {
+    private static final Logger LOGGER = Logger.getLogger(ReadAheadRun.class.getName());
+
+    private final int pageSize;
+    private final CachedPage[] pages;
+    private final CompressedPageFile compressedFile;
+    private final int firstPageId;
+    private int count;
+    private ByteBuffer buffer;
+    private IIOFuture future;
+    private boolean installed;
+
+    ReadAheadRun(int pageSize, int maxPages) {
+        this(pageSize, maxPages, null, 0);
+    }
+
+    /**
+     * @param compressedFile
+     *            the compressed file that the pages are read from, or null if the file is not compressed.
+     * @param firstPageId
+     *            the id of the first page of the run.
+     */
+    ReadAheadRun(int pageSize, int maxPages, CompressedPageFile compressedFile, int firstPageId) {
+        this.pageSize = pageSize;
+        this.pages = new CachedPage[maxPages];
+        this.compressedFile = compressedFile;
+        this.firstPageId = firstPageId;
+        count = 0;
+        installed = false;
+    }
+
+    /**
+     * Adds a pinned page to the end of the run if no other thread has read it or is reading it.
+     *
+     * @return true if the page was added, in which case the run takes over the caller's pin.
+     */
+    boolean add(CachedPage cPage) {
+        synchronized (cPage) {
+            if (cPage.valid || cPage.readAhead != null) {
+                return false;
+            }
+            cPage.readAhead = this;
+        }
+        pages[count++] = cPage;
+        return true;
+    }
+
+    int getPageCount() {
+        return count;
+    }
+
+    ByteBuffer allocateBuffer() {
+        if (compressedFile != null) {
+            buffer = ByteBuffer.allocate((int) (compressedFile.getOffset(firstPageId + count) - compressedFile
+                    .getOffset(firstPageId)));
+        } else {
+            buffer = ByteBuffer.allocate(count * pageSize);
+        }
+        return buffer;
+    }
+
+    /**
+     * @return the offset in the file that the buffer of the run is read from.
+     */
+    long getFileOffset() {
+        return compressedFile != null ? compressedFile.getOffset(firstPageId) : (long) firstPageId * pageSize;
+    }
+
+    void setFuture(IIOFuture future) {
+        this.future = future;
+    }
+
+    @Override
+    public void ioCompleted(IIOFuture future) {
+        this.future = future;
+        run();
+    }
+
+    @Override
+    public void run() {
+        int bytesRead = -1;
+        try {
+            bytesRead = future.synchronize();
+        } catch (HyracksDataException e) {
+            if (LOGGER.isLoggable(Level.WARNING)) {
+                LOGGER.log(Level.WARNING, "Read-ahead failed", e);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        install(bytesRead);
+    }
+
+    /**
+     * Copies the pages that were read in full into their frames and releases the pins of the run. Pages that could not
+     * be installed are left invalid so that the next pin reads them.
+     */
+    void install(int bytesRead) {
+        for (int i = 0; i < count; ++i) {
+            CachedPage cPage = pages[i];
+            // A writer that pinned a new page before the run claimed it may already hold the latch, in which case the
+            // page is valid and must not be overwritten.
+            if (isRead(i, bytesRead) && cPage.latch.writeLock().tryLock()) {
+                try {
+                    synchronized (cPage) {
+                        if (!cPage.valid) {
+                            cPage.valid = installPage(i, cPage);
+                        }
+                    }
+                } finally {
+                    cPage.latch.writeLock().unlock();
+                }
+            }
+            cPage.readAhead = null;
+            cPage.pinCount.decrementAndGet();
+        }
+        buffer = null;
+        synchronized (this) {
+            installed = true;
+            notifyAll();
+        }
+    }
+
+    private boolean isRead(int i, int bytesRead) {
+        if (compressedFile == null) {
+            return bytesRead >= (i + 1) * pageSize;
+        }
+        return firstPageId + i < compressedFile.getNumPages()
+                && bytesRead >= compressedFile.getOffset(firstPageId + i + 1) - compressedFile.getOffset(firstPageId);
+    }
+
+    private boolean installPage(int i, CachedPage cPage) {
+        if (compressedFile != null) {
+            try {
+                compressedFile.decompressPage(firstPageId + i, firstPageId, buffer, cPage.buffer);
+                return true;
+            } catch (HyracksDataException e) {
+                if (LOGGER.isLoggable(Level.WARNING)) {
+                    LOGGER.log(Level.WARNING, "Could not decompress read-ahead page", e);
+                }
+                return false;
+            }
+        }
+        ByteBuffer src = buffer.duplicate();
+        src.limit((i + 1) * pageSize);
+        src.position(i * pageSize);
+        ByteBuffer dst = cPage.buffer.duplicate();
+        dst.clear();
+        dst.put(src);
+        return true;
+    }
+
+    /**
+     * Blocks until the pages of this run have been installed.
+     */
+    synchronized void await() {
+        boolean interrupted = false;
+        while (!installed) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
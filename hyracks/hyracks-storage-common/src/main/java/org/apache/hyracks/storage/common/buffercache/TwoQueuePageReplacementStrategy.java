@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.common.buffercache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A CLOCK approximation of the simplified 2Q replacement policy. Pages enter a cold (probationary) set when they are
+ * loaded and are only promoted to the hot (protected) set when they are accessed again while still cached. The clock
+ * hand evicts cold pages and passes over hot ones, so a large scan that touches each page once only recycles the cold
+ * set and leaves hot pages such as B-tree interior nodes alone. Hot pages are aged (and eventually demoted to cold)
+ * only when the hot set outgrows its share of the cache, or when a whole sweep found no cold victim.
+ * Sequential accesses never promote a page.
+ */
+public class TwoQueuePageReplacementStrategy implements IPageReplacementStrategy {
+    private static final int MAX_UNSUCCESSFUL_CYCLE_COUNT = 3;
+    private static final float DEFAULT_HOT_FRACTION = 0.75f;
+
+    // Per-page states.
+    private static final int UNTOUCHED = 0;
+    private static final int COLD = 1;
+    private static final int HOT = 2;
+    private static final int HOT_REFERENCED = 3;
+
+    private IBufferCacheInternal bufferCache;
+    private int clockPtr;
+    private ICacheMemoryAllocator allocator;
+    private AtomicInteger numPages = new AtomicInteger(0);
+    private AtomicInteger numHotPages = new AtomicInteger(0);
+    private final int pageSize;
+    private final int maxAllowedNumPages;
+    private final int maxHotPages;
+
+    public TwoQueuePageReplacementStrategy(ICacheMemoryAllocator allocator, int pageSize, int maxAllowedNumPages) {
+        this(allocator, pageSize, maxAllowedNumPages, DEFAULT_HOT_FRACTION);
+    }
+
+    public TwoQueuePageReplacementStrategy(ICacheMemoryAllocator allocator, int pageSize, int maxAllowedNumPages,
+            float hotFraction) {
+        if (hotFraction <= 0 || hotFraction >= 1) {
+            throw new IllegalArgumentException("Hot fraction must be in (0, 1): " + hotFraction);
+        }
+        this.allocator = allocator;
+        this.pageSize = pageSize;
+        this.maxAllowedNumPages = maxAllowedNumPages;
+        this.maxHotPages = Math.max(1, (int) (maxAllowedNumPages * hotFraction));
+        clockPtr = 0;
+    }
+
+    @Override
+    public Object createPerPageStrategyObject(int cpid) {
+        return new AtomicInteger(UNTOUCHED);
+    }
+
+    @Override
+    public void setBufferCache(IBufferCacheInternal bufferCache) {
+        this.bufferCache = bufferCache;
+    }
+
+    @Override
+    public void notifyCachePageReset(ICachedPageInternal cPage) {
+        if (isHot(getPerPageObject(cPage).getAndSet(UNTOUCHED))) {
+            numHotPages.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void notifyCachePageAccess(ICachedPageInternal cPage) {
+        AtomicInteger state = getPerPageObject(cPage);
+        while (true) {
+            int s = state.get();
+            switch (s) {
+                case UNTOUCHED:
+                    if (state.compareAndSet(UNTOUCHED, COLD)) {
+                        return;
+                    }
+                    break;
+                case COLD:
+                    if (state.compareAndSet(COLD, HOT_REFERENCED)) {
+                        numHotPages.incrementAndGet();
+                        return;
+                    }
+                    break;
+                case HOT:
+                    if (state.compareAndSet(HOT, HOT_REFERENCED)) {
+                        return;
+                    }
+                    break;
+                default:
+                    return;
+            }
+        }
+    }
+
+    @Override
+    public void notifyCachePageSequentialAccess(ICachedPageInternal cPage) {
+        getPerPageObject(cPage).compareAndSet(UNTOUCHED, COLD);
+    }
+
+    @Override
+    public ICachedPageInternal findVictim() {
+        ICachedPageInternal cachedPage = null;
+        int pageCount = getNumPages();
+        // pageCount is a lower-bound of numPages.
+        if (pageCount >= maxAllowedNumPages) {
+            cachedPage = findVictimByEviction();
+        } else {
+            cachedPage = allocatePage();
+        }
+        return cachedPage;
+    }
+
+    private ICachedPageInternal findVictimByEviction() {
+        int startClockPtr = clockPtr;
+        int cycleCount = 0;
+        do {
+            ICachedPageInternal cPage = bufferCache.getPage(clockPtr);
+            AtomicInteger state = getPerPageObject(cPage);
+            int s = state.get();
+            if (isHot(s)) {
+                if (cycleCount > 0 || numHotPages.get() > maxHotPages) {
+                    age(state, s);
+                }
+            } else if (cPage.pinIfGoodVictim()) {
+                // Move past the victim, so that the page loaded into it gets a full sweep to be re-referenced.
+                advanceClockPtr();
+                return cPage;
+            }
+            if (advanceClockPtr() == startClockPtr) {
+                ++cycleCount;
+            }
+        } while (cycleCount < MAX_UNSUCCESSFUL_CYCLE_COUNT);
+        return null;
+    }
+
+    private void age(AtomicInteger state, int s) {
+        if (s == HOT_REFERENCED) {
+            state.compareAndSet(HOT_REFERENCED, HOT);
+        } else if (state.compareAndSet(HOT, COLD)) {
+            numHotPages.decrementAndGet();
+        }
+    }
+
+    /**
+     * The clockPtr may miss the last added pages in this round.
+     */
+    private int advanceClockPtr() {
+        clockPtr = (clockPtr + 1) % getNumPages();
+        return clockPtr;
+    }
+
+    /**
+     * The number returned here could only be smaller or equal to the actual number
+     * of pages, because numPages is monotonically incremented.
+     */
+    @Override
+    public int getNumPages() {
+        return numPages.get();
+    }
+
+    public int getNumHotPages() {
+        return numHotPages.get();
+    }
+
+    private ICachedPageInternal allocatePage() {
+        CachedPage cPage = null;
+        synchronized (this) {
+            cPage = new CachedPage(numPages.get(), allocator.allocate(pageSize, 1)[0], this);
+            bufferCache.addPage(cPage);
+            numPages.incrementAndGet();
+        }
+        if (cPage.pinIfGoodVictim()) {
+            return cPage;
+        }
+        return null;
+    }
+
+    private static boolean isHot(int s) {
+        return s == HOT || s == HOT_REFERENCED;
+    }
+
+    private AtomicInteger getPerPageObject(ICachedPageInternal cPage) {
+        return (AtomicInteger) cPage.getReplacementStrategyObject();
+    }
+
+    @Override
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    @Override
+    public int getMaxAllowedNumPages() {
+        return maxAllowedNumPages;
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.common.compression;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.api.io.IFileHandle;
+import org.apache.hyracks.api.io.IIOManager;
+
+/**
+ * A file whose pages are compressed one by one and stored back to back, followed by a table of their offsets and a
+ * footer:
+ *
+ * <pre>
+ * [page 0][page 1]...[page n-1][offset 0]...[offset n][n][page size][compressor id][magic]
+ * </pre>
+ *
+ * The length of page i is offset i+1 minus offset i. A page that does not get smaller is stored as is, with the
+ * length of a page. Compressed files are written once from an uncompressed file and are never modified.
+ */
+public class CompressedPageFile {
+    private static final long MAGIC = 0x4859435041474531L;
+    private static final int FOOTER_SIZE = 4 + 4 + 4 + 8;
+    // Uncompressed pages are read and compressed pages are written in chunks of about this size.
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    private static final ThreadLocal<byte[]> scratchBuffers = new ThreadLocal<byte[]>();
+    // Compressors of files that are opened. Decompression does not depend on how a compressor is configured.
+    private static final IPageCompressor LZ4_COMPRESSOR = new LZ4PageCompressor();
+    private static final IPageCompressor DEFLATE_COMPRESSOR = new DeflatePageCompressor();
+
+    private final IFileHandle handle;
+    private final int pageSize;
+    private final IPageCompressor compressor;
+    private final long[] offsets;
+
+    public CompressedPageFile(IFileHandle handle, int pageSize, IPageCompressor compressor, long[] offsets) {
+        this.handle = handle;
+        this.pageSize = pageSize;
+        this.compressor = compressor;
+        this.offsets = offsets;
+    }
+
+    public IFileHandle getFileHandle() {
+        return handle;
+    }
+
+    public int getNumPages() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * @return the offset of a page in the file. Pages beyond the last one start at the offset table.
+     */
+    public long getOffset(int pageId) {
+        return offsets[Math.min(pageId, offsets.length - 1)];
+    }
+
+    /**
+     * @return the number of bytes that the pages of the file take up, not counting the offset table.
+     */
+    public long getCompressedSize() {
+        return offsets[offsets.length - 1];
+    }
+
+    /**
+     * Reads and decompresses a page into buf.
+     *
+     * @return false if the page lies beyond the end of the file, in which case buf is not modified.
+     */
+    public boolean readPage(IIOManager ioManager, int pageId, ByteBuffer buf) throws HyracksDataException {
+        if (pageId >= getNumPages()) {
+            return false;
+        }
+        int length = (int) (offsets[pageId + 1] - offsets[pageId]);
+        if (length == pageSize) {
+            ByteBuffer dst = buf.duplicate();
+            dst.clear();
+            ioManager.syncRead(handle, offsets[pageId], dst);
+            return true;
+        }
+        byte[] scratch = getScratchBuffer(length);
+        ioManager.syncRead(handle, offsets[pageId], ByteBuffer.wrap(scratch, 0, length));
+        decompress(scratch, 0, length, buf);
+        return true;
+    }
+
+    /**
+     * Decompresses a page from a buffer that holds the file contents from the offset of page firstPageId onwards.
+     */
+    public void decompressPage(int pageId, int firstPageId, ByteBuffer src, ByteBuffer buf)
+            throws HyracksDataException {
+        int start = (int) (offsets[pageId] - offsets[firstPageId]);
+        int length = (int) (offsets[pageId + 1] - offsets[pageId]);
+        if (length == pageSize) {
+            ByteBuffer page = src.duplicate();
+            page.limit(start + length);
+            page.position(start);
+            ByteBuffer dst = buf.duplicate();
+            dst.clear();
+            dst.put(page);
+        } else {
+            decompress(src.array(), src.arrayOffset() + start, length, buf);
+        }
+    }
+
+    private void decompress(byte[] src, int srcOffset, int length, ByteBuffer buf) throws HyracksDataException {
+        if (buf.hasArray()) {
+            compressor.decompress(src, srcOffset, length, buf.array(), buf.arrayOffset(), pageSize);
+        } else {
+            byte[] page = new byte[pageSize];
+            compressor.decompress(src, srcOffset, length, page, 0, pageSize);
+            ByteBuffer dst = buf.duplicate();
+            dst.clear();
+            dst.put(page);
+        }
+    }
+
+    private static byte[] getScratchBuffer(int length) {
+        byte[] scratch = scratchBuffers.get();
+        if (scratch == null || scratch.length < length) {
+            scratch = new byte[length];
+            scratchBuffers.set(scratch);
+        }
+        return scratch;
+    }
+
+    /**
+     * Writes the compressed form of an uncompressed file of fixed-size pages to an empty file. A partial last page is
+     * padded with zeroes.
+     *
+     * @return the offsets of the pages in the compressed file.
+     */
+    public static long[] write(IIOManager ioManager, IFileHandle src, long srcSize, IFileHandle dst, int pageSize,
+            IPageCompressor compressor) throws HyracksDataException {
+        int numPages = (int) ((srcSize + pageSize - 1) / pageSize);
+        long[] offsets = new long[numPages + 1];
+        int pagesPerChunk = Math.max(1, CHUNK_SIZE / pageSize);
+        int maxCompressedLength = compressor.getMaxCompressedLength(pageSize);
+        ByteBuffer in = ByteBuffer.allocate(pagesPerChunk * pageSize);
+        ByteBuffer out = ByteBuffer.allocate(Math.max(CHUNK_SIZE, maxCompressedLength));
+        byte[] inArray = in.array();
+        byte[] outArray = out.array();
+        for (int firstPageId = 0; firstPageId < numPages; firstPageId += pagesPerChunk) {
+            int chunkPages = Math.min(pagesPerChunk, numPages - firstPageId);
+            in.clear();
+            in.limit(chunkPages * pageSize);
+            int bytesRead = Math.max(0, ioManager.syncRead(src, (long) firstPageId * pageSize, in));
+            Arrays.fill(inArray, bytesRead, chunkPages * pageSize, (byte) 0);
+            for (int i = 0; i < chunkPages; i++) {
+                if (out.remaining() < maxCompressedLength) {
+                    flush(ioManager, dst, offsets[firstPageId + i] - out.position(), out);
+                }
+                int pos = out.position();
+                int length = compressor.compress(inArray, i * pageSize, pageSize, outArray, pos);
+                if (length >= pageSize) {
+                    System.arraycopy(inArray, i * pageSize, outArray, pos, pageSize);
+                    length = pageSize;
+                }
+                out.position(pos + length);
+                offsets[firstPageId + i + 1] = offsets[firstPageId + i] + length;
+            }
+        }
+        flush(ioManager, dst, offsets[numPages] - out.position(), out);
+
+        ByteBuffer table = ByteBuffer.allocate(offsets.length * 8 + FOOTER_SIZE);
+        for (long offset : offsets) {
+            table.putLong(offset);
+        }
+        table.putInt(numPages);
+        table.putInt(pageSize);
+        table.putInt(compressor.getId());
+        table.putLong(MAGIC);
+        table.flip();
+        ioManager.syncWrite(dst, offsets[numPages], table);
+        return offsets;
+    }
+
+    private static void flush(IIOManager ioManager, IFileHandle dst, long offset, ByteBuffer out)
+            throws HyracksDataException {
+        out.flip();
+        if (out.hasRemaining()) {
+            ioManager.syncWrite(dst, offset, out);
+        }
+        out.clear();
+    }
+
+    /**
+     * Reads the offset table of a file if it is a compressed file.
+     *
+     * @return the compressed file, or null if the file is not compressed.
+     */
+    public static CompressedPageFile open(IIOManager ioManager, IFileHandle handle, long fileSize, int pageSize)
+            throws HyracksDataException {
+        if (fileSize < FOOTER_SIZE) {
+            return null;
+        }
+        ByteBuffer footer = ByteBuffer.allocate(FOOTER_SIZE);
+        if (ioManager.syncRead(handle, fileSize - FOOTER_SIZE, footer) != FOOTER_SIZE
+                || footer.getLong(FOOTER_SIZE - 8) != MAGIC) {
+            return null;
+        }
+        int numPages = footer.getInt(0);
+        int filePageSize = footer.getInt(4);
+        IPageCompressor compressor = getCompressor(footer.getInt(8));
+        if (filePageSize != pageSize) {
+            throw new HyracksDataException("Compressed file has page size " + filePageSize + " instead of " + pageSize);
+        }
+        long tableOffset = fileSize - FOOTER_SIZE - (numPages + 1) * 8L;
+        if (numPages < 0 || tableOffset < 0) {
+            throw new HyracksDataException("Corrupt compressed file footer");
+        }
+        ByteBuffer table = ByteBuffer.allocate((numPages + 1) * 8);
+        ioManager.syncRead(handle, tableOffset, table);
+        long[] offsets = new long[numPages + 1];
+        for (int i = 0; i <= numPages; i++) {
+            offsets[i] = table.getLong(i * 8);
+        }
+        if (offsets[numPages] != tableOffset) {
+            throw new HyracksDataException("Corrupt compressed file offset table");
+        }
+        return new CompressedPageFile(handle, pageSize, compressor, offsets);
+    }
+
+    private static IPageCompressor getCompressor(int id) throws HyracksDataException {
+        switch (id) {
+            case LZ4PageCompressor.ID:
+                return LZ4_COMPRESSOR;
+            case DeflatePageCompressor.ID:
+                return DEFLATE_COMPRESSOR;
+            default:
+                throw new HyracksDataException("Unknown page compressor " + id);
+        }
+    }
+}
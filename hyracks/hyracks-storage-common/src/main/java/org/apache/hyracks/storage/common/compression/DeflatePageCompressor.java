@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.common.compression;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+
+/**
+ * A compressor that writes raw Deflate streams. It compresses better than {@link LZ4PageCompressor} at a higher CPU
+ * cost. Each thread reuses its own deflater and inflater.
+ */
+public class DeflatePageCompressor implements IPageCompressor {
+    public static final int ID = 2;
+
+    private final int level;
+
+    private final ThreadLocal<Deflater> deflaters = new ThreadLocal<Deflater>() {
+        @Override
+        protected Deflater initialValue() {
+            return new Deflater(level, true);
+        }
+    };
+
+    // Inflaters do not depend on the level, so they are shared by all instances.
+    private static final ThreadLocal<Inflater> inflaters = new ThreadLocal<Inflater>() {
+        @Override
+        protected Inflater initialValue() {
+            return new Inflater(true);
+        }
+    };
+
+    public DeflatePageCompressor() {
+        this(Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * @param level
+     *            the compression level, from {@link Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION}.
+     */
+    public DeflatePageCompressor(int level) {
+        this.level = level;
+    }
+
+    @Override
+    public int getId() {
+        return ID;
+    }
+
+    @Override
+    public int getMaxCompressedLength(int length) {
+        // The bound of zlib's compressBound(), which includes the header and trailer that raw streams omit.
+        return length + (length >>> 12) + (length >>> 14) + (length >>> 25) + 13;
+    }
+
+    @Override
+    public int compress(byte[] src, int srcOffset, int length, byte[] dst, int dstOffset) {
+        Deflater deflater = deflaters.get();
+        deflater.reset();
+        deflater.setInput(src, srcOffset, length);
+        deflater.finish();
+        int dp = dstOffset;
+        int dstEnd = dstOffset + getMaxCompressedLength(length);
+        while (!deflater.finished() && dp < dstEnd) {
+            dp += deflater.deflate(dst, dp, dstEnd - dp);
+        }
+        return dp - dstOffset;
+    }
+
+    @Override
+    public void decompress(byte[] src, int srcOffset, int srcLength, byte[] dst, int dstOffset, int dstLength)
+            throws HyracksDataException {
+        Inflater inflater = inflaters.get();
+        inflater.reset();
+        inflater.setInput(src, srcOffset, srcLength);
+        try {
+            int dp = dstOffset;
+            int dstEnd = dstOffset + dstLength;
+            while (dp < dstEnd && !inflater.finished()) {
+                int n = inflater.inflate(dst, dp, dstEnd - dp);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                dp += n;
+            }
+            if (dp != dstEnd) {
+                throw new HyracksDataException("Corrupt Deflate compressed page");
+            }
+        } catch (DataFormatException e) {
+            throw new HyracksDataException(e);
+        }
+    }
+}
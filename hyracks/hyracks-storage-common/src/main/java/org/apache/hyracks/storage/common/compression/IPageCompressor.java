@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.common.compression;
+
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+
+/**
+ * Compresses single pages of immutable files. Implementations must be thread-safe, since pages of a file are read by
+ * many threads at once.
+ */
+public interface IPageCompressor {
+    /**
+     * @return the identifier that is stored in compressed files to find the compressor again when they are opened.
+     */
+    public int getId();
+
+    /**
+     * @return the size of the largest output of {@link #compress} for an input of the given length.
+     */
+    public int getMaxCompressedLength(int length);
+
+    /**
+     * Compresses length bytes of src into dst, which must have room for {@link #getMaxCompressedLength(int)} bytes.
+     *
+     * @return the number of bytes written to dst.
+     */
+    public int compress(byte[] src, int srcOffset, int length, byte[] dst, int dstOffset);
+
+    /**
+     * Decompresses srcLength bytes of src into exactly dstLength bytes of dst.
+     *
+     * @throws HyracksDataException
+     *             if the compressed data is corrupt.
+     */
+    public void decompress(byte[] src, int srcOffset, int srcLength, byte[] dst, int dstOffset, int dstLength)
+            throws HyracksDataException;
+}
@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.common.compression;
+
+import java.util.Arrays;
+
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+
+/**
+ * A fast compressor that writes the LZ4 block format. Matches are found greedily through a hash table of the
+ * positions of 4-byte sequences, which favors speed over ratio, like the default LZ4 level.
+ */
+public class LZ4PageCompressor implements IPageCompressor {
+    public static final int ID = 1;
+
+    private static final int MIN_MATCH = 4;
+    // The last literals of a block and the distance of the last match from its end that the format requires.
+    private static final int LAST_LITERALS = 5;
+    private static final int MF_LIMIT = 12;
+    private static final int MAX_DISTANCE = (1 << 16) - 1;
+    private static final int RUN_MASK = 0x0f;
+    private static final int HASH_LOG = 12;
+
+    private static final ThreadLocal<int[]> hashTables = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[1 << HASH_LOG];
+        }
+    };
+
+    @Override
+    public int getId() {
+        return ID;
+    }
+
+    @Override
+    public int getMaxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    @Override
+    public int compress(byte[] src, int srcOffset, int length, byte[] dst, int dstOffset) {
+        int srcEnd = srcOffset + length;
+        int anchor = srcOffset;
+        int dp = dstOffset;
+        if (length > MF_LIMIT) {
+            // Positions are stored relative to the start of the input, plus one so that 0 means empty.
+            int[] hashTable = hashTables.get();
+            Arrays.fill(hashTable, 0);
+            int matchLimit = srcEnd - LAST_LITERALS;
+            int mfLimit = srcEnd - MF_LIMIT;
+            int sp = srcOffset;
+            while (sp < mfLimit) {
+                int sequence = readInt(src, sp);
+                int h = hash(sequence);
+                int ref = srcOffset + hashTable[h] - 1;
+                hashTable[h] = sp - srcOffset + 1;
+                if (ref < srcOffset || sp - ref > MAX_DISTANCE || readInt(src, ref) != sequence) {
+                    ++sp;
+                    continue;
+                }
+                while (sp > anchor && ref > srcOffset && src[sp - 1] == src[ref - 1]) {
+                    --sp;
+                    --ref;
+                }
+                int matchLength = MIN_MATCH;
+                while (sp + matchLength < matchLimit && src[sp + matchLength] == src[ref + matchLength]) {
+                    ++matchLength;
+                }
+                dp = writeSequence(src, anchor, sp - anchor, dst, dp, sp - ref, matchLength);
+                sp += matchLength;
+                anchor = sp;
+                if (sp < mfLimit) {
+                    // Lets a repetition of the sequence just before the next position be found.
+                    hashTable[hash(readInt(src, sp - 2))] = sp - 2 - srcOffset + 1;
+                }
+            }
+        }
+        return writeLastLiterals(src, anchor, srcEnd - anchor, dst, dp) - dstOffset;
+    }
+
+    @Override
+    public void decompress(byte[] src, int srcOffset, int srcLength, byte[] dst, int dstOffset, int dstLength)
+            throws HyracksDataException {
+        int sp = srcOffset;
+        int srcEnd = srcOffset + srcLength;
+        int dp = dstOffset;
+        int dstEnd = dstOffset + dstLength;
+        while (sp < srcEnd) {
+            int token = src[sp++] & 0xff;
+            int literalLength = token >>> 4;
+            if (literalLength == RUN_MASK) {
+                int b;
+                do {
+                    if (sp >= srcEnd) {
+                        throw corrupt();
+                    }
+                    b = src[sp++] & 0xff;
+                    literalLength += b;
+                } while (b == 0xff);
+            }
+            if (literalLength > srcEnd - sp || literalLength > dstEnd - dp) {
+                throw corrupt();
+            }
+            System.arraycopy(src, sp, dst, dp, literalLength);
+            sp += literalLength;
+            dp += literalLength;
+            if (sp == srcEnd) {
+                // The last sequence has no match.
+                break;
+            }
+            if (srcEnd - sp < 2) {
+                throw corrupt();
+            }
+            int offset = (src[sp] & 0xff) | ((src[sp + 1] & 0xff) << 8);
+            sp += 2;
+            int matchLength = token & RUN_MASK;
+            if (matchLength == RUN_MASK) {
+                int b;
+                do {
+                    if (sp >= srcEnd) {
+                        throw corrupt();
+                    }
+                    b = src[sp++] & 0xff;
+                    matchLength += b;
+                } while (b == 0xff);
+            }
+            matchLength += MIN_MATCH;
+            int ref = dp - offset;
+            if (offset == 0 || ref < dstOffset || matchLength > dstEnd - dp) {
+                throw corrupt();
+            }
+            if (offset >= matchLength) {
+                System.arraycopy(dst, ref, dst, dp, matchLength);
+                dp += matchLength;
+            } else {
+                // The match overlaps the bytes it produces, e.g. a run of a repeated byte.
+                int matchEnd = dp + matchLength;
+                while (dp < matchEnd) {
+                    dst[dp++] = dst[ref++];
+                }
+            }
+        }
+        if (dp != dstEnd) {
+            throw corrupt();
+        }
+    }
+
+    private static int writeSequence(byte[] src, int literalStart, int literalLength, byte[] dst, int dp, int offset,
+            int matchLength) {
+        int tokenPos = dp++;
+        int token;
+        if (literalLength >= RUN_MASK) {
+            token = RUN_MASK << 4;
+            dp = writeLength(dst, dp, literalLength - RUN_MASK);
+        } else {
+            token = literalLength << 4;
+        }
+        System.arraycopy(src, literalStart, dst, dp, literalLength);
+        dp += literalLength;
+        dst[dp++] = (byte) offset;
+        dst[dp++] = (byte) (offset >>> 8);
+        int extraMatchLength = matchLength - MIN_MATCH;
+        if (extraMatchLength >= RUN_MASK) {
+            token |= RUN_MASK;
+            dp = writeLength(dst, dp, extraMatchLength - RUN_MASK);
+        } else {
+            token |= extraMatchLength;
+        }
+        dst[tokenPos] = (byte) token;
+        return dp;
+    }
+
+    private static int writeLastLiterals(byte[] src, int literalStart, int literalLength, byte[] dst, int dp) {
+        if (literalLength >= RUN_MASK) {
+            dst[dp++] = (byte) (RUN_MASK << 4);
+            dp = writeLength(dst, dp, literalLength - RUN_MASK);
+        } else {
+            dst[dp++] = (byte) (literalLength << 4);
+        }
+        System.arraycopy(src, literalStart, dst, dp, literalLength);
+        return dp + literalLength;
+    }
+
+    private static int writeLength(byte[] dst, int dp, int length) {
+        while (length >= 0xff) {
+            dst[dp++] = (byte) 0xff;
+            length -= 0xff;
+        }
+        dst[dp++] = (byte) length;
+        return dp;
+    }
+
+    private static int readInt(byte[] b, int offset) {
+        return (b[offset] & 0xff) | ((b[offset + 1] & 0xff) << 8) | ((b[offset + 2] & 0xff) << 16)
+                | ((b[offset + 3] & 0xff) << 24);
+    }
+
+    private static int hash(int sequence) {
+        return (sequence * -1640531535) >>> (32 - HASH_LOG);
+    }
+
+    private static HyracksDataException corrupt() {
+        return new HyracksDataException("Corrupt LZ4 compressed page");
+    }
+}
@@ -18,14 +18,19 @@
  */
 package org.apache.hyracks.storage.common.file;
 
+import java.nio.ByteBuffer;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.hyracks.api.io.IFileHandle;
+import org.apache.hyracks.storage.common.compression.CompressedPageFile;
 
 public class BufferedFileHandle {
     private final int fileId;
-    private IFileHandle handle;
+    private volatile IFileHandle handle;
     private final AtomicInteger refCount;
+    private volatile CompressedPageFile compressedFile;
+    private IFileHandle replacedHandle;
+    private volatile ByteBuffer[] mappedSegments;
 
     public BufferedFileHandle(int fileId, IFileHandle handle) {
         this.fileId = fileId;
@@ -49,6 +54,44 @@ public class BufferedFileHandle {
         return handle == null;
     }
 
+    /**
+     * @return the layout of the file if its pages are compressed, or null if they are stored as they are
+     */
+    public CompressedPageFile getCompressedFile() {
+        return compressedFile;
+    }
+
+    /**
+     * Switches to a compressed file, which replaces the handle of the file. The layout is published before the
+     * handle, so a reader that reads the handle first and then finds no layout still holds the raw handle. The raw
+     * handle is kept open for such readers until the file is closed.
+     */
+    public void setCompressedFile(CompressedPageFile compressedFile) {
+        if (handle != compressedFile.getFileHandle()) {
+            replacedHandle = handle;
+        }
+        this.compressedFile = compressedFile;
+        handle = compressedFile.getFileHandle();
+    }
+
+    /**
+     * @return the raw handle that was replaced by the handle of the compressed file, or null
+     */
+    public IFileHandle getReplacedFileHandle() {
+        return replacedHandle;
+    }
+
+    /**
+     * @return the read-only mapping of the file, or null if the file is not mapped
+     */
+    public ByteBuffer[] getMappedSegments() {
+        return mappedSegments;
+    }
+
+    public void setMappedSegments(ByteBuffer[] mappedSegments) {
+        this.mappedSegments = mappedSegments;
+    }
+
     public int incReferenceCount() {
         return refCount.incrementAndGet();
     }
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.hyracks.storage.am.btree;
+
+import org.apache.hyracks.api.dataflow.value.ISerializerDeserializer;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.dataflow.common.data.marshalling.IntegerSerializerDeserializer;
+import org.apache.hyracks.dataflow.common.data.marshalling.UTF8StringSerializerDeserializer;
+import org.apache.hyracks.storage.am.btree.frames.BTreeLeafFrameType;
+
+/**
+ * Tests batched point searches with strings and integer fields using various numbers of key and payload fields.
+ * Each test inserts randomly generated tuples in several rounds, deactivating and re-activating the index after each
+ * round so that LSM indexes spread the tuples over several disk components. We then look up all expected keys in
+ * batches and compare the results against the expected tuples.
+ */
+@SuppressWarnings("rawtypes")
+public abstract class OrderedIndexBatchSearchTest extends OrderedIndexTestDriver {
+
+    private static final int NUM_INSERT_ROUNDS = 3;
+    private static final int BATCH_SIZE = 100;
+
+    private final OrderedIndexTestUtils orderedIndexTestUtils;
+
+    public OrderedIndexBatchSearchTest(BTreeLeafFrameType[] leafFrameTypesToTest) {
+        super(leafFrameTypesToTest);
+        this.orderedIndexTestUtils = new OrderedIndexTestUtils();
+    }
+
+    @Override
+    protected void runTest(ISerializerDeserializer[] fieldSerdes, int numKeys, BTreeLeafFrameType leafType,
+            ITupleReference lowKey, ITupleReference highKey, ITupleReference prefixLowKey, ITupleReference prefixHighKey)
+            throws Exception {
+        OrderedIndexTestContext ctx = createTestContext(fieldSerdes, numKeys, leafType);
+        ctx.getIndex().create();
+        ctx.getIndex().activate();
+        for (int i = 0; i < NUM_INSERT_ROUNDS; i++) {
+            // We assume all fieldSerdes are of the same type. Check the first one
+            // to determine which field types to generate.
+            if (fieldSerdes[0] instanceof IntegerSerializerDeserializer) {
+                orderedIndexTestUtils.insertIntTuples(ctx, numTuplesToInsert / NUM_INSERT_ROUNDS, getRandom());
+            } else if (fieldSerdes[0] instanceof UTF8StringSerializerDeserializer) {
+                orderedIndexTestUtils.insertStringTuples(ctx, numTuplesToInsert / NUM_INSERT_ROUNDS, getRandom());
+            }
+            ctx.getIndex().deactivate();
+            ctx.getIndex().activate();
+        }
+
+        orderedIndexTestUtils.checkBatchPointSearches(ctx, BATCH_SIZE, getRandom());
+        orderedIndexTestUtils.checkPointSearches(ctx);
+
+        ctx.getIndex().deactivate();
+        ctx.getIndex().destroy();
+    }
+
+    @Override
+    protected String getTestOpName() {
+        return "Batch Search";
+    }
+}
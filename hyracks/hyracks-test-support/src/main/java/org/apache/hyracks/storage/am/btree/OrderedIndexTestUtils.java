@@ -23,8 +23,11 @@ import static org.junit.Assert.fail;
 import java.io.ByteArrayInputStream;
 import java.io.DataInput;
 import java.io.DataInputStream;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Random;
 import java.util.SortedSet;
 import java.util.TreeSet;
@@ -39,6 +42,8 @@ import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
 import org.apache.hyracks.dataflow.common.data.marshalling.IntegerSerializerDeserializer;
 import org.apache.hyracks.dataflow.common.data.marshalling.UTF8StringSerializerDeserializer;
 import org.apache.hyracks.dataflow.common.util.TupleUtils;
+import org.apache.hyracks.storage.am.btree.api.IBatchSearchAccessor;
+import org.apache.hyracks.storage.am.btree.api.IBatchSearchHandler;
 import org.apache.hyracks.storage.am.btree.impls.RangePredicate;
 import org.apache.hyracks.storage.am.btree.util.BTreeUtils;
 import org.apache.hyracks.storage.am.common.CheckTuple;
@@ -185,6 +190,78 @@ public class OrderedIndexTestUtils extends TreeIndexTestUtils {
     }
 
     @SuppressWarnings("unchecked")
+    /**
+     * Looks up all expected keys in shuffled batches, each with a repeated key, and checks that every key of a batch
+     * is searched exactly once, in ascending key order, and finds its tuple.
+     */
+    public void checkBatchPointSearches(IIndexTestContext ictx, int batchSize, Random rnd) throws Exception {
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info("Testing Batched Point Searches On All Expected Keys.");
+        }
+        final OrderedIndexTestContext ctx = (OrderedIndexTestContext) ictx;
+        IBatchSearchAccessor accessor = (IBatchSearchAccessor) ctx.getIndexAccessor();
+        final IIndexCursor searchCursor = accessor.createSearchCursor(false);
+        final MultiComparator keyCmp = MultiComparator.create(ctx.getComparatorFactories());
+        final RangePredicate rangePred = new RangePredicate(null, null, true, true, keyCmp, keyCmp);
+
+        List<CheckTuple> checkTuples = new ArrayList<CheckTuple>(ctx.getCheckTuples());
+        Collections.shuffle(checkTuples, rnd);
+        final ArrayTupleReference[] keys = new ArrayTupleReference[batchSize];
+        ArrayTupleBuilder[] keyBuilders = new ArrayTupleBuilder[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            keys[i] = new ArrayTupleReference();
+            keyBuilders[i] = new ArrayTupleBuilder(ctx.getKeyFieldCount());
+        }
+        final CheckTuple[] expected = new CheckTuple[batchSize];
+        final boolean[] searched = new boolean[batchSize];
+        for (int start = 0; start < checkTuples.size(); start += batchSize - 1) {
+            final int keyCount = Math.min(batchSize, checkTuples.size() - start + 1);
+            for (int i = 0; i < keyCount; i++) {
+                // The last key of each batch repeats the first one.
+                expected[i] = checkTuples.get(i < keyCount - 1 ? start + i : start);
+                createTupleFromCheckTuple(expected[i], keyBuilders[i], keys[i], ctx.getFieldSerdes());
+                searched[i] = false;
+            }
+            accessor.searchBatch(searchCursor, rangePred, keys, keyCount, new IBatchSearchHandler() {
+                private int lastKeyIndex = -1;
+
+                @Override
+                public void prepareSearch(int keyIndex) throws HyracksDataException {
+                    if (searched[keyIndex]) {
+                        fail("Batched point search searched a key twice.");
+                    }
+                    if (lastKeyIndex >= 0 && keyCmp.compare(keys[lastKeyIndex], keys[keyIndex]) > 0) {
+                        fail("Batched point search did not search the keys in ascending order.");
+                    }
+                    searched[keyIndex] = true;
+                    lastKeyIndex = keyIndex;
+                    rangePred.setLowKey(keys[keyIndex], true);
+                    rangePred.setHighKey(keys[keyIndex], true);
+                }
+
+                @Override
+                public void writeResults(int keyIndex, IIndexCursor cursor) throws HyracksDataException,
+                        IndexException {
+                    // We expect exactly one answer.
+                    if (!cursor.hasNext()) {
+                        fail("Batched point search did not find an expected key.");
+                    }
+                    cursor.next();
+                    compareActualAndExpected(cursor.getTuple(), expected[keyIndex], ctx.getFieldSerdes());
+                    if (cursor.hasNext()) {
+                        fail("Batched point search returned more than one answer.");
+                    }
+                }
+            });
+            for (int i = 0; i < keyCount; i++) {
+                if (!searched[i]) {
+                    fail("Batched point search skipped a key.");
+                }
+            }
+        }
+        searchCursor.close();
+    }
+
     public void insertSortedIntTuples(IIndexTestContext ctx, int numTuples, Random rnd) throws Exception {
         int fieldCount = ctx.getFieldCount();
         int numKeyFields = ctx.getKeyFieldCount();
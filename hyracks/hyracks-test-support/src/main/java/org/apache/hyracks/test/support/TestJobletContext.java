@@ -39,6 +39,10 @@ public class TestJobletContext implements IHyracksJobletContext {
     private final FrameManager frameManger;
     private JobId jobId;
     private WorkspaceFileFactory fileFactory;
+    private final CounterContext counterContext;
+    private boolean runFileCompression;
+    private boolean runFileChecksums;
+    private int runFileAsyncIOFrames;
 
     public TestJobletContext(int frameSize, INCApplicationContext appContext, JobId jobId) throws HyracksException {
         this.frameSize = frameSize;
@@ -46,6 +50,7 @@ public class TestJobletContext implements IHyracksJobletContext {
         this.jobId = jobId;
         fileFactory = new WorkspaceFileFactory(this, (IOManager) getIOManager());
         this.frameManger = new FrameManager(frameSize);
+        this.counterContext = new CounterContext(jobId.toString());
     }
 
     ByteBuffer allocateFrame() throws HyracksDataException {
@@ -84,7 +89,7 @@ public class TestJobletContext implements IHyracksJobletContext {
 
     @Override
     public ICounterContext getCounterContext() {
-        return new CounterContext(jobId.toString());
+        return counterContext;
     }
 
     @Override
@@ -126,4 +131,31 @@ public class TestJobletContext implements IHyracksJobletContext {
         return this.getClass().getClassLoader();
     }
 
+    @Override
+    public boolean isRunFileCompression() {
+        return runFileCompression;
+    }
+
+    public void setRunFileCompression(boolean runFileCompression) {
+        this.runFileCompression = runFileCompression;
+    }
+
+    @Override
+    public boolean isRunFileChecksums() {
+        return runFileChecksums;
+    }
+
+    public void setRunFileChecksums(boolean runFileChecksums) {
+        this.runFileChecksums = runFileChecksums;
+    }
+
+    @Override
+    public int getRunFileAsyncIOFrames() {
+        return runFileAsyncIOFrames;
+    }
+
+    public void setRunFileAsyncIOFrames(int runFileAsyncIOFrames) {
+        this.runFileAsyncIOFrames = runFileAsyncIOFrames;
+    }
+
 }
\ No newline at end of file
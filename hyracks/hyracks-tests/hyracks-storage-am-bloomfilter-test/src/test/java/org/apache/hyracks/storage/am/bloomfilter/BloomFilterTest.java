@@ -22,6 +22,7 @@ package org.apache.hyracks.storage.am.bloomfilter;
 import java.util.ArrayList;
 import java.util.Random;
 import java.util.TreeSet;
+import java.util.concurrent.ThreadFactory;
 import java.util.logging.Level;
 
 import org.junit.Assert;
@@ -40,7 +41,15 @@ import org.apache.hyracks.storage.am.bloomfilter.impls.BloomFilter;
 import org.apache.hyracks.storage.am.bloomfilter.impls.BloomFilterSpecification;
 import org.apache.hyracks.storage.am.bloomfilter.util.AbstractBloomFilterTest;
 import org.apache.hyracks.storage.am.common.api.IIndexBulkLoader;
+import org.apache.hyracks.storage.common.buffercache.CacheMemoryBudget;
+import org.apache.hyracks.storage.common.buffercache.ClockPageReplacementStrategy;
+import org.apache.hyracks.storage.common.buffercache.DebugBufferCache;
+import org.apache.hyracks.storage.common.buffercache.DelayPageCleanerPolicy;
+import org.apache.hyracks.storage.common.buffercache.HeapBufferAllocator;
 import org.apache.hyracks.storage.common.buffercache.IBufferCache;
+import org.apache.hyracks.storage.common.buffercache.IPageReplacementStrategy;
+import org.apache.hyracks.storage.common.buffercache.MultiPageSizeBufferCache;
+import org.apache.hyracks.storage.common.file.TransientFileMapManager;
 
 @SuppressWarnings("rawtypes")
 public class BloomFilterTest extends AbstractBloomFilterTest {
@@ -168,4 +177,144 @@ public class BloomFilterTest extends AbstractBloomFilterTest {
         bf.deactivate();
         bf.destroy();
     }
+
+    @Test
+    public void blockedTest() throws Exception {
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info("TESTING BLOCKED BLOOM FILTER");
+        }
+
+        DebugBufferCache bufferCache = new DebugBufferCache(harness.getBufferCache());
+
+        int numElements = 10000;
+        int[] keyFields = { 0 };
+
+        BloomFilter bf = new BloomFilter(bufferCache, harness.getFileMapProvider(), harness.getFileReference(),
+                keyFields, true);
+
+        double acceptanleFalsePositiveRate = 0.01;
+        int maxBucketsPerElement = BloomCalculations.maxBucketsPerElement(numElements);
+        BloomFilterSpecification bloomFilterSpec = BloomCalculations.computeBloomSpec(maxBucketsPerElement,
+                acceptanleFalsePositiveRate);
+
+        bf.create();
+        bf.activate();
+        IIndexBulkLoader builder = bf.createBuilder(numElements, bloomFilterSpec.getNumHashes(),
+                bloomFilterSpec.getNumBucketsPerElements());
+        Assert.assertTrue(bf.isBlocked());
+
+        ArrayTupleBuilder tupleBuilder = new ArrayTupleBuilder(1);
+        ArrayTupleReference tuple = new ArrayTupleReference();
+        // Even keys are inserted, odd keys are not.
+        for (int i = 0; i < numElements; ++i) {
+            TupleUtils.createIntegerTuple(tupleBuilder, tuple, 2 * i);
+            builder.add(tuple);
+        }
+        builder.end();
+
+        long[] hashes = new long[2];
+        long pinCount = bufferCache.getPinCount();
+        for (int i = 0; i < numElements; ++i) {
+            TupleUtils.createIntegerTuple(tupleBuilder, tuple, 2 * i);
+            Assert.assertTrue(bf.contains(tuple, hashes));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < numElements; ++i) {
+            TupleUtils.createIntegerTuple(tupleBuilder, tuple, 2 * i + 1);
+            if (bf.contains(tuple, hashes)) {
+                falsePositives++;
+            }
+        }
+        // Every lookup pins one page.
+        Assert.assertEquals(2 * numElements, bufferCache.getPinCount() - pinCount);
+        Assert.assertTrue("false positives: " + falsePositives, falsePositives < 3 * acceptanleFalsePositiveRate
+                * numElements);
+
+        // The layout is kept in the metadata, so a filter opened without asking for it is still blocked.
+        bf.deactivate();
+        BloomFilter reopened = new BloomFilter(bufferCache, harness.getFileMapProvider(), harness.getFileReference(),
+                keyFields);
+        reopened.activate();
+        Assert.assertTrue(reopened.isBlocked());
+        TupleUtils.createIntegerTuple(tupleBuilder, tuple, 0);
+        Assert.assertTrue(reopened.contains(tuple, hashes));
+        reopened.deactivate();
+        reopened.destroy();
+    }
+
+    @Test
+    public void largePageSizeTest() throws Exception {
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info("TESTING BLOOM FILTER WITH ITS OWN PAGE SIZE");
+        }
+
+        int smallPageSize = harness.getPageSize();
+        int largePageSize = 8 * smallPageSize;
+        TransientFileMapManager fmm = new TransientFileMapManager();
+        CacheMemoryBudget budget = new CacheMemoryBudget((long) harness.getNumPages() * smallPageSize);
+        HeapBufferAllocator allocator = new HeapBufferAllocator();
+        IPageReplacementStrategy[] strategies = new IPageReplacementStrategy[] {
+                new ClockPageReplacementStrategy(allocator, smallPageSize, budget, 1),
+                new ClockPageReplacementStrategy(allocator, largePageSize, budget, 1) };
+        MultiPageSizeBufferCache bufferCache = new MultiPageSizeBufferCache(harness.getHyracksTaskContext()
+                .getIOManager(), strategies, new DelayPageCleanerPolicy(1000), fmm, harness.getMaxOpenFiles(),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        return new Thread(r);
+                    }
+                });
+
+        int numElements = 10000;
+        int[] keyFields = { 0 };
+        BloomFilter bf = new BloomFilter(bufferCache, fmm, harness.getFileReference(), keyFields, false,
+                largePageSize);
+        double acceptanleFalsePositiveRate = 0.1;
+        int maxBucketsPerElement = BloomCalculations.maxBucketsPerElement(numElements);
+        BloomFilterSpecification bloomFilterSpec = BloomCalculations.computeBloomSpec(maxBucketsPerElement,
+                acceptanleFalsePositiveRate);
+
+        bf.create();
+        bf.activate();
+        Assert.assertEquals(largePageSize, bufferCache.getPageSize(bf.getFileId()));
+        IIndexBulkLoader builder = bf.createBuilder(numElements, bloomFilterSpec.getNumHashes(),
+                bloomFilterSpec.getNumBucketsPerElements());
+        ArrayTupleBuilder tupleBuilder = new ArrayTupleBuilder(1);
+        ArrayTupleReference tuple = new ArrayTupleReference();
+        for (int i = 0; i < numElements; ++i) {
+            TupleUtils.createIntegerTuple(tupleBuilder, tuple, i);
+            builder.add(tuple);
+        }
+        builder.end();
+        long numBits = (long) numElements * bloomFilterSpec.getNumBucketsPerElements();
+        Assert.assertEquals((int) Math.ceil(numBits / (largePageSize * 8.0)), bf.getNumPages());
+        bf.deactivate();
+
+        // the filter declares its page size again when it is reopened through a new cache
+        bufferCache.close();
+        fmm = new TransientFileMapManager();
+        budget = new CacheMemoryBudget((long) harness.getNumPages() * smallPageSize);
+        strategies = new IPageReplacementStrategy[] {
+                new ClockPageReplacementStrategy(allocator, smallPageSize, budget, 1),
+                new ClockPageReplacementStrategy(allocator, largePageSize, budget, 1) };
+        bufferCache = new MultiPageSizeBufferCache(harness.getHyracksTaskContext().getIOManager(), strategies,
+                new DelayPageCleanerPolicy(1000), fmm, harness.getMaxOpenFiles(), new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        return new Thread(r);
+                    }
+                });
+        BloomFilter reopened = new BloomFilter(bufferCache, fmm, harness.getFileReference(), keyFields, false,
+                largePageSize);
+        reopened.activate();
+        Assert.assertEquals(largePageSize, bufferCache.getPageSize(reopened.getFileId()));
+        long[] hashes = new long[2];
+        for (int i = 0; i < numElements; ++i) {
+            TupleUtils.createIntegerTuple(tupleBuilder, tuple, i);
+            Assert.assertTrue(reopened.contains(tuple, hashes));
+        }
+        reopened.deactivate();
+        reopened.destroy();
+        bufferCache.close();
+    }
 }
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.bloomfilter.perf;
+
+import org.apache.hyracks.dataflow.common.comm.io.ArrayTupleBuilder;
+import org.apache.hyracks.dataflow.common.comm.io.ArrayTupleReference;
+import org.apache.hyracks.dataflow.common.util.TupleUtils;
+import org.apache.hyracks.storage.am.bloomfilter.impls.BloomCalculations;
+import org.apache.hyracks.storage.am.bloomfilter.impls.BloomFilter;
+import org.apache.hyracks.storage.am.bloomfilter.impls.BloomFilterSpecification;
+import org.apache.hyracks.storage.am.bloomfilter.util.BloomFilterTestHarness;
+import org.apache.hyracks.storage.am.common.api.IIndexBulkLoader;
+import org.apache.hyracks.storage.common.buffercache.DebugBufferCache;
+
+/**
+ * Compares the classic and the blocked bloom filter layouts: build time, lookup time and pins for keys that are not
+ * in the filter (the common case for the bloom filter aware point searches of LSM indexes), and the false positive
+ * rate. The filters fit in the buffer cache, so the times are CPU and page pinning costs.
+ */
+public class BloomFilterPerf {
+    private static final int NUM_ELEMENTS = 1000000;
+    private static final int NUM_LOOKUPS = 2000000;
+    private static final int REPEATS = 5;
+
+    public static void main(String[] args) throws Exception {
+        for (double falsePositiveRate : new double[] { 0.01, 0.001 }) {
+            runExperiment(false, falsePositiveRate);
+            runExperiment(true, falsePositiveRate);
+        }
+    }
+
+    private static void runExperiment(boolean blocked, double falsePositiveRate) throws Exception {
+        System.out.println("LAYOUT: " + (blocked ? "blocked" : "classic"));
+        System.out.println("TARGET FALSE POSITIVE RATE: " + falsePositiveRate);
+        BloomFilterSpecification spec = BloomCalculations.computeBloomSpec(
+                BloomCalculations.maxBucketsPerElement(NUM_ELEMENTS), falsePositiveRate);
+        ArrayTupleBuilder tupleBuilder = new ArrayTupleBuilder(1);
+        ArrayTupleReference tuple = new ArrayTupleReference();
+        long[] hashes = new long[2];
+        long buildTime = 0;
+        long lookupTime = 0;
+        for (int r = 0; r < REPEATS; r++) {
+            BloomFilterTestHarness harness = new BloomFilterTestHarness(32768, 1024, 10, 32768);
+            harness.setUp();
+            DebugBufferCache bufferCache = new DebugBufferCache(harness.getBufferCache());
+            BloomFilter bf = new BloomFilter(bufferCache, harness.getFileMapProvider(), harness.getFileReference(),
+                    new int[] { 0 }, blocked);
+            bf.create();
+            bf.activate();
+
+            long start = System.currentTimeMillis();
+            IIndexBulkLoader builder = bf.createBuilder(NUM_ELEMENTS, spec.getNumHashes(),
+                    spec.getNumBucketsPerElements());
+            for (int i = 0; i < NUM_ELEMENTS; i++) {
+                TupleUtils.createIntegerTuple(tupleBuilder, tuple, 2 * i);
+                builder.add(tuple);
+            }
+            builder.end();
+            buildTime += System.currentTimeMillis() - start;
+
+            long pinCount = bufferCache.getPinCount();
+            int falsePositives = 0;
+            start = System.currentTimeMillis();
+            for (int i = 0; i < NUM_LOOKUPS; i++) {
+                TupleUtils.createIntegerTuple(tupleBuilder, tuple, 2 * i + 1);
+                if (bf.contains(tuple, hashes)) {
+                    falsePositives++;
+                }
+            }
+            lookupTime += System.currentTimeMillis() - start;
+            if (r == 0) {
+                System.out.println("PAGES: " + bf.getNumPages() + ", HASHES: " + spec.getNumHashes()
+                        + ", BITS PER ELEMENT: " + spec.getNumBucketsPerElements());
+                System.out.println("FALSE POSITIVE RATE: " + (double) falsePositives / NUM_LOOKUPS);
+                System.out.println("PINS PER LOOKUP: " + (double) (bufferCache.getPinCount() - pinCount)
+                        / NUM_LOOKUPS);
+            }
+            bf.deactivate();
+            bf.destroy();
+            harness.tearDown();
+        }
+        System.out.println("AVG BUILD TIME: " + buildTime / REPEATS + "ms");
+        System.out.println("AVG LOOKUP TIME: " + lookupTime / REPEATS + "ms ("
+                + lookupTime * 1000000L / REPEATS / NUM_LOOKUPS + "ns per lookup)");
+        System.out.println("-------------------------------");
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.btree;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import org.apache.hyracks.api.dataflow.value.ISerializerDeserializer;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.dataflow.common.data.marshalling.UTF8StringSerializerDeserializer;
+import org.apache.hyracks.dataflow.common.util.TupleUtils;
+import org.apache.hyracks.storage.am.btree.frames.BTreeLeafFrameType;
+import org.apache.hyracks.storage.am.btree.frames.BTreePrefixTruncatedInteriorFrame;
+import org.apache.hyracks.storage.am.btree.impls.BTree;
+import org.apache.hyracks.storage.am.btree.util.AbstractBTreeTest;
+import org.apache.hyracks.storage.am.btree.util.BTreeTestContext;
+import org.apache.hyracks.storage.am.common.CheckTuple;
+import org.apache.hyracks.storage.am.common.TreeIndexTestUtils;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexTupleReference;
+import org.apache.hyracks.storage.am.common.exceptions.TreeIndexDuplicateKeyException;
+import org.apache.hyracks.storage.am.common.ophelpers.MultiComparator;
+import org.apache.hyracks.storage.common.buffercache.IBufferCache;
+import org.apache.hyracks.storage.common.buffercache.ICachedPage;
+import org.apache.hyracks.storage.common.file.BufferedFileHandle;
+
+/**
+ * Tests BTrees with truncated and prefix compressed separators on string keys that share a long common prefix.
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class BTreePrefixTruncatedInteriorFrameTest extends AbstractBTreeTest {
+
+    private static final String KEY_PREFIX = "http://www.example.org/catalog/";
+    private static final int KEY_SUFFIX_LENGTH = 12;
+    private static final int NUM_TUPLES = 3000;
+
+    private final OrderedIndexTestUtils orderedIndexTestUtils = new OrderedIndexTestUtils();
+    private final Random rnd = new Random(50);
+
+    @Test
+    public void testInsertSharedPrefixKeys() throws Exception {
+        ISerializerDeserializer[] fieldSerdes = { UTF8StringSerializerDeserializer.INSTANCE,
+                UTF8StringSerializerDeserializer.INSTANCE };
+        BTreeTestContext ctx = createTestContext(fieldSerdes, 1);
+        String[] fieldValues = new String[2];
+        for (int i = 0; i < NUM_TUPLES; i++) {
+            fieldValues[0] = createKey();
+            fieldValues[1] = OrderedIndexTestUtils.getRandomString(5, rnd);
+            insert(ctx, fieldValues);
+        }
+        checkIndex(ctx, TupleUtils.createTuple(fieldSerdes, KEY_PREFIX + "4"),
+                TupleUtils.createTuple(fieldSerdes, KEY_PREFIX + "b"));
+        checkRootSeparators(ctx);
+        destroy(ctx);
+    }
+
+    @Test
+    public void testBulkLoadSharedPrefixKeys() throws Exception {
+        ISerializerDeserializer[] fieldSerdes = { UTF8StringSerializerDeserializer.INSTANCE,
+                UTF8StringSerializerDeserializer.INSTANCE };
+        BTreeTestContext ctx = createTestContext(fieldSerdes, 1);
+        TreeSet<CheckTuple> checkTuples = new TreeSet<CheckTuple>();
+        String[] fieldValues = new String[2];
+        for (int i = 0; i < NUM_TUPLES; i++) {
+            fieldValues[0] = createKey();
+            fieldValues[1] = OrderedIndexTestUtils.getRandomString(5, rnd);
+            ctx.insertCheckTuple(orderedIndexTestUtils.createStringCheckTuple(fieldValues, 1), checkTuples);
+        }
+        TreeIndexTestUtils.bulkLoadCheckTuples(ctx, checkTuples);
+        for (CheckTuple checkTuple : checkTuples) {
+            ctx.insertCheckTuple(checkTuple, ctx.getCheckTuples());
+        }
+        checkIndex(ctx, TupleUtils.createTuple(fieldSerdes, KEY_PREFIX + "4"),
+                TupleUtils.createTuple(fieldSerdes, KEY_PREFIX + "b"));
+        checkRootSeparators(ctx);
+        destroy(ctx);
+    }
+
+    @Test
+    public void testCompositeKeys() throws Exception {
+        // Few distinct values in the first key field, so separators are mostly distinguished by the second.
+        ISerializerDeserializer[] fieldSerdes = { UTF8StringSerializerDeserializer.INSTANCE,
+                UTF8StringSerializerDeserializer.INSTANCE, UTF8StringSerializerDeserializer.INSTANCE };
+        BTreeTestContext ctx = createTestContext(fieldSerdes, 2);
+        String[] fieldValues = new String[3];
+        for (int i = 0; i < NUM_TUPLES; i++) {
+            fieldValues[0] = KEY_PREFIX + (rnd.nextInt(4));
+            fieldValues[1] = createKey();
+            fieldValues[2] = OrderedIndexTestUtils.getRandomString(5, rnd);
+            insert(ctx, fieldValues);
+        }
+        ISerializerDeserializer[] keySerdes = { UTF8StringSerializerDeserializer.INSTANCE,
+                UTF8StringSerializerDeserializer.INSTANCE };
+        checkIndex(ctx, TupleUtils.createTuple(keySerdes, KEY_PREFIX + "1", KEY_PREFIX + "4"),
+                TupleUtils.createTuple(keySerdes, KEY_PREFIX + "2", KEY_PREFIX + "b"));
+        ISerializerDeserializer[] prefixSerdes = { UTF8StringSerializerDeserializer.INSTANCE };
+        orderedIndexTestUtils.checkRangeSearch(ctx, TupleUtils.createTuple(prefixSerdes, KEY_PREFIX + "1"),
+                TupleUtils.createTuple(prefixSerdes, KEY_PREFIX + "2"), true, true);
+        destroy(ctx);
+    }
+
+    private BTreeTestContext createTestContext(ISerializerDeserializer[] fieldSerdes, int numKeys) throws Exception {
+        BTreeTestContext ctx = BTreeTestContext.create(harness.getBufferCache(), harness.getFileMapProvider(),
+                harness.getFileReference(), fieldSerdes, numKeys, BTreeLeafFrameType.REGULAR_NSM,
+                BTreeTestContext.getKeyFieldPrefixers(fieldSerdes, numKeys));
+        ctx.getIndex().create();
+        ctx.getIndex().activate();
+        return ctx;
+    }
+
+    private String createKey() {
+        return KEY_PREFIX + OrderedIndexTestUtils.getRandomString(KEY_SUFFIX_LENGTH, rnd);
+    }
+
+    private void insert(BTreeTestContext ctx, String[] fieldValues) throws Exception {
+        TupleUtils.createTuple(ctx.getTupleBuilder(), ctx.getTuple(), ctx.getFieldSerdes(), (Object[]) fieldValues);
+        try {
+            ctx.getIndexAccessor().insert(ctx.getTuple());
+            ctx.insertCheckTuple(orderedIndexTestUtils.createStringCheckTuple(fieldValues, ctx.getKeyFieldCount()),
+                    ctx.getCheckTuples());
+        } catch (TreeIndexDuplicateKeyException e) {
+            // Ignore duplicate key insertions.
+        }
+    }
+
+    private void checkIndex(BTreeTestContext ctx, ITupleReference lowKey, ITupleReference highKey) throws Exception {
+        orderedIndexTestUtils.checkPointSearches(ctx);
+        orderedIndexTestUtils.checkScan(ctx);
+        orderedIndexTestUtils.checkDiskOrderScan(ctx);
+        orderedIndexTestUtils.checkRangeSearch(ctx, lowKey, highKey, true, true);
+        orderedIndexTestUtils.checkRangeSearch(ctx, lowKey, highKey, false, false);
+        ctx.getIndex().validate();
+    }
+
+    /**
+     * The root separators must be shorter than the keys, and must share the page prefix.
+     */
+    private void checkRootSeparators(BTreeTestContext ctx) throws Exception {
+        BTree btree = (BTree) ctx.getIndex();
+        IBufferCache bufferCache = btree.getBufferCache();
+        ICachedPage page = bufferCache.pin(BufferedFileHandle.getDiskPageId(btree.getFileId(), btree.getRootPageId()),
+                false);
+        page.acquireReadLatch();
+        try {
+            BTreePrefixTruncatedInteriorFrame frame = (BTreePrefixTruncatedInteriorFrame) btree
+                    .getInteriorFrameFactory().createFrame();
+            frame.setPage(page);
+            frame.setMultiComparator(MultiComparator.create(btree.getComparatorFactories()));
+            assertTrue(frame.isInterior());
+            assertTrue(frame.getTupleCount() > 0);
+            assertTrue(frame.getPrefixLength() > 0);
+            ITreeIndexTupleReference separator = frame.createTupleReference();
+            int keyLength = 2 + KEY_PREFIX.length() + KEY_SUFFIX_LENGTH;
+            int totalSeparatorLength = 0;
+            for (int i = 0; i < frame.getTupleCount(); i++) {
+                separator.resetByTupleIndex(frame, i);
+                totalSeparatorLength += separator.getFieldLength(0);
+                assertTrue(separator.getTupleSize() < separator.getFieldLength(0));
+            }
+            assertTrue(totalSeparatorLength < frame.getTupleCount() * keyLength);
+        } finally {
+            page.releaseReadLatch();
+            bufferCache.unpin(page);
+        }
+    }
+
+    private void destroy(BTreeTestContext ctx) throws Exception {
+        ctx.getIndex().deactivate();
+        ctx.getIndex().destroy();
+    }
+}
@@ -24,8 +24,11 @@ import org.apache.hyracks.api.dataflow.value.ISerializerDeserializer;
 import org.apache.hyracks.api.dataflow.value.ITypeTraits;
 import org.apache.hyracks.api.exceptions.HyracksDataException;
 import org.apache.hyracks.api.io.FileReference;
+import org.apache.hyracks.dataflow.common.data.marshalling.UTF8StringSerializerDeserializer;
 import org.apache.hyracks.dataflow.common.util.SerdeUtils;
 import org.apache.hyracks.storage.am.btree.OrderedIndexTestContext;
+import org.apache.hyracks.storage.am.btree.api.IKeyFieldPrefixer;
+import org.apache.hyracks.storage.am.btree.compressors.UTF8StringKeyFieldPrefixer;
 import org.apache.hyracks.storage.am.btree.frames.BTreeLeafFrameType;
 import org.apache.hyracks.storage.am.btree.impls.BTree;
 import org.apache.hyracks.storage.am.common.api.ITreeIndex;
@@ -54,10 +57,28 @@ public class BTreeTestContext extends OrderedIndexTestContext {
     public static BTreeTestContext create(IBufferCache bufferCache, IFileMapProvider fileMapProvider,
             FileReference file, ISerializerDeserializer[] fieldSerdes, int numKeyFields, BTreeLeafFrameType leafType)
             throws Exception {
+        return create(bufferCache, fileMapProvider, file, fieldSerdes, numKeyFields, leafType, null);
+    }
+
+    public static BTreeTestContext create(IBufferCache bufferCache, IFileMapProvider fileMapProvider,
+            FileReference file, ISerializerDeserializer[] fieldSerdes, int numKeyFields, BTreeLeafFrameType leafType,
+            IKeyFieldPrefixer[] keyFieldPrefixers) throws Exception {
         ITypeTraits[] typeTraits = SerdeUtils.serdesToTypeTraits(fieldSerdes);
         IBinaryComparatorFactory[] cmpFactories = SerdeUtils.serdesToComparatorFactories(fieldSerdes, numKeyFields);
-        BTree btree = BTreeUtils.createBTree(bufferCache, fileMapProvider, typeTraits, cmpFactories, leafType, file);
+        BTree btree = BTreeUtils.createBTree(bufferCache, fileMapProvider, typeTraits, cmpFactories, leafType,
+                keyFieldPrefixers, file);
         BTreeTestContext testCtx = new BTreeTestContext(fieldSerdes, btree);
         return testCtx;
     }
+
+    // Shortens every string key field.
+    public static IKeyFieldPrefixer[] getKeyFieldPrefixers(ISerializerDeserializer[] fieldSerdes, int numKeyFields) {
+        IKeyFieldPrefixer[] keyFieldPrefixers = new IKeyFieldPrefixer[numKeyFields];
+        for (int i = 0; i < numKeyFields; i++) {
+            if (fieldSerdes[i] instanceof UTF8StringSerializerDeserializer) {
+                keyFieldPrefixers[i] = UTF8StringKeyFieldPrefixer.INSTANCE;
+            }
+        }
+        return keyFieldPrefixers;
+    }
 }
@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.btree;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.hyracks.api.dataflow.value.IBinaryComparatorFactory;
+import org.apache.hyracks.api.dataflow.value.ITypeTraits;
+import org.apache.hyracks.api.io.FileReference;
+import org.apache.hyracks.data.std.accessors.PointableBinaryComparatorFactory;
+import org.apache.hyracks.data.std.primitive.IntegerPointable;
+import org.apache.hyracks.dataflow.common.comm.io.ArrayTupleBuilder;
+import org.apache.hyracks.dataflow.common.comm.io.ArrayTupleReference;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.dataflow.common.util.TupleUtils;
+import org.apache.hyracks.storage.am.btree.api.IConditionalUpsertAccessor;
+import org.apache.hyracks.storage.am.btree.frames.BTreeNSMLeafFrameFactory;
+import org.apache.hyracks.storage.am.btree.impls.RangePredicate;
+import org.apache.hyracks.storage.am.common.api.IIndexCursor;
+import org.apache.hyracks.storage.am.common.exceptions.TreeIndexDuplicateKeyException;
+import org.apache.hyracks.storage.am.common.exceptions.TreeIndexNonExistentKeyException;
+import org.apache.hyracks.storage.am.common.impls.NoOpOperationCallback;
+import org.apache.hyracks.storage.am.common.ophelpers.MultiComparator;
+import org.apache.hyracks.storage.am.lsm.btree.impls.AntimatterAwareTupleAcceptor;
+import org.apache.hyracks.storage.am.lsm.btree.impls.ConcurrentSkipList;
+import org.apache.hyracks.storage.am.lsm.btree.impls.ConcurrentSkipList.ConcurrentSkipListAccessor;
+import org.apache.hyracks.storage.am.lsm.btree.tuples.LSMBTreeTupleReference;
+import org.apache.hyracks.storage.am.lsm.btree.tuples.LSMBTreeTupleWriterFactory;
+import org.apache.hyracks.storage.am.lsm.common.api.IVirtualBufferCache;
+import org.apache.hyracks.storage.am.lsm.common.impls.VirtualBufferCache;
+import org.apache.hyracks.storage.common.buffercache.HeapBufferAllocator;
+
+public class ConcurrentSkipListTest {
+    private static final int PAGE_SIZE = 4096;
+    private static final int NUM_PAGES = 512;
+    private static final int NUM_THREADS = 4;
+    private static final int KEYS_PER_THREAD = 5000;
+
+    private final ITypeTraits[] typeTraits = new ITypeTraits[] { IntegerPointable.TYPE_TRAITS,
+            IntegerPointable.TYPE_TRAITS };
+    private final IBinaryComparatorFactory[] cmpFactories = new IBinaryComparatorFactory[] { PointableBinaryComparatorFactory
+            .of(IntegerPointable.FACTORY) };
+    private IVirtualBufferCache virtualBufferCache;
+    private ConcurrentSkipList skipList;
+
+    @Before
+    public void setUp() throws Exception {
+        virtualBufferCache = new VirtualBufferCache(new HeapBufferAllocator(), PAGE_SIZE, NUM_PAGES);
+        virtualBufferCache.open();
+        skipList = new ConcurrentSkipList(virtualBufferCache, virtualBufferCache.getFileMapProvider(),
+                new BTreeNSMLeafFrameFactory(new LSMBTreeTupleWriterFactory(typeTraits, 1, false)), cmpFactories,
+                typeTraits.length, new FileReference(new File(System.getProperty("java.io.tmpdir"), "skiplist")));
+        skipList.create();
+        skipList.activate();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        skipList.deactivate();
+        skipList.destroy();
+        virtualBufferCache.close();
+    }
+
+    private IConditionalUpsertAccessor createAccessor() {
+        return skipList.createAccessor(NoOpOperationCallback.INSTANCE, NoOpOperationCallback.INSTANCE);
+    }
+
+    private List<int[]> scan(IConditionalUpsertAccessor accessor, ITupleReference lowKey, ITupleReference highKey)
+            throws Exception {
+        MultiComparator cmp = MultiComparator.create(cmpFactories);
+        List<int[]> results = new ArrayList<int[]>();
+        IIndexCursor cursor = accessor.createSearchCursor(false);
+        accessor.search(cursor, new RangePredicate(lowKey, highKey, true, true, cmp, cmp));
+        try {
+            while (cursor.hasNext()) {
+                cursor.next();
+                ITupleReference tuple = cursor.getTuple();
+                int key = IntegerPointable.getInteger(tuple.getFieldData(0), tuple.getFieldStart(0));
+                int value = ((LSMBTreeTupleReference) tuple).isAntimatter() ? -1 : IntegerPointable.getInteger(
+                        tuple.getFieldData(1), tuple.getFieldStart(1));
+                results.add(new int[] { key, value });
+            }
+        } finally {
+            cursor.close();
+        }
+        return results;
+    }
+
+    @Test
+    public void concurrentInsertTest() throws Exception {
+        final int[] keys = new int[NUM_THREADS * KEYS_PER_THREAD];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i;
+        }
+        Random rnd = new Random(50);
+        for (int i = keys.length - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1);
+            int tmp = keys[i];
+            keys[i] = keys[j];
+            keys[j] = tmp;
+        }
+        final List<Throwable> failures = new ArrayList<Throwable>();
+        Thread[] threads = new Thread[NUM_THREADS];
+        for (int t = 0; t < NUM_THREADS; t++) {
+            final int first = t * KEYS_PER_THREAD;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        IConditionalUpsertAccessor accessor = createAccessor();
+                        ArrayTupleBuilder tb = new ArrayTupleBuilder(2);
+                        ArrayTupleReference tuple = new ArrayTupleReference();
+                        for (int i = first; i < first + KEYS_PER_THREAD; i++) {
+                            TupleUtils.createIntegerTuple(tb, tuple, keys[i], keys[i] * 2);
+                            accessor.insert(tuple);
+                        }
+                    } catch (Throwable th) {
+                        synchronized (failures) {
+                            failures.add(th);
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertTrue(failures.toString(), failures.isEmpty());
+        Assert.assertEquals(keys.length, skipList.getTupleCount());
+        skipList.validate();
+
+        List<int[]> results = scan(createAccessor(), null, null);
+        Assert.assertEquals(keys.length, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            Assert.assertEquals(i, results.get(i)[0]);
+            Assert.assertEquals(2 * i, results.get(i)[1]);
+        }
+        results = scan(createAccessor(), TupleUtils.createIntegerTuple(100), TupleUtils.createIntegerTuple(199));
+        Assert.assertEquals(100, results.size());
+        Assert.assertEquals(100, results.get(0)[0]);
+    }
+
+    @Test
+    public void modificationTest() throws Exception {
+        IConditionalUpsertAccessor accessor = createAccessor();
+        ArrayTupleBuilder tb = new ArrayTupleBuilder(2);
+        ArrayTupleReference tuple = new ArrayTupleReference();
+        ITupleReference key = TupleUtils.createIntegerTuple(7);
+
+        TupleUtils.createIntegerTuple(tb, tuple, 7, 1);
+        accessor.insert(tuple);
+        try {
+            accessor.insert(tuple);
+            Assert.fail("Duplicate key was inserted.");
+        } catch (TreeIndexDuplicateKeyException e) {
+            // expected
+        }
+        TupleUtils.createIntegerTuple(tb, tuple, 7, 2);
+        accessor.upsert(tuple);
+        Assert.assertEquals(2, scan(accessor, key, key).get(0)[1]);
+
+        // An antimatter tuple can be replaced by an insert, a matter tuple cannot.
+        ((ConcurrentSkipListAccessor) accessor).setTupleWriter(new LSMBTreeTupleWriterFactory(typeTraits, 1, true)
+                .createTupleWriter());
+        accessor.upsert(tuple);
+        Assert.assertEquals(-1, scan(accessor, key, key).get(0)[1]);
+        ((ConcurrentSkipListAccessor) accessor).setTupleWriter(new LSMBTreeTupleWriterFactory(typeTraits, 1, false)
+                .createTupleWriter());
+        TupleUtils.createIntegerTuple(tb, tuple, 7, 3);
+        accessor.upsertIfConditionElseInsert(tuple, AntimatterAwareTupleAcceptor.INSTANCE);
+        Assert.assertEquals(3, scan(accessor, key, key).get(0)[1]);
+
+        accessor.delete(tuple);
+        Assert.assertTrue(scan(accessor, key, key).isEmpty());
+        Assert.assertEquals(0, skipList.getTupleCount());
+        try {
+            accessor.delete(tuple);
+            Assert.fail("Deleted a nonexistent key.");
+        } catch (TreeIndexNonExistentKeyException e) {
+            // expected
+        }
+        accessor.insert(tuple);
+        Assert.assertEquals(3, scan(accessor, key, key).get(0)[1]);
+        Assert.assertEquals(1, skipList.getTupleCount());
+    }
+
+    @Test
+    public void fillsVirtualBufferCacheTest() throws Exception {
+        IConditionalUpsertAccessor accessor = createAccessor();
+        ArrayTupleBuilder tb = new ArrayTupleBuilder(2);
+        ArrayTupleReference tuple = new ArrayTupleReference();
+        int key = 0;
+        while (!virtualBufferCache.isFull()) {
+            TupleUtils.createIntegerTuple(tb, tuple, key, key);
+            accessor.insert(tuple);
+            key++;
+        }
+        // The page space reserved for the nodes keeps the heap used by the towers within the budget.
+        Assert.assertTrue(key < NUM_PAGES * PAGE_SIZE / 40);
+        skipList.clear();
+        Assert.assertEquals(0, skipList.getTupleCount());
+        Assert.assertTrue(scan(accessor, null, null).isEmpty());
+    }
+}
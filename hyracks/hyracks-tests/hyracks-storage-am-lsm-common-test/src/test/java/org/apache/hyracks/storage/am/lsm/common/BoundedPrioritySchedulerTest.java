@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.api.io.IODeviceHandle;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponent;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIOOperationCallback;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIOOperationQueueCallback;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMMergeOperation;
+import org.apache.hyracks.storage.am.lsm.common.api.LSMOperationType;
+import org.apache.hyracks.storage.am.lsm.common.impls.AbstractDiskLSMComponent;
+import org.apache.hyracks.storage.am.lsm.common.impls.BoundedPriorityScheduler;
+
+public class BoundedPrioritySchedulerTest {
+    private static final IODeviceHandle DEVICE_A = new IODeviceHandle(new File("a"), "");
+    private static final IODeviceHandle DEVICE_B = new IODeviceHandle(new File("b"), "");
+
+    private final List<String> executionOrder = Collections.synchronizedList(new ArrayList<String>());
+    private final List<Long> waitTimes = Collections.synchronizedList(new ArrayList<Long>());
+
+    @Test
+    public void slotsPerDeviceTest() throws Exception {
+        BoundedPriorityScheduler scheduler = new BoundedPriorityScheduler(Executors.defaultThreadFactory(), 3);
+        List<TestOperation> ops = new ArrayList<TestOperation>();
+        for (int i = 0; i < 4; i++) {
+            ops.add(new TestOperation("a" + i, false, 0, DEVICE_A));
+        }
+        TestOperation opB = new TestOperation("b", false, 0, DEVICE_B);
+        for (TestOperation op : ops) {
+            scheduler.scheduleOperation(op);
+        }
+        scheduler.scheduleOperation(opB);
+        // Merges leave the last slot of a device to flushes, the other device is not affected.
+        ops.get(0).awaitStart();
+        ops.get(1).awaitStart();
+        opB.awaitStart();
+        assertEquals(2, scheduler.getQueueDepth());
+        // A flush may take the last slot.
+        TestOperation flush = new TestOperation("flush", true, 0, DEVICE_A);
+        scheduler.scheduleOperation(flush);
+        flush.awaitStart();
+        assertEquals(2, scheduler.getQueueDepth());
+
+        flush.finish();
+        ops.get(0).finish();
+        ops.get(2).awaitStart();
+        assertEquals(1, scheduler.getQueueDepth());
+        for (TestOperation op : ops) {
+            op.finish();
+        }
+        opB.finish();
+        ops.get(3).awaitDone();
+        assertEquals(0, scheduler.getQueueDepth());
+        assertEquals(6, scheduler.getExecutedOperationCount());
+        assertEquals(6, waitTimes.size());
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void priorityTest() throws Exception {
+        BoundedPriorityScheduler scheduler = new BoundedPriorityScheduler(Executors.defaultThreadFactory(), 1);
+        TestOperation running = new TestOperation("running", false, 0, DEVICE_A);
+        scheduler.scheduleOperation(running);
+        running.awaitStart();
+
+        TestOperation large = new TestOperation("large", false, 1000, DEVICE_A);
+        TestOperation small = new TestOperation("small", false, 10, DEVICE_A);
+        TestOperation medium = new TestOperation("medium", false, 100, DEVICE_A, DEVICE_B);
+        TestOperation flush = new TestOperation("flush", true, 0, DEVICE_A);
+        // Only needs device B, so it is not held back by the operations that wait for device A.
+        TestOperation other = new TestOperation("other", false, 1, DEVICE_B);
+        for (TestOperation op : new TestOperation[] { large, small, medium, flush, other }) {
+            op.finish();
+            scheduler.scheduleOperation(op);
+        }
+        other.awaitDone();
+        assertEquals(5, scheduler.getMaxQueueDepth());
+        running.finish();
+        large.awaitDone();
+        assertEquals("[running, other, flush, small, medium, large]", executionOrder.toString());
+        assertTrue(scheduler.getMaxWaitTimeNanos() > 0);
+        scheduler.shutdown();
+    }
+
+    private class TestOperation implements ILSMMergeOperation, ILSMIOOperationCallback,
+            ILSMIOOperationQueueCallback {
+        private final String name;
+        private final List<ILSMComponent> components;
+        private final Set<IODeviceHandle> devices = new HashSet<IODeviceHandle>();
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private final CountDownLatch done = new CountDownLatch(1);
+        private final boolean isFlush;
+
+        private TestOperation(String name, boolean isFlush, final long size, IODeviceHandle... devices) {
+            this.name = name;
+            this.isFlush = isFlush;
+            this.components = Collections.<ILSMComponent> singletonList(new AbstractDiskLSMComponent() {
+                @Override
+                protected void destroy() throws HyracksDataException {
+                }
+
+                @Override
+                public long getComponentSize() {
+                    return size;
+                }
+
+                @Override
+                public int getFileReferenceCount() {
+                    return 0;
+                }
+            });
+            Collections.addAll(this.devices, devices);
+        }
+
+        void awaitStart() throws InterruptedException {
+            assertTrue(name, started.await(10, TimeUnit.SECONDS));
+        }
+
+        void awaitDone() throws InterruptedException {
+            assertTrue(name, done.await(10, TimeUnit.SECONDS));
+        }
+
+        void finish() {
+            finished.countDown();
+        }
+
+        @Override
+        public Boolean call() throws HyracksDataException {
+            executionOrder.add(name);
+            started.countDown();
+            try {
+                finished.await();
+            } catch (InterruptedException e) {
+                throw new HyracksDataException(e);
+            } finally {
+                done.countDown();
+            }
+            return true;
+        }
+
+        @Override
+        public Set<IODeviceHandle> getReadDevices() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public Set<IODeviceHandle> getWriteDevices() {
+            return devices;
+        }
+
+        @Override
+        public ILSMIOOperationCallback getCallback() {
+            return this;
+        }
+
+        @Override
+        public String getIndexUniqueIdentifier() {
+            return name;
+        }
+
+        @Override
+        public LSMIOOpertionType getIOOpertionType() {
+            return isFlush ? LSMIOOpertionType.FLUSH : LSMIOOpertionType.MERGE;
+        }
+
+        @Override
+        public List<ILSMComponent> getMergingComponents() {
+            return components;
+        }
+
+        @Override
+        public void beforeOperation(LSMOperationType opType) {
+        }
+
+        @Override
+        public void afterOperation(LSMOperationType opType, List<ILSMComponent> oldComponents,
+                ILSMComponent newComponent) {
+        }
+
+        @Override
+        public void afterFinalize(LSMOperationType opType, ILSMComponent newComponent) {
+        }
+
+        @Override
+        public void afterDequeue(LSMOperationType opType, int queueDepth, long waitTimeNanos) {
+            waitTimes.add(waitTimeNanos);
+        }
+
+        @Override
+        public void setNumOfMutableComponents(int count) {
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import org.apache.hyracks.api.io.BackgroundIO;
+import org.apache.hyracks.api.io.FileReference;
+import org.apache.hyracks.api.io.IFileHandle;
+import org.apache.hyracks.api.io.IIOManager.FileReadWriteMode;
+import org.apache.hyracks.api.io.IIOManager.FileSyncMode;
+import org.apache.hyracks.control.nc.io.IOManager;
+import org.apache.hyracks.storage.am.lsm.common.impls.AdaptiveIORateLimiter;
+import org.apache.hyracks.storage.am.lsm.common.impls.TokenBucketIORateLimiter;
+import org.apache.hyracks.test.support.TestStorageManagerComponentHolder;
+
+public class IORateLimiterTest {
+    private static final long RATE = 1024 * 1024;
+    private static final int CHUNK_SIZE = 32 * 1024;
+
+    private long write(TokenBucketIORateLimiter rateLimiter, long bytes) throws Exception {
+        long startTime = System.nanoTime();
+        for (long written = 0; written < bytes; written += CHUNK_SIZE) {
+            rateLimiter.acquire(CHUNK_SIZE);
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+    }
+
+    @Test
+    public void unlimitedTest() throws Exception {
+        TokenBucketIORateLimiter rateLimiter = new TokenBucketIORateLimiter(0);
+        assertTrue(write(rateLimiter, 64 * RATE) < 1000);
+    }
+
+    @Test
+    public void rateTest() throws Exception {
+        TokenBucketIORateLimiter rateLimiter = new TokenBucketIORateLimiter(RATE);
+        // Half a second worth of bytes; the bucket starts out empty.
+        long millis = write(rateLimiter, RATE / 2);
+        assertTrue("took " + millis + "ms", millis >= 400 && millis < 2000);
+        rateLimiter.setRate(0);
+        assertTrue(write(rateLimiter, 64 * RATE) < 1000);
+    }
+
+    @Test
+    public void adaptiveTest() throws Exception {
+        IOManager ioManager = TestStorageManagerComponentHolder.getIOManager();
+        // Any read is slower than the target.
+        AdaptiveIORateLimiter rateLimiter = new AdaptiveIORateLimiter(ioManager, RATE / 16, RATE, 0);
+        assertEquals(RATE, rateLimiter.getRate());
+
+        FileReference file = ioManager.createWorkspaceFile("IORateLimiterTest");
+        IFileHandle handle = ioManager.open(file, FileReadWriteMode.READ_WRITE, FileSyncMode.METADATA_ASYNC_DATA_ASYNC);
+        try {
+            ioManager.syncWrite(handle, 0, ByteBuffer.allocate(CHUNK_SIZE));
+            long rate = RATE;
+            for (int i = 0; i < 3; i++) {
+                Thread.sleep(150);
+                ioManager.syncRead(handle, 0, ByteBuffer.allocate(CHUNK_SIZE));
+                rateLimiter.acquire(1);
+                rate /= 2;
+                assertEquals(rate, rateLimiter.getRate());
+            }
+            // Backs off no further than the minimum.
+            for (int i = 0; i < 2; i++) {
+                Thread.sleep(150);
+                ioManager.syncRead(handle, 0, ByteBuffer.allocate(CHUNK_SIZE));
+                rateLimiter.acquire(1);
+            }
+            assertEquals(RATE / 16, rateLimiter.getRate());
+
+            // No reads: the node is idle and merges may catch up.
+            Thread.sleep(150);
+            rateLimiter.acquire(1);
+            assertEquals(RATE, rateLimiter.getRate());
+
+            // Lowering the maximum caps the current rate.
+            rateLimiter.setRate(RATE / 4);
+            assertEquals(RATE / 4, rateLimiter.getRate());
+            assertEquals(RATE / 4, rateLimiter.getMaxRate());
+        } finally {
+            ioManager.close(handle);
+            file.delete();
+        }
+    }
+
+    @Test
+    public void backgroundReadsTest() throws Exception {
+        IOManager ioManager = TestStorageManagerComponentHolder.getIOManager();
+        AdaptiveIORateLimiter rateLimiter = new AdaptiveIORateLimiter(ioManager, RATE / 16, RATE, 0);
+
+        FileReference file = ioManager.createWorkspaceFile("IORateLimiterTest");
+        IFileHandle handle = ioManager.open(file, FileReadWriteMode.READ_WRITE, FileSyncMode.METADATA_ASYNC_DATA_ASYNC);
+        try {
+            ioManager.syncWrite(handle, 0, ByteBuffer.allocate(CHUNK_SIZE));
+            Thread.sleep(150);
+            ioManager.syncRead(handle, 0, ByteBuffer.allocate(CHUNK_SIZE));
+            rateLimiter.acquire(1);
+            assertEquals(RATE / 2, rateLimiter.getRate());
+
+            // Reads of merges, synchronous or not, do not slow merges down any further.
+            Thread.sleep(150);
+            boolean wasBackground = BackgroundIO.begin();
+            try {
+                ioManager.syncRead(handle, 0, ByteBuffer.allocate(CHUNK_SIZE));
+                ioManager.asyncRead(handle, 0, ByteBuffer.allocate(CHUNK_SIZE)).synchronize();
+            } finally {
+                BackgroundIO.end(wasBackground);
+            }
+            rateLimiter.acquire(1);
+            assertEquals(RATE, rateLimiter.getRate());
+        } finally {
+            ioManager.close(handle);
+            file.delete();
+        }
+    }
+}
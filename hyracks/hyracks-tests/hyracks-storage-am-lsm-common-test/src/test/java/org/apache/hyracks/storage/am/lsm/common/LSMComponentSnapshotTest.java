@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponent;
+import org.apache.hyracks.storage.am.lsm.common.impls.LSMComponentSnapshot;
+
+public class LSMComponentSnapshotTest {
+
+    @Test
+    public void retireWithoutReadersTest() {
+        LSMComponentSnapshot snapshot = new LSMComponentSnapshot(Collections.<ILSMComponent> emptyList(), 0);
+        assertTrue(snapshot.retire());
+        assertTrue(snapshot.isRetired());
+    }
+
+    @Test
+    public void lastReaderReleasesTest() {
+        LSMComponentSnapshot snapshot = new LSMComponentSnapshot(Collections.<ILSMComponent> emptyList(), 1);
+        Object readerA = new Object();
+        Object readerB = new Object();
+        assertTrue(snapshot.acquire(readerA));
+        assertTrue(snapshot.acquire(readerB));
+        assertEquals(1, snapshot.getCurrentMutableComponentId());
+
+        assertFalse(snapshot.retire());
+        // A retired snapshot must not be picked up by new readers.
+        Object readerC = new Object();
+        assertFalse(snapshot.acquire(readerC));
+        assertFalse(snapshot.release(readerC));
+
+        assertFalse(snapshot.release(readerA));
+        assertTrue(snapshot.release(readerB));
+    }
+
+    @Test
+    public void releasedExactlyOnceTest() throws Exception {
+        final int numThreads = 8;
+        final LSMComponentSnapshot snapshot = new LSMComponentSnapshot(Collections.<ILSMComponent> emptyList(), 0);
+        final AtomicInteger numReleases = new AtomicInteger();
+        final AtomicInteger numReads = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(numThreads);
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < numThreads; i++) {
+            Thread t = new Thread() {
+                @Override
+                public void run() {
+                    Object reader = new Object();
+                    started.countDown();
+                    while (true) {
+                        boolean acquired = snapshot.acquire(reader);
+                        if (acquired) {
+                            numReads.incrementAndGet();
+                        }
+                        if (snapshot.release(reader)) {
+                            numReleases.incrementAndGet();
+                        }
+                        if (!acquired) {
+                            return;
+                        }
+                    }
+                }
+            };
+            threads.add(t);
+            t.start();
+        }
+        started.await();
+        while (numReads.get() < 10000) {
+            Thread.yield();
+        }
+        if (snapshot.retire()) {
+            numReleases.incrementAndGet();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertEquals(1, numReleases.get());
+    }
+}
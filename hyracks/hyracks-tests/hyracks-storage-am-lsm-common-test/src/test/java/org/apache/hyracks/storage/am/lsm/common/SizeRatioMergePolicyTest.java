@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.common;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import org.apache.hyracks.storage.am.lsm.common.impls.AbstractSizeRatioMergePolicy;
+import org.apache.hyracks.storage.am.lsm.common.impls.LeveledMergePolicy;
+import org.apache.hyracks.storage.am.lsm.common.impls.SizeTieredMergePolicy;
+
+public class SizeRatioMergePolicyTest {
+
+    private static <T extends AbstractSizeRatioMergePolicy> T configure(T policy, int sizeRatio, long baseSize) {
+        Map<String, String> properties = new HashMap<String, String>();
+        properties.put("size-ratio", Integer.toString(sizeRatio));
+        properties.put("base-component-size", Long.toString(baseSize));
+        policy.configure(properties);
+        return policy;
+    }
+
+    @Test
+    public void levelTest() {
+        SizeTieredMergePolicy policy = configure(new SizeTieredMergePolicy(), 4, 100);
+        assertEquals(0, policy.getLevel(1));
+        assertEquals(0, policy.getLevel(100));
+        assertEquals(1, policy.getLevel(101));
+        assertEquals(1, policy.getLevel(400));
+        assertEquals(2, policy.getLevel(401));
+        assertEquals(3, policy.getLevel(6400));
+    }
+
+    @Test
+    public void sizeTieredTest() {
+        SizeTieredMergePolicy policy = configure(new SizeTieredMergePolicy(), 3, 100);
+        assertNull(policy.selectMerge(new long[0]));
+        assertNull(policy.selectMerge(new long[] { 100, 90 }));
+        assertArrayEquals(new int[] { 0, 3 }, policy.selectMerge(new long[] { 100, 90, 80 }));
+        // The newest level is not full, but the next one is.
+        assertArrayEquals(new int[] { 2, 5 }, policy.selectMerge(new long[] { 100, 90, 300, 270, 250, 900 }));
+        assertNull(policy.selectMerge(new long[] { 100, 90, 300, 270, 900, 850 }));
+        // The result completes the next level, which is merged along with it.
+        assertArrayEquals(new int[] { 0, 5 }, policy.selectMerge(new long[] { 100, 90, 80, 300, 270, 900 }));
+    }
+
+    @Test
+    public void leveledTest() {
+        LeveledMergePolicy policy = configure(new LeveledMergePolicy(), 4, 100);
+        assertNull(policy.selectMerge(new long[0]));
+        assertNull(policy.selectMerge(new long[] { 100 }));
+        // Two components on level 0.
+        assertArrayEquals(new int[] { 0, 2 }, policy.selectMerge(new long[] { 100, 90 }));
+        // Level 0 is empty below the new component.
+        assertNull(policy.selectMerge(new long[] { 100, 350, 1500 }));
+        // The merge result grows into the next levels, where it is merged again.
+        assertArrayEquals(new int[] { 0, 3 }, policy.selectMerge(new long[] { 100, 90, 300, 7000 }));
+        assertArrayEquals(new int[] { 0, 4 }, policy.selectMerge(new long[] { 100, 90, 300, 1500, 7000 }));
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.common.perf;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.hyracks.storage.am.lsm.common.impls.AbstractSizeRatioMergePolicy;
+import org.apache.hyracks.storage.am.lsm.common.impls.LeveledMergePolicy;
+import org.apache.hyracks.storage.am.lsm.common.impls.SizeTieredMergePolicy;
+
+/**
+ * Replays a sequence of flush sizes against the size-ratio merge policies, running every selected merge to
+ * completion before the next flush, and reports the write amplification (bytes written by flushes and merges over
+ * bytes flushed) and the number of disk components as the index grows. A merge writes the total size of the
+ * components it merges, once, however many levels its result skips.
+ * Usage: MergePolicySimulation [flush-sizes-file], where the file holds one flush size in bytes per line. Without a
+ * file, 10000 flushes of 64MB +/- 25% are generated.
+ */
+public class MergePolicySimulation {
+    private static final long MB = 1024 * 1024;
+    private static final int NUM_REPORTS = 10;
+
+    public static void main(String[] args) throws Exception {
+        long[] flushSizes = args.length > 0 ? readFlushSizes(args[0]) : generateFlushSizes(10000, 64 * MB);
+        long baseComponentSize = 0;
+        for (long size : flushSizes) {
+            baseComponentSize = Math.max(baseComponentSize, size);
+        }
+        for (int sizeRatio : new int[] { 2, 4, 10 }) {
+            runExperiment(new SizeTieredMergePolicy(), "size-tiered", sizeRatio, baseComponentSize, flushSizes);
+            runExperiment(new LeveledMergePolicy(), "leveled", sizeRatio, baseComponentSize, flushSizes);
+        }
+    }
+
+    private static void runExperiment(AbstractSizeRatioMergePolicy policy, String name, int sizeRatio,
+            long baseComponentSize, long[] flushSizes) {
+        Map<String, String> properties = new HashMap<String, String>();
+        properties.put("size-ratio", Integer.toString(sizeRatio));
+        properties.put("base-component-size", Long.toString(baseComponentSize));
+        policy.configure(properties);
+        System.out.println("POLICY: " + name + ", SIZE RATIO: " + sizeRatio);
+
+        // Newest first, like the disk components of an index.
+        LinkedList<Long> components = new LinkedList<Long>();
+        long flushedBytes = 0;
+        long writtenBytes = 0;
+        long mergedBytes = 0;
+        long merges = 0;
+        int maxComponents = 0;
+        int reportInterval = Math.max(1, flushSizes.length / NUM_REPORTS);
+        for (int i = 0; i < flushSizes.length; i++) {
+            components.addFirst(flushSizes[i]);
+            flushedBytes += flushSizes[i];
+            writtenBytes += flushSizes[i];
+            maxComponents = Math.max(maxComponents, components.size());
+            int[] range;
+            while ((range = policy.selectMerge(toArray(components))) != null) {
+                List<Long> merging = components.subList(range[0], range[1]);
+                long mergedSize = 0;
+                for (long size : merging) {
+                    mergedSize += size;
+                }
+                merging.clear();
+                components.add(range[0], mergedSize);
+                writtenBytes += mergedSize;
+                mergedBytes += mergedSize;
+                merges++;
+            }
+            if ((i + 1) % reportInterval == 0 || i + 1 == flushSizes.length) {
+                System.out.println("FLUSHES: " + (i + 1) + ", DATA: " + flushedBytes / MB + "MB, COMPONENTS: "
+                        + components.size() + ", WRITE AMPLIFICATION: "
+                        + String.format("%.2f", (double) writtenBytes / flushedBytes));
+            }
+        }
+        System.out.println("MERGES: " + merges + ", MERGE WRITES: " + mergedBytes / MB + "MB, MAX COMPONENTS: "
+                + maxComponents);
+        System.out.println("-------------------------------");
+    }
+
+    private static long[] toArray(List<Long> components) {
+        long[] sizes = new long[components.size()];
+        int i = 0;
+        for (long size : components) {
+            sizes[i++] = size;
+        }
+        return sizes;
+    }
+
+    private static long[] generateFlushSizes(int numFlushes, long flushSize) {
+        Random rnd = new Random(50);
+        long[] sizes = new long[numFlushes];
+        for (int i = 0; i < numFlushes; i++) {
+            sizes[i] = flushSize * 3 / 4 + (long) (rnd.nextDouble() * flushSize / 2);
+        }
+        return sizes;
+    }
+
+    private static long[] readFlushSizes(String fileName) throws Exception {
+        List<Long> sizes = new ArrayList<Long>();
+        BufferedReader reader = new BufferedReader(new FileReader(fileName));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty()) {
+                    sizes.add(Long.parseLong(line));
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return toArray(sizes);
+    }
+}
@@ -37,15 +37,26 @@ import org.apache.hyracks.storage.am.lsm.invertedindex.util.LSMInvertedIndexTest
 public class LSMInvertedIndexMergeTest extends AbstractInvertedIndexLoadTest {
 
     private final int maxTreesToMerge = AccessMethodTestsConfig.LSM_INVINDEX_MAX_TREES_TO_MERGE;
+    private final int mergeParallelism;
 
     public LSMInvertedIndexMergeTest() {
-        super(InvertedIndexType.LSM, false);
+        this(InvertedIndexType.LSM);
+    }
+
+    protected LSMInvertedIndexMergeTest(InvertedIndexType invIndexType) {
+        this(invIndexType, 1);
+    }
+
+    protected LSMInvertedIndexMergeTest(InvertedIndexType invIndexType, int mergeParallelism) {
+        super(invIndexType, false);
+        this.mergeParallelism = mergeParallelism;
     }
 
     @Override
     protected void runTest(LSMInvertedIndexTestContext testCtx, TupleGenerator tupleGen) throws IOException,
             IndexException {
         IIndex invIndex = testCtx.getIndex();
+        ((LSMInvertedIndex) invIndex).setMergeParallelism(mergeParallelism);
         invIndex.create();
         invIndex.activate();
         ILSMIndexAccessor invIndexAccessor = (ILSMIndexAccessor) invIndex.createAccessor(
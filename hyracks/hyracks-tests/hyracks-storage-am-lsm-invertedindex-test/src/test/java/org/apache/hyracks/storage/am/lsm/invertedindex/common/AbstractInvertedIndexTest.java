@@ -82,7 +82,8 @@ public abstract class AbstractInvertedIndexTest {
         }
         // Validate index and compare against expected index.
         invIndex.validate();
-        if (invIndexType == InvertedIndexType.INMEMORY || invIndexType == InvertedIndexType.ONDISK) {
+        if (invIndexType == InvertedIndexType.INMEMORY || invIndexType == InvertedIndexType.ONDISK
+                || invIndexType == InvertedIndexType.COMPRESSED_ONDISK) {
             // This comparison method exercises different features of these types of inverted indexes.
             LSMInvertedIndexTestUtils.compareActualAndExpectedIndexes(testCtx);
         }
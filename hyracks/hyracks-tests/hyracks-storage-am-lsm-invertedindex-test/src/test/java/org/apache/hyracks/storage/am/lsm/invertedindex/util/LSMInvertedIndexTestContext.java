@@ -52,7 +52,9 @@ public class LSMInvertedIndexTestContext extends OrderedIndexTestContext {
     public static enum InvertedIndexType {
         INMEMORY,
         ONDISK,
+        COMPRESSED_ONDISK,
         LSM,
+        COMPRESSED_LSM,
         PARTITIONED_INMEMORY,
         PARTITIONED_ONDISK,
         PARTITIONED_LSM
@@ -147,6 +149,12 @@ public class LSMInvertedIndexTestContext extends OrderedIndexTestContext {
                         tokenCmpFactories, harness.getInvListsFileRef());
                 break;
             }
+            case COMPRESSED_ONDISK: {
+                invIndex = InvertedIndexUtils.createCompressedOnDiskInvertedIndex(harness.getDiskBufferCache(),
+                        harness.getDiskFileMapProvider(), invListTypeTraits, invListCmpFactories, tokenTypeTraits,
+                        tokenCmpFactories, harness.getInvListsFileRef());
+                break;
+            }
             case PARTITIONED_ONDISK: {
                 invIndex = InvertedIndexUtils.createPartitionedOnDiskInvertedIndex(harness.getDiskBufferCache(),
                         harness.getDiskFileMapProvider(), invListTypeTraits, invListCmpFactories, tokenTypeTraits,
@@ -163,6 +171,16 @@ public class LSMInvertedIndexTestContext extends OrderedIndexTestContext {
                         filterFieldsForNonBulkLoadOps, invertedIndexFieldsForNonBulkLoadOps, true);
                 break;
             }
+            case COMPRESSED_LSM: {
+                invIndex = InvertedIndexUtils.createLSMInvertedIndex(harness.getVirtualBufferCaches(),
+                        harness.getDiskFileMapProvider(), invListTypeTraits, invListCmpFactories, tokenTypeTraits,
+                        tokenCmpFactories, tokenizerFactory, harness.getDiskBufferCache(), harness.getOnDiskDir(),
+                        harness.getBoomFilterFalsePositiveRate(), harness.getMergePolicy(),
+                        harness.getOperationTracker(), harness.getIOScheduler(), harness.getIOOperationCallback(),
+                        invertedIndexFields, filterTypeTraits, filterCmpFactories, filterFields,
+                        filterFieldsForNonBulkLoadOps, invertedIndexFieldsForNonBulkLoadOps, true, true);
+                break;
+            }
             case PARTITIONED_LSM: {
                 invIndex = InvertedIndexUtils.createPartitionedLSMInvertedIndex(harness.getVirtualBufferCaches(),
                         harness.getDiskFileMapProvider(), invListTypeTraits, invListCmpFactories, tokenTypeTraits,
@@ -181,7 +199,9 @@ public class LSMInvertedIndexTestContext extends OrderedIndexTestContext {
         switch (invIndexType) {
             case INMEMORY:
             case ONDISK:
-            case LSM: {
+            case COMPRESSED_ONDISK:
+            case LSM:
+            case COMPRESSED_LSM: {
                 indexTupleIter = new InvertedIndexTokenizingTupleIterator(invIndex.getTokenTypeTraits().length,
                         invIndex.getInvListTypeTraits().length, tokenizerFactory.createTokenizer());
                 break;
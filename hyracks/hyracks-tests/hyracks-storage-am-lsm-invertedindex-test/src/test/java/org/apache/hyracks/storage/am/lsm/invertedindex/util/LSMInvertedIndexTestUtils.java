@@ -109,7 +109,9 @@ public class LSMInvertedIndexTestUtils {
         switch (invIndexType) {
             case INMEMORY:
             case ONDISK:
-            case LSM: {
+            case COMPRESSED_ONDISK:
+            case LSM:
+            case COMPRESSED_LSM: {
                 fieldSerdes = new ISerializerDeserializer[] { UTF8StringSerializerDeserializer.INSTANCE,
                         IntegerSerializerDeserializer.INSTANCE };
                 break;
@@ -135,7 +137,9 @@ public class LSMInvertedIndexTestUtils {
         switch (invIndexType) {
             case INMEMORY:
             case ONDISK:
-            case LSM: {
+            case COMPRESSED_ONDISK:
+            case LSM:
+            case COMPRESSED_LSM: {
                 fieldSerdes = new ISerializerDeserializer[] { IntegerSerializerDeserializer.INSTANCE,
                         IntegerSerializerDeserializer.INSTANCE };
                 break;
@@ -373,6 +377,15 @@ public class LSMInvertedIndexTestUtils {
                     }
                     count++;
                 }
+                // Look up every element, which exercises containsKey() of the cursor.
+                for (CheckTuple expected : expectedInvList) {
+                    OrderedIndexTestUtils.createTupleFromCheckTuple(expected, expectedBuilder, completeExpectedTuple,
+                            fieldSerdes);
+                    expectedTuple.reset(completeExpectedTuple);
+                    if (!actualInvListCursor.containsKey(expectedTuple, invListCmp)) {
+                        fail("Inverted list of token '" + token + "' does not contain " + expected + ".");
+                    }
+                }
             } finally {
                 actualInvListCursor.unpinPages();
             }
@@ -390,7 +403,9 @@ public class LSMInvertedIndexTestUtils {
         switch (invIndexType) {
             case INMEMORY:
             case ONDISK:
-            case LSM: {
+            case COMPRESSED_ONDISK:
+            case LSM:
+            case COMPRESSED_LSM: {
                 isPartitioned = false;
                 break;
             }
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.common;
+
+import java.io.File;
+import java.util.concurrent.ThreadFactory;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.hyracks.api.context.IHyracksTaskContext;
+import org.apache.hyracks.api.io.FileReference;
+import org.apache.hyracks.storage.common.buffercache.BufferCache;
+import org.apache.hyracks.storage.common.buffercache.ClockPageReplacementStrategy;
+import org.apache.hyracks.storage.common.buffercache.DelayPageCleanerPolicy;
+import org.apache.hyracks.storage.common.buffercache.HeapBufferAllocator;
+import org.apache.hyracks.storage.common.buffercache.ICachedPage;
+import org.apache.hyracks.storage.common.file.BufferedFileHandle;
+import org.apache.hyracks.storage.common.file.TransientFileMapManager;
+import org.apache.hyracks.test.support.TestUtils;
+
+public class CleanerBatchTest {
+    private static final int PAGE_SIZE = 256;
+    private static final int NUM_PAGES = 200;
+    private static final int NUM_FILE_PAGES = 100;
+    private static final int MAX_OPEN_FILES = 10;
+    private static final long MAX_WAIT_TIME = 10000;
+
+    private final IHyracksTaskContext ctx = TestUtils.create(PAGE_SIZE);
+
+    private BufferCache createBufferCache(TransientFileMapManager fmm) {
+        return new BufferCache(ctx.getIOManager(), new ClockPageReplacementStrategy(new HeapBufferAllocator(),
+                PAGE_SIZE, NUM_PAGES), new DelayPageCleanerPolicy(10), fmm, MAX_OPEN_FILES, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                return new Thread(r);
+            }
+        });
+    }
+
+    @Test
+    public void coalescedCleaningTest() throws Exception {
+        File f = File.createTempFile("cleanerBatch", ".tmp");
+        f.deleteOnExit();
+        FileReference file = new FileReference(f);
+        TransientFileMapManager fmm = new TransientFileMapManager();
+        BufferCache bufferCache = createBufferCache(fmm);
+        bufferCache.createFile(file);
+        int fileId = fmm.lookupFileId(file);
+        bufferCache.openFile(fileId);
+
+        // dirty the pages in reverse order, with a hole in the middle
+        for (int i = NUM_FILE_PAGES - 1; i >= 0; i--) {
+            if (i == NUM_FILE_PAGES / 2) {
+                continue;
+            }
+            ICachedPage page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, i), true);
+            page.acquireWriteLatch();
+            try {
+                page.getBuffer().putInt(0, i);
+            } finally {
+                page.releaseWriteLatch(true);
+                bufferCache.unpin(page);
+            }
+        }
+        long start = System.currentTimeMillis();
+        while (bufferCache.getCleanerPagesWritten() < NUM_FILE_PAGES - 1) {
+            Assert.assertTrue("Cleaner did not write the dirty pages",
+                    System.currentTimeMillis() - start < MAX_WAIT_TIME);
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(NUM_FILE_PAGES - 1, bufferCache.getCleanerPagesWritten());
+        Assert.assertEquals((NUM_FILE_PAGES - 1) * PAGE_SIZE, bufferCache.getCleanerBytesWritten());
+        // fewer writes than pages, and at least one force
+        Assert.assertTrue(bufferCache.getCleanerWriteCount() < NUM_FILE_PAGES / 2);
+        Assert.assertTrue(bufferCache.getCleanerForceCount() >= 1);
+        bufferCache.closeFile(fileId);
+        bufferCache.close();
+
+        fmm = new TransientFileMapManager();
+        bufferCache = createBufferCache(fmm);
+        bufferCache.createFile(file);
+        fileId = fmm.lookupFileId(file);
+        bufferCache.openFile(fileId);
+        for (int i = 0; i < NUM_FILE_PAGES; i++) {
+            if (i == NUM_FILE_PAGES / 2) {
+                continue;
+            }
+            ICachedPage page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, i), false);
+            try {
+                Assert.assertEquals(i, page.getBuffer().getInt(0));
+            } finally {
+                bufferCache.unpin(page);
+            }
+        }
+        bufferCache.closeFile(fileId);
+        bufferCache.close();
+    }
+
+    @Test
+    public void deletedFileTest() throws Exception {
+        File f = File.createTempFile("cleanerBatch", ".tmp");
+        f.deleteOnExit();
+        FileReference file = new FileReference(f);
+        TransientFileMapManager fmm = new TransientFileMapManager();
+        // a long delay, so that the file is usually deleted before the cleaner sees its dirty pages
+        BufferCache bufferCache = new BufferCache(ctx.getIOManager(), new ClockPageReplacementStrategy(
+                new HeapBufferAllocator(), PAGE_SIZE, NUM_PAGES), new DelayPageCleanerPolicy(200), fmm,
+                MAX_OPEN_FILES, new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        return new Thread(r);
+                    }
+                });
+        bufferCache.createFile(file);
+        int fileId = fmm.lookupFileId(file);
+        bufferCache.openFile(fileId);
+        for (int i = 0; i < NUM_FILE_PAGES; i++) {
+            ICachedPage page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, i), true);
+            page.acquireWriteLatch();
+            try {
+                page.getBuffer().putInt(0, i);
+            } finally {
+                page.releaseWriteLatch(true);
+                bufferCache.unpin(page);
+            }
+        }
+        bufferCache.closeFile(fileId);
+        bufferCache.deleteFile(fileId, false);
+
+        long start = System.currentTimeMillis();
+        while (bufferCache.getCleanerBatchCount() == 0) {
+            Assert.assertTrue("Cleaner did not see the dirty pages",
+                    System.currentTimeMillis() - start < MAX_WAIT_TIME);
+            Thread.sleep(10);
+        }
+        // the pages of the deleted file are dropped without being counted as written
+        Assert.assertEquals(bufferCache.getCleanerBytesWritten(), bufferCache.getCleanerPagesWritten() * PAGE_SIZE);
+        bufferCache.close();
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.common;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ThreadFactory;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.hyracks.api.context.IHyracksTaskContext;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.api.io.FileReference;
+import org.apache.hyracks.storage.common.buffercache.BufferCache;
+import org.apache.hyracks.storage.common.buffercache.ClockPageReplacementStrategy;
+import org.apache.hyracks.storage.common.buffercache.DelayPageCleanerPolicy;
+import org.apache.hyracks.storage.common.buffercache.HeapBufferAllocator;
+import org.apache.hyracks.storage.common.buffercache.ICachedPage;
+import org.apache.hyracks.storage.common.compression.DeflatePageCompressor;
+import org.apache.hyracks.storage.common.compression.IPageCompressor;
+import org.apache.hyracks.storage.common.compression.LZ4PageCompressor;
+import org.apache.hyracks.storage.common.file.BufferedFileHandle;
+import org.apache.hyracks.storage.common.file.TransientFileMapManager;
+import org.apache.hyracks.test.support.TestUtils;
+
+public class CompressedImmutableFileTest {
+    private static final int PAGE_SIZE = 256;
+    private static final int NUM_PAGES = 10;
+    private static final int NUM_FILE_PAGES = 50;
+    private static final int MAX_OPEN_FILES = 10;
+
+    private final IHyracksTaskContext ctx = TestUtils.create(PAGE_SIZE);
+    private final Random random = new Random(17);
+
+    private BufferCache createBufferCache(TransientFileMapManager fmm, IPageCompressor pageCompressor) {
+        return new BufferCache(ctx.getIOManager(), new ClockPageReplacementStrategy(new HeapBufferAllocator(),
+                PAGE_SIZE, NUM_PAGES), new DelayPageCleanerPolicy(1000), fmm, MAX_OPEN_FILES, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                return new Thread(r);
+            }
+        }, false, pageCompressor);
+    }
+
+    @Test
+    public void lz4RoundTripTest() throws Exception {
+        roundTrip(new LZ4PageCompressor());
+    }
+
+    @Test
+    public void deflateRoundTripTest() throws Exception {
+        roundTrip(new DeflatePageCompressor());
+    }
+
+    @Test
+    public void lz4CorruptPageTest() throws Exception {
+        IPageCompressor compressor = new LZ4PageCompressor();
+        byte[] page = textPage(7);
+        byte[] compressed = new byte[compressor.getMaxCompressedLength(page.length)];
+        int length = compressor.compress(page, 0, page.length, compressed, 0);
+        try {
+            compressor.decompress(compressed, 0, length / 2, new byte[page.length], 0, page.length);
+            Assert.fail("Truncated page was decompressed");
+        } catch (HyracksDataException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void lz4CompressedReadTest() throws Exception {
+        compressedRead(new LZ4PageCompressor());
+    }
+
+    @Test
+    public void deflateCompressedReadTest() throws Exception {
+        compressedRead(new DeflatePageCompressor());
+    }
+
+    @Test
+    public void incompressibleFileTest() throws Exception {
+        File f = File.createTempFile("compressedImmutableFile", ".tmp");
+        f.deleteOnExit();
+        FileReference file = new FileReference(f);
+        byte[][] pages = new byte[NUM_FILE_PAGES][];
+        for (int i = 0; i < NUM_FILE_PAGES; i++) {
+            pages[i] = new byte[PAGE_SIZE];
+            random.nextBytes(pages[i]);
+        }
+        writeFile(file, pages);
+        long rawSize = f.length();
+
+        TransientFileMapManager fmm = new TransientFileMapManager();
+        BufferCache bufferCache = createBufferCache(fmm, new LZ4PageCompressor());
+        bufferCache.createFile(file);
+        int fileId = fmm.lookupFileId(file);
+        bufferCache.openFile(fileId);
+        bufferCache.markFileImmutable(fileId);
+        bufferCache.waitForCompressions();
+        // random pages do not get smaller, so the file is left as it is
+        Assert.assertEquals(rawSize, f.length());
+        checkPages(bufferCache, fileId, pages);
+        bufferCache.closeFile(fileId);
+        bufferCache.deleteFile(fileId, false);
+        bufferCache.close();
+    }
+
+    @Test
+    public void unmarkedFileTest() throws Exception {
+        File f = File.createTempFile("compressedImmutableFile", ".tmp");
+        f.deleteOnExit();
+        FileReference file = new FileReference(f);
+        byte[][] pages = new byte[NUM_FILE_PAGES][];
+        for (int i = 0; i < NUM_FILE_PAGES; i++) {
+            pages[i] = textPage(i);
+        }
+        // the file ends like a compressed file, but was not compressed by the cache
+        byte[] magic = "HYCPAGE1".getBytes();
+        System.arraycopy(magic, 0, pages[NUM_FILE_PAGES - 1], PAGE_SIZE - magic.length, magic.length);
+        writeFile(file, pages);
+
+        TransientFileMapManager fmm = new TransientFileMapManager();
+        BufferCache bufferCache = createBufferCache(fmm, null);
+        bufferCache.createFile(file);
+        int fileId = fmm.lookupFileId(file);
+        bufferCache.openFile(fileId);
+        checkPages(bufferCache, fileId, pages);
+        bufferCache.closeFile(fileId);
+        bufferCache.deleteFile(fileId, false);
+        bufferCache.close();
+    }
+
+    @Test
+    public void modifiedCompressedPageTest() throws Exception {
+        File f = File.createTempFile("compressedImmutableFile", ".tmp");
+        f.deleteOnExit();
+        FileReference file = new FileReference(f);
+        byte[][] pages = new byte[NUM_FILE_PAGES][];
+        for (int i = 0; i < NUM_FILE_PAGES; i++) {
+            pages[i] = textPage(i);
+        }
+        writeFile(file, pages);
+
+        TransientFileMapManager fmm = new TransientFileMapManager();
+        BufferCache bufferCache = createBufferCache(fmm, new LZ4PageCompressor());
+        bufferCache.createFile(file);
+        int fileId = fmm.lookupFileId(file);
+        bufferCache.openFile(fileId);
+        bufferCache.markFileImmutable(fileId);
+        bufferCache.waitForCompressions();
+        ICachedPage page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, 0), false);
+        page.acquireWriteLatch();
+        page.getBuffer().put(0, (byte) 0);
+        page.releaseWriteLatch(true);
+        boolean rejected = false;
+        try {
+            bufferCache.unpin(page);
+        } catch (AssertionError e) {
+            rejected = true;
+        }
+        Assert.assertTrue("Modified page of a compressed file was unpinned", rejected);
+        bufferCache.closeFile(fileId);
+        bufferCache.deleteFile(fileId, false);
+        bufferCache.close();
+    }
+
+    private void roundTrip(IPageCompressor compressor) throws HyracksDataException {
+        byte[][] inputs = new byte[][] { new byte[0], new byte[] { 1 }, "abcdefghijklm".getBytes(),
+                new byte[PAGE_SIZE], textPage(3), randomBytes(PAGE_SIZE), randomBytes(70000), text(5, 70000) };
+        for (byte[] input : inputs) {
+            byte[] compressed = new byte[compressor.getMaxCompressedLength(input.length) + 3];
+            int length = compressor.compress(input, 0, input.length, compressed, 3);
+            Assert.assertTrue(length <= compressor.getMaxCompressedLength(input.length));
+            byte[] output = new byte[input.length + 5];
+            compressor.decompress(compressed, 3, length, output, 5, input.length);
+            Assert.assertArrayEquals(input, Arrays.copyOfRange(output, 5, output.length));
+        }
+    }
+
+    private void compressedRead(IPageCompressor compressor) throws Exception {
+        File f = File.createTempFile("compressedImmutableFile", ".tmp");
+        f.deleteOnExit();
+        FileReference file = new FileReference(f);
+        byte[][] pages = new byte[NUM_FILE_PAGES][];
+        for (int i = 0; i < NUM_FILE_PAGES; i++) {
+            pages[i] = textPage(i);
+        }
+        writeFile(file, pages);
+        long rawSize = f.length();
+
+        TransientFileMapManager fmm = new TransientFileMapManager();
+        BufferCache bufferCache = createBufferCache(fmm, compressor);
+        bufferCache.createFile(file);
+        int fileId = fmm.lookupFileId(file);
+        bufferCache.openFile(fileId);
+        bufferCache.markFileImmutable(fileId);
+        bufferCache.waitForCompressions();
+        Assert.assertTrue(f.length() < rawSize / 2);
+        // the file is larger than the cache, so pages are evicted and decompressed again
+        checkPages(bufferCache, fileId, pages);
+        bufferCache.prefetch(BufferedFileHandle.getDiskPageId(fileId, NUM_FILE_PAGES - NUM_PAGES / 2), NUM_PAGES);
+        checkPages(bufferCache, fileId, pages);
+        bufferCache.closeFile(fileId);
+        bufferCache.close();
+
+        // a cache without a compressor still reads the compressed file
+        fmm = new TransientFileMapManager();
+        bufferCache = createBufferCache(fmm, null);
+        bufferCache.createFile(file);
+        fileId = fmm.lookupFileId(file);
+        bufferCache.openFile(fileId);
+        bufferCache.prefetch(BufferedFileHandle.getDiskPageId(fileId, 0), NUM_PAGES / 2);
+        checkPages(bufferCache, fileId, pages);
+        bufferCache.closeFile(fileId);
+        bufferCache.deleteFile(fileId, false);
+        bufferCache.close();
+    }
+
+    private void writeFile(FileReference file, byte[][] pages) throws HyracksDataException {
+        TransientFileMapManager fmm = new TransientFileMapManager();
+        BufferCache bufferCache = createBufferCache(fmm, null);
+        bufferCache.createFile(file);
+        int fileId = fmm.lookupFileId(file);
+        bufferCache.openFile(fileId);
+        for (int i = 0; i < pages.length; i++) {
+            ICachedPage page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, i), true);
+            page.acquireWriteLatch();
+            try {
+                page.getBuffer().clear();
+                page.getBuffer().put(pages[i]);
+            } finally {
+                page.releaseWriteLatch(true);
+                bufferCache.unpin(page);
+            }
+        }
+        bufferCache.closeFile(fileId);
+        bufferCache.close();
+    }
+
+    private void checkPages(BufferCache bufferCache, int fileId, byte[][] pages) throws HyracksDataException {
+        byte[] content = new byte[PAGE_SIZE];
+        for (int i = 0; i < pages.length; i++) {
+            ICachedPage page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, i), false);
+            page.acquireReadLatch();
+            try {
+                page.getBuffer().position(0);
+                page.getBuffer().get(content);
+                Assert.assertArrayEquals(pages[i], content);
+            } finally {
+                page.releaseReadLatch();
+                bufferCache.unpin(page);
+            }
+        }
+    }
+
+    private byte[] textPage(int seed) {
+        return text(seed, PAGE_SIZE);
+    }
+
+    private byte[] text(int seed, int length) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; sb.length() < length; i++) {
+            sb.append("key-").append(seed).append('-').append(i % 100).append(" value-").append(seed % 7).append(';');
+        }
+        return Arrays.copyOf(sb.toString().getBytes(), length);
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
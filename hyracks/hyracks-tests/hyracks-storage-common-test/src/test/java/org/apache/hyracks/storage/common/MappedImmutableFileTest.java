@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.common;
+
+import java.io.File;
+import java.util.concurrent.ThreadFactory;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.hyracks.api.context.IHyracksTaskContext;
+import org.apache.hyracks.api.io.FileReference;
+import org.apache.hyracks.storage.common.buffercache.BufferCache;
+import org.apache.hyracks.storage.common.buffercache.ClockPageReplacementStrategy;
+import org.apache.hyracks.storage.common.buffercache.DelayPageCleanerPolicy;
+import org.apache.hyracks.storage.common.buffercache.HeapBufferAllocator;
+import org.apache.hyracks.storage.common.buffercache.ICachedPage;
+import org.apache.hyracks.storage.common.file.BufferedFileHandle;
+import org.apache.hyracks.storage.common.file.TransientFileMapManager;
+import org.apache.hyracks.test.support.TestUtils;
+
+public class MappedImmutableFileTest {
+    private static final int PAGE_SIZE = 256;
+    private static final int NUM_PAGES = 10;
+    private static final int NUM_FILE_PAGES = 50;
+    private static final int MAX_OPEN_FILES = 10;
+
+    private final IHyracksTaskContext ctx = TestUtils.create(PAGE_SIZE);
+
+    private BufferCache createBufferCache(TransientFileMapManager fmm, boolean mapImmutableFiles) {
+        return new BufferCache(ctx.getIOManager(), new ClockPageReplacementStrategy(new HeapBufferAllocator(),
+                PAGE_SIZE, NUM_PAGES), new DelayPageCleanerPolicy(1000), fmm, MAX_OPEN_FILES, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                return new Thread(r);
+            }
+        }, false, mapImmutableFiles);
+    }
+
+    @Test
+    public void mappedReadTest() throws Exception {
+        File f = File.createTempFile("mappedImmutableFile", ".tmp");
+        f.deleteOnExit();
+        FileReference file = new FileReference(f);
+        TransientFileMapManager fmm = new TransientFileMapManager();
+        BufferCache bufferCache = createBufferCache(fmm, false);
+        bufferCache.createFile(file);
+        int fileId = fmm.lookupFileId(file);
+        bufferCache.openFile(fileId);
+        for (int i = 0; i < NUM_FILE_PAGES; i++) {
+            ICachedPage page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, i), true);
+            page.acquireWriteLatch();
+            try {
+                page.getBuffer().putInt(0, i);
+                page.getBuffer().putInt(PAGE_SIZE - 4, -i);
+            } finally {
+                page.releaseWriteLatch(true);
+                bufferCache.unpin(page);
+            }
+        }
+        bufferCache.closeFile(fileId);
+        bufferCache.close();
+
+        fmm = new TransientFileMapManager();
+        bufferCache = createBufferCache(fmm, true);
+        bufferCache.createFile(file);
+        fileId = fmm.lookupFileId(file);
+        bufferCache.openFile(fileId);
+        bufferCache.markFileImmutable(fileId);
+        long readCount = ctx.getIOManager().getReadCount();
+        // the file is larger than the cache, so pages are evicted and copied from the mapping again
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < NUM_FILE_PAGES; i++) {
+                ICachedPage page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, i), false);
+                page.acquireReadLatch();
+                try {
+                    Assert.assertEquals(i, page.getBuffer().getInt(0));
+                    Assert.assertEquals(-i, page.getBuffer().getInt(PAGE_SIZE - 4));
+                } finally {
+                    page.releaseReadLatch();
+                    bufferCache.unpin(page);
+                }
+            }
+        }
+        // no page was read through the file
+        Assert.assertEquals(readCount, ctx.getIOManager().getReadCount());
+        bufferCache.closeFile(fileId);
+        bufferCache.deleteFile(fileId, false);
+        bufferCache.close();
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.common;
+
+import java.io.File;
+import java.util.concurrent.ThreadFactory;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.hyracks.api.context.IHyracksTaskContext;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.api.io.FileReference;
+import org.apache.hyracks.storage.common.buffercache.CacheMemoryBudget;
+import org.apache.hyracks.storage.common.buffercache.ClockPageReplacementStrategy;
+import org.apache.hyracks.storage.common.buffercache.DelayPageCleanerPolicy;
+import org.apache.hyracks.storage.common.buffercache.HeapBufferAllocator;
+import org.apache.hyracks.storage.common.buffercache.ICachedPage;
+import org.apache.hyracks.storage.common.buffercache.IPageReplacementStrategy;
+import org.apache.hyracks.storage.common.buffercache.MultiPageSizeBufferCache;
+import org.apache.hyracks.storage.common.file.BufferedFileHandle;
+import org.apache.hyracks.storage.common.file.TransientFileMapManager;
+import org.apache.hyracks.test.support.TestUtils;
+
+public class MultiPageSizeBufferCacheTest {
+    private static final int SMALL_PAGE_SIZE = 256;
+    private static final int LARGE_PAGE_SIZE = 4096;
+    private static final int RESERVED_PAGES = 4;
+    private static final long BUDGET = 16 * LARGE_PAGE_SIZE;
+    private static final int NUM_FILE_PAGES = 40;
+    private static final int MAX_OPEN_FILES = 10;
+
+    private final IHyracksTaskContext ctx = TestUtils.create(SMALL_PAGE_SIZE);
+
+    private MultiPageSizeBufferCache createBufferCache(TransientFileMapManager fmm, CacheMemoryBudget budget) {
+        HeapBufferAllocator allocator = new HeapBufferAllocator();
+        IPageReplacementStrategy[] strategies = new IPageReplacementStrategy[] {
+                new ClockPageReplacementStrategy(allocator, SMALL_PAGE_SIZE, budget, RESERVED_PAGES),
+                new ClockPageReplacementStrategy(allocator, LARGE_PAGE_SIZE, budget, RESERVED_PAGES) };
+        return new MultiPageSizeBufferCache(ctx.getIOManager(), strategies, new DelayPageCleanerPolicy(1000), fmm,
+                MAX_OPEN_FILES, new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        return new Thread(r);
+                    }
+                });
+    }
+
+    private void writePages(MultiPageSizeBufferCache bufferCache, int fileId, int pageSize) throws HyracksDataException {
+        for (int i = 0; i < NUM_FILE_PAGES; i++) {
+            ICachedPage page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, i), true);
+            page.acquireWriteLatch();
+            try {
+                Assert.assertEquals(pageSize, page.getBuffer().capacity());
+                page.getBuffer().putInt(0, i);
+                page.getBuffer().putInt(pageSize - 4, pageSize);
+            } finally {
+                page.releaseWriteLatch(true);
+                bufferCache.unpin(page);
+            }
+        }
+    }
+
+    private void checkPages(MultiPageSizeBufferCache bufferCache, int fileId, int pageSize)
+            throws HyracksDataException {
+        for (int i = 0; i < NUM_FILE_PAGES; i++) {
+            ICachedPage page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, i), false);
+            page.acquireReadLatch();
+            try {
+                Assert.assertEquals(pageSize, page.getBuffer().capacity());
+                Assert.assertEquals(i, page.getBuffer().getInt(0));
+                Assert.assertEquals(pageSize, page.getBuffer().getInt(pageSize - 4));
+            } finally {
+                page.releaseReadLatch();
+                bufferCache.unpin(page);
+            }
+        }
+    }
+
+    @Test
+    public void twoPageSizesTest() throws Exception {
+        File smallFile = File.createTempFile("smallPages", ".tmp");
+        smallFile.deleteOnExit();
+        File largeFile = File.createTempFile("largePages", ".tmp");
+        largeFile.deleteOnExit();
+
+        TransientFileMapManager fmm = new TransientFileMapManager();
+        CacheMemoryBudget budget = new CacheMemoryBudget(BUDGET);
+        MultiPageSizeBufferCache bufferCache = createBufferCache(fmm, budget);
+        bufferCache.createFile(new FileReference(smallFile));
+        int smallFileId = fmm.lookupFileId(new FileReference(smallFile));
+        bufferCache.createFile(new FileReference(largeFile), LARGE_PAGE_SIZE);
+        int largeFileId = fmm.lookupFileId(new FileReference(largeFile));
+        Assert.assertEquals(SMALL_PAGE_SIZE, bufferCache.getPageSize(smallFileId));
+        Assert.assertEquals(LARGE_PAGE_SIZE, bufferCache.getPageSize(largeFileId));
+
+        bufferCache.openFile(smallFileId);
+        bufferCache.openFile(largeFileId);
+        // both files are larger than the budget allows to cache
+        writePages(bufferCache, smallFileId, SMALL_PAGE_SIZE);
+        writePages(bufferCache, largeFileId, LARGE_PAGE_SIZE);
+        checkPages(bufferCache, smallFileId, SMALL_PAGE_SIZE);
+        checkPages(bufferCache, largeFileId, LARGE_PAGE_SIZE);
+        long reserved = RESERVED_PAGES * (SMALL_PAGE_SIZE + LARGE_PAGE_SIZE);
+        Assert.assertTrue(budget.getAllocatedSharedBytes() + reserved <= BUDGET);
+        bufferCache.closeFile(smallFileId);
+        bufferCache.closeFile(largeFileId);
+        bufferCache.close();
+
+        // after a restart, the page size is declared when the file is opened
+        fmm = new TransientFileMapManager();
+        bufferCache = createBufferCache(fmm, new CacheMemoryBudget(BUDGET));
+        fmm.registerFile(new FileReference(largeFile));
+        largeFileId = fmm.lookupFileId(new FileReference(largeFile));
+        bufferCache.openFile(largeFileId, LARGE_PAGE_SIZE);
+        checkPages(bufferCache, largeFileId, LARGE_PAGE_SIZE);
+        try {
+            bufferCache.openFile(largeFileId, SMALL_PAGE_SIZE);
+            Assert.fail("Opened a file with two page sizes");
+        } catch (HyracksDataException e) {
+            // expected
+        }
+        bufferCache.closeFile(largeFileId);
+        bufferCache.close();
+    }
+
+    @Test
+    public void virtualPagesAndReopenTest() throws Exception {
+        File smallFile = File.createTempFile("smallPages", ".tmp");
+        smallFile.deleteOnExit();
+        File largeFile = File.createTempFile("largePages", ".tmp");
+        largeFile.deleteOnExit();
+
+        TransientFileMapManager fmm = new TransientFileMapManager();
+        MultiPageSizeBufferCache bufferCache = createBufferCache(fmm, new CacheMemoryBudget(BUDGET));
+        bufferCache.createFile(new FileReference(smallFile));
+        int smallFileId = fmm.lookupFileId(new FileReference(smallFile));
+        bufferCache.createFile(new FileReference(largeFile), LARGE_PAGE_SIZE);
+        int largeFileId = fmm.lookupFileId(new FileReference(largeFile));
+        bufferCache.openFile(smallFileId);
+        bufferCache.openFile(largeFileId);
+
+        // a virtual page belongs to the pool of its file and is copied to a page of the same size
+        long vpid = BufferedFileHandle.getDiskPageId(largeFileId, NUM_FILE_PAGES);
+        ICachedPage virtualPage = bufferCache.pinVirtual(vpid);
+        Assert.assertEquals(LARGE_PAGE_SIZE, virtualPage.getBuffer().capacity());
+        virtualPage.getBuffer().putInt(LARGE_PAGE_SIZE - 4, LARGE_PAGE_SIZE);
+        try {
+            bufferCache.unpinVirtual(vpid, BufferedFileHandle.getDiskPageId(smallFileId, 0));
+            Assert.fail("Copied a virtual page to a page of another size");
+        } catch (HyracksDataException e) {
+            // expected
+        }
+        ICachedPage page = bufferCache.unpinVirtual(vpid, BufferedFileHandle.getDiskPageId(largeFileId, 0));
+        Assert.assertEquals(LARGE_PAGE_SIZE, page.getBuffer().getInt(LARGE_PAGE_SIZE - 4));
+        bufferCache.unpin(page);
+
+        // a file that is reopened without declaring its page size stays in its pool
+        bufferCache.closeFile(largeFileId);
+        bufferCache.openFile(largeFileId);
+        Assert.assertEquals(LARGE_PAGE_SIZE, bufferCache.getPageSize(largeFileId));
+        page = bufferCache.pin(BufferedFileHandle.getDiskPageId(largeFileId, 0), false);
+        Assert.assertEquals(LARGE_PAGE_SIZE, page.getBuffer().getInt(LARGE_PAGE_SIZE - 4));
+        bufferCache.unpin(page);
+
+        // the pools together amount to the budget
+        Assert.assertTrue(bufferCache.getNumPages() <= BUDGET / SMALL_PAGE_SIZE);
+        Assert.assertTrue(bufferCache.getNumPages() >= (BUDGET - LARGE_PAGE_SIZE) / SMALL_PAGE_SIZE);
+
+        bufferCache.closeFile(smallFileId);
+        bufferCache.closeFile(largeFileId);
+        bufferCache.close();
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.common;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.hyracks.api.context.IHyracksTaskContext;
+import org.apache.hyracks.api.io.FileReference;
+import org.apache.hyracks.storage.common.buffercache.BufferCache;
+import org.apache.hyracks.storage.common.buffercache.ClockPageReplacementStrategy;
+import org.apache.hyracks.storage.common.buffercache.DelayPageCleanerPolicy;
+import org.apache.hyracks.storage.common.buffercache.HeapBufferAllocator;
+import org.apache.hyracks.storage.common.buffercache.ICachedPage;
+import org.apache.hyracks.storage.common.file.BufferedFileHandle;
+import org.apache.hyracks.storage.common.file.TransientFileMapManager;
+import org.apache.hyracks.test.support.TestUtils;
+
+public class OptimisticPageTableTest {
+    private static final int PAGE_SIZE = 256;
+    private static final int NUM_PAGES = 16;
+    private static final int NUM_FILE_PAGES = 64;
+    private static final int NUM_THREADS = 8;
+    private static final int PINS_PER_THREAD = 20000;
+    private static final int MAX_OPEN_FILES = 10;
+
+    private final IHyracksTaskContext ctx = TestUtils.create(PAGE_SIZE);
+
+    @Test
+    public void concurrentPinTest() throws Exception {
+        TransientFileMapManager fmm = new TransientFileMapManager();
+        final BufferCache bufferCache = new BufferCache(ctx.getIOManager(), new ClockPageReplacementStrategy(
+                new HeapBufferAllocator(), PAGE_SIZE, NUM_PAGES), new DelayPageCleanerPolicy(1000), fmm,
+                MAX_OPEN_FILES, new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        return new Thread(r);
+                    }
+                }, true);
+        File f = File.createTempFile("optimisticPageTable", ".tmp");
+        f.deleteOnExit();
+        FileReference file = new FileReference(f);
+        bufferCache.createFile(file);
+        final int fileId = fmm.lookupFileId(file);
+        bufferCache.openFile(fileId);
+
+        // stamp every page with its own page id, more pages than fit in the cache
+        for (int i = 0; i < NUM_FILE_PAGES; i++) {
+            ICachedPage page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, i), true);
+            page.acquireWriteLatch();
+            try {
+                page.getBuffer().putInt(0, i);
+            } finally {
+                page.releaseWriteLatch(true);
+                bufferCache.unpin(page);
+            }
+        }
+
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < NUM_THREADS; t++) {
+            final Random rnd = new Random(t);
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < PINS_PER_THREAD; i++) {
+                            int pageId = rnd.nextInt(NUM_FILE_PAGES);
+                            long dpid = BufferedFileHandle.getDiskPageId(fileId, pageId);
+                            ICachedPage page = bufferCache.pin(dpid, false);
+                            page.acquireReadLatch();
+                            try {
+                                Assert.assertEquals(pageId, page.getBuffer().getInt(0));
+                            } finally {
+                                page.releaseReadLatch();
+                                bufferCache.unpin(page);
+                            }
+                        }
+                    } catch (Throwable th) {
+                        failure.compareAndSet(null, th);
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        bufferCache.closeFile(fileId);
+        bufferCache.close();
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+    }
+}
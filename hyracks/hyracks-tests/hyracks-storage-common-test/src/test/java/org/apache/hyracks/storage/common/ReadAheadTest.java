@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.common;
+
+import java.io.File;
+import java.util.concurrent.ThreadFactory;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.hyracks.api.context.IHyracksTaskContext;
+import org.apache.hyracks.api.io.FileReference;
+import org.apache.hyracks.storage.common.buffercache.BufferCache;
+import org.apache.hyracks.storage.common.buffercache.ClockPageReplacementStrategy;
+import org.apache.hyracks.storage.common.buffercache.DelayPageCleanerPolicy;
+import org.apache.hyracks.storage.common.buffercache.HeapBufferAllocator;
+import org.apache.hyracks.storage.common.buffercache.IBufferCache;
+import org.apache.hyracks.storage.common.buffercache.ICachedPage;
+import org.apache.hyracks.storage.common.file.BufferedFileHandle;
+import org.apache.hyracks.storage.common.file.TransientFileMapManager;
+import org.apache.hyracks.test.support.TestUtils;
+
+public class ReadAheadTest {
+    private static final int PAGE_SIZE = 256;
+    private static final int NUM_PAGES = 64;
+    private static final int NUM_FILE_PAGES = 48;
+    private static final int READ_AHEAD_PAGES = 8;
+    private static final int MAX_OPEN_FILES = 10;
+
+    private final IHyracksTaskContext ctx = TestUtils.create(PAGE_SIZE);
+
+    private BufferCache createBufferCache(TransientFileMapManager fmm) {
+        return new BufferCache(ctx.getIOManager(), new ClockPageReplacementStrategy(new HeapBufferAllocator(),
+                PAGE_SIZE, NUM_PAGES), new DelayPageCleanerPolicy(1000), fmm, MAX_OPEN_FILES, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                return new Thread(r);
+            }
+        });
+    }
+
+    private FileReference writeFile() throws Exception {
+        File f = File.createTempFile("readAhead", ".tmp");
+        f.deleteOnExit();
+        FileReference file = new FileReference(f);
+
+        // write the file through its own cache instance, so that it is read back cold
+        TransientFileMapManager fmm = new TransientFileMapManager();
+        IBufferCache bufferCache = createBufferCache(fmm);
+        bufferCache.createFile(file);
+        int fileId = fmm.lookupFileId(file);
+        bufferCache.openFile(fileId);
+        for (int i = 0; i < NUM_FILE_PAGES; i++) {
+            ICachedPage page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, i), true);
+            page.acquireWriteLatch();
+            try {
+                page.getBuffer().putInt(0, i);
+                page.getBuffer().putInt(PAGE_SIZE - 4, -i);
+            } finally {
+                page.releaseWriteLatch(true);
+                bufferCache.unpin(page);
+            }
+        }
+        bufferCache.closeFile(fileId);
+        bufferCache.close();
+        return file;
+    }
+
+    @Test
+    public void readAheadTest() throws Exception {
+        FileReference file = writeFile();
+
+        // read it back, reading ahead in overlapping windows and past the end of the file
+        TransientFileMapManager fmm = new TransientFileMapManager();
+        IBufferCache bufferCache = createBufferCache(fmm);
+        bufferCache.createFile(file);
+        int fileId = fmm.lookupFileId(file);
+        bufferCache.openFile(fileId);
+        for (int i = 0; i < NUM_FILE_PAGES; i++) {
+            if (i % (READ_AHEAD_PAGES / 2) == 0) {
+                bufferCache.prefetch(BufferedFileHandle.getDiskPageId(fileId, i), READ_AHEAD_PAGES);
+            }
+            ICachedPage page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, i), false, true);
+            page.acquireReadLatch();
+            try {
+                Assert.assertEquals(i, page.getBuffer().getInt(0));
+                Assert.assertEquals(-i, page.getBuffer().getInt(PAGE_SIZE - 4));
+            } finally {
+                page.releaseReadLatch();
+                bufferCache.unpin(page);
+            }
+        }
+        bufferCache.closeFile(fileId);
+        // fails if a read-ahead run still holds a pin
+        bufferCache.deleteFile(fileId, true);
+        bufferCache.close();
+    }
+
+    @Test
+    public void readAheadPastEndOfFileTest() throws Exception {
+        FileReference file = writeFile();
+        TransientFileMapManager fmm = new TransientFileMapManager();
+        IBufferCache bufferCache = createBufferCache(fmm);
+        bufferCache.createFile(file);
+        int fileId = fmm.lookupFileId(file);
+        bufferCache.openFile(fileId);
+
+        // a window that starts at the end of the file is dropped, so the pin reads the page itself, exactly once
+        long readCount = ctx.getIOManager().getReadCount();
+        bufferCache.prefetch(BufferedFileHandle.getDiskPageId(fileId, NUM_FILE_PAGES), READ_AHEAD_PAGES);
+        ICachedPage page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, NUM_FILE_PAGES), false);
+        bufferCache.unpin(page);
+        Assert.assertEquals(readCount + 1, ctx.getIOManager().getReadCount());
+
+        bufferCache.closeFile(fileId);
+        bufferCache.deleteFile(fileId, true);
+        bufferCache.close();
+    }
+}
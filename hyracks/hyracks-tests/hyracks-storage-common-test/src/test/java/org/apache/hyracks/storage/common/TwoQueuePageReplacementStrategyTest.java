@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.common;
+
+import java.io.File;
+import java.util.concurrent.ThreadFactory;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.hyracks.api.context.IHyracksTaskContext;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.api.io.FileReference;
+import org.apache.hyracks.storage.common.buffercache.BufferCache;
+import org.apache.hyracks.storage.common.buffercache.DelayPageCleanerPolicy;
+import org.apache.hyracks.storage.common.buffercache.HeapBufferAllocator;
+import org.apache.hyracks.storage.common.buffercache.IBufferCache;
+import org.apache.hyracks.storage.common.buffercache.ICachedPage;
+import org.apache.hyracks.storage.common.buffercache.TwoQueuePageReplacementStrategy;
+import org.apache.hyracks.storage.common.file.BufferedFileHandle;
+import org.apache.hyracks.storage.common.file.TransientFileMapManager;
+import org.apache.hyracks.test.support.TestUtils;
+
+public class TwoQueuePageReplacementStrategyTest {
+    private static final int PAGE_SIZE = 256;
+    private static final int NUM_PAGES = 20;
+    private static final int NUM_HOT_PAGES = 5;
+    private static final int NUM_SCAN_PAGES = 10 * NUM_PAGES;
+    private static final int MAX_OPEN_FILES = 10;
+
+    private final IHyracksTaskContext ctx = TestUtils.create(PAGE_SIZE);
+
+    @Test
+    public void scanResistanceTest() throws Exception {
+        runScan(false);
+    }
+
+    @Test
+    public void sequentialScanResistanceTest() throws Exception {
+        runScan(true);
+    }
+
+    private void runScan(boolean sequential) throws Exception {
+        TransientFileMapManager fmm = new TransientFileMapManager();
+        IBufferCache bufferCache = new BufferCache(ctx.getIOManager(), new TwoQueuePageReplacementStrategy(
+                new HeapBufferAllocator(), PAGE_SIZE, NUM_PAGES), new DelayPageCleanerPolicy(1000), fmm,
+                MAX_OPEN_FILES, new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        return new Thread(r);
+                    }
+                });
+        File f = File.createTempFile("twoQueue", ".tmp");
+        f.deleteOnExit();
+        FileReference file = new FileReference(f);
+        bufferCache.createFile(file);
+        int fileId = fmm.lookupFileId(file);
+        bufferCache.openFile(fileId);
+
+        // touch the hot pages twice to promote them
+        for (int i = 0; i < 2; i++) {
+            for (int j = 0; j < NUM_HOT_PAGES; j++) {
+                pinAndUnpin(bufferCache, fileId, j, false);
+            }
+        }
+        // pages touched twice by a scan are not promoted
+        pinAndUnpin(bufferCache, fileId, NUM_HOT_PAGES, true);
+        pinAndUnpin(bufferCache, fileId, NUM_HOT_PAGES, true);
+
+        for (int i = 0; i < NUM_SCAN_PAGES; i++) {
+            pinAndUnpin(bufferCache, fileId, NUM_HOT_PAGES + 1 + i, sequential);
+        }
+
+        for (int j = 0; j < NUM_HOT_PAGES; j++) {
+            ICachedPage page = bufferCache.tryPin(BufferedFileHandle.getDiskPageId(fileId, j));
+            Assert.assertNotNull("Hot page " + j + " was evicted by a scan", page);
+            bufferCache.unpin(page);
+        }
+        Assert.assertNull(bufferCache.tryPin(BufferedFileHandle.getDiskPageId(fileId, NUM_HOT_PAGES)));
+
+        bufferCache.closeFile(fileId);
+        bufferCache.close();
+    }
+
+    private void pinAndUnpin(IBufferCache bufferCache, int fileId, int pageId, boolean sequential)
+            throws HyracksDataException {
+        ICachedPage page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, pageId), true, sequential);
+        bufferCache.unpin(page);
+    }
+}
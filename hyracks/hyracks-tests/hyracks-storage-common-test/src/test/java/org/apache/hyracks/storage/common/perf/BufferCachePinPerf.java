@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.common.perf;
+
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.hyracks.api.context.IHyracksTaskContext;
+import org.apache.hyracks.api.io.FileReference;
+import org.apache.hyracks.storage.common.buffercache.BufferCache;
+import org.apache.hyracks.storage.common.buffercache.ClockPageReplacementStrategy;
+import org.apache.hyracks.storage.common.buffercache.DelayPageCleanerPolicy;
+import org.apache.hyracks.storage.common.buffercache.HeapBufferAllocator;
+import org.apache.hyracks.storage.common.buffercache.ICachedPage;
+import org.apache.hyracks.storage.common.file.BufferedFileHandle;
+import org.apache.hyracks.storage.common.file.TransientFileMapManager;
+import org.apache.hyracks.test.support.TestUtils;
+
+/**
+ * Measures pin/unpin throughput of cache-resident pages against the number of threads, for the locked and the
+ * optimistic page table.
+ */
+public class BufferCachePinPerf {
+    private static final int PAGE_SIZE = 4096;
+    private static final int NUM_PAGES = 4096;
+    private static final int NUM_FILE_PAGES = 2048;
+    private static final int PINS_PER_THREAD = 2000000;
+    private static final int REPEATS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        for (int numThreads = 1; numThreads <= maxThreads; numThreads *= 2) {
+            runExperiment(numThreads, false);
+            runExperiment(numThreads, true);
+        }
+    }
+
+    private static void runExperiment(int numThreads, boolean optimisticPageTable) throws Exception {
+        IHyracksTaskContext ctx = TestUtils.create(PAGE_SIZE);
+        TransientFileMapManager fmm = new TransientFileMapManager();
+        final BufferCache bufferCache = new BufferCache(ctx.getIOManager(), new ClockPageReplacementStrategy(
+                new HeapBufferAllocator(), PAGE_SIZE, NUM_PAGES), new DelayPageCleanerPolicy(1000), fmm, 10,
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        return new Thread(r);
+                    }
+                }, optimisticPageTable);
+        File f = File.createTempFile("pinPerf", ".tmp");
+        f.deleteOnExit();
+        FileReference file = new FileReference(f);
+        bufferCache.createFile(file);
+        final int fileId = fmm.lookupFileId(file);
+        bufferCache.openFile(fileId);
+        for (int i = 0; i < NUM_FILE_PAGES; i++) {
+            bufferCache.unpin(bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, i), true));
+        }
+
+        long totalTime = 0;
+        for (int r = 0; r < REPEATS; r++) {
+            Thread[] threads = new Thread[numThreads];
+            for (int t = 0; t < numThreads; t++) {
+                final Random rnd = new Random(t);
+                threads[t] = new Thread() {
+                    @Override
+                    public void run() {
+                        try {
+                            for (int i = 0; i < PINS_PER_THREAD; i++) {
+                                long dpid = BufferedFileHandle.getDiskPageId(fileId, rnd.nextInt(NUM_FILE_PAGES));
+                                ICachedPage page = bufferCache.pin(dpid, false);
+                                bufferCache.unpin(page);
+                            }
+                        } catch (Exception e) {
+                            e.printStackTrace();
+                        }
+                    }
+                };
+            }
+            long start = System.currentTimeMillis();
+            for (Thread thread : threads) {
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            totalTime += System.currentTimeMillis() - start;
+        }
+        bufferCache.closeFile(fileId);
+        bufferCache.close();
+
+        long avgTime = Math.max(1, totalTime / REPEATS);
+        long pinsPerSec = (long) numThreads * PINS_PER_THREAD * 1000L / avgTime;
+        System.out.println((optimisticPageTable ? "OPTIMISTIC" : "LOCKED") + " THREADS: " + numThreads
+                + " AVG TIME: " + avgTime + "ms PINS/SEC: " + pinsPerSec);
+    }
+}